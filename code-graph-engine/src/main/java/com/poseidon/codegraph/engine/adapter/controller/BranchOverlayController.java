@@ -0,0 +1,84 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.service.BranchOverlayService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 分支覆盖层 Controller
+ * 特性分支登记为基线分支的覆盖层后，只索引与基线内容不同的文件；分支删除时回收覆盖层
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/branch")
+public class BranchOverlayController {
+
+    private final BranchOverlayService branchOverlayService;
+
+    @Autowired
+    public BranchOverlayController(BranchOverlayService branchOverlayService) {
+        this.branchOverlayService = branchOverlayService;
+    }
+
+    /**
+     * 登记覆盖层分支（需在推送该分支的变更之前登记）
+     */
+    @PostMapping("/overlay")
+    public ApiResponse<BranchOverlayService.OverlayStatus> register(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                                                   @RequestParam("gitBranch") String gitBranch,
+                                                                   @RequestParam("baseBranch") String baseBranch) {
+        log.info("登记分支覆盖层: repo={}, branch={}, base={}", gitRepoUrl, gitBranch, baseBranch);
+        try {
+            CodeScope overlay = branchOverlayService.register(gitRepoUrl, gitBranch, baseBranch);
+            return ApiResponse.success("分支覆盖层已登记", branchOverlayService.status(overlay));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("登记分支覆盖层失败: branch={}", gitBranch, e);
+            return ApiResponse.error("登记分支覆盖层失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 覆盖层状态（文件数、墓碑数、基线分支）
+     */
+    @GetMapping("/overlay")
+    public ApiResponse<BranchOverlayService.OverlayStatus> status(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                                                 @RequestParam("gitBranch") String gitBranch) {
+        CodeScope overlay = branchOverlayService.findOverlay(gitRepoUrl, gitBranch);
+        if (overlay == null) {
+            return ApiResponse.error(404, "分支不是覆盖层: " + gitBranch);
+        }
+        return ApiResponse.success(branchOverlayService.status(overlay));
+    }
+
+    /**
+     * 分支删除后回收覆盖层
+     */
+    @DeleteMapping("/overlay")
+    public ApiResponse<BranchOverlayService.OverlayStatus> delete(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                                                 @RequestParam("gitBranch") String gitBranch) {
+        log.info("回收分支覆盖层: repo={}, branch={}", gitRepoUrl, gitBranch);
+        try {
+            return ApiResponse.success("分支覆盖层已回收", branchOverlayService.delete(gitRepoUrl, gitBranch));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("回收分支覆盖层失败: branch={}", gitBranch, e);
+            return ApiResponse.error("回收分支覆盖层失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 覆盖层存储统计
+     */
+    @GetMapping("/overlay/stats")
+    public ApiResponse<Map<String, Object>> stats() {
+        return ApiResponse.success(branchOverlayService.snapshot());
+    }
+}
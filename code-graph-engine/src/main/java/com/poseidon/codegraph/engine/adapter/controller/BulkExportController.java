@@ -0,0 +1,79 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.adapter.dto.BulkExportRequest;
+import com.poseidon.codegraph.engine.application.service.BulkExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 首次全量导入 Controller
+ * 导出 neo4j-admin database import 所需的 CSV，导入后按导出摘要校验节点数和关系数
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/bulk")
+public class BulkExportController {
+    
+    private final BulkExportService bulkExportService;
+    
+    @Autowired
+    public BulkExportController(BulkExportService bulkExportService) {
+        this.bulkExportService = bulkExportService;
+    }
+    
+    /**
+     * 提交全量导出任务（后台执行，返回任务状态和输出目录）
+     */
+    @PostMapping("/export")
+    public ApiResponse<BulkExportService.ExportJob> export(@RequestBody BulkExportRequest request) {
+        log.info("全量导出请求: project={}, root={}", request.getProjectName(), request.getProjectRoot());
+        try {
+            if (request.getProjectName() == null || request.getProjectName().isEmpty()) {
+                return ApiResponse.error(400, "项目名称不能为空");
+            }
+            BulkExportService.ExportJob job = bulkExportService.submit(
+                request.getProjectName(),
+                request.getProjectRoot(),
+                request.getGitRepoUrl(),
+                request.getGitBranch(),
+                request.getClasspathEntries() != null ? request.getClasspathEntries().toArray(new String[0]) : null,
+                request.getSourcepathEntries() != null ? request.getSourcepathEntries().toArray(new String[0]) : null
+            );
+            return ApiResponse.success("全量导出任务已提交", job);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交全量导出任务失败", e);
+            return ApiResponse.error("提交全量导出任务失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 最近的导出任务（状态、进度、各文件行数、导入命令）
+     */
+    @GetMapping("/export/jobs")
+    public ApiResponse<Map<String, Object>> jobs() {
+        return ApiResponse.success(bulkExportService.snapshot());
+    }
+    
+    /**
+     * 导入后校验：对比导出摘要与图数据库中的节点数、关系数
+     */
+    @PostMapping("/verify")
+    public ApiResponse<Map<String, Object>> verify(@RequestParam String outputDir) {
+        try {
+            return ApiResponse.success(bulkExportService.verify(outputDir));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("导入校验失败: outputDir={}", outputDir, e);
+            return ApiResponse.error("导入校验失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.model.CallGraphPage;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.service.BranchOverlayService;
+import com.poseidon.codegraph.engine.application.service.CallGraphQueryService;
+import com.poseidon.codegraph.engine.application.service.CallGraphSnapshotService;
+import com.poseidon.codegraph.engine.domain.service.graph.CallGraphSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 调用图查询 Controller
+ * 函数ID为全限定名（如 com.example.UserService.findById(java.lang.Long)），通过查询参数传入；
+ * 可选 gitRepoUrl 指定函数所在仓库，按仓库的路由查询对应目标库
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/calls")
+public class CallGraphQueryController {
+    
+    private final CallGraphQueryService callGraphQueryService;
+    private final CallGraphSnapshotService callGraphSnapshotService;
+    private final BranchOverlayService branchOverlayService;
+    
+    @Autowired
+    public CallGraphQueryController(CallGraphQueryService callGraphQueryService,
+                                    CallGraphSnapshotService callGraphSnapshotService,
+                                    BranchOverlayService branchOverlayService) {
+        this.callGraphQueryService = callGraphQueryService;
+        this.callGraphSnapshotService = callGraphSnapshotService;
+        this.branchOverlayService = branchOverlayService;
+    }
+    
+    /**
+     * 直接调用方
+     */
+    @GetMapping("/callers")
+    public ApiResponse<CallGraphPage> callers(@RequestParam("functionId") String functionId,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                              @RequestParam(value = "gitRepoUrl", required = false) String gitRepoUrl) {
+        return query(gitRepoUrl, functionId, true, 1, offset, limit);
+    }
+    
+    /**
+     * 直接被调用方
+     */
+    @GetMapping("/callees")
+    public ApiResponse<CallGraphPage> callees(@RequestParam("functionId") String functionId,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                              @RequestParam(value = "gitRepoUrl", required = false) String gitRepoUrl) {
+        return query(gitRepoUrl, functionId, false, 1, offset, limit);
+    }
+    
+    /**
+     * N 层传递闭包
+     * @param direction callers（向上）/ callees（向下）
+     */
+    @GetMapping("/closure")
+    public ApiResponse<CallGraphPage> closure(@RequestParam("functionId") String functionId,
+                                              @RequestParam(value = "direction", defaultValue = "callers") String direction,
+                                              @RequestParam(value = "depth", defaultValue = "3") int depth,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                              @RequestParam(value = "gitRepoUrl", required = false) String gitRepoUrl) {
+        if (!"callers".equals(direction) && !"callees".equals(direction)) {
+            return ApiResponse.error(400, "direction 只能是 callers 或 callees");
+        }
+        return query(gitRepoUrl, functionId, "callers".equals(direction), depth, offset, limit);
+    }
+    
+    /**
+     * 在内存快照上遍历（只返回节点 ID、层数、文件，可跨端点关系）
+     * @param direction callers（沿入边）/ callees（沿出边）
+     * @param types 关系类型，逗号分隔：CALLS, ENDPOINT_TO_FUNCTION, FUNCTION_TO_ENDPOINT, MATCHES
+     * @param gitBranch 可选，是覆盖层分支时按覆盖层优先、其余回落到基线分支遍历
+     */
+    @GetMapping("/traverse")
+    public ApiResponse<CallGraphSnapshot.Traversal> traverse(@RequestParam("nodeId") String nodeId,
+                                                             @RequestParam(value = "direction", defaultValue = "callers") String direction,
+                                                             @RequestParam(value = "depth", defaultValue = "3") int depth,
+                                                             @RequestParam(value = "maxNodes", defaultValue = "10000") int maxNodes,
+                                                             @RequestParam(value = "types", defaultValue = "CALLS") String types,
+                                                             @RequestParam(value = "gitRepoUrl", required = false) String gitRepoUrl,
+                                                             @RequestParam(value = "gitBranch", required = false) String gitBranch) {
+        if (!"callers".equals(direction) && !"callees".equals(direction)) {
+            return ApiResponse.error(400, "direction 只能是 callers 或 callees");
+        }
+        int typeMask = 0;
+        for (String type : types.split(",")) {
+            int code = CallGraphSnapshot.typeOf(type.trim());
+            if (code < 0) {
+                return ApiResponse.error(400, "不支持的关系类型: " + type);
+            }
+            typeMask |= 1 << code;
+        }
+        try {
+            CodeScope overlay = branchOverlayService.findOverlay(gitRepoUrl, gitBranch);
+            return ApiResponse.success(callGraphSnapshotService.traverse(
+                nodeId, "callers".equals(direction), depth, maxNodes, typeMask,
+                overlay != null ? branchOverlayService.view(overlay) : null));
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        }
+    }
+    
+    /**
+     * 后台重新加载内存快照
+     */
+    @PostMapping("/snapshot/reload")
+    public ApiResponse<Boolean> reloadSnapshot() {
+        return ApiResponse.success(callGraphSnapshotService.reload());
+    }
+    
+    private ApiResponse<CallGraphPage> query(String gitRepoUrl, String functionId, boolean callers,
+                                             int depth, int offset, int limit) {
+        try {
+            return ApiResponse.success(callGraphQueryService.query(gitRepoUrl, functionId, callers, depth, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("调用图查询失败: functionId={}, callers={}, depth={}", functionId, callers, depth, e);
+            return ApiResponse.error("调用图查询失败: " + e.getMessage());
+        }
+    }
+}
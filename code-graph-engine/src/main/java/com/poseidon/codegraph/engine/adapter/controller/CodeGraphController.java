@@ -1,10 +1,13 @@
 package com.poseidon.codegraph.engine.adapter.controller;
 
+import com.poseidon.codegraph.engine.application.converter.FileContentCodec;
+import com.poseidon.codegraph.engine.application.service.ClasspathReindexService;
 import com.poseidon.codegraph.engine.application.service.IncrementalUpdateService;
 import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
 import com.poseidon.codegraph.engine.adapter.dto.CreateFileNodesRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -17,10 +20,20 @@ import org.springframework.web.bind.annotation.*;
 public class CodeGraphController {
     
     private final IncrementalUpdateService incrementalUpdateService;
+    private final ClasspathReindexService classpathReindexService;
+    
+    /**
+     * 内联文件内容解压后允许的最大字节数
+     */
+    private final long maxDecodedBytes;
     
     @Autowired
-    public CodeGraphController(IncrementalUpdateService incrementalUpdateService) {
+    public CodeGraphController(IncrementalUpdateService incrementalUpdateService,
+                               ClasspathReindexService classpathReindexService,
+                               @Value("${code-graph.content-store.max-decoded-bytes:16777216}") long maxDecodedBytes) {
         this.incrementalUpdateService = incrementalUpdateService;
+        this.classpathReindexService = classpathReindexService;
+        this.maxDecodedBytes = maxDecodedBytes;
     }
     
     /**
@@ -37,8 +50,9 @@ public class CodeGraphController {
                 request.getProjectName(), request.getAbsoluteFilePath(), request.getProjectFilePath());
             
             // 参数校验
-            if (request.getAbsoluteFilePath() == null || request.getAbsoluteFilePath().trim().isEmpty()) {
-                return ApiResponse.error(400, "文件绝对路径不能为空");
+            if (request.getContent() == null
+                    && (request.getAbsoluteFilePath() == null || request.getAbsoluteFilePath().trim().isEmpty())) {
+                return ApiResponse.error(400, "文件内容和文件绝对路径不能同时为空");
             }
             if (request.getProjectFilePath() == null || request.getProjectFilePath().trim().isEmpty()) {
                 return ApiResponse.error(400, "项目相对路径不能为空");
@@ -52,6 +66,14 @@ public class CodeGraphController {
                 ? request.getSourcepathEntries().toArray(new String[0])
                 : new String[0];
             
+            // 解码内联文件内容
+            String content;
+            try {
+                content = FileContentCodec.decode(request.getContent(), request.getContentEncoding(), request.getContentHash(), maxDecodedBytes);
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+            
             // 调用服务处理文件修改
             incrementalUpdateService.handleFileModified(
                 request.getProjectName(),
@@ -60,6 +82,16 @@ public class CodeGraphController {
                 request.getGitRepoUrl(),
                 request.getGitBranch(),
                 classpathEntries,
+                sourcepathEntries,
+                content
+            );
+            
+            // 记录 classpath，依赖变化时在后台定向重建受影响的文件
+            classpathReindexService.observe(
+                request.getProjectName(),
+                request.getGitRepoUrl(),
+                request.getGitBranch(),
+                classpathEntries,
                 sourcepathEntries
             );
             
@@ -72,6 +104,78 @@ public class CodeGraphController {
         }
     }
     
+    /**
+     * 重命名/移动文件
+     * 纯移动时原地改写节点路径和包名，内容有变化时按修改处理
+     * 
+     * @param request 创建文件节点请求（复用，oldProjectFilePath 为旧路径，projectFilePath 为新路径）
+     * @return API 响应
+     */
+    @PutMapping("/files/nodes/rename")
+    public ApiResponse<Void> renameFileNodes(@RequestBody CreateFileNodesRequest request) {
+        try {
+            log.info("重命名文件节点请求: projectName={}, {} -> {}", 
+                request.getProjectName(), request.getOldProjectFilePath(), request.getProjectFilePath());
+            
+            // 参数校验
+            if (request.getContent() == null
+                    && (request.getAbsoluteFilePath() == null || request.getAbsoluteFilePath().trim().isEmpty())) {
+                return ApiResponse.error(400, "文件内容和文件绝对路径不能同时为空");
+            }
+            if (request.getOldProjectFilePath() == null || request.getOldProjectFilePath().trim().isEmpty()) {
+                return ApiResponse.error(400, "旧项目相对路径不能为空");
+            }
+            if (request.getProjectFilePath() == null || request.getProjectFilePath().trim().isEmpty()) {
+                return ApiResponse.error(400, "项目相对路径不能为空");
+            }
+            
+            // 转换 classpath 和 sourcepath
+            String[] classpathEntries = request.getClasspathEntries() != null 
+                ? request.getClasspathEntries().toArray(new String[0])
+                : new String[0];
+            String[] sourcepathEntries = request.getSourcepathEntries() != null
+                ? request.getSourcepathEntries().toArray(new String[0])
+                : new String[0];
+            
+            // 解码内联文件内容
+            String content;
+            try {
+                content = FileContentCodec.decode(request.getContent(), request.getContentEncoding(), request.getContentHash(), maxDecodedBytes);
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+            
+            // 调用服务处理文件重命名
+            incrementalUpdateService.handleFileRenamed(
+                request.getProjectName(),
+                request.getAbsoluteFilePath(),
+                request.getOldProjectFilePath(),
+                request.getProjectFilePath(),
+                request.getGitRepoUrl(),
+                request.getGitBranch(),
+                classpathEntries,
+                sourcepathEntries,
+                content
+            );
+            
+            // 记录 classpath，依赖变化时在后台定向重建受影响的文件（变更集里的依赖变化可能随重命名一起到达）
+            classpathReindexService.observe(
+                request.getProjectName(),
+                request.getGitRepoUrl(),
+                request.getGitBranch(),
+                classpathEntries,
+                sourcepathEntries
+            );
+            
+            log.info("文件节点重命名成功: {} -> {}", request.getOldProjectFilePath(), request.getProjectFilePath());
+            return ApiResponse.success("文件节点重命名成功", null);
+            
+        } catch (Exception e) {
+            log.error("重命名文件节点失败: {}", request.getProjectFilePath(), e);
+            return ApiResponse.error("重命名文件节点失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 删除文件的所有节点
      * 删除指定文件相关的所有代码节点和调用关系
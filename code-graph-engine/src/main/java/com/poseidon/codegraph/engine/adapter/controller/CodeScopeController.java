@@ -0,0 +1,89 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.service.CodeScopeMigrationService;
+import com.poseidon.codegraph.engine.application.service.ScopeDeletionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 代码范围 Controller
+ * 已有图迁移：把节点上的 gitRepoUrl/gitBranch 字符串替换为 scopeId
+ * 删除仓库/分支：后台分批删除范围内的全部节点
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/scope")
+public class CodeScopeController {
+
+    private final CodeScopeMigrationService migrationService;
+    private final ScopeDeletionService deletionService;
+
+    @Autowired
+    public CodeScopeController(CodeScopeMigrationService migrationService,
+                               ScopeDeletionService deletionService) {
+        this.migrationService = migrationService;
+        this.deletionService = deletionService;
+    }
+
+    /**
+     * 提交迁移任务（后台分批执行，可重复提交）
+     */
+    @PostMapping("/migrate")
+    public ApiResponse<CodeScopeMigrationService.MigrationJob> migrate() {
+        log.info("范围迁移请求");
+        try {
+            return ApiResponse.success("范围迁移任务已提交", migrationService.submit());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交范围迁移任务失败", e);
+            return ApiResponse.error("提交范围迁移任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 最近一次迁移任务的状态和各标签已迁移节点数
+     */
+    @GetMapping("/migrate/status")
+    public ApiResponse<CodeScopeMigrationService.MigrationJob> status() {
+        return ApiResponse.success(migrationService.current());
+    }
+
+    /**
+     * 提交删除任务（后台分批限速执行；停止或失败后重新提交同一目标继续）
+     * @param gitBranch 为空时删除仓库的全部分支
+     */
+    @PostMapping("/delete")
+    public ApiResponse<ScopeDeletionService.DeletionJob> delete(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                                               @RequestParam(value = "gitBranch", required = false) String gitBranch) {
+        log.info("范围删除请求: repo={}, branch={}", gitRepoUrl, gitBranch);
+        try {
+            return ApiResponse.success("范围删除任务已提交", deletionService.submit(gitRepoUrl, gitBranch));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交范围删除任务失败: repo={}, branch={}", gitRepoUrl, gitBranch, e);
+            return ApiResponse.error("提交范围删除任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止执行中的删除任务（当前批次完成后停止）
+     */
+    @PostMapping("/delete/stop")
+    public ApiResponse<ScopeDeletionService.DeletionJob> stopDelete() {
+        return ApiResponse.success(deletionService.stop());
+    }
+
+    /**
+     * 最近一次删除任务的进度：已完成范围数、各标签已删除节点数、已删除关系数
+     */
+    @GetMapping("/delete/status")
+    public ApiResponse<ScopeDeletionService.DeletionJob> deleteStatus() {
+        return ApiResponse.success(deletionService.current());
+    }
+}
@@ -0,0 +1,105 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.service.GraphRouteService;
+import com.poseidon.codegraph.engine.application.service.ProjectMoveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图数据库路由 Controller
+ * 查看目标库和路由表、为新仓库登记目标库、把已有数据的仓库迁移到其他目标库
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/route")
+public class GraphRouteController {
+
+    private final GraphRouteService graphRouteService;
+    private final ProjectMoveService projectMoveService;
+
+    @Autowired
+    public GraphRouteController(GraphRouteService graphRouteService,
+                                ProjectMoveService projectMoveService) {
+        this.graphRouteService = graphRouteService;
+        this.projectMoveService = projectMoveService;
+    }
+
+    /**
+     * 已配置的目标库（第一个是默认库）
+     */
+    @GetMapping("/targets")
+    public ApiResponse<List<String>> targets() {
+        return ApiResponse.success(graphRouteService.targets());
+    }
+
+    /**
+     * 路由表（仓库 -> 目标库），未登记的仓库使用默认库
+     */
+    @GetMapping
+    public ApiResponse<Map<String, String>> routes() {
+        try {
+            return ApiResponse.success(graphRouteService.routes());
+        } catch (Exception e) {
+            log.error("查询路由表失败", e);
+            return ApiResponse.error("查询路由表失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 为还没有数据的仓库登记目标库（已有数据的仓库请使用迁移）
+     */
+    @PostMapping
+    public ApiResponse<String> assign(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                      @RequestParam("target") String target) {
+        log.info("登记路由请求: repo={}, target={}", gitRepoUrl, target);
+        try {
+            graphRouteService.assign(gitRepoUrl, target);
+            return ApiResponse.success("路由已登记", target);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("登记路由失败: repo={}, target={}", gitRepoUrl, target, e);
+            return ApiResponse.error("登记路由失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 提交迁移任务（后台分批限速执行；迁移期间拒绝该仓库的写入）
+     */
+    @PostMapping("/move")
+    public ApiResponse<ProjectMoveService.MoveJob> move(@RequestParam("gitRepoUrl") String gitRepoUrl,
+                                                        @RequestParam("target") String target) {
+        log.info("项目迁移请求: repo={}, target={}", gitRepoUrl, target);
+        try {
+            return ApiResponse.success("项目迁移任务已提交", projectMoveService.submit(gitRepoUrl, target));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交项目迁移任务失败: repo={}, target={}", gitRepoUrl, target, e);
+            return ApiResponse.error("提交项目迁移任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止执行中的迁移任务（当前批次完成后停止）
+     */
+    @PostMapping("/move/stop")
+    public ApiResponse<ProjectMoveService.MoveJob> stopMove() {
+        return ApiResponse.success(projectMoveService.stop());
+    }
+
+    /**
+     * 最近一次迁移任务的进度：当前阶段、各标签已复制/已删除节点数、各类型已复制关系数
+     */
+    @GetMapping("/move/status")
+    public ApiResponse<ProjectMoveService.MoveJob> moveStatus() {
+        return ApiResponse.success(projectMoveService.current());
+    }
+}
@@ -0,0 +1,86 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.adapter.dto.ImpactAnalysisRequest;
+import com.poseidon.codegraph.engine.application.model.ImpactSummary;
+import com.poseidon.codegraph.engine.application.service.ImpactAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 变更影响分析 Controller
+ * 结果以 NDJSON 流式返回：每行一个 {"type":"endpoint","data":{...}}，最后一行 {"type":"summary","data":{...}}
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/impact")
+public class ImpactAnalysisController {
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    private final ImpactAnalysisService impactAnalysisService;
+    private final ObjectMapper objectMapper;
+    
+    @Autowired
+    public ImpactAnalysisController(ImpactAnalysisService impactAnalysisService, ObjectMapper objectMapper) {
+        this.impactAnalysisService = impactAnalysisService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * 分析变更文件/行范围影响的入站端点
+     */
+    @PostMapping("/endpoints")
+    public ResponseEntity<StreamingResponseBody> impactedEndpoints(@RequestBody ImpactAnalysisRequest request) {
+        log.info("影响分析请求: repo={}, branch={}, files={}", request.getGitRepoUrl(), request.getGitBranch(),
+            request.getChanges() != null ? request.getChanges().size() : 0);
+        
+        StreamingResponseBody body = out -> {
+            try {
+                ImpactSummary summary = impactAnalysisService.analyze(
+                    request.getGitRepoUrl(),
+                    request.getGitBranch(),
+                    request.getChanges(),
+                    request.getMaxDepth(),
+                    request.getTimeoutMillis(),
+                    Boolean.TRUE.equals(request.getCrossService()),
+                    endpoint -> writeLine(out, "endpoint", endpoint)
+                );
+                writeLine(out, "summary", summary);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                writeLine(out, "error", ApiResponse.error(e instanceof IllegalArgumentException ? 400 : 503, e.getMessage()));
+            } catch (UncheckedIOException e) {
+                log.warn("影响分析结果写出中断: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("影响分析失败", e);
+                writeLine(out, "error", ApiResponse.error("影响分析失败: " + e.getMessage()));
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK).contentType(NDJSON).body(body);
+    }
+    
+    private void writeLine(OutputStream out, String type, Object data) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", type);
+        line.put("data", data);
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.service.CallGraphQueryService;
+import com.poseidon.codegraph.engine.application.service.CallGraphSnapshotService;
+import com.poseidon.codegraph.engine.application.service.ClasspathReindexService;
+import com.poseidon.codegraph.engine.application.service.FileManifestService;
+import com.poseidon.codegraph.engine.application.service.GraphWriteBuffer;
+import com.poseidon.codegraph.engine.application.service.KnownFunctionIndex;
+import com.poseidon.codegraph.engine.application.service.KnownPackageCache;
+import com.poseidon.codegraph.engine.domain.parser.ParseMetrics;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 指标 Controller
+ * 暴露引擎内部运行指标
+ */
+@RestController
+@RequestMapping("/api/code-graph/metrics")
+public class MetricsController {
+    
+    private final ParseMetrics parseMetrics;
+    private final ParseResultCache parseResultCache;
+    private final ClasspathReindexService classpathReindexService;
+    private final FileContentStore fileContentStore;
+    private final CallGraphQueryService callGraphQueryService;
+    private final CallGraphSnapshotService callGraphSnapshotService;
+    private final FileManifestService fileManifestService;
+    private final KnownPackageCache knownPackageCache;
+    private final KnownFunctionIndex knownFunctionIndex;
+    private final GraphWriteBuffer graphWriteBuffer;
+    
+    @Autowired
+    public MetricsController(ParseMetrics parseMetrics, ObjectProvider<ParseResultCache> parseResultCache,
+                             ClasspathReindexService classpathReindexService,
+                             ObjectProvider<FileContentStore> fileContentStore,
+                             CallGraphQueryService callGraphQueryService,
+                             CallGraphSnapshotService callGraphSnapshotService,
+                             FileManifestService fileManifestService,
+                             KnownPackageCache knownPackageCache,
+                             KnownFunctionIndex knownFunctionIndex,
+                             GraphWriteBuffer graphWriteBuffer) {
+        this.parseMetrics = parseMetrics;
+        this.parseResultCache = parseResultCache.getIfAvailable();
+        this.classpathReindexService = classpathReindexService;
+        this.fileContentStore = fileContentStore.getIfAvailable();
+        this.callGraphQueryService = callGraphQueryService;
+        this.callGraphSnapshotService = callGraphSnapshotService;
+        this.fileManifestService = fileManifestService;
+        this.knownPackageCache = knownPackageCache;
+        this.knownFunctionIndex = knownFunctionIndex;
+        this.graphWriteBuffer = graphWriteBuffer;
+    }
+    
+    /**
+     * 解析指标：解析文件数、超时数、降级数、最近降级文件明细
+     */
+    @GetMapping("/parse")
+    public ApiResponse<Map<String, Object>> parse() {
+        return ApiResponse.success(parseMetrics.snapshot());
+    }
+    
+    /**
+     * 解析结果缓存指标：命中、未命中、写入、淘汰、占用空间
+     */
+    @GetMapping("/parse-cache")
+    public ApiResponse<Map<String, Object>> parseCache() {
+        if (parseResultCache == null) {
+            return ApiResponse.error(404, "解析结果缓存未启用");
+        }
+        return ApiResponse.success(parseResultCache.snapshot());
+    }
+    
+    /**
+     * classpath 定向重建任务：跟踪的项目数、最近任务的变化包数、受影响文件数和进度
+     */
+    @GetMapping("/classpath-reindex")
+    public ApiResponse<Map<String, Object>> classpathReindex() {
+        return ApiResponse.success(classpathReindexService.snapshot());
+    }
+    
+    /**
+     * 文件内容存储指标：ref 数、blob 数、命中、未命中
+     */
+    @GetMapping("/content-store")
+    public ApiResponse<Map<String, Object>> contentStore() {
+        if (fileContentStore == null) {
+            return ApiResponse.error(404, "文件内容存储未启用");
+        }
+        return ApiResponse.success(fileContentStore.snapshot());
+    }
+    
+    /**
+     * 调用图查询缓存指标：命中、未命中、失效、淘汰、条目数
+     */
+    @GetMapping("/call-graph-cache")
+    public ApiResponse<Map<String, Object>> callGraphCache() {
+        return ApiResponse.success(callGraphQueryService.cacheSnapshot());
+    }
+    
+    /**
+     * 调用图内存快照指标：状态、节点数、基线边数、差量、内存占用
+     */
+    @GetMapping("/call-graph-snapshot")
+    public ApiResponse<Map<String, Object>> callGraphSnapshot() {
+        return ApiResponse.success(callGraphSnapshotService.snapshot());
+    }
+    
+    /**
+     * 文件清单指标：条目数、内存命中、磁盘命中、未命中（回查图数据库）、写入次数
+     */
+    @GetMapping("/file-manifest")
+    public ApiResponse<Map<String, Object>> fileManifest() {
+        return ApiResponse.success(fileManifestService.snapshot());
+    }
+    
+    /**
+     * 已写入包 ID 缓存指标：条目数、跳过写入的包数、实际写入的包数
+     */
+    @GetMapping("/known-packages")
+    public ApiResponse<Map<String, Object>> knownPackages() {
+        return ApiResponse.success(knownPackageCache.snapshot());
+    }
+    
+    /**
+     * 已知函数索引指标：跳过/发出的存在性查询、LRU 命中、Bloom 判否、实测与估算误判率
+     */
+    @GetMapping("/known-functions")
+    public ApiResponse<Map<String, Object>> knownFunctions() {
+        return ApiResponse.success(knownFunctionIndex.snapshot());
+    }
+    
+    /**
+     * 写入合并缓冲指标：汇总及按目标库的待写入行数、刷写次数、按原因/阶段的刷写规模、刷写耗时
+     */
+    @GetMapping("/write-coalescing")
+    public ApiResponse<Map<String, Object>> writeCoalescing() {
+        return ApiResponse.success(graphWriteBuffer.snapshot());
+    }
+}
@@ -0,0 +1,56 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.service.PlaceholderGcService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 占位符回收 Controller
+ * 删除不再有调用方的占位符函数
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/placeholder")
+public class PlaceholderGcController {
+
+    private final PlaceholderGcService gcService;
+
+    @Autowired
+    public PlaceholderGcController(PlaceholderGcService gcService) {
+        this.gcService = gcService;
+    }
+
+    /**
+     * 提交回收任务（后台限速执行；上次停止或失败时从游标继续）
+     */
+    @PostMapping("/gc")
+    public ApiResponse<PlaceholderGcService.GcJob> gc() {
+        log.info("占位符回收请求");
+        try {
+            return ApiResponse.success("占位符回收任务已提交", gcService.submit());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(503, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交占位符回收任务失败", e);
+            return ApiResponse.error("提交占位符回收任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止执行中的任务（当前批次完成后停止）
+     */
+    @PostMapping("/gc/stop")
+    public ApiResponse<PlaceholderGcService.GcJob> stop() {
+        return ApiResponse.success(gcService.stop());
+    }
+
+    /**
+     * 最近一次回收任务的状态、扫描数和已回收数
+     */
+    @GetMapping("/gc/status")
+    public ApiResponse<PlaceholderGcService.GcJob> status() {
+        return ApiResponse.success(gcService.current());
+    }
+}
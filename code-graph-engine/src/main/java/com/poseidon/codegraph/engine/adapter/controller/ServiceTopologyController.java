@@ -0,0 +1,79 @@
+package com.poseidon.codegraph.engine.adapter.controller;
+
+import com.poseidon.codegraph.engine.adapter.dto.ApiResponse;
+import com.poseidon.codegraph.engine.application.model.ServiceDependencyDO;
+import com.poseidon.codegraph.engine.application.service.ServiceTopologyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 服务拓扑 Controller
+ * 服务名为端点的 serviceName（未配置时为 gitRepoUrl），通过查询参数传入
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/code-graph/services")
+public class ServiceTopologyController {
+    
+    private final ServiceTopologyService serviceTopologyService;
+    
+    @Autowired
+    public ServiceTopologyController(ServiceTopologyService serviceTopologyService) {
+        this.serviceTopologyService = serviceTopologyService;
+    }
+    
+    /**
+     * 全部服务依赖
+     */
+    @GetMapping("/dependencies/all")
+    public ApiResponse<List<ServiceDependencyDO>> all() {
+        try {
+            return ApiResponse.success(serviceTopologyService.findAllDependencies());
+        } catch (Exception e) {
+            log.error("查询全部服务依赖失败", e);
+            return ApiResponse.error("查询全部服务依赖失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 谁调用了指定服务
+     */
+    @GetMapping("/dependents")
+    public ApiResponse<List<ServiceDependencyDO>> dependents(@RequestParam("name") String name) {
+        try {
+            return ApiResponse.success(serviceTopologyService.findDependents(name));
+        } catch (Exception e) {
+            log.error("查询服务调用方失败: name={}", name, e);
+            return ApiResponse.error("查询服务调用方失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 指定服务调用了谁
+     */
+    @GetMapping("/dependencies")
+    public ApiResponse<List<ServiceDependencyDO>> dependencies(@RequestParam("name") String name) {
+        try {
+            return ApiResponse.success(serviceTopologyService.findDependencies(name));
+        } catch (Exception e) {
+            log.error("查询服务依赖失败: name={}", name, e);
+            return ApiResponse.error("查询服务依赖失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 从已有 MATCHES 关系构建拓扑（首次上线时执行一次；之后随端点增删增量维护）
+     */
+    @PostMapping("/rebuild")
+    public ApiResponse<Integer> rebuild() {
+        try {
+            return ApiResponse.success(serviceTopologyService.rebuild());
+        } catch (Exception e) {
+            log.error("构建服务拓扑失败", e);
+            return ApiResponse.error("构建服务拓扑失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.poseidon.codegraph.engine.adapter.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 首次全量导出请求 DTO
+ */
+@Data
+public class BulkExportRequest {
+    /**
+     * 项目名称（Git 仓库名），用于生成全局唯一 ID
+     */
+    private String projectName;
+    
+    /**
+     * 项目根目录（Git 根目录的绝对路径），文件的项目相对路径以它为基准
+     */
+    private String projectRoot;
+    
+    /**
+     * Git 仓库 URL
+     */
+    private String gitRepoUrl;
+    
+    /**
+     * Git 分支
+     */
+    private String gitBranch;
+    
+    /**
+     * classpath 条目
+     */
+    private List<String> classpathEntries;
+    
+    /**
+     * sourcepath 条目
+     */
+    private List<String> sourcepathEntries;
+}
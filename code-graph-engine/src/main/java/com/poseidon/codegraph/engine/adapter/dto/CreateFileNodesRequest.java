@@ -19,12 +19,32 @@ public class CreateFileNodesRequest {
      */
     private String absoluteFilePath;
     
+    /**
+     * 文件内容（可选；提供时不再读取 absoluteFilePath）
+     */
+    private String content;
+    
+    /**
+     * 文件内容编码：plain（默认）或 gzip（gzip 压缩后 Base64 编码）
+     */
+    private String contentEncoding;
+    
+    /**
+     * 文件内容 SHA-256（可选，十六进制；提供时校验解码后的内容）
+     */
+    private String contentHash;
+    
     /**
      * 项目文件路径（相对于 Git 根目录，用于存储 ID）
      * 例如：code-graph-engine/src/main/java/com/Example.java
      */
     private String projectFilePath;
     
+    /**
+     * 旧项目文件路径（仅重命名/移动时使用）
+     */
+    private String oldProjectFilePath;
+    
     /**
      * Git 仓库 URL
      * 例如：https://github.com/company/project.git
@@ -0,0 +1,43 @@
+package com.poseidon.codegraph.engine.adapter.dto;
+
+import com.poseidon.codegraph.engine.application.model.ChangedFile;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 变更影响分析请求
+ */
+@Data
+public class ImpactAnalysisRequest {
+    
+    /**
+     * Git 仓库 URL（为空时不按仓库过滤）
+     */
+    private String gitRepoUrl;
+    
+    /**
+     * Git 分支（为空时不按分支过滤）
+     */
+    private String gitBranch;
+    
+    /**
+     * 变更文件及行范围
+     */
+    private List<ChangedFile> changes;
+    
+    /**
+     * 最大反向遍历层数（为空时使用默认值）
+     */
+    private Integer maxDepth;
+    
+    /**
+     * 时间预算（毫秒，为空时使用默认值）
+     */
+    private Long timeoutMillis;
+    
+    /**
+     * 是否跨服务（沿 MATCHES 追到调用方服务的入站端点）
+     */
+    private Boolean crossService;
+}
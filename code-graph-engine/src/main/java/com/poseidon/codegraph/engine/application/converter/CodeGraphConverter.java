@@ -21,6 +21,8 @@ public class CodeGraphConverter {
         domain.setQualifiedName(dobj.getQualifiedName());
         domain.setLanguage(dobj.getLanguage());
         domain.setProjectFilePath(dobj.getProjectFilePath());
+        domain.setGitRepoUrl(dobj.getGitRepoUrl());
+        domain.setGitBranch(dobj.getGitBranch());
         domain.setPackagePath(dobj.getPackagePath());
         return domain;
     }
@@ -34,12 +36,17 @@ public class CodeGraphConverter {
         domain.setQualifiedName(dobj.getQualifiedName());
         domain.setLanguage(dobj.getLanguage());
         domain.setProjectFilePath(dobj.getProjectFilePath());
+        domain.setGitRepoUrl(dobj.getGitRepoUrl());
+        domain.setGitBranch(dobj.getGitBranch());
         domain.setStartLine(dobj.getStartLine());
         domain.setEndLine(dobj.getEndLine());
         domain.setUnitType(dobj.getUnitType());
         domain.setModifiers(dobj.getModifiers());
         domain.setIsAbstract(dobj.getIsAbstract());
         domain.setPackageId(dobj.getPackageId());
+        domain.setIsDegraded(dobj.getIsDegraded());
+        domain.setImportedPackages(dobj.getImportedPackages());
+        domain.setSourceHash(dobj.getSourceHash());
         return domain;
     }
     
@@ -52,6 +59,8 @@ public class CodeGraphConverter {
         domain.setQualifiedName(dobj.getQualifiedName());
         domain.setLanguage(dobj.getLanguage());
         domain.setProjectFilePath(dobj.getProjectFilePath());
+        domain.setGitRepoUrl(dobj.getGitRepoUrl());
+        domain.setGitBranch(dobj.getGitBranch());
         domain.setStartLine(dobj.getStartLine());
         domain.setEndLine(dobj.getEndLine());
         domain.setSignature(dobj.getSignature());
@@ -61,6 +70,7 @@ public class CodeGraphConverter {
         domain.setIsAsync(dobj.getIsAsync());
         domain.setIsConstructor(dobj.getIsConstructor());
         domain.setIsPlaceholder(dobj.getIsPlaceholder());
+        domain.setIsDegraded(dobj.getIsDegraded());
         return domain;
     }
     
@@ -78,6 +88,8 @@ public class CodeGraphConverter {
         }
         
         domain.setLineNumber(dobj.getLineNumber());
+        domain.setCallCount(dobj.getCallCount());
+        domain.setLineNumbers(dobj.getLineNumbers());
         domain.setCallType(dobj.getCallType());
         domain.setLanguage(dobj.getLanguage());
         return domain;
@@ -164,6 +176,8 @@ public class CodeGraphConverter {
         dobj.setQualifiedName(domain.getQualifiedName());
         dobj.setLanguage(domain.getLanguage());
         dobj.setProjectFilePath(domain.getProjectFilePath());
+        dobj.setGitRepoUrl(domain.getGitRepoUrl());
+        dobj.setGitBranch(domain.getGitBranch());
         dobj.setPackagePath(domain.getPackagePath());
         return dobj;
     }
@@ -177,12 +191,17 @@ public class CodeGraphConverter {
         dobj.setQualifiedName(domain.getQualifiedName());
         dobj.setLanguage(domain.getLanguage());
         dobj.setProjectFilePath(domain.getProjectFilePath());
+        dobj.setGitRepoUrl(domain.getGitRepoUrl());
+        dobj.setGitBranch(domain.getGitBranch());
         dobj.setStartLine(domain.getStartLine());
         dobj.setEndLine(domain.getEndLine());
         dobj.setUnitType(domain.getUnitType());
         dobj.setModifiers(domain.getModifiers());
         dobj.setIsAbstract(domain.getIsAbstract());
         dobj.setPackageId(domain.getPackageId());
+        dobj.setIsDegraded(domain.getIsDegraded());
+        dobj.setImportedPackages(domain.getImportedPackages());
+        dobj.setSourceHash(domain.getSourceHash());
         return dobj;
     }
     
@@ -195,6 +214,8 @@ public class CodeGraphConverter {
         dobj.setQualifiedName(domain.getQualifiedName());
         dobj.setLanguage(domain.getLanguage());
         dobj.setProjectFilePath(domain.getProjectFilePath());
+        dobj.setGitRepoUrl(domain.getGitRepoUrl());
+        dobj.setGitBranch(domain.getGitBranch());
         dobj.setStartLine(domain.getStartLine());
         dobj.setEndLine(domain.getEndLine());
         dobj.setSignature(domain.getSignature());
@@ -204,6 +225,7 @@ public class CodeGraphConverter {
         dobj.setIsAsync(domain.getIsAsync());
         dobj.setIsConstructor(domain.getIsConstructor());
         dobj.setIsPlaceholder(domain.getIsPlaceholder());
+        dobj.setIsDegraded(domain.getIsDegraded());
         return dobj;
     }
     
@@ -221,6 +243,8 @@ public class CodeGraphConverter {
         }
         
         dobj.setLineNumber(domain.getLineNumber());
+        dobj.setCallCount(domain.getCallCount());
+        dobj.setLineNumbers(domain.getLineNumbers());
         dobj.setCallType(domain.getCallType());
         dobj.setLanguage(domain.getLanguage());
         return dobj;
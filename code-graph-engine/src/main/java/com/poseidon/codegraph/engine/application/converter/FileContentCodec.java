@@ -0,0 +1,96 @@
+package com.poseidon.codegraph.engine.application.converter;
+
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 请求内联文件内容解码器
+ * 
+ * 支持的编码：
+ * - plain（默认）：原始文本
+ * - gzip：gzip 压缩后再 Base64 编码
+ * 
+ * 提供了 contentHash 时校验解码后内容的 SHA-256，防止传输截断或路径与内容错配
+ * 解压后的字节数受 maxBytes 限制，防止小请求体解压出超大内容（压缩炸弹）
+ */
+public final class FileContentCodec {
+    
+    public static final String ENCODING_PLAIN = "plain";
+    public static final String ENCODING_GZIP = "gzip";
+    
+    private FileContentCodec() {
+    }
+    
+    /**
+     * 解码文件内容
+     * 
+     * @param content 请求中的内容（为 null 时返回 null）
+     * @param encoding 编码方式（为空视为 plain）
+     * @param expectedHash 期望的 SHA-256（可为空）
+     * @param maxBytes 解压后允许的最大字节数
+     * @return 解码后的文件内容
+     * @throws IllegalArgumentException 编码不支持、解码失败、超过大小上限或哈希不一致
+     */
+    public static String decode(String content, String encoding, String expectedHash, long maxBytes) {
+        if (content == null) {
+            return null;
+        }
+        String decoded;
+        if (encoding == null || encoding.isEmpty() || ENCODING_PLAIN.equalsIgnoreCase(encoding)) {
+            decoded = content;
+        } else if (ENCODING_GZIP.equalsIgnoreCase(encoding)) {
+            decoded = gunzip(content, maxBytes);
+        } else {
+            throw new IllegalArgumentException("不支持的内容编码: " + encoding);
+        }
+        
+        if (expectedHash != null && !expectedHash.isEmpty()) {
+            String actualHash = ContentHasher.sha256(decoded);
+            if (!actualHash.equalsIgnoreCase(expectedHash)) {
+                throw new IllegalArgumentException("文件内容哈希不一致: expected=" + expectedHash + ", actual=" + actualHash);
+            }
+        }
+        return decoded;
+    }
+    
+    /**
+     * 读取流的全部内容，超过 maxBytes 时立即停止读取
+     * 
+     * @throws IllegalArgumentException 内容超过大小上限
+     */
+    public static byte[] readBounded(InputStream in, long maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBytes) {
+                throw new IllegalArgumentException("文件内容解压后超过上限: maxBytes=" + maxBytes);
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+    
+    private static String gunzip(String base64, long maxBytes) {
+        byte[] compressed;
+        try {
+            compressed = Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("文件内容解压失败: " + e.getMessage(), e);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(readBounded(in, maxBytes), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("文件内容解压失败: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+/**
+ * 调用图查询结果节点
+ */
+@Data
+public class CallGraphNodeDO {
+    private String id;
+    private String name;
+    private String qualifiedName;
+    private String signature;
+    private String projectFilePath;
+    private String gitRepoUrl;
+    private String gitBranch;
+    private Boolean isPlaceholder;
+    private Integer depth;           // 距查询函数的调用层数（直接调用为 1）
+}
@@ -0,0 +1,21 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 调用图查询分页结果
+ */
+@Data
+public class CallGraphPage {
+    private String functionId;
+    private String direction;        // callers / callees
+    private Integer depth;
+    private Integer offset;
+    private Integer limit;
+    private Integer total;           // 结果总数（截断时为截断后的数量）
+    private Boolean truncated;       // 是否因节点数上限被截断
+    private Boolean cached;          // 是否命中缓存
+    private List<CallGraphNodeDO> items;
+}
@@ -0,0 +1,21 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 变更文件及变更行范围（影响分析输入）
+ */
+@Data
+public class ChangedFile {
+    private String projectFilePath;
+    private List<LineRange> ranges = new ArrayList<>();   // 为空表示整个文件
+    
+    @Data
+    public static class LineRange {
+        private Integer startLine;
+        private Integer endLine;
+    }
+}
@@ -24,5 +24,6 @@ public class CodeFunctionDO {
     private Boolean isAsync;
     private Boolean isConstructor;
     private Boolean isPlaceholder;
+    private Boolean isDegraded;
 }
 
@@ -2,6 +2,8 @@ package com.poseidon.codegraph.engine.application.model;
 
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * 代码关系数据对象（应用层）
  * 包括调用关系、结构关系等
@@ -30,6 +32,16 @@ public class CodeRelationshipDO {
      */
     private Integer lineNumber;
     
+    /**
+     * 调用次数（仅用于 CALLS 关系）
+     */
+    private Integer callCount;
+    
+    /**
+     * 全部调用点行号（仅用于 CALLS 关系）
+     */
+    private List<Integer> lineNumbers;
+    
     /**
      * 调用类型：static, virtual, direct（仅用于 CALLS 关系）
      */
@@ -0,0 +1,30 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+/**
+ * 代码范围（仓库 + 分支）
+ * 节点只存整数 scopeId，仓库 URL 和分支名集中存放在 (:CodeScope) 节点上
+ */
+@Data
+public class CodeScope {
+    /**
+     * 范围 ID（从 1 开始递增）
+     */
+    private int id;
+
+    /**
+     * Git 仓库 URL（未知时为 null）
+     */
+    private String gitRepoUrl;
+
+    /**
+     * Git 分支名（未知时为 null）
+     */
+    private String gitBranch;
+
+    /**
+     * 覆盖层的基线范围 ID（null 表示独立分支；非 null 时本分支只保存与基线内容不同的文件）
+     */
+    private Integer baseScopeId;
+}
@@ -21,5 +21,8 @@ public class CodeUnitDO {
     private List<String> modifiers;
     private Boolean isAbstract;
     private String packageId;
+    private Boolean isDegraded;
+    private List<String> importedPackages;
+    private String sourceHash;
 }
 
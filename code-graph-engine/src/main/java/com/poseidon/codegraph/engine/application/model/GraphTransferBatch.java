@@ -0,0 +1,17 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨库迁移时读出的一批节点或关系
+ */
+@Data
+public class GraphTransferBatch {
+    private int scanned;                                     // 本批扫描的节点数（读关系时为起点数），为 0 表示已读完
+    private String lastId;                                   // 本批最后扫描的节点 ID，下一批从其后继续
+    private List<Map<String, Object>> rows = new ArrayList<>();  // 节点 {id, props}；关系 {fromId, toId, props, toProps}
+}
@@ -0,0 +1,16 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+/**
+ * 影响分析汇总
+ */
+@Data
+public class ImpactSummary {
+    private Integer changedFunctions;
+    private Integer visitedNodes;
+    private Integer impactedEndpoints;
+    private Boolean truncated;           // 因节点数上限提前结束
+    private Boolean timedOut;            // 因时间预算提前结束
+    private Long elapsedMillis;
+}
@@ -0,0 +1,23 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 受影响的入站端点（影响分析结果）
+ */
+@Data
+public class ImpactedEndpoint {
+    private String endpointId;
+    private String endpointType;
+    private String httpMethod;
+    private String path;
+    private String topic;
+    private String serviceName;
+    private String projectFilePath;
+    private String gitRepoUrl;
+    private Integer depth;               // 从变更函数到端点的跳数
+    private String changedFunctionId;    // 路径起点（变更函数）
+    private List<String> samplePath;     // 路径样例：变更函数 -> ... -> 端点
+}
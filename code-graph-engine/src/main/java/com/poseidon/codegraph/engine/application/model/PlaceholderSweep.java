@@ -0,0 +1,16 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一批占位符扫描结果
+ */
+@Data
+public class PlaceholderSweep {
+    private int scanned;                                  // 本批扫描的函数数，为 0 表示已扫描完
+    private String lastId;                                // 本批最后扫描的 ID，下一批从其后继续
+    private List<String> orphanIds = new ArrayList<>();   // 无入边的占位符（待复查后删除）
+}
@@ -0,0 +1,16 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按范围删除的一批节点
+ */
+@Data
+public class ScopeDeleteBatch {
+    private int count;                                          // 本批删除的节点数，0 表示该标签已删完
+    private List<String> ids = new ArrayList<>();               // 删除的节点 ID
+    private List<String> projectFilePaths = new ArrayList<>();  // 删除的节点涉及的文件（去重）
+}
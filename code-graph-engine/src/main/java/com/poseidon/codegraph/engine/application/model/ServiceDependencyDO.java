@@ -0,0 +1,15 @@
+package com.poseidon.codegraph.engine.application.model;
+
+import lombok.Data;
+
+/**
+ * 服务依赖数据对象（Service -[:DEPENDS_ON]-> Service）
+ */
+@Data
+public class ServiceDependencyDO {
+    private String fromService;
+    private String toService;
+    private Long outboundEndpoints;  // 调用方匹配上的 outbound 端点数
+    private Long matchedEndpoints;   // 被调用方被匹配的 inbound 端点数
+    private Long updatedAt;
+}
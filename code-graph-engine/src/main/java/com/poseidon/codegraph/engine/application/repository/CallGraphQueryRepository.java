@@ -0,0 +1,33 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.application.model.CallGraphNodeDO;
+
+import java.util.List;
+
+/**
+ * 调用图查询仓储接口（只读）
+ */
+public interface CallGraphQueryRepository {
+    
+    /**
+     * 查询函数节点
+     * @param functionId 函数ID
+     * @return 函数节点，不存在时返回 null
+     */
+    CallGraphNodeDO findFunction(String functionId);
+    
+    /**
+     * 批量查询函数节点（一次查询）
+     * @param functionIds 函数ID列表
+     * @return 存在的函数节点（depth 未设置）
+     */
+    List<CallGraphNodeDO> findFunctionsByIds(List<String> functionIds);
+    
+    /**
+     * 批量查询一层调用邻居（一次查询）
+     * @param functionIds 当前层函数ID
+     * @param callers true 查调用方（入边），false 查被调用方（出边）
+     * @return 邻居节点（去重，depth 未设置）
+     */
+    List<CallGraphNodeDO> findNeighbors(List<String> functionIds, boolean callers);
+}
@@ -0,0 +1,29 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 调用图快照加载仓储接口（流式读取，不在内存中物化结果集）
+ */
+public interface CallGraphSnapshotRepository {
+    
+    /**
+     * 流式读取函数和端点节点
+     * @param visitor 回调 (nodeId, projectFilePath)
+     */
+    void streamNodes(BiConsumer<String, String> visitor);
+    
+    /**
+     * 流式读取 CALLS / ENDPOINT_TO_FUNCTION / FUNCTION_TO_ENDPOINT / MATCHES 关系
+     * @param visitor 回调
+     */
+    void streamEdges(EdgeVisitor visitor);
+    
+    /**
+     * 关系回调
+     */
+    @FunctionalInterface
+    interface EdgeVisitor {
+        void visit(String fromId, String toId, String relationshipType);
+    }
+}
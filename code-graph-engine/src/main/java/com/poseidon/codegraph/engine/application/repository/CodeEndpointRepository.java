@@ -1,9 +1,10 @@
 package com.poseidon.codegraph.engine.application.repository;
 
 import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.EndpointMatchKey;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 端点仓储接口
@@ -11,14 +12,9 @@ import java.util.Set;
 public interface CodeEndpointRepository {
     
     /**
-     * 批量插入端点
+     * 批量写入端点（按 ID MERGE，只在新建时写属性，已存在的端点保持不变）
      */
-    void insertEndpointsBatch(List<CodeEndpointDO> endpoints);
-    
-    /**
-     * 批量更新端点
-     */
-    void updateEndpointsBatch(List<CodeEndpointDO> endpoints);
+    void upsertEndpointsBatch(List<CodeEndpoint> endpoints);
     
     /**
      * 根据 ID 删除端点
@@ -26,23 +22,28 @@ public interface CodeEndpointRepository {
     void deleteById(String id);
     
     /**
-     * 查询哪些端点已存在
+     * 根据 ID 批量查找端点
      * @param ids 端点ID列表
-     * @return 已存在的端点ID集合
+     * @return 存在的端点列表
      */
-    Set<String> findExistingEndpointsByIds(List<String> ids);
+    List<CodeEndpointDO> findEndpointsByIds(List<String> ids);
     
     /**
-     * 根据项目文件路径查找端点
+     * 根据项目文件路径查找指定仓库、分支下的端点（尚未迁移 scopeId 的历史节点同样返回）
      */
-    List<CodeEndpointDO> findEndpointsByProjectFilePath(String projectFilePath);
+    List<CodeEndpointDO> findEndpointsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath);
     
     /**
-     * 根据 matchIdentity 查找所有端点（可选指定 direction）
-     * @param matchIdentity 匹配标识
-     * @param direction 方向（inbound/outbound），null 表示查询所有方向
-     * @return 匹配的端点列表
+     * 根据端点类型查找所有端点（用于构建内存路由索引）
+     * @param endpointType 端点类型（如 HTTP）
+     * @return 端点列表
      */
-    List<CodeEndpointDO> findEndpointsByMatchIdentity(String matchIdentity, String direction);
+    List<CodeEndpointDO> findEndpointsByType(String endpointType);
+    
+    /**
+     * 批量根据 (matchIdentity, direction) 查找端点（一次查询）
+     * @param keys 匹配键列表
+     * @return 命中任一键的端点列表（去重）
+     */
+    List<CodeEndpointDO> findEndpointsByMatchIdentities(List<EndpointMatchKey> keys);
 }
-
@@ -1,6 +1,9 @@
 package com.poseidon.codegraph.engine.application.repository;
 
+import com.poseidon.codegraph.engine.application.model.ChangedFile;
 import com.poseidon.codegraph.engine.application.model.CodeFunctionDO;
+import com.poseidon.codegraph.engine.application.model.PlaceholderSweep;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
 
 import java.util.List;
 import java.util.Set;
@@ -11,9 +14,13 @@ import java.util.Set;
 public interface CodeFunctionRepository {
 
     /**
-     * 根据文件路径查找所有函数
+     * 根据文件路径查找指定仓库、分支下的所有函数（尚未迁移 scopeId 的历史节点同样返回）
+     *
+     * @param gitRepoUrl Git 仓库地址（与分支同时为空时不过滤）
+     * @param gitBranch Git 分支
+     * @param projectFilePath 文件路径
      */
-    List<CodeFunctionDO> findFunctionsByProjectFilePath(String projectFilePath);
+    List<CodeFunctionDO> findFunctionsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath);
 
     /**
      * 批量查询函数是否存在
@@ -23,19 +30,53 @@ public interface CodeFunctionRepository {
     Set<String> findExistingFunctionsByQualifiedNames(List<String> qualifiedNames);
 
     /**
-     * 批量插入函数（纯数据库操作，不做存在性检查）
+     * 批量写入函数（按 ID MERGE，存在则更新，一次往返，不需要先查询存在性）
      */
-    void insertFunctionsBatch(List<CodeFunctionDO> functions);
+    void upsertFunctionsBatch(List<CodeFunction> functions);
 
     /**
-     * 批量更新函数（纯数据库操作，不做存在性检查）
+     * 批量插入函数（按 ID MERGE，已存在则保持不变；用于占位符节点）
      */
-    void updateFunctionsBatch(List<CodeFunctionDO> functions);
+    void insertFunctionsIfAbsent(List<CodeFunction> functions);
+
+    /**
+     * 流式读取所有函数 ID（按批拉取，逐条回调）
+     */
+    void streamFunctionIds(java.util.function.Consumer<String> visitor);
     
     /**
      * 根据 ID 删除函数
      * @param id 函数 ID
      */
     void deleteById(String id);
+    
+    /**
+     * 按 ID 批量删除节点（单元、函数、端点，连同关系），一次往返
+     * @param ids 节点 ID
+     */
+    void deleteByIds(List<String> ids);
+    
+    /**
+     * 沿函数 ID 索引扫描一批函数，找出其中无入边的占位符（只读）
+     * @param afterId 从该 ID 之后开始扫描（为空时从头开始）
+     * @param batchSize 每批扫描的函数数
+     * @return 本批扫描数、最后扫描的 ID 和无入边的占位符 ID
+     */
+    PlaceholderSweep findOrphanPlaceholders(String afterId, int batchSize);
+    
+    /**
+     * 删除给定 ID 中仍是占位符且仍无入边的函数（一个事务内复查并删除）
+     * @return 实际删除的 ID
+     */
+    List<String> deleteOrphanPlaceholders(List<String> ids);
+    
+    /**
+     * 查找与变更行范围重叠的函数（范围为空时取整个文件的函数）
+     * 
+     * @param gitRepoUrl Git 仓库地址（为空时不过滤）
+     * @param gitBranch Git 分支（为空时不过滤）
+     * @param changes 变更文件及行范围
+     * @return 函数ID列表
+     */
+    List<String> findFunctionIdsByChangedLines(String gitRepoUrl, String gitBranch, List<ChangedFile> changes);
 }
-
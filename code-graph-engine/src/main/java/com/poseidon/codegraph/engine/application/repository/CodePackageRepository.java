@@ -1,9 +1,8 @@
 package com.poseidon.codegraph.engine.application.repository;
 
-import com.poseidon.codegraph.engine.application.model.CodePackageDO;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 代码包仓储接口
@@ -11,20 +10,8 @@ import java.util.Set;
 public interface CodePackageRepository {
 
     /**
-     * 批量查询包是否存在
-     * @param qualifiedNames 全限定名列表
-     * @return 存在的全限定名集合
+     * 批量写入包（按 ID MERGE，存在则更新，一次往返，不需要先查询存在性）
      */
-    Set<String> findExistingPackagesByQualifiedNames(List<String> qualifiedNames);
-
-    /**
-     * 批量插入包（纯数据库操作，不做存在性检查）
-     */
-    void insertPackagesBatch(List<CodePackageDO> packages);
-
-    /**
-     * 批量更新包（纯数据库操作，不做存在性检查）
-     */
-    void updatePackagesBatch(List<CodePackageDO> packages);
+    void upsertPackagesBatch(List<CodePackage> packages);
 }
 
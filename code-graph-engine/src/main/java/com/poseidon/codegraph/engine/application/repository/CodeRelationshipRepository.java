@@ -1,7 +1,6 @@
 package com.poseidon.codegraph.engine.application.repository;
 
-import com.poseidon.codegraph.engine.application.model.CodeRelationshipDO;
-import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
 
 import java.util.List;
 
@@ -11,40 +10,33 @@ import java.util.List;
 public interface CodeRelationshipRepository {
 
     /**
-     * 查找谁依赖我（入边）
+     * 查找调用了指定包内函数的文件（按仓库、分支过滤）
+     * 用于 classpath 变化时定位受影响的调用方
      * 
-     * @param targetProjectFilePath 目标文件路径
-     * @return 依赖该文件的文件路径列表
+     * @param gitRepoUrl Git 仓库地址（为空时不过滤）
+     * @param gitBranch Git 分支（为空时不过滤）
+     * @param packageNames 包名列表
+     * @return 调用方文件路径列表
      */
-    List<String> findWhoCallsMe(String targetProjectFilePath);
+    List<String> findCallerFilePathsByCalleePackages(String gitRepoUrl, String gitBranch, List<String> packageNames);
 
     /**
-     * 查找谁依赖我（带 Git 元信息）
-     * 用于级联变更时获取依赖文件的完整信息
-     * 
-     * @param targetProjectFilePath 目标文件路径
-     * @return 依赖该文件的文件元信息列表（包含 Git 信息）
-     */
-    List<FileMetaInfo> findWhoCallsMeWithMeta(String targetProjectFilePath);
-
-    /**
-     * 删除文件的出边（该文件发起的调用）
+     * 删除指定仓库、分支下文件的出边（该文件发起的调用），其他范围中同路径文件的出边不受影响
      * 
+     * @param gitRepoUrl Git 仓库地址（与分支同时为空时不过滤）
+     * @param gitBranch Git 分支
      * @param projectFilePath 文件路径
      */
-    void deleteFileOutgoingCalls(String projectFilePath);
+    void deleteFileOutgoingCalls(String gitRepoUrl, String gitBranch, String projectFilePath);
 
     /**
      * 批量插入关系（包括调用关系、结构关系等）（纯数据库操作，不做存在性检查）
      */
-    void insertRelationshipsBatch(List<CodeRelationshipDO> relationships);
+    void insertRelationshipsBatch(List<CodeRelationship> relationships);
 
     /**
-     * 查询已存在的结构关系（PACKAGE_TO_UNIT, UNIT_TO_FUNCTION）
-     * 
-     * @param relationships 待检查的关系列表
-     * @return 已存在的关系 key 集合，key 格式为 "fromNodeId:toNodeId:relType"
+     * 批量写入关系（按 (from, to, type) MERGE，已存在则跳过，用于结构关系）
      */
-    java.util.Set<String> findExistingStructureRelationships(List<CodeRelationshipDO> relationships);
+    void upsertRelationshipsBatch(List<CodeRelationship> relationships);
 }
 
@@ -0,0 +1,88 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.ScopeDeleteBatch;
+
+import java.util.List;
+
+/**
+ * 代码范围仓储接口
+ * 节点用整数 scopeId 引用 (:CodeScope {id, gitRepoUrl, gitBranch})，代替每个节点上的两个字符串属性
+ */
+public interface CodeScopeRepository {
+
+    /**
+     * 解析范围 ID，不存在时分配新 ID
+     */
+    int resolveScopeId(String gitRepoUrl, String gitBranch);
+
+    /**
+     * 按 ID 查询范围，不存在时返回 null
+     */
+    CodeScope findById(int scopeId);
+
+    /**
+     * 按仓库/分支查询范围，不存在时返回 null（不分配）
+     */
+    CodeScope findScope(String gitRepoUrl, String gitBranch);
+
+    /**
+     * 把分支登记为基线分支上的覆盖层（两个范围不存在时分配）
+     */
+    CodeScope registerOverlay(String gitRepoUrl, String gitBranch, String baseBranch);
+
+    /**
+     * 删除范围：解除覆盖层登记，没有节点引用该范围时同时删除范围节点
+     *
+     * @return 范围节点是否已删除
+     */
+    boolean deleteScope(int scopeId);
+
+    /**
+     * 查询以指定范围为基线的覆盖层
+     */
+    List<CodeScope> findOverlays(int baseScopeId);
+
+    /**
+     * 查询匹配仓库/分支的范围 ID
+     *
+     * @param gitRepoUrl 为 null 时不按仓库过滤
+     * @param gitBranch 为 null 时不按分支过滤
+     * @param includeUnknown 仓库/分支未知的范围是否也算匹配
+     * @return 两个条件都为 null 时返回 null（不过滤）
+     */
+    List<Integer> findScopeIds(String gitRepoUrl, String gitBranch, boolean includeUnknown);
+
+    /**
+     * 查询指定标签下尚未迁移（仍带 gitRepoUrl/gitBranch 字符串属性）的范围
+     */
+    List<CodeScope> findUnmigratedScopes(String label);
+
+    /**
+     * 迁移一批节点：写入 scopeId 并删除字符串属性
+     *
+     * @return 本批迁移的节点数，0 表示该范围已迁移完
+     */
+    long migrateBatch(String label, CodeScope scope, int batchSize);
+
+    /**
+     * 删除一批关系：指定标签下属于该范围的节点上的关系（入边和出边）
+     *
+     * @return 本批删除的关系数，0 表示该标签的节点已没有关系
+     */
+    long deleteRelationshipsBatch(String label, int scopeId, int batchSize);
+
+    /**
+     * 删除一批节点：指定标签下属于该范围的节点（关系应已由 {@link #deleteRelationshipsBatch} 删除）
+     */
+    ScopeDeleteBatch deleteNodesBatch(String label, int scopeId, int batchSize);
+
+    /**
+     * 释放一批包：包按 ID 在仓库间共享，不能按 scopeId 整体删除。
+     * 解除该范围的类到包的 PACKAGE_TO_UNIT 关系，删除不再被任何节点引用的包，
+     * 仍被其他范围使用的包把 scopeId 改为其中一个使用方
+     *
+     * @return 本批处理数（关系数 + 包数，0 表示已释放完）和删除的包 ID
+     */
+    ScopeDeleteBatch releasePackagesBatch(int scopeId, int batchSize);
+}
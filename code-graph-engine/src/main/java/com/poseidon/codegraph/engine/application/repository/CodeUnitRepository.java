@@ -1,9 +1,9 @@
 package com.poseidon.codegraph.engine.application.repository;
 
 import com.poseidon.codegraph.engine.application.model.CodeUnitDO;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 代码单元仓储接口
@@ -11,26 +11,59 @@ import java.util.Set;
 public interface CodeUnitRepository {
 
     /**
-     * 根据文件路径查找所有代码单元
+     * 根据文件路径查找指定仓库、分支下的所有代码单元（尚未迁移 scopeId 的历史节点同样返回）
+     *
+     * @param gitRepoUrl Git 仓库地址（与分支同时为空时不过滤）
+     * @param gitBranch Git 分支
+     * @param projectFilePath 文件路径
      */
-    List<CodeUnitDO> findUnitsByProjectFilePath(String projectFilePath);
+    List<CodeUnitDO> findUnitsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath);
 
     /**
-     * 批量查询单元是否存在
-     * @param qualifiedNames 全限定名列表
-     * @return 存在的全限定名集合
+     * 查找导入了指定包的文件（按仓库、分支过滤，经导入包关系查询）
+     * 
+     * @param gitRepoUrl Git 仓库地址（为空时不过滤）
+     * @param gitBranch Git 分支（为空时不过滤）
+     * @param packageNames 包名列表
+     * @return 文件路径列表
      */
-    Set<String> findExistingUnitsByQualifiedNames(List<String> qualifiedNames);
+    List<String> findProjectFilePathsByImportedPackages(String gitRepoUrl, String gitBranch, List<String> packageNames);
 
     /**
-     * 批量插入单元（纯数据库操作，不做存在性检查）
+     * 批量写入单元（按 ID MERGE，存在则更新，一次往返，不需要先查询存在性）
      */
-    void insertUnitsBatch(List<CodeUnitDO> units);
-
+    void upsertUnitsBatch(List<CodeUnit> units);
+    
+    /**
+     * 原地改写文件路径（纯数据库操作，只改写该仓库/分支范围内的节点）
+     * - 文件内单元、函数、端点的 projectFilePath 改为新路径
+     * - 包名变化时，单元和函数的 ID、全限定名前缀改为新包名，并删除旧的 PACKAGE_TO_UNIT 关系
+     * 范围内旧路径匹配到的单元为 0 或少于 expectedUnitCount 时不做任何改写
+     * 
+     * @param gitRepoUrl Git 仓库地址
+     * @param gitBranch Git 分支
+     * @param oldProjectFilePath 旧文件路径
+     * @param newProjectFilePath 新文件路径
+     * @param oldPackageName 旧包名
+     * @param newPackageName 新包名（与旧包名相同时只改写路径）
+     * @param expectedUnitCount 旧路径下应有的单元数
+     * @return 范围内旧路径匹配到的单元数
+     */
+    int renameFile(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath,
+                   String oldPackageName, String newPackageName, int expectedUnitCount);
+    
+    /**
+     * 当前库中是否已建立导入包关系（没有时需要按现有单元补建）
+     */
+    boolean hasImportedPackageLinks();
+    
     /**
-     * 批量更新单元（纯数据库操作，不做存在性检查）
+     * 为有导入包但还没有导入包关系的单元补建关系（全量导入、跨库复制的单元不经过写路径）
+     * 
+     * @param scopeIds 限定的范围 ID，为 null 时处理全部单元
+     * @return 这些范围内的导入包关系数量
      */
-    void updateUnitsBatch(List<CodeUnitDO> units);
+    long linkImportedPackages(List<Integer> scopeIds);
     
     /**
      * 根据 ID 删除单元
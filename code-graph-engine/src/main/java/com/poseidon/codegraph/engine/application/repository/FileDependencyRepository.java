@@ -0,0 +1,58 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
+
+import java.util.List;
+
+/**
+ * 文件级反向依赖索引仓储接口
+ * 维护 "文件 A 调用了文件 B 中的函数" 的依赖关系，供级联变更一次查出依赖方文件。
+ * 依赖关系按仓库/分支（范围）隔离：只返回、只改写同一范围内的文件
+ */
+public interface FileDependencyRepository {
+
+    /**
+     * 查找同一仓库/分支内依赖指定文件的文件（带 Git 元信息）
+     * 
+     * @param targetProjectFilePath 被依赖的文件路径
+     * @return 依赖方文件元信息列表（不含文件自身）
+     */
+    List<FileMetaInfo> findDependentFiles(String gitRepoUrl, String gitBranch, String targetProjectFilePath);
+
+    /**
+     * 按文件当前的 CALLS 出边重建它的依赖关系，并清理不再被引用的文件节点
+     * 在文件调用关系重建或文件删除后调用
+     * 
+     * @param projectFilePath 文件路径
+     */
+    void refreshFileDependencies(String gitRepoUrl, String gitBranch, String projectFilePath);
+
+    /**
+     * 文件纯移动时改写该仓库/分支下文件节点的路径
+     */
+    void renameFile(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath);
+
+    /**
+     * 依赖关系数量（用于判断是否需要全量回填）
+     */
+    long countDependencies();
+
+    /**
+     * 清空后按全部 CALLS 关系全量重建依赖索引（按调用方函数分批提交，可重复执行）
+     * 
+     * @return 重建后的依赖关系数量
+     */
+    long rebuildAll();
+
+    /**
+     * 按指定范围内调用方函数的 CALLS 关系重建依赖索引（项目迁移后在目标库调用，按调用方函数分批提交，可重复执行）
+     * 
+     * @return 这些范围的文件的依赖关系数量
+     */
+    long rebuildScopes(List<Integer> scopeIds);
+
+    /**
+     * 创建文件节点（范围, 路径）索引（幂等）
+     */
+    void ensureIndexes();
+}
@@ -0,0 +1,26 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+
+/**
+ * 文件清单仓储接口（清单缓存未命中时从图数据库重建）
+ */
+public interface FileManifestRepository {
+
+    /**
+     * 查询文件在指定范围内当前的单元、函数、端点 ID（只返回 ID，一次查询）
+     * 尚未迁移 scopeId 的节点视为匹配
+     * 
+     * @param gitRepoUrl Git 仓库地址
+     * @param gitBranch Git 分支
+     * @param projectFilePath 文件路径
+     * @return 文件清单（文件没有节点时各列表为空）
+     */
+    FileManifest loadManifest(String gitRepoUrl, String gitBranch, String projectFilePath);
+
+    /**
+     * 当前目标库的图数据库代次：库中没有代次节点时新建一个随机值。
+     * 图数据库被清空后代次随之变化，本地缓存的文件清单据此整体失效
+     */
+    String loadEpoch();
+}
@@ -0,0 +1,48 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * 图数据库路由上下文
+ * 记录当前线程的读写发往哪个目标库，仓储实现打开会话时按此路由；未设置时使用默认库。
+ * 应用服务在已知仓库的入口处设置（变更处理、影响分析、删除/迁移任务），会话打开后即绑定目标库
+ */
+public final class GraphRoute {
+
+    /** 默认库（同时保存范围登记和路由表） */
+    public static final String DEFAULT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private GraphRoute() {
+    }
+
+    public static String current() {
+        String target = CURRENT.get();
+        return target != null ? target : DEFAULT;
+    }
+
+    /**
+     * 在指定目标库上执行，结束后恢复原路由（可以嵌套）
+     */
+    public static <T> T call(String target, Supplier<T> task) {
+        String previous = CURRENT.get();
+        CURRENT.set(target);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void run(String target, Runnable task) {
+        call(target, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由表仓储接口
+ * 仓库 -> 目标库，未登记的仓库使用默认库。路由表保存在默认库中
+ */
+public interface GraphRouteRepository {
+
+    /**
+     * 已配置的目标库名称（第一个是默认库）
+     */
+    List<String> findTargets();
+
+    /**
+     * 仓库的目标库，未登记时返回 {@link GraphRoute#DEFAULT}
+     */
+    String findTarget(String gitRepoUrl);
+
+    /**
+     * 全部路由（仓库 -> 目标库）
+     */
+    Map<String, String> findRoutes();
+
+    /**
+     * 登记路由，目标为默认库时删除路由
+     *
+     * @throws IllegalArgumentException 目标库未配置
+     */
+    void saveRoute(String gitRepoUrl, String target);
+}
@@ -0,0 +1,17 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+/**
+ * 图统计仓储接口（批量导入后的校验）
+ */
+public interface GraphStatisticsRepository {
+
+    /**
+     * 统计指定标签的节点数（整个数据库）
+     */
+    long countNodes(String label);
+
+    /**
+     * 统计指定类型的关系数（整个数据库）
+     */
+    long countRelationships(String relationshipType);
+}
@@ -0,0 +1,38 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.application.model.GraphTransferBatch;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨库迁移仓储接口
+ * 按范围分批读出节点和关系的全部属性，原样写入另一个目标库；读写哪个库由调用方的路由决定（见 {@link GraphRoute}）
+ */
+public interface GraphTransferRepository {
+
+    /**
+     * 读一批节点：指定标签下属于这些范围的节点，按 ID 顺序。
+     * 包在仓库间共享，读的是这些范围的类引用的包（scopeId 改为其中一个范围）
+     */
+    GraphTransferBatch readNodes(String label, List<Integer> scopeIds, String afterId, int batchSize);
+
+    /**
+     * 按 ID MERGE 写入节点并覆盖全部属性（可重复执行）
+     */
+    void writeNodes(String label, List<Map<String, Object>> rows);
+
+    /**
+     * 读一批关系：起点属于这些范围的指定类型关系，按起点 ID 顺序（起点是包时按终点选取、按终点 ID 顺序）。
+     * 终点是占位符（没有范围）时带上终点属性，写入时在目标库补建
+     */
+    GraphTransferBatch readRelationships(RelationshipType type, List<Integer> scopeIds, String afterId, int batchSize);
+
+    /**
+     * MERGE 写入关系并覆盖全部属性（可重复执行），两端节点不存在的关系跳过
+     *
+     * @return 写入的关系数
+     */
+    long writeRelationships(RelationshipType type, List<Map<String, Object>> rows);
+}
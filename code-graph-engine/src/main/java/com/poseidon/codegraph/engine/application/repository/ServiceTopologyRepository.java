@@ -0,0 +1,60 @@
+package com.poseidon.codegraph.engine.application.repository;
+
+import com.poseidon.codegraph.engine.application.model.ServiceDependencyDO;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+
+import java.util.List;
+
+/**
+ * 服务拓扑仓储接口
+ * 维护 Service 节点和聚合的 DEPENDS_ON 关系（由端点 MATCHES 关系汇总）
+ * 端点相关的查询和统计在当前路由的目标库中进行，Service 层固定保存在默认库
+ */
+public interface ServiceTopologyRepository {
+    
+    /**
+     * 查询与指定端点相连的 MATCHES 关系涉及的服务对
+     * @param endpointIds 端点ID列表
+     * @return 服务对列表（去重）
+     */
+    List<ServicePair> findServicePairsByEndpointIds(List<String> endpointIds);
+    
+    /**
+     * 查询指定范围内端点的 MATCHES 关系涉及的服务对（范围删除前调用）
+     * @param scopeId 范围ID
+     * @return 服务对列表（去重）
+     */
+    List<ServicePair> findServicePairsByScope(int scopeId);
+    
+    /**
+     * 查询当前目标库所有 MATCHES 关系涉及的服务对，以及该目标库已记录的依赖（用于构建拓扑）
+     */
+    List<ServicePair> findAllServicePairs();
+    
+    /**
+     * 按当前目标库的 MATCHES 关系重新统计指定服务对在该目标库的依赖，计数为 0 时删除该依赖
+     * @param pairs 受影响的服务对
+     */
+    void refreshDependencies(List<ServicePair> pairs);
+    
+    /**
+     * 为还没有 service 属性的端点补齐所属服务（升级前写入的端点），分批提交
+     * @return 补齐的端点数
+     */
+    long backfillEndpointServices(int batchSize);
+    
+    /**
+     * 查询调用指定服务的依赖（谁调用了我）
+     */
+    List<ServiceDependencyDO> findDependents(String serviceName);
+    
+    /**
+     * 查询指定服务调用的依赖（我调用了谁）
+     */
+    List<ServiceDependencyDO> findDependencies(String serviceName);
+    
+    /**
+     * 查询全部服务依赖
+     */
+    List<ServiceDependencyDO> findAllDependencies();
+}
@@ -0,0 +1,232 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.ChangedFile;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.OverlayFile;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.service.graph.CallGraphSnapshot;
+import com.poseidon.codegraph.engine.domain.service.overlay.BranchOverlayStore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分支覆盖层服务（应用层）
+ * 职责：
+ * 1. 登记覆盖层分支（分支 -> 基线分支），删除分支时回收覆盖层
+ * 2. 为写路径提供覆盖层文件的读写（只保存内容与基线不同的文件）
+ * 3. 为读路径构建覆盖层视图（覆盖层优先、其余回落到基线），视图按范围缓存，覆盖层变化时失效
+ */
+@Slf4j
+@Service
+public class BranchOverlayService {
+
+    private final CodeScopeRepository scopeRepository;
+    private final BranchOverlayStore overlayStore;
+    private final FileContentStore fileContentStore;
+    private final Map<Integer, CallGraphSnapshot.Overlay> views = new ConcurrentHashMap<>();
+
+    public BranchOverlayService(CodeScopeRepository scopeRepository,
+                                BranchOverlayStore overlayStore,
+                                ObjectProvider<FileContentStore> fileContentStore) {
+        this.scopeRepository = scopeRepository;
+        this.overlayStore = overlayStore;
+        this.fileContentStore = fileContentStore.getIfAvailable();
+    }
+
+    /**
+     * 登记覆盖层分支
+     *
+     * @throws IllegalArgumentException 参数不合法或基线本身是覆盖层
+     */
+    public CodeScope register(String gitRepoUrl, String gitBranch, String baseBranch) {
+        if (isBlank(gitRepoUrl) || isBlank(gitBranch) || isBlank(baseBranch)) {
+            throw new IllegalArgumentException("gitRepoUrl、gitBranch、baseBranch 不能为空");
+        }
+        if (gitBranch.equals(baseBranch)) {
+            throw new IllegalArgumentException("分支不能以自己为基线: " + gitBranch);
+        }
+        CodeScope base = scopeRepository.findScope(gitRepoUrl, baseBranch);
+        if (base != null && base.getBaseScopeId() != null) {
+            throw new IllegalArgumentException("基线分支本身是覆盖层，不支持多级覆盖: " + baseBranch);
+        }
+        CodeScope existing = findOverlay(gitRepoUrl, gitBranch);
+        if (existing != null && base != null && !Objects.equals(existing.getBaseScopeId(), base.getId())) {
+            // 换基线后原有差异不再成立，清空后由后续推送重建
+            overlayStore.drop(existing.getId());
+            views.remove(existing.getId());
+        }
+        return scopeRepository.registerOverlay(gitRepoUrl, gitBranch, baseBranch);
+    }
+
+    /**
+     * 查询覆盖层分支的范围（不是覆盖层时返回 null）
+     */
+    public CodeScope findOverlay(String gitRepoUrl, String gitBranch) {
+        if (gitRepoUrl == null || gitBranch == null) {
+            return null;
+        }
+        CodeScope scope = scopeRepository.findScope(gitRepoUrl, gitBranch);
+        return scope != null && scope.getBaseScopeId() != null ? scope : null;
+    }
+
+    /**
+     * 覆盖层的基线分支名
+     */
+    public String baseBranchOf(CodeScope overlay) {
+        CodeScope base = scopeRepository.findById(overlay.getBaseScopeId());
+        return base != null ? base.getGitBranch() : null;
+    }
+
+    public OverlayFile findFile(CodeScope overlay, String projectFilePath) {
+        return overlayStore.get(overlay.getId(), projectFilePath);
+    }
+
+    public void putFile(CodeScope overlay, OverlayFile file) {
+        overlayStore.put(overlay.getId(), file);
+        views.remove(overlay.getId());
+    }
+
+    /**
+     * 文件回到与基线相同：移出覆盖层，同时解绑本分支的内容 ref（内容由基线的 ref 持有）
+     */
+    public void removeFile(CodeScope overlay, String projectFilePath) {
+        overlayStore.remove(overlay.getId(), projectFilePath);
+        views.remove(overlay.getId());
+        if (fileContentStore != null) {
+            fileContentStore.remove(overlay.getGitRepoUrl(), overlay.getGitBranch(), projectFilePath);
+        }
+    }
+
+    /**
+     * 覆盖层视图（覆盖层文件、节点和快照关系），按范围缓存
+     */
+    public CallGraphSnapshot.Overlay view(CodeScope overlay) {
+        return views.computeIfAbsent(overlay.getId(), id -> {
+            CallGraphSnapshot.Overlay view = new CallGraphSnapshot.Overlay();
+            for (OverlayFile file : overlayStore.list(id)) {
+                view.addFile(file.getProjectFilePath());
+                if (file.isDeleted()) {
+                    continue;
+                }
+                CodeGraph graph = file.getGraph();
+                graph.getFunctionsAsList().forEach(fn -> view.addNode(fn.getId(), file.getProjectFilePath()));
+                graph.getEndpointsAsList().forEach(ep -> view.addNode(ep.getId(), file.getProjectFilePath()));
+                for (CodeRelationship rel : graph.getRelationshipsAsList()) {
+                    view.addEdge(rel.getFromNodeId(), rel.getToNodeId(), rel.getRelationshipType().name());
+                }
+            }
+            log.debug("构建覆盖层视图: scopeId={}, files={}, nodes={}, edges={}",
+                id, view.fileCount(), view.nodeCount(), view.edgeCount());
+            return view;
+        });
+    }
+
+    /**
+     * 覆盖层文件中与变更行相交的函数（未给行范围表示整个文件，墓碑没有函数）
+     */
+    public List<String> findFunctionIds(OverlayFile file, ChangedFile change) {
+        if (file.isDeleted()) {
+            return List.of();
+        }
+        List<ChangedFile.LineRange> ranges = change.getRanges() != null ? change.getRanges() : List.of();
+        return file.getGraph().getFunctionsAsList().stream()
+            .filter(fn -> ranges.isEmpty() || ranges.stream().anyMatch(range -> intersects(fn, range)))
+            .map(CodeFunction::getId)
+            .toList();
+    }
+
+    /**
+     * 按 ID 查找覆盖层中的端点
+     */
+    public Map<String, CodeEndpoint> findEndpoints(CodeScope overlay, List<String> ids) {
+        Map<String, CodeEndpoint> endpoints = new LinkedHashMap<>();
+        for (OverlayFile file : overlayStore.list(overlay.getId())) {
+            if (file.isDeleted()) {
+                continue;
+            }
+            for (CodeEndpoint endpoint : file.getGraph().getEndpointsAsList()) {
+                if (ids.contains(endpoint.getId())) {
+                    endpoints.put(endpoint.getId(), endpoint);
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * 分支删除：回收覆盖层文件和本分支的内容 ref，解除登记（没有节点引用时删除范围）
+     */
+    public OverlayStatus delete(String gitRepoUrl, String gitBranch) {
+        CodeScope overlay = findOverlay(gitRepoUrl, gitBranch);
+        if (overlay == null) {
+            throw new IllegalArgumentException("分支不是覆盖层: " + gitBranch);
+        }
+        OverlayStatus status = status(overlay);
+        if (fileContentStore != null) {
+            overlayStore.list(overlay.getId()).forEach(file ->
+                fileContentStore.remove(gitRepoUrl, gitBranch, file.getProjectFilePath()));
+        }
+        overlayStore.drop(overlay.getId());
+        views.remove(overlay.getId());
+        scopeRepository.deleteScope(overlay.getId());
+        log.info("回收分支覆盖层: repo={}, branch={}, files={}", gitRepoUrl, gitBranch, status.getFiles());
+        return status;
+    }
+
+    public OverlayStatus status(CodeScope overlay) {
+        OverlayStatus status = new OverlayStatus();
+        status.setScopeId(overlay.getId());
+        status.setGitRepoUrl(overlay.getGitRepoUrl());
+        status.setGitBranch(overlay.getGitBranch());
+        status.setBaseBranch(baseBranchOf(overlay));
+        for (OverlayFile file : overlayStore.list(overlay.getId())) {
+            status.setFiles(status.getFiles() + 1);
+            if (file.isDeleted()) {
+                status.setDeletedFiles(status.getDeletedFiles() + 1);
+            }
+        }
+        return status;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>(overlayStore.snapshot());
+        snapshot.put("cachedViews", views.size());
+        return snapshot;
+    }
+
+    private static boolean intersects(CodeFunction fn, ChangedFile.LineRange range) {
+        int endLine = range.getEndLine() != null ? range.getEndLine() : range.getStartLine();
+        return fn.getStartLine() != null && fn.getEndLine() != null
+            && fn.getStartLine() <= endLine && fn.getEndLine() >= range.getStartLine();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 覆盖层状态
+     */
+    @Data
+    public static class OverlayStatus {
+        private int scopeId;
+        private String gitRepoUrl;
+        private String gitBranch;
+        private String baseBranch;
+        private int files;
+        private int deletedFiles;
+    }
+}
@@ -0,0 +1,280 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphStatisticsRepository;
+import com.poseidon.codegraph.engine.application.service.export.ImportCsvWriter;
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.parser.JdtSourceCodeParser;
+import com.poseidon.codegraph.engine.domain.parser.ParseBudget;
+import com.poseidon.codegraph.engine.domain.parser.ParseMetrics;
+import com.poseidon.codegraph.engine.domain.parser.ProcessorRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Stream;
+
+/**
+ * 首次全量导入服务（应用层）
+ * 职责：
+ * 1. 后台遍历项目源码，逐文件解析后流式写出 neo4j-admin database import 所需的 CSV
+ * 2. 导入完成后按导出时记录的行数校验图数据库中的节点数和关系数
+ *
+ * 只用于向空库做首次导入：不写图数据库、不通知写入监听器。
+ * 文件依赖索引、内存快照等派生数据在导入后服务启动时自行重建；
+ * MATCHES 只按 matchIdentity 精确匹配生成，HTTP 路径模板匹配在后续增量更新时补齐
+ */
+@Slf4j
+@Service
+public class BulkExportService {
+
+    static final String SUMMARY_FILE = "export-summary.properties";
+    static final String COMMAND_FILE = "import-command.txt";
+    private static final int MAX_RECENT_JOBS = 20;
+    private static final List<String> NODE_LABELS = List.of(
+        ImportCsvWriter.LABEL_PACKAGE, ImportCsvWriter.LABEL_UNIT, ImportCsvWriter.LABEL_FUNCTION, ImportCsvWriter.LABEL_ENDPOINT);
+
+    private final ParseBudget parseBudget;
+    private final ParseMetrics parseMetrics;
+    private final GraphStatisticsRepository statisticsRepository;
+    private final CodeScopeRepository scopeRepository;
+    private final TaskExecutor maintenanceTaskExecutor;
+    private final Path outputBaseDir;
+    private final int sortChunkLines;
+    private final String databaseName;
+
+    private final Deque<ExportJob> recentJobs = new ConcurrentLinkedDeque<>();
+
+    public BulkExportService(
+            ParseBudget parseBudget,
+            ParseMetrics parseMetrics,
+            GraphStatisticsRepository statisticsRepository,
+            CodeScopeRepository scopeRepository,
+            @Qualifier("maintenanceTaskExecutor") TaskExecutor maintenanceTaskExecutor,
+            @Value("${code-graph.bulk-export.output-dir:${user.home}/.code-graph/export}") String outputBaseDir,
+            @Value("${code-graph.bulk-export.sort-chunk-lines:100000}") int sortChunkLines,
+            @Value("${code-graph.bulk-export.database-name:neo4j}") String databaseName) {
+        this.parseBudget = parseBudget;
+        this.parseMetrics = parseMetrics;
+        this.statisticsRepository = statisticsRepository;
+        this.scopeRepository = scopeRepository;
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+        this.outputBaseDir = Path.of(outputBaseDir);
+        this.sortChunkLines = sortChunkLines;
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param projectRoot 项目根目录，文件的 projectFilePath 为相对它的路径
+     * @throws IllegalArgumentException 项目根目录不存在
+     * @throws IllegalStateException 维护任务队列已满
+     */
+    public ExportJob submit(String projectName, String projectRoot, String gitRepoUrl, String gitBranch,
+                            String[] classpathEntries, String[] sourcepathEntries) {
+        Path root = projectRoot != null ? Path.of(projectRoot).toAbsolutePath().normalize() : null;
+        if (root == null || !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("项目根目录不存在: " + projectRoot);
+        }
+
+        ExportJob job = new ExportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setProjectName(projectName);
+        job.setProjectRoot(root.toString());
+        job.setGitRepoUrl(gitRepoUrl);
+        job.setGitBranch(gitBranch);
+        job.setOutputDir(outputBaseDir.resolve(job.getJobId()).toString());
+        job.setState(ExportJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        try {
+            maintenanceTaskExecutor.execute(() -> export(job, root, classpathEntries, sourcepathEntries));
+        } catch (TaskRejectedException e) {
+            throw new IllegalStateException("维护任务队列已满，请稍后重试", e);
+        }
+        addRecentJob(job);
+        return job;
+    }
+
+    /**
+     * 按导出摘要校验导入后的节点数和关系数
+     *
+     * @param outputDir 导出目录（包含 export-summary.properties）
+     * @return 每个标签/关系类型的期望值、实际值，以及整体是否通过
+     */
+    public Map<String, Object> verify(String outputDir) {
+        Path summaryFile = Path.of(outputDir).resolve(SUMMARY_FILE);
+        if (!Files.isRegularFile(summaryFile)) {
+            throw new IllegalArgumentException("导出摘要不存在: " + summaryFile);
+        }
+        Properties summary = new Properties();
+        try (Reader reader = Files.newBufferedReader(summaryFile, StandardCharsets.UTF_8)) {
+            summary.load(reader);
+        } catch (IOException e) {
+            log.error("读取导出摘要失败: file={}, error={}", summaryFile, e.getMessage(), e);
+            throw new RuntimeException("读取导出摘要失败: " + summaryFile, e);
+        }
+
+        Map<String, Object> checks = new LinkedHashMap<>();
+        boolean passed = true;
+        for (String key : new TreeSet<>(summary.stringPropertyNames())) {
+            boolean node = key.startsWith("nodes.");
+            if (!node && !key.startsWith("relationships.")) {
+                continue;
+            }
+            String name = key.substring(key.indexOf('.') + 1);
+            long expected = Long.parseLong(summary.getProperty(key));
+            long actual = node ? statisticsRepository.countNodes(name) : statisticsRepository.countRelationships(name);
+            passed &= expected == actual;
+            Map<String, Object> check = new LinkedHashMap<>();
+            check.put("expected", expected);
+            check.put("actual", actual);
+            check.put("match", expected == actual);
+            checks.put(key, check);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("outputDir", outputDir);
+        result.put("passed", passed);
+        result.put("checks", checks);
+        log.info("导入校验完成: outputDir={}, passed={}", outputDir, passed);
+        return result;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("outputBaseDir", outputBaseDir.toString());
+        snapshot.put("recentJobs", new ArrayList<>(recentJobs));
+        return snapshot;
+    }
+
+    // ========== 后台任务 ==========
+
+    private void export(ExportJob job, Path root, String[] classpathEntries, String[] sourcepathEntries) {
+        job.setState(ExportJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        Path outputDir = Path.of(job.getOutputDir());
+        try {
+            Files.createDirectories(outputDir);
+            Map<String, Long> counts;
+            String command;
+            try (ImportCsvWriter writer = new ImportCsvWriter(outputDir, sortChunkLines, scopeRepository);
+                 Stream<Path> files = Files.walk(root)) {
+                files.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".java"))
+                    .forEach(path -> exportFile(job, writer, root, path, classpathEntries, sourcepathEntries));
+                job.setState(ExportJob.STATE_MERGING);
+                counts = writer.finish();
+                command = writer.importCommand(databaseName);
+            }
+            writeSummary(outputDir, job, counts);
+            Files.writeString(outputDir.resolve(COMMAND_FILE), command + System.lineSeparator(), StandardCharsets.UTF_8);
+
+            job.setCounts(counts);
+            job.setImportCommand(command);
+            job.setState(ExportJob.STATE_DONE);
+            log.info("全量导出完成: project={}, files={}, failed={}, counts={}, outputDir={}",
+                job.getProjectName(), job.getProcessedFiles(), job.getFailedFiles(), counts, outputDir);
+        } catch (Exception e) {
+            job.setState(ExportJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("全量导出失败: project={}, error={}", job.getProjectName(), e.getMessage(), e);
+        } finally {
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+
+    private void exportFile(ExportJob job, ImportCsvWriter writer, Path root, Path file,
+                            String[] classpathEntries, String[] sourcepathEntries) {
+        String projectFilePath = root.relativize(file).toString().replace('\\', '/');
+        CodeGraph graph;
+        try {
+            // 端点由 ProcessorRegistry 中的端点处理器在遍历时提取，和增量路径产出的节点一致
+            JdtSourceCodeParser parser = new JdtSourceCodeParser(
+                classpathEntries, sourcepathEntries, ProcessorRegistry.createWithEndpoint());
+            graph = parser.withBudget(parseBudget, parseMetrics).parseSource(
+                Files.readString(file), file.toString(), job.getProjectName(), projectFilePath,
+                job.getGitRepoUrl(), job.getGitBranch());
+        } catch (Exception e) {
+            // 单个文件解析失败不影响整体导出
+            job.setFailedFiles(job.getFailedFiles() + 1);
+            log.warn("全量导出解析文件失败: file={}, error={}", projectFilePath, e.getMessage());
+            return;
+        }
+        graph.emitTo(writer);
+        job.setProcessedFiles(job.getProcessedFiles() + 1);
+    }
+
+    private void writeSummary(Path outputDir, ExportJob job, Map<String, Long> counts) throws IOException {
+        Properties summary = new Properties();
+        summary.setProperty("projectName", String.valueOf(job.getProjectName()));
+        summary.setProperty("gitRepoUrl", String.valueOf(job.getGitRepoUrl()));
+        summary.setProperty("gitBranch", String.valueOf(job.getGitBranch()));
+        summary.setProperty("files", String.valueOf(job.getProcessedFiles()));
+        summary.setProperty("failedFiles", String.valueOf(job.getFailedFiles()));
+        counts.forEach((name, count) -> {
+            if (NODE_LABELS.contains(name)) {
+                summary.setProperty("nodes." + name, String.valueOf(count));
+            } else if (!"placeholders".equals(name)) {
+                summary.setProperty("relationships." + name, String.valueOf(count));
+            }
+        });
+        summary.setProperty("placeholders", String.valueOf(counts.getOrDefault("placeholders", 0L)));
+        try (Writer out = Files.newBufferedWriter(outputDir.resolve(SUMMARY_FILE), StandardCharsets.UTF_8)) {
+            summary.store(out, "code-graph bulk export");
+        }
+    }
+
+    private void addRecentJob(ExportJob job) {
+        recentJobs.addFirst(job);
+        while (recentJobs.size() > MAX_RECENT_JOBS) {
+            recentJobs.pollLast();
+        }
+    }
+
+    /**
+     * 导出任务状态
+     */
+    @Data
+    public static class ExportJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_MERGING = "MERGING";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_FAILED = "FAILED";
+
+        private String jobId;
+        private String projectName;
+        private String projectRoot;
+        private String gitRepoUrl;
+        private String gitBranch;
+        private String outputDir;
+        private volatile String state;
+        private volatile int processedFiles;
+        private volatile int failedFiles;
+        private Map<String, Long> counts;
+        private String importCommand;
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+    }
+}
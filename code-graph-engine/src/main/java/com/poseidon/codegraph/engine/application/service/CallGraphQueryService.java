@@ -0,0 +1,269 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.CallGraphNodeDO;
+import com.poseidon.codegraph.engine.application.model.CallGraphPage;
+import com.poseidon.codegraph.engine.application.repository.CallGraphQueryRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import com.poseidon.codegraph.engine.domain.service.graph.CallGraphSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 调用图查询服务（应用层）
+ * 职责：
+ * 1. 查询函数的调用方/被调用方，以及 N 层传递闭包（内存快照就绪时在快照上遍历，否则按层批量查询图数据库）
+ * 2. 结果缓存在内存中，分页从缓存切片
+ * 3. 接收写路径的变更通知，精确失效受影响的缓存结果
+ *
+ * 查询在函数所在仓库的目标库上执行，缓存键包含目标库
+ */
+@Slf4j
+@Service
+@Order(100)
+public class CallGraphQueryService implements GraphChangeListener {
+    
+    private final CallGraphQueryRepository callGraphQueryRepository;
+    private final CallGraphSnapshotService callGraphSnapshotService;
+    private final GraphRouteService graphRouteService;
+    private final CallGraphResultCache cache;
+    private final int maxDepth;
+    private final int maxNodes;
+    
+    public CallGraphQueryService(
+            CallGraphQueryRepository callGraphQueryRepository,
+            CallGraphSnapshotService callGraphSnapshotService,
+            GraphRouteService graphRouteService,
+            @Value("${code-graph.call-graph-query.cache-max-entries:10000}") int cacheMaxEntries,
+            @Value("${code-graph.call-graph-query.max-depth:10}") int maxDepth,
+            @Value("${code-graph.call-graph-query.max-nodes:5000}") int maxNodes) {
+        this.callGraphQueryRepository = callGraphQueryRepository;
+        this.callGraphSnapshotService = callGraphSnapshotService;
+        this.graphRouteService = graphRouteService;
+        this.cache = new CallGraphResultCache(cacheMaxEntries);
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+    
+    /**
+     * 查询调用关系
+     * @param gitRepoUrl 函数所在仓库，为 null 时在各目标库中查找函数所在的库
+     * @param functionId 函数ID
+     * @param callers true 查调用方，false 查被调用方
+     * @param depth 层数（1 表示直接调用）
+     * @param offset 分页偏移
+     * @param limit 分页大小
+     */
+    public CallGraphPage query(String gitRepoUrl, String functionId, boolean callers, int depth, int offset, int limit) {
+        if (depth < 1 || depth > maxDepth) {
+            throw new IllegalArgumentException("depth 超出范围 [1, " + maxDepth + "]: " + depth);
+        }
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("分页参数不合法: offset=" + offset + ", limit=" + limit);
+        }
+        
+        String route = gitRepoUrl != null ? graphRouteService.targetOf(gitRepoUrl) : locate(functionId);
+        String key = CallGraphResultCache.key(route, callers, depth, functionId);
+        CallGraphResultCache.Entry entry = cache.get(key);
+        boolean cached = entry != null;
+        if (entry == null) {
+            long generation = cache.generation();
+            entry = GraphRoute.call(route, () -> load(functionId, callers, depth));
+            cache.put(key, entry, generation);
+        }
+        
+        List<CallGraphNodeDO> nodes = entry.getNodes();
+        int from = Math.min(offset, nodes.size());
+        int to = Math.min(from + limit, nodes.size());
+        
+        CallGraphPage page = new CallGraphPage();
+        page.setFunctionId(functionId);
+        page.setDirection(callers ? "callers" : "callees");
+        page.setDepth(depth);
+        page.setOffset(offset);
+        page.setLimit(limit);
+        page.setTotal(nodes.size());
+        page.setTruncated(entry.isTruncated());
+        page.setCached(cached);
+        page.setItems(new ArrayList<>(nodes.subList(from, to)));
+        return page;
+    }
+    
+    // ========== 写路径变更通知 ==========
+    
+    @Override
+    public void onRelationshipsInserted(List<CodeRelationship> relationships) {
+        relationships.stream()
+            .filter(rel -> rel.getRelationshipType() == RelationshipType.CALLS)
+            .forEach(rel -> cache.invalidateEdge(rel.getFromNodeId(), rel.getToNodeId()));
+    }
+    
+    @Override
+    public void onNodesSaved(List<? extends CodeNode> nodes) {
+        nodes.forEach(node -> cache.invalidateNode(node.getId()));
+    }
+    
+    @Override
+    public void onNodeDeleted(String nodeId) {
+        cache.invalidateNode(nodeId);
+    }
+    
+    @Override
+    public void onFileOutgoingCallsDeleted(String projectFilePath) {
+        cache.invalidateFile(projectFilePath);
+    }
+    
+    @Override
+    public void onFileRenamed(FileRename rename) {
+        cache.invalidateFile(rename.getOldProjectFilePath());
+        cache.invalidateFile(rename.getNewProjectFilePath());
+    }
+    
+    public Map<String, Object> cacheSnapshot() {
+        return cache.snapshot();
+    }
+    
+    // ========== 内部方法 ==========
+    
+    /**
+     * 未指定仓库时，函数所在的目标库：只配置了默认库时直接使用，否则依次查找各目标库，都没有时使用默认库
+     */
+    private String locate(String functionId) {
+        List<String> targets = graphRouteService.targets();
+        if (targets.size() <= 1) {
+            return GraphRoute.DEFAULT;
+        }
+        for (String target : targets) {
+            if (GraphRoute.call(target, () -> callGraphQueryRepository.findFunction(functionId)) != null) {
+                return target;
+            }
+        }
+        return GraphRoute.DEFAULT;
+    }
+    
+    /**
+     * 在当前路由（函数所在的目标库）上查询
+     */
+    private CallGraphResultCache.Entry load(String functionId, boolean callers, int depth) {
+        long start = System.currentTimeMillis();
+        CallGraphSnapshot snapshot = callGraphSnapshotService.getReadySnapshot();
+        CallGraphResultCache.Entry entry = snapshot != null
+            ? loadFromSnapshot(snapshot, functionId, callers, depth)
+            : loadFromDatabase(functionId, callers, depth);
+        log.debug("调用图查询完成: functionId={}, callers={}, depth={}, snapshot={}, nodes={}, truncated={}, elapsed={}ms",
+            functionId, callers, depth, snapshot != null, entry.getNodes().size(), entry.isTruncated(),
+            System.currentTimeMillis() - start);
+        return entry;
+    }
+    
+    /**
+     * 内存快照遍历：快照给出节点 ID 和层数，再一次批量查询补齐节点属性。
+     * 快照合并了所有目标库，当前目标库中找不到的节点再依次查其他目标库
+     */
+    private CallGraphResultCache.Entry loadFromSnapshot(CallGraphSnapshot snapshot, String functionId,
+                                                       boolean callers, int depth) {
+        CallGraphSnapshot.Traversal traversal = snapshot.traverse(
+            functionId, callers, depth, maxNodes, 1 << CallGraphSnapshot.CALLS);
+        
+        List<String> ids = new ArrayList<>();
+        ids.add(functionId);
+        ids.addAll(traversal.getIds());
+        Map<String, CallGraphNodeDO> details = findFunctionDetails(ids);
+        
+        Set<String> nodeIds = new HashSet<>(ids);
+        Set<String> files = new HashSet<>();
+        CallGraphNodeDO root = details.get(functionId);
+        if (root != null && root.getProjectFilePath() != null) {
+            files.add(root.getProjectFilePath());
+        }
+        List<CallGraphNodeDO> result = new ArrayList<>();
+        for (int i = 0; i < traversal.getIds().size(); i++) {
+            CallGraphNodeDO node = details.get(traversal.getIds().get(i));
+            if (node == null) {
+                continue;
+            }
+            node.setDepth(traversal.getDepths().get(i));
+            result.add(node);
+            if (node.getProjectFilePath() != null) {
+                files.add(node.getProjectFilePath());
+            }
+        }
+        return toEntry(callers, traversal.isTruncated(), result, nodeIds, files);
+    }
+    
+    /**
+     * 按层 BFS：每层一次批量查询，记录最小层数，超过节点上限时截断
+     */
+    private CallGraphResultCache.Entry loadFromDatabase(String functionId, boolean callers, int depth) {
+        Set<String> nodeIds = new HashSet<>();
+        Set<String> files = new HashSet<>();
+        nodeIds.add(functionId);
+        CallGraphNodeDO root = callGraphQueryRepository.findFunction(functionId);
+        if (root != null && root.getProjectFilePath() != null) {
+            files.add(root.getProjectFilePath());
+        }
+        
+        List<CallGraphNodeDO> result = new ArrayList<>();
+        List<String> frontier = List.of(functionId);
+        boolean truncated = false;
+        for (int level = 1; level <= depth && !frontier.isEmpty() && !truncated; level++) {
+            List<String> next = new ArrayList<>();
+            for (CallGraphNodeDO node : callGraphQueryRepository.findNeighbors(frontier, callers)) {
+                if (!nodeIds.add(node.getId())) {
+                    continue;
+                }
+                if (result.size() >= maxNodes) {
+                    truncated = true;
+                    break;
+                }
+                node.setDepth(level);
+                result.add(node);
+                next.add(node.getId());
+                if (node.getProjectFilePath() != null) {
+                    files.add(node.getProjectFilePath());
+                }
+            }
+            frontier = next;
+        }
+        
+        return toEntry(callers, truncated, result, nodeIds, files);
+    }
+    
+    private Map<String, CallGraphNodeDO> findFunctionDetails(List<String> ids) {
+        String home = GraphRoute.current();
+        Map<String, CallGraphNodeDO> details = new HashMap<>();
+        for (CallGraphNodeDO node : callGraphQueryRepository.findFunctionsByIds(ids)) {
+            details.put(node.getId(), node);
+        }
+        for (String target : graphRouteService.targets()) {
+            if (details.size() >= ids.size()) {
+                break;
+            }
+            if (target.equals(home)) {
+                continue;
+            }
+            List<String> missing = ids.stream().filter(id -> !details.containsKey(id)).toList();
+            GraphRoute.call(target, () -> callGraphQueryRepository.findFunctionsByIds(missing))
+                .forEach(node -> details.putIfAbsent(node.getId(), node));
+        }
+        return details;
+    }
+    
+    private static CallGraphResultCache.Entry toEntry(boolean callers, boolean truncated, List<CallGraphNodeDO> nodes,
+                                                      Set<String> nodeIds, Set<String> files) {
+        CallGraphResultCache.Entry entry = new CallGraphResultCache.Entry();
+        entry.setCallers(callers);
+        entry.setTruncated(truncated);
+        entry.setNodes(Collections.unmodifiableList(nodes));
+        entry.setNodeIds(nodeIds);
+        entry.setFiles(files);
+        return entry;
+    }
+}
@@ -0,0 +1,173 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.CallGraphNodeDO;
+import lombok.Data;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用图查询结果缓存
+ * 
+ * - 按（目标库、方向、深度、函数ID）缓存完整结果，分页在内存中切片
+ * - 每个结果记录其涉及的函数ID（查询函数 + 结果节点）和文件路径，建立反向索引
+ * - 写路径按变化的调用边、节点、文件精确失效，未涉及的结果继续命中
+ * - 查询期间发生过失效的结果不写入缓存（按失效代数判断），避免缓存到旧数据
+ */
+public class CallGraphResultCache {
+    
+    private final int maxEntries;
+    
+    /**
+     * 缓存条目（访问顺序，用于 LRU 淘汰）
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    
+    /**
+     * 函数ID -> 涉及该函数的缓存键
+     */
+    private final Map<String, Set<String>> keysByNode = new HashMap<>();
+    
+    /**
+     * 文件路径 -> 涉及该文件的缓存键
+     */
+    private final Map<String, Set<String>> keysByFile = new HashMap<>();
+    
+    private long generation;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public CallGraphResultCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    public static String key(String route, boolean callers, int depth, String functionId) {
+        return route + "|" + (callers ? "callers" : "callees") + "|" + depth + "|" + functionId;
+    }
+    
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+    
+    /**
+     * 当前失效代数（查询开始前获取，写入时传回）
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+    
+    /**
+     * 写入缓存；若查询期间发生过失效则放弃写入
+     */
+    public synchronized void put(String key, Entry entry, long startGeneration) {
+        if (startGeneration != generation || maxEntries <= 0) {
+            return;
+        }
+        removeLocked(key);
+        entries.put(key, entry);
+        entry.getNodeIds().forEach(id -> keysByNode.computeIfAbsent(id, k -> new HashSet<>()).add(key));
+        entry.getFiles().forEach(f -> keysByFile.computeIfAbsent(f, k -> new HashSet<>()).add(key));
+        while (entries.size() > maxEntries) {
+            String eldest = entries.keySet().iterator().next();
+            removeLocked(eldest);
+            evictions.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 调用边新增：调用方结果中包含被调用方时失效，被调用方结果中包含调用方时失效
+     */
+    public synchronized void invalidateEdge(String fromId, String toId) {
+        generation++;
+        for (String key : snapshot(keysByNode.get(toId))) {
+            if (entries.get(key) != null && entries.get(key).isCallers()) {
+                invalidateLocked(key);
+            }
+        }
+        for (String key : snapshot(keysByNode.get(fromId))) {
+            if (entries.get(key) != null && !entries.get(key).isCallers()) {
+                invalidateLocked(key);
+            }
+        }
+    }
+    
+    /**
+     * 节点删除或属性变化：涉及该节点的结果全部失效
+     */
+    public synchronized void invalidateNode(String nodeId) {
+        generation++;
+        snapshot(keysByNode.get(nodeId)).forEach(this::invalidateLocked);
+    }
+    
+    /**
+     * 文件出边删除或路径改写：涉及该文件节点的结果全部失效
+     */
+    public synchronized void invalidateFile(String projectFilePath) {
+        generation++;
+        snapshot(keysByFile.get(projectFilePath)).forEach(this::invalidateLocked);
+    }
+    
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("hits", hits.get());
+        snapshot.put("misses", misses.get());
+        snapshot.put("invalidations", invalidations.get());
+        snapshot.put("evictions", evictions.get());
+        snapshot.put("entries", entries.size());
+        snapshot.put("maxEntries", maxEntries);
+        return snapshot;
+    }
+    
+    // ========== 内部方法 ==========
+    
+    private void invalidateLocked(String key) {
+        if (removeLocked(key)) {
+            invalidations.incrementAndGet();
+        }
+    }
+    
+    private boolean removeLocked(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.getNodeIds().forEach(id -> unindex(keysByNode, id, key));
+        entry.getFiles().forEach(f -> unindex(keysByFile, f, key));
+        return true;
+    }
+    
+    private static void unindex(Map<String, Set<String>> index, String indexKey, String key) {
+        Set<String> keys = index.get(indexKey);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+    
+    private static List<String> snapshot(Set<String> keys) {
+        return keys == null ? Collections.emptyList() : new ArrayList<>(keys);
+    }
+    
+    /**
+     * 缓存条目
+     */
+    @Data
+    public static class Entry {
+        private boolean callers;
+        private boolean truncated;
+        private List<CallGraphNodeDO> nodes;
+        private Set<String> nodeIds;
+        private Set<String> files;
+    }
+}
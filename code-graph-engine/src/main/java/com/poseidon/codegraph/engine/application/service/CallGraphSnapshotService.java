@@ -0,0 +1,255 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.CallGraphSnapshotRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphRouteRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.service.graph.CallGraphSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 调用图内存快照服务（应用层）
+ * 职责：
+ * 1. 启动后在后台线程从图数据库流式加载快照
+ * 2. 作为写入监听器，按写路径的每次写库同步修补快照
+ * 3. 差量累积超过阈值时在后台合并
+ *
+ * 加载期间的修改先应用到旧快照（若有），同时缓存下来，加载完成后在新快照上重放
+ */
+@Slf4j
+@Service
+@Order(0)
+public class CallGraphSnapshotService implements GraphChangeListener {
+
+    public enum State { DISABLED, EMPTY, LOADING, READY, FAILED }
+
+    private final CallGraphSnapshotRepository snapshotRepository;
+    private final GraphRouteRepository routeRepository;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final boolean enabled;
+    private final boolean offHeap;
+    private final int compactThreshold;
+
+    private volatile CallGraphSnapshot graph;
+    private volatile State state;
+    private List<Consumer<CallGraphSnapshot>> pending;
+    private boolean compacting;
+    private long loadedAt;
+    private long loadMillis;
+    private String lastError;
+
+    public CallGraphSnapshotService(
+            CallGraphSnapshotRepository snapshotRepository,
+            GraphRouteRepository routeRepository,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${code-graph.call-graph-snapshot.enabled:true}") boolean enabled,
+            @Value("${code-graph.call-graph-snapshot.off-heap:false}") boolean offHeap,
+            @Value("${code-graph.call-graph-snapshot.compact-threshold:200000}") int compactThreshold) {
+        this.snapshotRepository = snapshotRepository;
+        this.routeRepository = routeRepository;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.enabled = enabled;
+        this.offHeap = offHeap;
+        this.compactThreshold = compactThreshold;
+        this.state = enabled ? State.EMPTY : State.DISABLED;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 后台重新加载快照
+     * @return 是否提交了加载任务（已在加载中或未启用时返回 false）
+     */
+    public synchronized boolean reload() {
+        if (!enabled || state == State.LOADING) {
+            return false;
+        }
+        try {
+            backgroundTaskExecutor.execute(this::load);
+        } catch (Exception e) {
+            log.warn("调用图快照加载任务提交失败: error={}", e.getMessage());
+            return false;
+        }
+        state = State.LOADING;
+        pending = new ArrayList<>();
+        return true;
+    }
+
+    /**
+     * 获取已就绪的快照（未就绪时返回 null，调用方回退到图数据库）
+     */
+    public CallGraphSnapshot getReadySnapshot() {
+        return graph;
+    }
+
+    /**
+     * 在快照上遍历
+     * @throws IllegalStateException 快照未就绪
+     */
+    public CallGraphSnapshot.Traversal traverse(String nodeId, boolean reverse, int depth, int maxNodes, int typeMask) {
+        CallGraphSnapshot current = graph;
+        if (current == null) {
+            throw new IllegalStateException("调用图快照未就绪: state=" + state);
+        }
+        return current.traverse(nodeId, reverse, depth, maxNodes, typeMask);
+    }
+
+    /**
+     * 在快照上遍历，覆盖层中的节点和关系优先（overlay 为 null 时等同于基线遍历）
+     * @throws IllegalStateException 快照未就绪
+     */
+    public CallGraphSnapshot.Traversal traverse(String nodeId, boolean reverse, int depth, int maxNodes, int typeMask,
+                                                CallGraphSnapshot.Overlay overlay) {
+        CallGraphSnapshot current = graph;
+        if (current == null) {
+            throw new IllegalStateException("调用图快照未就绪: state=" + state);
+        }
+        return current.traverse(List.of(nodeId), reverse, depth, maxNodes, typeMask, 0L, overlay);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("loadedAt", loadedAt);
+        stats.put("loadMillis", loadMillis);
+        stats.put("compacting", compacting);
+        stats.put("lastError", lastError);
+        if (graph != null) {
+            stats.putAll(graph.stats());
+        }
+        return stats;
+    }
+
+    // ========== 写路径修补 ==========
+
+    @Override
+    public void onNodesSaved(List<? extends CodeNode> nodes) {
+        apply(s -> nodes.forEach(node -> s.upsertNode(node.getId(), node.getProjectFilePath())));
+    }
+
+    @Override
+    public void onNodeDeleted(String nodeId) {
+        apply(s -> s.removeNode(nodeId));
+    }
+
+    @Override
+    public void onFileOutgoingCallsDeleted(String projectFilePath) {
+        apply(s -> s.clearOutgoingCalls(projectFilePath));
+    }
+
+    @Override
+    public void onRelationshipsInserted(List<CodeRelationship> relationships) {
+        apply(s -> relationships.forEach(rel -> s.addEdge(
+            rel.getFromNodeId(), rel.getToNodeId(), CallGraphSnapshot.typeOf(rel.getRelationshipType().name()))));
+    }
+
+    @Override
+    public void onFileRenamed(FileRename rename) {
+        if (!Objects.equals(rename.getOldPackageName(), rename.getNewPackageName())) {
+            // 包名变化时节点 ID 被改写，快照无法原地修补，后台重新加载
+            log.info("文件移动导致节点 ID 改写，重新加载调用图快照: {} -> {}",
+                rename.getOldProjectFilePath(), rename.getNewProjectFilePath());
+            reload();
+            return;
+        }
+        apply(s -> s.renameFile(rename.getOldProjectFilePath(), rename.getNewProjectFilePath()));
+    }
+
+    // ========== 内部方法 ==========
+
+    private synchronized void apply(Consumer<CallGraphSnapshot> op) {
+        if (graph != null) {
+            op.accept(graph);
+            compactIfNecessary();
+        }
+        if (pending != null) {
+            pending.add(op);
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            CallGraphSnapshot.Builder builder = CallGraphSnapshot.builder(offHeap);
+            // 节点 ID 全局唯一，各目标库的节点和关系合并到同一张快照
+            for (String target : routeRepository.findTargets()) {
+                GraphRoute.run(target, () -> {
+                    snapshotRepository.streamNodes(builder::addNode);
+                    snapshotRepository.streamEdges(builder::addEdge);
+                });
+            }
+            CallGraphSnapshot loaded = builder.build();
+            log.info("调用图快照加载完成: nodes={}, edges={}, elapsed={}ms",
+                builder.nodeCount(), builder.edgeCount(), System.currentTimeMillis() - start);
+
+            synchronized (this) {
+                pending.forEach(op -> op.accept(loaded));
+                log.info("重放加载期间的快照修改: count={}", pending.size());
+                pending = null;
+                graph = loaded;
+                state = State.READY;
+                loadedAt = System.currentTimeMillis();
+                loadMillis = loadedAt - start;
+                lastError = null;
+                compactIfNecessary();
+            }
+        } catch (Exception e) {
+            log.error("调用图快照加载失败: error={}", e.getMessage(), e);
+            synchronized (this) {
+                pending = null;
+                state = graph != null ? State.READY : State.FAILED;
+                lastError = e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * 差量超过阈值时提交后台合并（调用方持有 this 锁）
+     */
+    private void compactIfNecessary() {
+        if (compacting || graph.deltaOps() < compactThreshold) {
+            return;
+        }
+        compacting = true;
+        CallGraphSnapshot target = graph;
+        try {
+            backgroundTaskExecutor.execute(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    target.compact();
+                    log.info("调用图快照合并完成: elapsed={}ms", System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    log.error("调用图快照合并失败: error={}", e.getMessage(), e);
+                } finally {
+                    synchronized (this) {
+                        compacting = false;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            compacting = false;
+            log.warn("调用图快照合并任务提交失败: error={}", e.getMessage());
+        }
+    }
+}
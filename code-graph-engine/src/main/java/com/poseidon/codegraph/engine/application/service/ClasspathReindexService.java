@@ -0,0 +1,370 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.CodeRelationshipRepository;
+import com.poseidon.codegraph.engine.application.repository.CodeUnitRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.parser.classpath.ClasspathScanner;
+import com.poseidon.codegraph.engine.domain.parser.classpath.ClasspathSnapshot;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * classpath 变化感知的定向重建服务（应用层）
+ * 职责：
+ * 1. 在请求线程上记录每个项目的 jar 集合指纹，发现变化时提交后台任务
+ * 2. 后台对比新旧快照，得到变化的包
+ * 3. 按导入包索引和 CALLS 边找出受影响的文件，只重建这些文件的调用关系
+ *
+ * 受影响文件按级联更新处理：保留节点和其他文件指向它们的调用边（函数 ID 不随 classpath 变化），
+ * 只按新的 classpath 重新解析并重建出向 CALLS，不再级联到依赖它们的文件。
+ * 任务在仓库的目标库上按写入执行（迁移或删除中的仓库拒绝），成功后才记下指纹和快照，失败时下一次请求重新检测。
+ *
+ * 导入包反查依赖 (:CodeUnit)-[:IMPORTS_PACKAGE]->(:CodeImportedPackage) 关系，启动后若目标库还没有该关系，
+ * 在后台按现有单元的 importedPackages 补建（已有图、全量导入的库）。
+ * 受影响文件的内容与级联更新一样优先从文件内容存储读取，存储中没有时才通过 sourcepath 定位磁盘文件。
+ *
+ * 快照按（项目、仓库、分支）持久化到本地磁盘，服务重启后仍能识别变化；
+ * 首次观察到某个项目时只建立基线，不触发重建。
+ */
+@Slf4j
+@Service
+public class ClasspathReindexService {
+    
+    private static final int PACKAGE_QUERY_BATCH_SIZE = 500;
+    private static final int MAX_RECENT_JOBS = 20;
+    private static final int MAX_ANCESTOR_DEPTH = 8;
+    
+    private final IncrementalUpdateService incrementalUpdateService;
+    private final GraphWriteBuffer writeBuffer;
+    private final CodeUnitRepository unitRepository;
+    private final CodeRelationshipRepository relationshipRepository;
+    private final GraphRouteService graphRouteService;
+    private final FileContentStore fileContentStore;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final ClasspathScanner scanner = new ClasspathScanner();
+    private final Path snapshotDir;
+    private final boolean enabled;
+    
+    /**
+     * 作用域 -> 最近一次重建成功的 jar 集合指纹
+     */
+    private final Map<String, String> observedKeys = new ConcurrentHashMap<>();
+    
+    /**
+     * 作用域 -> 排队或执行中的任务的 jar 集合指纹（每个作用域同时只有一个任务）
+     */
+    private final Map<String, String> pendingKeys = new ConcurrentHashMap<>();
+    
+    private final Deque<ReindexJob> recentJobs = new ConcurrentLinkedDeque<>();
+    
+    public ClasspathReindexService(
+            IncrementalUpdateService incrementalUpdateService,
+            GraphWriteBuffer writeBuffer,
+            CodeUnitRepository unitRepository,
+            CodeRelationshipRepository relationshipRepository,
+            GraphRouteService graphRouteService,
+            ObjectProvider<FileContentStore> fileContentStore,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${code-graph.classpath-reindex.snapshot-dir:${user.home}/.code-graph/classpath}") String snapshotDir,
+            @Value("${code-graph.classpath-reindex.enabled:true}") boolean enabled) {
+        this.incrementalUpdateService = incrementalUpdateService;
+        this.writeBuffer = writeBuffer;
+        this.unitRepository = unitRepository;
+        this.relationshipRepository = relationshipRepository;
+        this.graphRouteService = graphRouteService;
+        this.fileContentStore = fileContentStore.getIfAvailable();
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.snapshotDir = Path.of(snapshotDir);
+        this.enabled = enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            backgroundTaskExecutor.execute(this::linkImportedPackages);
+        } catch (Exception e) {
+            log.warn("导入包关系补建任务提交失败: error={}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 记录一次请求携带的 classpath（请求线程调用，只做文件元信息比较）
+     */
+    public void observe(String projectName, String gitRepoUrl, String gitBranch,
+                        String[] classpathEntries, String[] sourcepathEntries) {
+        if (!enabled || classpathEntries == null || classpathEntries.length == 0) {
+            return;
+        }
+        String scope = projectName + "|" + gitRepoUrl + "|" + gitBranch;
+        String jarSetKey = scanner.jarSetKey(classpathEntries);
+        if (jarSetKey.equals(observedKeys.get(scope))) {
+            return;
+        }
+        if (pendingKeys.putIfAbsent(scope, jarSetKey) != null) {
+            // 已有任务排队或执行中：结束后仍不一致时由之后的请求再提交
+            return;
+        }
+        
+        ReindexJob job = new ReindexJob();
+        job.setProjectName(projectName);
+        job.setGitRepoUrl(gitRepoUrl);
+        job.setGitBranch(gitBranch);
+        job.setState(ReindexJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        try {
+            backgroundTaskExecutor.execute(() -> runJob(job, scope, jarSetKey, classpathEntries, sourcepathEntries));
+            addRecentJob(job);
+        } catch (TaskRejectedException e) {
+            // 队列已满：释放占位，下次请求再尝试
+            pendingKeys.remove(scope, jarSetKey);
+            log.warn("classpath 重建任务提交失败，等待下次请求重试: project={}, error={}", projectName, e.getMessage());
+        }
+    }
+    
+    /**
+     * 导出最近的重建任务状态
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("trackedScopes", observedKeys.size());
+        snapshot.put("pendingScopes", pendingKeys.size());
+        snapshot.put("recentJobs", new ArrayList<>(recentJobs));
+        return snapshot;
+    }
+    
+    // ========== 后台任务 ==========
+    
+    /**
+     * 在仓库的目标库上按写入执行重建（计入在途写入，迁移或删除中的仓库拒绝），成功后才记下指纹
+     */
+    private void runJob(ReindexJob job, String scope, String jarSetKey,
+                        String[] classpathEntries, String[] sourcepathEntries) {
+        job.setState(ReindexJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        try {
+            graphRouteService.runWritable(job.getGitRepoUrl(),
+                () -> reindex(job, scope, jarSetKey, classpathEntries, sourcepathEntries));
+            observedKeys.put(scope, jarSetKey);
+        } catch (Exception e) {
+            job.setState(ReindexJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("classpath 定向重建失败，等待下次请求重试: project={}, error={}", job.getProjectName(), e.getMessage(), e);
+        } finally {
+            pendingKeys.remove(scope, jarSetKey);
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+    
+    private void reindex(ReindexJob job, String scope, String jarSetKey,
+                         String[] classpathEntries, String[] sourcepathEntries) {
+        Path snapshotFile = snapshotDir.resolve(ContentHasher.sha256(scope) + ".cps");
+        ClasspathSnapshot previous = loadSnapshot(snapshotFile);
+        if (previous != null && jarSetKey.equals(previous.getJarSetKey())) {
+            // 服务重启后的首次观察，classpath 未变
+            job.setState(ReindexJob.STATE_UNCHANGED);
+            return;
+        }
+        
+        ClasspathSnapshot current = scanner.scan(classpathEntries);
+        if (previous == null) {
+            saveSnapshot(snapshotFile, current);
+            log.info("建立 classpath 基线: project={}, packages={}", job.getProjectName(), current.getPackageDigests().size());
+            job.setState(ReindexJob.STATE_BASELINE);
+            return;
+        }
+        
+        Set<String> changedPackages = current.diffPackages(previous);
+        job.setChangedPackages(changedPackages.size());
+        log.info("检测到 classpath 变化: project={}, changedPackages={}", job.getProjectName(), changedPackages.size());
+        
+        Set<String> affectedFiles = findAffectedFiles(job.getGitRepoUrl(), job.getGitBranch(), new ArrayList<>(changedPackages));
+        job.setAffectedFiles(affectedFiles.size());
+        
+        // 受影响文件的写入跨文件合并，整个批次结束时统一刷写（刷写失败时在这里抛出）
+        writeBuffer.runInScope(() -> {
+            for (String projectFilePath : affectedFiles) {
+                // 内容存储中有该文件时由处理器从存储读取，否则通过 sourcepath 定位磁盘文件
+                boolean stored = fileContentStore != null
+                    && fileContentStore.getHash(job.getGitRepoUrl(), job.getGitBranch(), projectFilePath) != null;
+                String absoluteFilePath = stored ? null : resolveAbsolutePath(projectFilePath, sourcepathEntries);
+                if (!stored && absoluteFilePath == null) {
+                    // 内容存储和 sourcepath 下都找不到源文件，不能重新解析，等待文件自身的变更事件
+                    job.setSkippedFiles(job.getSkippedFiles() + 1);
+                    log.warn("classpath 重建跳过无法定位的文件: file={}", projectFilePath);
+                    continue;
+                }
+                try {
+                    // 按级联更新处理：只重建出向调用关系，不删除节点、不再级联
+                    incrementalUpdateService.handleFileChange(
+                        job.getProjectName(),
+                        absoluteFilePath,
+                        projectFilePath,
+                        job.getGitRepoUrl(),
+                        job.getGitBranch(),
+                        classpathEntries,
+                        sourcepathEntries,
+                        true
+                    );
+                    job.setProcessedFiles(job.getProcessedFiles() + 1);
+                } catch (Exception e) {
+                    job.setFailedFiles(job.getFailedFiles() + 1);
+                    log.warn("classpath 重建文件失败: file={}, error={}", projectFilePath, e.getMessage());
+                }
+            }
+        });
+        if (job.getFailedFiles() > 0) {
+            throw new IllegalStateException("classpath 重建有文件失败: failed=" + job.getFailedFiles());
+        }
+        // 全部文件重建成功后才保存快照：失败时磁盘上仍是旧快照，下一次观察重新对比出同样的变化
+        saveSnapshot(snapshotFile, current);
+        job.setState(ReindexJob.STATE_DONE);
+        log.info("classpath 定向重建完成: project={}, affectedFiles={}, skipped={}", 
+            job.getProjectName(), affectedFiles.size(), job.getSkippedFiles());
+    }
+    
+    /**
+     * 还没有导入包关系的目标库按现有单元补建
+     */
+    private void linkImportedPackages() {
+        for (String target : graphRouteService.targets()) {
+            try {
+                GraphRoute.run(target, () -> {
+                    if (!unitRepository.hasImportedPackageLinks()) {
+                        log.info("导入包关系为空，开始按现有单元补建: target={}", target);
+                        unitRepository.linkImportedPackages(null);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("补建导入包关系失败: target={}, error={}", target, e.getMessage(), e);
+            }
+        }
+    }
+    
+    private Set<String> findAffectedFiles(String gitRepoUrl, String gitBranch, List<String> changedPackages) {
+        Set<String> files = new TreeSet<>();
+        for (int i = 0; i < changedPackages.size(); i += PACKAGE_QUERY_BATCH_SIZE) {
+            List<String> batch = changedPackages.subList(i, Math.min(i + PACKAGE_QUERY_BATCH_SIZE, changedPackages.size()));
+            files.addAll(unitRepository.findProjectFilePathsByImportedPackages(gitRepoUrl, gitBranch, batch));
+            files.addAll(relationshipRepository.findCallerFilePathsByCalleePackages(gitRepoUrl, gitBranch, batch));
+        }
+        return files;
+    }
+    
+    /**
+     * 通过 sourcepath 推导文件绝对路径：
+     * 沿每个 sourcepath 根目录向上查找，第一个拼接后存在的路径即为结果；都不存在时返回 null
+     */
+    private String resolveAbsolutePath(String projectFilePath, String[] sourcepathEntries) {
+        if (sourcepathEntries == null) {
+            return null;
+        }
+        for (String entry : sourcepathEntries) {
+            if (entry == null || entry.isEmpty()) {
+                continue;
+            }
+            Path dir = Path.of(entry).toAbsolutePath();
+            for (int depth = 0; dir != null && depth < MAX_ANCESTOR_DEPTH; depth++, dir = dir.getParent()) {
+                Path candidate = dir.resolve(projectFilePath);
+                if (Files.isRegularFile(candidate)) {
+                    return candidate.toString();
+                }
+            }
+        }
+        return null;
+    }
+    
+    private ClasspathSnapshot loadSnapshot(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return ClasspathSnapshot.readFrom(in);
+        } catch (IOException e) {
+            log.warn("读取 classpath 快照失败，重新建立基线: file={}, error={}", file, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void saveSnapshot(Path file, ClasspathSnapshot snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                    snapshot.writeTo(out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("保存 classpath 快照失败: " + file, e);
+        }
+    }
+    
+    private void addRecentJob(ReindexJob job) {
+        recentJobs.addFirst(job);
+        while (recentJobs.size() > MAX_RECENT_JOBS) {
+            recentJobs.pollLast();
+        }
+    }
+    
+    /**
+     * 重建任务状态
+     */
+    @Data
+    public static class ReindexJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_BASELINE = "BASELINE";
+        public static final String STATE_UNCHANGED = "UNCHANGED";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_FAILED = "FAILED";
+        
+        private String projectName;
+        private String gitRepoUrl;
+        private String gitBranch;
+        private volatile String state;
+        private int changedPackages;
+        private int affectedFiles;
+        private volatile int processedFiles;
+        private volatile int failedFiles;
+        private volatile int skippedFiles;
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+    }
+}
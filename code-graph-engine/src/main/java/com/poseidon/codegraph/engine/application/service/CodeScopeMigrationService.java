@@ -0,0 +1,125 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 代码范围迁移服务（应用层）
+ * 把已有图中节点上的 gitRepoUrl/gitBranch 字符串属性替换为整数 scopeId。
+ *
+ * 按标签、按范围分批执行，每批一个事务，可重复执行（只处理还没有 scopeId 的节点），中断后重新提交即可继续。
+ * 迁移期间读取仍兼容两种节点；按仓库/分支过滤的查询只认 scopeId，迁移完成前结果可能不完整
+ */
+@Slf4j
+@Service
+public class CodeScopeMigrationService {
+
+    private static final List<String> LABELS = List.of("CodePackage", "CodeUnit", "CodeFunction", "CodeEndpoint", "CodeFile");
+
+    private final CodeScopeRepository scopeRepository;
+    private final TaskExecutor maintenanceTaskExecutor;
+    private final int batchSize;
+
+    private final AtomicReference<MigrationJob> currentJob = new AtomicReference<>();
+
+    public CodeScopeMigrationService(
+            CodeScopeRepository scopeRepository,
+            @Qualifier("maintenanceTaskExecutor") TaskExecutor maintenanceTaskExecutor,
+            @Value("${code-graph.scope-migration.batch-size:10000}") int batchSize) {
+        this.scopeRepository = scopeRepository;
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 提交迁移任务，已有任务在执行时直接返回该任务
+     *
+     * @throws IllegalStateException 维护任务队列已满
+     */
+    public synchronized MigrationJob submit() {
+        MigrationJob running = currentJob.get();
+        if (running != null && !running.isFinished()) {
+            return running;
+        }
+
+        MigrationJob job = new MigrationJob();
+        job.setState(MigrationJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        try {
+            maintenanceTaskExecutor.execute(() -> migrate(job));
+        } catch (TaskRejectedException e) {
+            throw new IllegalStateException("维护任务队列已满，请稍后重试", e);
+        }
+        currentJob.set(job);
+        return job;
+    }
+
+    /**
+     * 最近一次迁移任务，没有时返回 null
+     */
+    public MigrationJob current() {
+        return currentJob.get();
+    }
+
+    private void migrate(MigrationJob job) {
+        job.setState(MigrationJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        try {
+            for (String label : LABELS) {
+                job.setCurrentLabel(label);
+                for (CodeScope scope : scopeRepository.findUnmigratedScopes(label)) {
+                    long batch;
+                    do {
+                        batch = scopeRepository.migrateBatch(label, scope, batchSize);
+                        job.getMigratedNodes().merge(label, batch, Long::sum);
+                    } while (batch > 0);
+                }
+                log.info("范围迁移完成一个标签: label={}, nodes={}", label, job.getMigratedNodes().getOrDefault(label, 0L));
+            }
+            job.setState(MigrationJob.STATE_DONE);
+            log.info("范围迁移完成: migrated={}", job.getMigratedNodes());
+        } catch (Exception e) {
+            job.setState(MigrationJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("范围迁移失败: label={}, error={}", job.getCurrentLabel(), e.getMessage(), e);
+        } finally {
+            job.setCurrentLabel(null);
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 迁移任务状态
+     */
+    @Data
+    public static class MigrationJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_FAILED = "FAILED";
+
+        private volatile String state;
+        private volatile String currentLabel;
+        private final Map<String, Long> migratedNodes = new ConcurrentHashMap<>();
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+
+        public boolean isFinished() {
+            return STATE_DONE.equals(state) || STATE_FAILED.equals(state);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.FileDependencyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * 文件级反向依赖索引服务（应用层）
+ * 职责：
+ * 1. 启动后创建索引，索引为空时在后台按现有 CALLS 关系全量回填
+ * 2. 之后由变更处理器在重建文件调用关系时增量维护
+ */
+@Slf4j
+@Service
+public class FileDependencyIndexService {
+    
+    private final FileDependencyRepository fileDependencyRepository;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final boolean backfillOnStartup;
+    
+    public FileDependencyIndexService(
+            FileDependencyRepository fileDependencyRepository,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${code-graph.file-dependency.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.fileDependencyRepository = fileDependencyRepository;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            backgroundTaskExecutor.execute(this::initialize);
+        } catch (Exception e) {
+            log.warn("文件依赖索引初始化任务提交失败: error={}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 全量重建文件依赖索引
+     * @return 依赖关系数量
+     */
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        long count = fileDependencyRepository.rebuildAll();
+        log.info("文件依赖索引重建完成: dependencies={}, elapsed={}ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+    
+    private void initialize() {
+        try {
+            fileDependencyRepository.ensureIndexes();
+            if (fileDependencyRepository.countDependencies() == 0) {
+                log.info("文件依赖索引为空，开始按现有调用关系回填");
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("文件依赖索引初始化失败: error={}", e.getMessage(), e);
+        }
+    }
+}
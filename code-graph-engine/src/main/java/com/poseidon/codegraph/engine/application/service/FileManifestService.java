@@ -0,0 +1,135 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.FileManifestRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.service.manifest.FileManifestStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件清单服务（应用层）
+ * 职责：
+ * 1. 变更处理前提供文件的旧节点 ID，命中时不读图数据库
+ * 2. 未命中时从图数据库只读 ID 重建并回填
+ * 3. 写路径写入/删除/移动文件后同步更新清单
+ *
+ * 清单按（目标库、图数据库代次、仓库、分支）划分命名空间：同一路径在不同分支或不同目标库下互不干扰；
+ * 图数据库被清空后代次变化，旧代次的清单整体作废（代次按间隔重新检查，清空后最多在一个检查间隔内仍可能命中旧清单）
+ */
+@Slf4j
+@Service
+public class FileManifestService {
+    
+    private static final char SEPARATOR = '\u0000';
+    
+    private final FileManifestStore fileManifestStore;
+    private final FileManifestRepository fileManifestRepository;
+    private final GraphEpochService graphEpochService;
+    
+    /**
+     * 目标库 -> 清单命名空间最近使用的图数据库代次
+     */
+    private final Map<String, String> epochs = new ConcurrentHashMap<>();
+    
+    public FileManifestService(
+            FileManifestStore fileManifestStore,
+            FileManifestRepository fileManifestRepository,
+            GraphEpochService graphEpochService) {
+        this.fileManifestStore = fileManifestStore;
+        this.fileManifestRepository = fileManifestRepository;
+        this.graphEpochService = graphEpochService;
+    }
+    
+    /**
+     * 获取文件清单（未命中时从图数据库重建）
+     */
+    public FileManifest get(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        String namespace = namespace(gitRepoUrl, gitBranch);
+        FileManifest manifest = fileManifestStore.get(namespace, projectFilePath);
+        if (manifest != null) {
+            return manifest;
+        }
+        manifest = fileManifestRepository.loadManifest(gitRepoUrl, gitBranch, projectFilePath);
+        fileManifestStore.put(namespace, manifest);
+        log.debug("文件清单从图数据库重建: file={}, nodes={}", projectFilePath, manifest.nodeCount());
+        return manifest;
+    }
+    
+    public void record(String gitRepoUrl, String gitBranch, FileManifest manifest) {
+        fileManifestStore.put(namespace(gitRepoUrl, gitBranch), manifest);
+    }
+    
+    public void remove(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        fileManifestStore.remove(namespace(gitRepoUrl, gitBranch), projectFilePath);
+    }
+    
+    /**
+     * 文件纯移动：包名不变时节点 ID 不变，直接移动清单；包名变化时节点 ID 被改写，两边都失效
+     */
+    public void rename(String gitRepoUrl, String gitBranch, FileRename rename) {
+        String namespace = namespace(gitRepoUrl, gitBranch);
+        FileManifest manifest = fileManifestStore.get(namespace, rename.getOldProjectFilePath());
+        fileManifestStore.remove(namespace, rename.getOldProjectFilePath());
+        fileManifestStore.remove(namespace, rename.getNewProjectFilePath());
+        if (manifest != null && Objects.equals(rename.getOldPackageName(), rename.getNewPackageName())) {
+            manifest.setProjectFilePath(rename.getNewProjectFilePath());
+            fileManifestStore.put(namespace, manifest);
+        }
+    }
+    
+    /**
+     * 作废一个仓库在所有目标库下的清单（范围删除、项目迁移后调用）
+     *
+     * @param gitBranch 分支，为 null 时作废该仓库的全部分支
+     */
+    public void invalidate(String gitRepoUrl, String gitBranch) {
+        String repo = stored(gitRepoUrl);
+        String branch = gitBranch != null ? stored(gitBranch) : null;
+        int removed = fileManifestStore.removeNamespaces(namespace -> {
+            String[] parts = namespace.split(String.valueOf(SEPARATOR), -1);
+            return parts.length == 4 && parts[2].equals(repo) && (branch == null || parts[3].equals(branch));
+        });
+        log.info("作废文件清单: repo={}, branch={}, namespaces={}", gitRepoUrl, gitBranch, removed);
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = fileManifestStore.snapshot();
+        snapshot.put("epochs", epochs.size());
+        return snapshot;
+    }
+    
+    // ========== 内部方法 ==========
+    
+    /**
+     * 命名空间：目标库、代次、仓库、分支（调用方已处在仓库的路由中）
+     */
+    private String namespace(String gitRepoUrl, String gitBranch) {
+        String route = GraphRoute.current();
+        return route + SEPARATOR + epoch(route) + SEPARATOR + stored(gitRepoUrl) + SEPARATOR + stored(gitBranch);
+    }
+    
+    private String epoch(String route) {
+        String value = graphEpochService.current();
+        String previous = epochs.put(route, value);
+        if (previous == null || !previous.equals(value)) {
+            // 首次读到代次时同样清理：服务停机期间库被清空，磁盘上会留下旧代次的清单
+            String prefix = route + SEPARATOR;
+            String current = prefix + value + SEPARATOR;
+            int removed = fileManifestStore.removeNamespaces(namespace -> namespace.startsWith(prefix) && !namespace.startsWith(current));
+            if (previous != null || removed > 0) {
+                log.warn("图数据库代次变化（已被清空），作废文件清单: target={}, namespaces={}", route, removed);
+            }
+        }
+        return value;
+    }
+    
+    private static String stored(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,44 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+
+import java.util.List;
+
+/**
+ * 图谱写入监听器（应用层）
+ * 由 IncrementalUpdateService 在每次写库成功后回调，供内存索引、查询缓存等派生数据同步更新
+ */
+public interface GraphChangeListener {
+    
+    /**
+     * 节点新增或属性更新（函数、端点）
+     */
+    default void onNodesSaved(List<? extends CodeNode> nodes) {
+    }
+    
+    /**
+     * 节点删除（含其所有关系）
+     */
+    default void onNodeDeleted(String nodeId) {
+    }
+    
+    /**
+     * 文件的 CALLS 出边删除
+     */
+    default void onFileOutgoingCallsDeleted(String projectFilePath) {
+    }
+    
+    /**
+     * 关系新增
+     */
+    default void onRelationshipsInserted(List<CodeRelationship> relationships) {
+    }
+    
+    /**
+     * 文件路径原地改写
+     */
+    default void onFileRenamed(FileRename rename) {
+    }
+}
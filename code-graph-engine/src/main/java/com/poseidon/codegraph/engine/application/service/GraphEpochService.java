@@ -0,0 +1,59 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.FileManifestRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图数据库代次服务（应用层）
+ * 每个目标库保存一个代次标识，库被清空（如执行 clear_database.cypher）后重新生成。
+ * 进程内按目标库缓存的派生数据（文件清单、已存在包、已知函数索引）按代次划分命名空间，代次变化即整体作废；
+ * 代次按间隔重新检查，清空后最多在一个检查间隔内仍可能使用旧代次的数据
+ */
+@Service
+public class GraphEpochService {
+
+    private final FileManifestRepository fileManifestRepository;
+    private final long checkIntervalMillis;
+
+    /**
+     * 目标库 -> 最近一次读到的代次
+     */
+    private final Map<String, Epoch> epochs = new ConcurrentHashMap<>();
+
+    public GraphEpochService(
+            FileManifestRepository fileManifestRepository,
+            @Value("${code-graph.graph-epoch.check-interval-ms:10000}") long checkIntervalMillis) {
+        this.fileManifestRepository = fileManifestRepository;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * 当前路由目标库的代次
+     */
+    public String current() {
+        String route = GraphRoute.current();
+        long now = System.currentTimeMillis();
+        Epoch cached = epochs.get(route);
+        if (cached != null && now - cached.checkedAt < checkIntervalMillis) {
+            return cached.value;
+        }
+        String value = fileManifestRepository.loadEpoch();
+        epochs.put(route, new Epoch(value, now));
+        return value;
+    }
+
+    private static final class Epoch {
+        private final String value;
+        private final long checkedAt;
+
+        private Epoch(String value, long checkedAt) {
+            this.value = value;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
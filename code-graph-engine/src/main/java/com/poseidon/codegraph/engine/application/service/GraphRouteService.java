@@ -0,0 +1,168 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphRouteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 图数据库路由服务（应用层）
+ * 职责：
+ * 1. 按仓库查找目标库，在目标库的路由上下文中执行读写
+ * 2. 为新仓库登记目标库（已有数据的仓库通过迁移任务切换，见 ProjectMoveService）
+ * 3. 迁移期间拒绝该仓库的写入，避免写到即将被删除的源库；标记迁移后等待已在执行的写入结束再开始复制
+ * 4. 范围删除期间同样拒绝该仓库的写入，避免删除后又写回节点
+ */
+@Slf4j
+@Service
+public class GraphRouteService {
+
+    private final GraphRouteRepository routeRepository;
+    private final CodeScopeRepository scopeRepository;
+    private static final String BLOCKED_MOVING = "迁移到其他目标库";
+    private static final String BLOCKED_DELETING = "删除";
+
+    /**
+     * 暂停写入的仓库 -> 原因（迁移、删除），同一时间只能有一个
+     */
+    private final Map<String, String> blocked = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> writesInFlight = new ConcurrentHashMap<>();
+
+    public GraphRouteService(GraphRouteRepository routeRepository, CodeScopeRepository scopeRepository) {
+        this.routeRepository = routeRepository;
+        this.scopeRepository = scopeRepository;
+    }
+
+    public String targetOf(String gitRepoUrl) {
+        return routeRepository.findTarget(gitRepoUrl);
+    }
+
+    public List<String> targets() {
+        return routeRepository.findTargets();
+    }
+
+    public Map<String, String> routes() {
+        return routeRepository.findRoutes();
+    }
+
+    /**
+     * 在仓库的目标库上执行（仓库为空时使用当前路由）
+     */
+    public <T> T callInRoute(String gitRepoUrl, Supplier<T> task) {
+        if (gitRepoUrl == null) {
+            return task.get();
+        }
+        return GraphRoute.call(targetOf(gitRepoUrl), task);
+    }
+
+    public void runInRoute(String gitRepoUrl, Runnable task) {
+        callInRoute(gitRepoUrl, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在仓库的目标库上执行写入，执行期间计为该仓库的在途写入
+     *
+     * @throws IllegalStateException 仓库正在迁移或删除
+     */
+    public void runWritable(String gitRepoUrl, Runnable task) {
+        if (gitRepoUrl == null) {
+            task.run();
+            return;
+        }
+        AtomicInteger counter = writesInFlight.computeIfAbsent(gitRepoUrl, key -> new AtomicInteger());
+        counter.incrementAndGet();
+        try {
+            // 先计数再检查：标记迁移后的等待要么看到这次写入，要么这次写入看到迁移标记
+            checkWritable(gitRepoUrl);
+            runInRoute(gitRepoUrl, task);
+        } finally {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException 仓库正在迁移或删除
+     */
+    public void checkWritable(String gitRepoUrl) {
+        String reason = gitRepoUrl != null ? blocked.get(gitRepoUrl) : null;
+        if (reason != null) {
+            throw new IllegalStateException("仓库正在" + reason + "，暂不接受写入: " + gitRepoUrl);
+        }
+    }
+
+    /**
+     * 为还没有数据的仓库登记目标库
+     *
+     * @throws IllegalArgumentException 目标库未配置，或仓库已有数据（需要迁移）
+     */
+    public void assign(String gitRepoUrl, String target) {
+        if (gitRepoUrl == null || gitRepoUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("gitRepoUrl 不能为空");
+        }
+        if (!targets().contains(target)) {
+            throw new IllegalArgumentException("目标库未配置: " + target);
+        }
+        List<Integer> scopeIds = scopeRepository.findScopeIds(gitRepoUrl, null, false);
+        if (scopeIds != null && !scopeIds.isEmpty() && !target.equals(targetOf(gitRepoUrl))) {
+            throw new IllegalArgumentException("仓库已有数据，请通过迁移任务切换目标库: " + gitRepoUrl);
+        }
+        routeRepository.saveRoute(gitRepoUrl, target);
+    }
+
+    /**
+     * @return false 表示仓库已在迁移或删除
+     */
+    boolean markMoving(String gitRepoUrl) {
+        return blocked.putIfAbsent(gitRepoUrl, BLOCKED_MOVING) == null;
+    }
+
+    /**
+     * @return false 表示仓库已在迁移或删除
+     */
+    boolean markDeleting(String gitRepoUrl) {
+        return blocked.putIfAbsent(gitRepoUrl, BLOCKED_DELETING) == null;
+    }
+
+    /**
+     * 等待仓库的在途写入结束（标记迁移或删除之后调用，之后不会再有新的写入开始）
+     *
+     * @return false 表示超时仍有写入未结束
+     */
+    boolean awaitWritesDrained(String gitRepoUrl, long timeoutMillis) throws InterruptedException {
+        AtomicInteger counter = writesInFlight.get(gitRepoUrl);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (counter != null && counter.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    void unmarkMoving(String gitRepoUrl) {
+        blocked.remove(gitRepoUrl, BLOCKED_MOVING);
+    }
+
+    void unmarkDeleting(String gitRepoUrl) {
+        blocked.remove(gitRepoUrl, BLOCKED_DELETING);
+    }
+
+    void switchRoute(String gitRepoUrl, String target) {
+        routeRepository.saveRoute(gitRepoUrl, target);
+    }
+
+    public boolean isMoving(String gitRepoUrl) {
+        return BLOCKED_MOVING.equals(blocked.get(gitRepoUrl));
+    }
+}
@@ -0,0 +1,597 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 跨文件写入合并缓冲（应用层）
+ * 职责：
+ * 1. 按（节点标签/关系类型, 操作）跨文件累积待写入的行，合并成更大的 UNWIND 批次
+ * 2. 累积行数达到阈值、最早一行等待超过时间预算、或外层处理范围结束时统一刷写
+ * 3. 刷写严格按 {@link Stage} 顺序执行：删除出边 → 节点 → 关系 → 文件依赖索引，保证节点先于边
+ *
+ * 读操作和未缓冲的写操作（删除节点、重命名、服务依赖刷新）调用前必须先 {@link #flush()}，
+ * 保证它们看到的图和逐文件直写时一致
+ *
+ * 每个目标库一个独立的缓冲区（行、锁、刷写失败各自隔离）：写入、读屏障和范围结束只刷写当前目标库，
+ * 一个项目的写入不会阻塞在另一个项目目标库的刷写上，也不会收到它的刷写失败
+ *
+ * 刷写失败时尚未写入的行放回缓冲区，并记在行所属的处理范围上：
+ * 重试成功视为写入成功；所属范围结束时仍写不进去，丢弃该范围的行并在它的 {@link #runInScope} 中抛出
+ */
+@Slf4j
+@Service
+public class GraphWriteBuffer {
+
+    /**
+     * 写入阶段，声明顺序即刷写顺序
+     */
+    public enum Stage {
+        /** 删除文件的出向 CALLS（行：文件及其仓库/分支） */
+        DELETE_OUTGOING_CALLS,
+        PACKAGES,
+        UNITS,
+        FUNCTIONS,
+        /** 占位符函数（MERGE ON CREATE） */
+        PLACEHOLDERS,
+        ENDPOINTS,
+        /** 结构关系（MERGE） */
+        STRUCTURE_RELATIONSHIPS,
+        /** CALLS / MATCHES 关系（CREATE） */
+        RELATIONSHIPS,
+        /** 文件依赖索引刷新（行：文件及其仓库/分支，依赖已写入的 CALLS） */
+        FILE_DEPENDENCIES
+    }
+
+    private static final int RECENT_FLUSHES = 20;
+
+    /**
+     * 行的所属方：一个最外层处理范围（范围外加入的行没有所属方）
+     */
+    private static final class Owner {
+        /** 最近一次包含本范围的行却失败的刷写（由刷写线程在目标库缓冲区锁内写入） */
+        private volatile RuntimeException failure;
+        /** 本范围写入过的目标库，范围结束时逐个刷写（只由范围所在线程访问） */
+        private final Set<String> routes = new LinkedHashSet<>();
+    }
+
+    /**
+     * 缓冲中的一行及其所属方
+     */
+    private record PendingRow(Object value, Owner owner) {
+    }
+
+    private final boolean enabled;
+    private final int maxRows;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService timer;
+
+    private final Map<Stage, Consumer<List<Object>>> sinks = new EnumMap<>(Stage.class);
+    /** 目标库 → 该目标库的缓冲区 */
+    private final ConcurrentMap<String, RouteBuffer> buffers = new ConcurrentHashMap<>();
+    private final ThreadLocal<int[]> scopeDepth = ThreadLocal.withInitial(() -> new int[1]);
+    private final ThreadLocal<Owner> scopeOwner = new ThreadLocal<>();
+
+    public GraphWriteBuffer(
+            @Value("${code-graph.write-coalescing.enabled:true}") boolean enabled,
+            @Value("${code-graph.write-coalescing.max-rows:5000}") int maxRows,
+            @Value("${code-graph.write-coalescing.max-delay-millis:200}") long maxDelayMillis) {
+        this.enabled = enabled;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxDelayMillis = Math.max(1, maxDelayMillis);
+        if (enabled) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "graph-write-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, this.maxDelayMillis / 2);
+            timer.scheduleWithFixedDelay(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.timer = null;
+        }
+        log.info("写入合并缓冲: enabled={}, maxRows={}, maxDelayMillis={}", enabled, this.maxRows, this.maxDelayMillis);
+    }
+
+    /**
+     * 注册阶段的实际写入函数（由构建上下文的一方提供，内部负责写库并通知监听器）
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> void register(Stage stage, Consumer<List<T>> sink) {
+        sinks.put(stage, rows -> sink.accept((List<T>) (List<?>) rows));
+    }
+
+    /**
+     * 把一批行缓冲到当前目标库；未启用时直接写入
+     *
+     * @param projectFilePath 产生这些行的文件，用于保证同一文件内“删除出边 → 插入出边”的顺序
+     */
+    public void add(Stage stage, String projectFilePath, List<?> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        if (!enabled) {
+            sink(stage).accept(new ArrayList<>(rows));
+            return;
+        }
+        String route = GraphRoute.current();
+        Owner owner = scopeOwner.get();
+        if (owner != null) {
+            owner.routes.add(route);
+        }
+        RouteBuffer buffer = buffer(route);
+        if (buffer.add(stage, projectFilePath, rows, owner)) {
+            buffer.flush("size");
+        }
+    }
+
+    /**
+     * 在给定 ID 中找出仍在当前目标库缓冲区中、尚未落库、且一定会写入的节点 ID。
+     * 其他未结束范围的行在刷写失败时可能被所属范围丢弃，不算；
+     * 只有无所属方的行和当前范围自己的行（被丢弃时当前范围同样失败）可以视为已存在
+     */
+    public Set<String> pendingNodeIds(Stage stage, Collection<String> ids) {
+        RouteBuffer buffer = buffers.get(GraphRoute.current());
+        if (buffer == null || ids.isEmpty()) {
+            return Set.of();
+        }
+        return buffer.pendingNodeIds(stage, ids, scopeOwner.get());
+    }
+
+    /**
+     * 在合并范围内执行：范围可以嵌套（级联更新同步递归），最外层范围结束时刷写本范围写入过的目标库。
+     * 本范围的行在结束时仍未能落库（包括由其他请求或定时器触发的刷写失败后重试仍失败）时抛出异常
+     */
+    public void runInScope(Runnable task) {
+        int[] depth = scopeDepth.get();
+        if (depth[0]++ == 0) {
+            scopeOwner.set(new Owner());
+        }
+        boolean completed = false;
+        try {
+            task.run();
+            completed = true;
+        } finally {
+            if (--depth[0] == 0) {
+                Owner owner = scopeOwner.get();
+                scopeDepth.remove();
+                scopeOwner.remove();
+                if (completed) {
+                    closeScope(owner);
+                } else {
+                    // 任务已失败：已缓冲的行照常落库（与逐文件直写时失败前的写入一致），刷写异常不覆盖原异常
+                    try {
+                        closeScope(owner);
+                    } catch (Exception e) {
+                        log.warn("处理失败后刷写缓冲区失败: error={}", e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 读屏障：把当前目标库缓冲区中的行全部落库
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        RouteBuffer buffer = buffers.get(GraphRoute.current());
+        if (buffer != null) {
+            buffer.flush("barrier");
+        }
+    }
+
+    /**
+     * 在当前目标库缓冲区锁内执行、不刷写：任务收到给定 ID 中仍被待写入行引用的部分（节点本身或关系任一端），
+     * 执行期间该目标库不会有刷写或新行加入。后台维护任务删除节点时用它跳过缓冲区里还要用到的节点，只在删除这一小段持锁
+     */
+    public <T> T runWithPendingReferences(Collection<String> ids, Function<Set<String>, T> task) {
+        return buffer(GraphRoute.current()).runWithPendingReferences(ids, task);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxRows", maxRows);
+        stats.put("maxDelayMillis", maxDelayMillis);
+        long[] totals = new long[6];
+        Map<String, Object> routes = new TreeMap<>();
+        buffers.forEach((route, buffer) -> routes.put(route, buffer.snapshot(totals)));
+        stats.put("pendingRows", totals[0]);
+        stats.put("flushes", totals[1]);
+        stats.put("failedFlushes", totals[2]);
+        stats.put("requeuedRows", totals[3]);
+        stats.put("discardedRows", totals[4]);
+        stats.put("flushedRows", totals[5]);
+        stats.put("routes", routes);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (!enabled) {
+            return;
+        }
+        buffers.values().forEach(buffer -> {
+            try {
+                buffer.flush("shutdown");
+            } catch (Exception e) {
+                log.error("关闭时刷写缓冲区失败: route={}, error={}", buffer.route, e.getMessage(), e);
+            }
+        });
+    }
+
+    // ========== 内部方法 ==========
+
+    private RouteBuffer buffer(String route) {
+        return buffers.computeIfAbsent(route, RouteBuffer::new);
+    }
+
+    /**
+     * 结束一个最外层范围：逐个刷写本范围写入过的目标库。某个目标库失败时丢弃本范围在该库仍未写入的行，
+     * 其余目标库照常刷写，最后抛出第一个失败（其他范围的行留待各自结束时处理）
+     */
+    private void closeScope(Owner owner) {
+        if (!enabled) {
+            return;
+        }
+        RuntimeException failure = null;
+        for (String route : owner.routes) {
+            try {
+                buffer(route).closeScope(owner);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (owner.failure != null) {
+            // 之前包含本范围行的刷写失败过，已由本次刷写重试成功
+            log.info("范围内的行在刷写失败后重试成功: error={}", owner.failure.getMessage());
+        }
+    }
+
+    private void flushExpired() {
+        buffers.values().forEach(buffer -> {
+            try {
+                buffer.flushIfExpired();
+            } catch (Exception e) {
+                // 定时刷写没有调用方可以接收异常：行已放回缓冲区，由所属范围结束时重试或报告
+                log.error("定时刷写缓冲区失败: route={}, error={}", buffer.route, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 合并同一阶段内的重复行：节点按 ID 保留最后一次写入，文件路径去重；关系保持原样
+     */
+    private List<PendingRow> coalesce(Stage stage, List<PendingRow> rows) {
+        switch (stage) {
+            case PACKAGES, UNITS, FUNCTIONS, PLACEHOLDERS, ENDPOINTS -> {
+                Map<String, PendingRow> byId = new LinkedHashMap<>();
+                for (PendingRow row : rows) {
+                    byId.put(((CodeNode) row.value()).getId(), row);
+                }
+                return new ArrayList<>(byId.values());
+            }
+            case DELETE_OUTGOING_CALLS, FILE_DEPENDENCIES -> {
+                Map<Object, PendingRow> byValue = new LinkedHashMap<>();
+                for (PendingRow row : rows) {
+                    byValue.putIfAbsent(row.value(), row);
+                }
+                return new ArrayList<>(byValue.values());
+            }
+            default -> {
+                return new ArrayList<>(rows);
+            }
+        }
+    }
+
+    private static void addIfWanted(Set<String> found, Set<?> wanted, String id) {
+        if (id != null && wanted.contains(id)) {
+            found.add(id);
+        }
+    }
+
+    private synchronized Consumer<List<Object>> sink(Stage stage) {
+        Consumer<List<Object>> sink = sinks.get(stage);
+        if (sink == null) {
+            throw new IllegalStateException("写入阶段未注册: " + stage);
+        }
+        return sink;
+    }
+
+    /**
+     * 一个目标库的缓冲区：待写入的行、刷写和指标都由自身的锁保护，只在该目标库上刷写
+     */
+    private final class RouteBuffer {
+
+        private final String route;
+        private final Map<Stage, List<PendingRow>> pending = new EnumMap<>(Stage.class);
+        /** 已缓冲出边（CALLS）的文件，删除这些文件的出边前必须先刷写 */
+        private final Set<String> filesWithPendingRelationships = new HashSet<>();
+        private int pendingRows;
+        private long oldestPendingAt;
+
+        // 指标
+        private long flushes;
+        private long flushedRows;
+        private long totalFlushMillis;
+        private long maxFlushMillis;
+        private long maxFlushRows;
+        private long failedFlushes;
+        private long requeuedRows;
+        private long discardedRows;
+        private final Map<String, Long> flushesByReason = new LinkedHashMap<>();
+        private final Map<Stage, Long> rowsByStage = new EnumMap<>(Stage.class);
+        private final Map<Stage, Long> batchesByStage = new EnumMap<>(Stage.class);
+        private final List<Map<String, Object>> recentFlushes = new ArrayList<>();
+
+        private RouteBuffer(String route) {
+            this.route = route;
+        }
+
+        /**
+         * 缓冲一批行，返回是否已达到刷写阈值
+         */
+        private synchronized boolean add(Stage stage, String projectFilePath, List<?> rows, Owner owner) {
+            if (stage == Stage.DELETE_OUTGOING_CALLS && rows.stream()
+                    .anyMatch(row -> filesWithPendingRelationships.contains(((FileMetaInfo) row).getProjectFilePath()))) {
+                // 同一文件已有待写入的出边：先落库，否则刷写时删除会排在新边之前
+                flushLocked("ordering");
+            }
+            if (pendingRows == 0) {
+                oldestPendingAt = System.currentTimeMillis();
+            }
+            List<PendingRow> stageRows = pending.computeIfAbsent(stage, k -> new ArrayList<>());
+            rows.forEach(row -> stageRows.add(new PendingRow(row, owner)));
+            pendingRows += rows.size();
+            if (stage == Stage.RELATIONSHIPS && projectFilePath != null) {
+                filesWithPendingRelationships.add(projectFilePath);
+            }
+            return pendingRows >= maxRows;
+        }
+
+        private synchronized Set<String> pendingNodeIds(Stage stage, Collection<String> ids, Owner current) {
+            List<PendingRow> rows = pending.get(stage);
+            if (rows == null || rows.isEmpty()) {
+                return Set.of();
+            }
+            Set<?> wanted = ids instanceof Set<?> set ? set : new HashSet<>(ids);
+            Set<String> found = new HashSet<>();
+            for (PendingRow row : rows) {
+                if (row.owner() != null && row.owner() != current) {
+                    continue;
+                }
+                if (row.value() instanceof CodeNode node && wanted.contains(node.getId())) {
+                    found.add(node.getId());
+                }
+            }
+            return found;
+        }
+
+        private synchronized <T> T runWithPendingReferences(Collection<String> ids, Function<Set<String>, T> task) {
+            Set<String> referenced = new HashSet<>();
+            if (pendingRows > 0 && !ids.isEmpty()) {
+                Set<?> wanted = ids instanceof Set<?> set ? set : new HashSet<>(ids);
+                for (List<PendingRow> rows : pending.values()) {
+                    for (PendingRow pendingRow : rows) {
+                        Object row = pendingRow.value();
+                        if (row instanceof CodeNode node) {
+                            addIfWanted(referenced, wanted, node.getId());
+                        } else if (row instanceof CodeRelationship relationship) {
+                            addIfWanted(referenced, wanted, relationship.getFromNodeId());
+                            addIfWanted(referenced, wanted, relationship.getToNodeId());
+                        }
+                    }
+                }
+            }
+            return task.apply(referenced);
+        }
+
+        private synchronized void flush(String reason) {
+            flushLocked(reason);
+        }
+
+        /**
+         * 刷写本目标库，失败时丢弃该范围仍在缓冲区中的行并抛出
+         */
+        private synchronized void closeScope(Owner owner) {
+            try {
+                flushLocked("scope");
+            } catch (RuntimeException e) {
+                discardLocked(owner);
+                throw e;
+            }
+        }
+
+        private synchronized void flushIfExpired() {
+            if (pendingRows > 0 && System.currentTimeMillis() - oldestPendingAt >= maxDelayMillis) {
+                flushLocked("time");
+            }
+        }
+
+        private synchronized Map<String, Object> snapshot(long[] totals) {
+            totals[0] += pendingRows;
+            totals[1] += flushes;
+            totals[2] += failedFlushes;
+            totals[3] += requeuedRows;
+            totals[4] += discardedRows;
+            totals[5] += flushedRows;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("pendingRows", pendingRows);
+            stats.put("flushes", flushes);
+            stats.put("failedFlushes", failedFlushes);
+            stats.put("requeuedRows", requeuedRows);
+            stats.put("discardedRows", discardedRows);
+            stats.put("flushedRows", flushedRows);
+            stats.put("avgFlushRows", flushes == 0 ? 0 : flushedRows / flushes);
+            stats.put("maxFlushRows", maxFlushRows);
+            stats.put("avgFlushMillis", flushes == 0 ? 0 : totalFlushMillis / flushes);
+            stats.put("maxFlushMillis", maxFlushMillis);
+            stats.put("flushesByReason", new LinkedHashMap<>(flushesByReason));
+            Map<String, Object> stages = new LinkedHashMap<>();
+            rowsByStage.forEach((stage, rows) -> {
+                long batches = batchesByStage.getOrDefault(stage, 0L);
+                stages.put(stage.name(), Map.of("rows", rows, "batches", batches,
+                    "avgBatchRows", batches == 0 ? 0 : rows / batches));
+            });
+            stats.put("stages", stages);
+            stats.put("recentFlushes", new ArrayList<>(recentFlushes));
+            return stats;
+        }
+
+        /**
+         * 丢弃某个范围仍在缓冲区中的行（调用方持有本缓冲区的锁）
+         */
+        private void discardLocked(Owner owner) {
+            int discarded = 0;
+            for (List<PendingRow> rows : pending.values()) {
+                int before = rows.size();
+                rows.removeIf(row -> row.owner() == owner);
+                discarded += before - rows.size();
+            }
+            pending.values().removeIf(List::isEmpty);
+            pendingRows -= discarded;
+            discardedRows += discarded;
+            if (discarded > 0) {
+                log.warn("丢弃刷写失败范围的缓冲行: route={}, rows={}", route, discarded);
+            }
+        }
+
+        /**
+         * 按阶段顺序在本目标库上刷写（调用方持有本缓冲区的锁）。
+         * 写入失败时，失败批次及之后的行放回缓冲区（已写入的批次不重复写），并把失败记在这些行的所属范围上
+         */
+        private void flushLocked(String reason) {
+            if (pendingRows == 0) {
+                return;
+            }
+            Map<Stage, List<PendingRow>> batch = new EnumMap<>(pending);
+            int rows = pendingRows;
+            Set<String> relationshipFiles = new HashSet<>(filesWithPendingRelationships);
+            pending.clear();
+            filesWithPendingRelationships.clear();
+            pendingRows = 0;
+
+            long start = System.currentTimeMillis();
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            // 尚未写入的行：每写完一个批次就从头部移除
+            Map<Stage, List<PendingRow>> unwritten = new EnumMap<>(Stage.class);
+            batch.forEach((stage, stageRows) -> unwritten.put(stage, coalesce(stage, stageRows)));
+            try {
+                GraphRoute.run(route, () -> {
+                    for (Stage stage : batch.keySet()) {
+                        List<PendingRow> stageRows = unwritten.get(stage);
+                        if (stage == Stage.PLACEHOLDERS && batch.containsKey(Stage.FUNCTIONS)) {
+                            // 同一批里已写入真实定义的函数不再写占位符，避免监听器把节点的文件归属覆盖为空。
+                            // 到这里函数阶段已全部写入；函数阶段失败时占位符原样放回缓冲区，不会随函数行一起被丢弃
+                            Set<String> defined = new HashSet<>();
+                            batch.get(Stage.FUNCTIONS).forEach(row -> defined.add(((CodeNode) row.value()).getId()));
+                            stageRows.removeIf(row -> defined.contains(((CodeNode) row.value()).getId()));
+                        }
+                        int total = stageRows.size();
+                        while (!stageRows.isEmpty()) {
+                            List<PendingRow> chunk = stageRows.subList(0, Math.min(stageRows.size(), maxRows));
+                            sink(stage).accept(chunk.stream().map(PendingRow::value).toList());
+                            chunk.clear();
+                            batchesByStage.merge(stage, 1L, Long::sum);
+                        }
+                        unwritten.remove(stage);
+                        rowsByStage.merge(stage, (long) total, Long::sum);
+                        sizes.put(stage.name(), total);
+                    }
+                });
+            } catch (Exception e) {
+                failedFlushes++;
+                RuntimeException failure = new RuntimeException("刷写写入缓冲区失败: " + route, e);
+                int requeued = requeueLocked(unwritten, relationshipFiles, failure);
+                log.error("刷写写入缓冲区失败，未写入的行已放回缓冲区: route={}, reason={}, rows={}, requeued={}, error={}",
+                    route, reason, rows, requeued, e.getMessage(), e);
+                throw failure;
+            }
+            long elapsed = System.currentTimeMillis() - start;
+
+            flushes++;
+            flushedRows += rows;
+            totalFlushMillis += elapsed;
+            maxFlushMillis = Math.max(maxFlushMillis, elapsed);
+            maxFlushRows = Math.max(maxFlushRows, rows);
+            flushesByReason.merge(reason, 1L, Long::sum);
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("reason", reason);
+            record.put("rows", rows);
+            record.put("elapsedMillis", elapsed);
+            record.put("stages", sizes);
+            recentFlushes.add(record);
+            if (recentFlushes.size() > RECENT_FLUSHES) {
+                recentFlushes.remove(0);
+            }
+            log.debug("刷写写入缓冲区: route={}, reason={}, rows={}, elapsed={}ms, stages={}",
+                route, reason, rows, elapsed, sizes);
+        }
+
+        /**
+         * 把刷写失败时尚未写入的行放回缓冲区（调用方持有本缓冲区的锁，刷写期间没有新行加入），返回放回的行数
+         */
+        private int requeueLocked(Map<Stage, List<PendingRow>> unwritten, Set<String> relationshipFiles,
+                                  RuntimeException failure) {
+            int requeued = 0;
+            for (Map.Entry<Stage, List<PendingRow>> entry : unwritten.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                List<PendingRow> stageRows = new ArrayList<>(entry.getValue());
+                stageRows.forEach(row -> {
+                    if (row.owner() != null) {
+                        row.owner().failure = failure;
+                    }
+                });
+                pending.put(entry.getKey(), stageRows);
+                requeued += stageRows.size();
+            }
+            if (pending.containsKey(Stage.RELATIONSHIPS)) {
+                filesWithPendingRelationships.addAll(relationshipFiles);
+            }
+            pendingRows = requeued;
+            requeuedRows += requeued;
+            // 重新计时：定时器按最大等待时间重试，而不是每个周期都重试
+            oldestPendingAt = System.currentTimeMillis();
+            return requeued;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.converter.CodeGraphConverter;
+import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.application.repository.CodeEndpointRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.EndpointType;
+import com.poseidon.codegraph.engine.domain.service.route.HttpRouteIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * HTTP 路由索引服务（应用层）
+ * 职责：
+ * 1. 首次使用时从全部目标库加载 HTTP 端点，构建内存路由索引（首次使用发生在进入仓库路由之前，不能只读当前库）
+ * 2. 之后由变更处理器在保存/删除端点时增量维护
+ * 3. 作为写入监听器接收节点删除（范围删除等不经过变更处理器的删除），从索引中移除端点
+ */
+@Slf4j
+@Service
+public class HttpRouteIndexService implements GraphChangeListener {
+    
+    private final CodeEndpointRepository endpointRepository;
+    private final GraphRouteService graphRouteService;
+    private volatile HttpRouteIndex index;
+    
+    public HttpRouteIndexService(CodeEndpointRepository endpointRepository, GraphRouteService graphRouteService) {
+        this.endpointRepository = endpointRepository;
+        this.graphRouteService = graphRouteService;
+    }
+    
+    /**
+     * 获取路由索引（首次调用时加载）
+     */
+    public HttpRouteIndex getIndex() {
+        HttpRouteIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                index = load();
+            }
+            return index;
+        }
+    }
+    
+    @Override
+    public void onNodeDeleted(String nodeId) {
+        HttpRouteIndex current = index;
+        if (current != null) {
+            current.remove(nodeId);
+        }
+    }
+    
+    private HttpRouteIndex load() {
+        long start = System.currentTimeMillis();
+        HttpRouteIndex loaded = new HttpRouteIndex();
+        List<String> targets = graphRouteService.targets();
+        int total = 0;
+        for (String target : targets) {
+            List<CodeEndpointDO> endpoints = GraphRoute.call(target,
+                () -> endpointRepository.findEndpointsByType(EndpointType.HTTP.name()));
+            endpoints.stream()
+                .map(CodeGraphConverter::toDomain)
+                .forEach(loaded::add);
+            total += endpoints.size();
+        }
+        log.info("HTTP 路由索引加载完成: targets={}, endpoints={}, indexed={}, elapsed={}ms", 
+            targets.size(), total, loaded.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+}
@@ -0,0 +1,226 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.ChangedFile;
+import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.ImpactSummary;
+import com.poseidon.codegraph.engine.application.model.ImpactedEndpoint;
+import com.poseidon.codegraph.engine.application.converter.CodeGraphConverter;
+import com.poseidon.codegraph.engine.application.repository.CodeEndpointRepository;
+import com.poseidon.codegraph.engine.application.repository.CodeFunctionRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.OverlayFile;
+import com.poseidon.codegraph.engine.domain.service.graph.CallGraphSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 变更影响分析服务（应用层）
+ * 职责：
+ * 1. 将变更文件/行范围映射为函数（一次查询）
+ * 2. 在调用图内存快照上从变更函数多起点反向遍历，找出可达的入站端点
+ * 3. 按层数从近到远逐个输出端点及路径样例，受层数、节点数和时间预算约束
+ * 覆盖层分支：覆盖层中的文件按覆盖层解析结果映射函数和遍历，其余文件回落到基线分支
+ * 多目标库：变更行在仓库所在的库中映射，跨服务到达的端点依次在其他目标库中补齐属性
+ */
+@Slf4j
+@Service
+public class ImpactAnalysisService {
+    
+    private static final int DETAIL_BATCH_SIZE = 200;
+    
+    private final CodeFunctionRepository functionRepository;
+    private final CodeEndpointRepository endpointRepository;
+    private final CallGraphSnapshotService callGraphSnapshotService;
+    private final BranchOverlayService branchOverlayService;
+    private final GraphRouteService graphRouteService;
+    private final int defaultMaxDepth;
+    private final int maxNodes;
+    private final long defaultTimeoutMillis;
+    
+    public ImpactAnalysisService(
+            CodeFunctionRepository functionRepository,
+            CodeEndpointRepository endpointRepository,
+            CallGraphSnapshotService callGraphSnapshotService,
+            BranchOverlayService branchOverlayService,
+            GraphRouteService graphRouteService,
+            @Value("${code-graph.impact-analysis.max-depth:15}") int defaultMaxDepth,
+            @Value("${code-graph.impact-analysis.max-nodes:200000}") int maxNodes,
+            @Value("${code-graph.impact-analysis.timeout-millis:5000}") long defaultTimeoutMillis) {
+        this.functionRepository = functionRepository;
+        this.endpointRepository = endpointRepository;
+        this.callGraphSnapshotService = callGraphSnapshotService;
+        this.branchOverlayService = branchOverlayService;
+        this.graphRouteService = graphRouteService;
+        this.defaultMaxDepth = defaultMaxDepth;
+        this.maxNodes = maxNodes;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+    
+    /**
+     * 分析变更影响的入站端点
+     * @param sink 每找到一个端点回调一次（按层数从近到远）
+     * @return 汇总信息
+     * @throws IllegalArgumentException 参数不合法
+     * @throws IllegalStateException 调用图快照未就绪
+     */
+    public ImpactSummary analyze(String gitRepoUrl, String gitBranch, List<ChangedFile> changes,
+                                 Integer maxDepth, Long timeoutMillis, boolean crossService,
+                                 Consumer<ImpactedEndpoint> sink) {
+        validate(changes);
+        CallGraphSnapshot snapshot = callGraphSnapshotService.getReadySnapshot();
+        if (snapshot == null) {
+            throw new IllegalStateException("调用图快照未就绪，暂不能进行影响分析");
+        }
+        
+        long start = System.nanoTime();
+        long budget = timeoutMillis != null && timeoutMillis > 0 ? timeoutMillis : defaultTimeoutMillis;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budget);
+        int depth = maxDepth != null && maxDepth > 0 ? maxDepth : defaultMaxDepth;
+        
+        // 1. 变更行 -> 函数
+        CodeScope overlay = branchOverlayService.findOverlay(gitRepoUrl, gitBranch);
+        List<String> changedFunctions = overlay != null
+            ? findOverlayChangedFunctions(gitRepoUrl, overlay, changes)
+            : graphRouteService.callInRoute(gitRepoUrl,
+                () -> functionRepository.findFunctionIdsByChangedLines(gitRepoUrl, gitBranch, changes));
+        
+        // 2. 反向遍历：调用方 + 入站端点（跨服务时继续沿 MATCHES 追到调用方服务）
+        int typeMask = (1 << CallGraphSnapshot.CALLS) | (1 << CallGraphSnapshot.ENDPOINT_TO_FUNCTION);
+        if (crossService) {
+            typeMask |= (1 << CallGraphSnapshot.MATCHES) | (1 << CallGraphSnapshot.FUNCTION_TO_ENDPOINT);
+        }
+        CallGraphSnapshot.Traversal traversal = snapshot.traverse(changedFunctions, true, depth, maxNodes, typeMask, deadline,
+            overlay != null ? branchOverlayService.view(overlay) : null);
+        
+        // 3. 经 ENDPOINT_TO_FUNCTION 到达的节点即入站端点，分批补齐属性后逐个输出
+        List<Integer> endpointIndexes = new ArrayList<>();
+        for (int i = 0; i < traversal.getIds().size(); i++) {
+            if (traversal.getViaTypes().get(i) == CallGraphSnapshot.ENDPOINT_TO_FUNCTION) {
+                endpointIndexes.add(i);
+            }
+        }
+        int emitted = 0;
+        for (int from = 0; from < endpointIndexes.size(); from += DETAIL_BATCH_SIZE) {
+            List<Integer> batch = endpointIndexes.subList(from, Math.min(from + DETAIL_BATCH_SIZE, endpointIndexes.size()));
+            List<String> ids = batch.stream().map(traversal.getIds()::get).collect(Collectors.toList());
+            Map<String, CodeEndpointDO> details = findEndpointDetails(gitRepoUrl, ids);
+            if (overlay != null) {
+                branchOverlayService.findEndpoints(overlay, ids)
+                    .forEach((id, endpoint) -> details.put(id, CodeGraphConverter.toDO(endpoint)));
+            }
+            for (int index : batch) {
+                CodeEndpointDO endpoint = details.get(traversal.getIds().get(index));
+                if (endpoint == null || "outbound".equals(endpoint.getDirection())) {
+                    continue;
+                }
+                sink.accept(toImpacted(endpoint, traversal, index));
+                emitted++;
+            }
+        }
+        
+        ImpactSummary summary = new ImpactSummary();
+        summary.setChangedFunctions(traversal.getStartIds().size());
+        summary.setVisitedNodes(traversal.getIds().size());
+        summary.setImpactedEndpoints(emitted);
+        summary.setTruncated(traversal.isTruncated());
+        summary.setTimedOut(traversal.isTimedOut());
+        summary.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("影响分析完成: files={}, changedFunctions={}, visited={}, endpoints={}, truncated={}, timedOut={}, elapsed={}ms",
+            changes.size(), summary.getChangedFunctions(), summary.getVisitedNodes(), emitted,
+            summary.getTruncated(), summary.getTimedOut(), summary.getElapsedMillis());
+        return summary;
+    }
+    
+    // ========== 内部方法 ==========
+    
+    /**
+     * 覆盖层分支的变更行 -> 函数：覆盖层中的文件用覆盖层解析结果，其余文件查基线分支
+     */
+    private List<String> findOverlayChangedFunctions(String gitRepoUrl, CodeScope overlay, List<ChangedFile> changes) {
+        LinkedHashSet<String> functionIds = new LinkedHashSet<>();
+        List<ChangedFile> baseChanges = new ArrayList<>();
+        for (ChangedFile change : changes) {
+            OverlayFile file = branchOverlayService.findFile(overlay, change.getProjectFilePath());
+            if (file != null) {
+                functionIds.addAll(branchOverlayService.findFunctionIds(file, change));
+            } else {
+                baseChanges.add(change);
+            }
+        }
+        String baseBranch = branchOverlayService.baseBranchOf(overlay);
+        if (!baseChanges.isEmpty() && baseBranch != null) {
+            functionIds.addAll(graphRouteService.callInRoute(gitRepoUrl,
+                () -> functionRepository.findFunctionIdsByChangedLines(gitRepoUrl, baseBranch, baseChanges)));
+        }
+        return new ArrayList<>(functionIds);
+    }
+    
+    /**
+     * 按 ID 补齐端点属性：先查仓库所在的目标库，未找到的再依次查其他目标库
+     */
+    private Map<String, CodeEndpointDO> findEndpointDetails(String gitRepoUrl, List<String> ids) {
+        String home = graphRouteService.targetOf(gitRepoUrl);
+        Map<String, CodeEndpointDO> details = GraphRoute.call(home, () -> endpointRepository.findEndpointsByIds(ids))
+            .stream()
+            .collect(Collectors.toMap(CodeEndpointDO::getId, Function.identity(), (a, b) -> a));
+        for (String target : graphRouteService.targets()) {
+            if (details.size() >= ids.size()) {
+                break;
+            }
+            if (target.equals(home)) {
+                continue;
+            }
+            List<String> missing = ids.stream().filter(id -> !details.containsKey(id)).collect(Collectors.toList());
+            GraphRoute.call(target, () -> endpointRepository.findEndpointsByIds(missing))
+                .forEach(endpoint -> details.putIfAbsent(endpoint.getId(), endpoint));
+        }
+        return details;
+    }
+    
+    private void validate(List<ChangedFile> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("变更文件列表不能为空");
+        }
+        for (ChangedFile change : changes) {
+            if (change.getProjectFilePath() == null || change.getProjectFilePath().trim().isEmpty()) {
+                throw new IllegalArgumentException("变更文件路径不能为空");
+            }
+            if (change.getRanges() == null) {
+                continue;
+            }
+            for (ChangedFile.LineRange range : change.getRanges()) {
+                if (range.getStartLine() == null) {
+                    throw new IllegalArgumentException("行范围缺少 startLine: " + change.getProjectFilePath());
+                }
+            }
+        }
+    }
+    
+    private ImpactedEndpoint toImpacted(CodeEndpointDO endpoint, CallGraphSnapshot.Traversal traversal, int index) {
+        List<String> path = traversal.pathTo(index);
+        ImpactedEndpoint impacted = new ImpactedEndpoint();
+        impacted.setEndpointId(endpoint.getId());
+        impacted.setEndpointType(endpoint.getEndpointType());
+        impacted.setHttpMethod(endpoint.getHttpMethod());
+        impacted.setPath(endpoint.getPath());
+        impacted.setTopic(endpoint.getTopic());
+        impacted.setServiceName(endpoint.getServiceName());
+        impacted.setProjectFilePath(endpoint.getProjectFilePath());
+        impacted.setGitRepoUrl(endpoint.getGitRepoUrl());
+        impacted.setDepth(traversal.getDepths().get(index));
+        impacted.setChangedFunctionId(path.get(0));
+        impacted.setSamplePath(path);
+        return impacted;
+    }
+}
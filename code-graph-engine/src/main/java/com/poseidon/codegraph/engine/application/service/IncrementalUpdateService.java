@@ -1,15 +1,29 @@
 package com.poseidon.codegraph.engine.application.service;
 
 import com.poseidon.codegraph.engine.application.converter.CodeGraphConverter;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
 import com.poseidon.codegraph.engine.application.repository.*;
 import com.poseidon.codegraph.engine.domain.context.CodeGraphContext;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
 import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
+import com.poseidon.codegraph.engine.domain.parser.ParseBudget;
+import com.poseidon.codegraph.engine.domain.parser.ParseMetrics;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
 import com.poseidon.codegraph.engine.domain.parser.enricher.GraphEnricher;
 import com.poseidon.codegraph.engine.domain.service.CodeGraphService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,7 +42,22 @@ public class IncrementalUpdateService {
     private final CodeFunctionRepository functionRepository;
     private final CodeRelationshipRepository relationshipRepository;
     private final CodeEndpointRepository endpointRepository;
+    private final ServiceTopologyRepository serviceTopologyRepository;
+    private final FileDependencyRepository fileDependencyRepository;
+    private final FileManifestService fileManifestService;
+    private final KnownPackageCache knownPackageCache;
+    private final KnownFunctionIndex knownFunctionIndex;
+    private final GraphWriteBuffer writeBuffer;
     private final List<GraphEnricher> enrichers;
+    private final ParseBudget parseBudget;
+    private final ParseMetrics parseMetrics;
+    private final ParseResultCache parseResultCache;
+    private final FileContentStore fileContentStore;
+    private final HttpRouteIndexService httpRouteIndexService;
+    private final List<GraphChangeListener> changeListeners;
+    private final BranchOverlayService branchOverlayService;
+    private final GraphRouteService graphRouteService;
+    private final int writeBatchSize;
     
     public IncrementalUpdateService(
             CodePackageRepository packageRepository,
@@ -36,14 +65,45 @@ public class IncrementalUpdateService {
             CodeFunctionRepository functionRepository,
             CodeRelationshipRepository relationshipRepository,
             CodeEndpointRepository endpointRepository,
-            List<GraphEnricher> enrichers) {
+            ServiceTopologyRepository serviceTopologyRepository,
+            FileDependencyRepository fileDependencyRepository,
+            FileManifestService fileManifestService,
+            KnownPackageCache knownPackageCache,
+            KnownFunctionIndex knownFunctionIndex,
+            GraphWriteBuffer writeBuffer,
+            List<GraphEnricher> enrichers,
+            ParseBudget parseBudget,
+            ParseMetrics parseMetrics,
+            ObjectProvider<ParseResultCache> parseResultCache,
+            ObjectProvider<FileContentStore> fileContentStore,
+            HttpRouteIndexService httpRouteIndexService,
+            List<GraphChangeListener> changeListeners,
+            BranchOverlayService branchOverlayService,
+            GraphRouteService graphRouteService,
+            @Value("${code-graph.write-sink.batch-size:1000}") int writeBatchSize) {
         this.codeGraphService = new CodeGraphService();
         this.packageRepository = packageRepository;
         this.unitRepository = unitRepository;
         this.functionRepository = functionRepository;
         this.relationshipRepository = relationshipRepository;
         this.endpointRepository = endpointRepository;
+        this.serviceTopologyRepository = serviceTopologyRepository;
+        this.fileDependencyRepository = fileDependencyRepository;
+        this.fileManifestService = fileManifestService;
+        this.knownPackageCache = knownPackageCache;
+        this.knownFunctionIndex = knownFunctionIndex;
+        this.writeBuffer = writeBuffer;
         this.enrichers = enrichers;
+        this.parseBudget = parseBudget;
+        this.parseMetrics = parseMetrics;
+        this.parseResultCache = parseResultCache.getIfAvailable();
+        this.fileContentStore = fileContentStore.getIfAvailable();
+        this.httpRouteIndexService = httpRouteIndexService;
+        this.changeListeners = changeListeners;
+        this.branchOverlayService = branchOverlayService;
+        this.graphRouteService = graphRouteService;
+        this.writeBatchSize = writeBatchSize;
+        registerWriteStages();
         
         log.info("IncrementalUpdateService 初始化完成，已注入 {} 个增强器", 
             enrichers != null ? enrichers.size() : 0);
@@ -72,7 +132,8 @@ public class IncrementalUpdateService {
             context.setNewProjectFilePath(projectFilePath);
         }
         
-        codeGraphService.handle(context);
+        // 级联更新嵌套在触发方的合并范围内，由最外层统一刷写
+        handleInRoute(gitRepoUrl, context);
     }
     
     /**
@@ -80,17 +141,19 @@ public class IncrementalUpdateService {
      */
     public void handleFileAdded(String projectName, String absoluteFilePath, String projectFilePath,
                                 String gitRepoUrl, String gitBranch,
-                                String[] classpathEntries, String[] sourcepathEntries) {
+                                String[] classpathEntries, String[] sourcepathEntries,
+                                String sourceContent) {
         log.info("处理文件新增: absolutePath={}, projectPath={}, classpathCount={}", absoluteFilePath, projectFilePath,
                  classpathEntries != null ? classpathEntries.length : 0);
         
         try {
             CodeGraphContext context = buildContext(projectName, absoluteFilePath, projectFilePath, gitRepoUrl, gitBranch, classpathEntries, sourcepathEntries);
+            context.setSourceContent(sourceContent);
             context.setChangeType(ChangeType.SOURCE_ADDED);
             context.setOldProjectFilePath(null);
             context.setNewProjectFilePath(projectFilePath);
             
-            codeGraphService.handle(context);
+            handleInRoute(gitRepoUrl, context, () -> storeContent(gitRepoUrl, gitBranch, projectFilePath, sourceContent));
             log.info("文件新增处理完成: projectPath={}", projectFilePath);
         } catch (Exception e) {
             log.error("文件新增处理失败: projectPath={}, error={}", projectFilePath, e.getMessage(), e);
@@ -112,7 +175,10 @@ public class IncrementalUpdateService {
             context.setOldProjectFilePath(projectFilePath);
             context.setNewProjectFilePath(null);
             
-            codeGraphService.handle(context);
+            handleInRoute(gitRepoUrl, context);
+            if (fileContentStore != null) {
+                fileContentStore.remove(gitRepoUrl, gitBranch, projectFilePath);
+            }
             log.info("文件删除处理完成: projectPath={}", projectFilePath);
         } catch (Exception e) {
             log.error("文件删除处理失败: projectPath={}, error={}", projectFilePath, e.getMessage(), e);
@@ -125,17 +191,19 @@ public class IncrementalUpdateService {
      */
     public void handleFileModified(String projectName, String absoluteFilePath, String projectFilePath,
                                    String gitRepoUrl, String gitBranch,
-                                   String[] classpathEntries, String[] sourcepathEntries) {
+                                   String[] classpathEntries, String[] sourcepathEntries,
+                                   String sourceContent) {
         log.info("处理文件修改: absolutePath={}, projectPath={}, classpathCount={}", absoluteFilePath, projectFilePath,
                  classpathEntries != null ? classpathEntries.length : 0);
         
         try {
             CodeGraphContext context = buildContext(projectName, absoluteFilePath, projectFilePath, gitRepoUrl, gitBranch, classpathEntries, sourcepathEntries);
+            context.setSourceContent(sourceContent);
             context.setChangeType(ChangeType.SOURCE_MODIFIED);
             context.setOldProjectFilePath(projectFilePath);
             context.setNewProjectFilePath(projectFilePath);
             
-            codeGraphService.handle(context);
+            handleInRoute(gitRepoUrl, context, () -> storeContent(gitRepoUrl, gitBranch, projectFilePath, sourceContent));
             log.info("文件修改处理完成: projectPath={}", projectFilePath);
         } catch (Exception e) {
             log.error("文件修改处理失败: projectPath={}, error={}", projectFilePath, e.getMessage(), e);
@@ -143,6 +211,65 @@ public class IncrementalUpdateService {
         }
     }
     
+    /**
+     * 处理文件重命名/移动
+     */
+    public void handleFileRenamed(String projectName, String absoluteFilePath,
+                                  String oldProjectFilePath, String newProjectFilePath,
+                                  String gitRepoUrl, String gitBranch,
+                                  String[] classpathEntries, String[] sourcepathEntries,
+                                  String sourceContent) {
+        log.info("处理文件重命名: absolutePath={}, {} -> {}", absoluteFilePath, oldProjectFilePath, newProjectFilePath);
+        
+        try {
+            CodeGraphContext context = buildContext(projectName, absoluteFilePath, newProjectFilePath, gitRepoUrl, gitBranch, classpathEntries, sourcepathEntries);
+            context.setSourceContent(sourceContent);
+            context.setChangeType(ChangeType.SOURCE_RENAMED);
+            context.setOldProjectFilePath(oldProjectFilePath);
+            context.setNewProjectFilePath(newProjectFilePath);
+            
+            handleInRoute(gitRepoUrl, context, () -> {
+                if (fileContentStore != null) {
+                    fileContentStore.move(gitRepoUrl, gitBranch, oldProjectFilePath, newProjectFilePath);
+                }
+                storeContent(gitRepoUrl, gitBranch, newProjectFilePath, sourceContent);
+            });
+            log.info("文件重命名处理完成: {} -> {}", oldProjectFilePath, newProjectFilePath);
+        } catch (Exception e) {
+            log.error("文件重命名处理失败: {} -> {}, error={}", oldProjectFilePath, newProjectFilePath, e.getMessage(), e);
+            throw new RuntimeException("处理文件重命名失败: " + oldProjectFilePath, e);
+        }
+    }
+    
+    /**
+     * 在仓库的目标库上处理变更（迁移中的仓库拒绝写入）
+     */
+    private void handleInRoute(String gitRepoUrl, CodeGraphContext context) {
+        handleInRoute(gitRepoUrl, context, null);
+    }
+    
+    /**
+     * 在仓库的目标库上处理变更；prepare（保存、移动文件内容）在通过写入检查之后、处理变更之前执行，
+     * 被拒绝的写入不会改动文件内容存储
+     */
+    private void handleInRoute(String gitRepoUrl, CodeGraphContext context, Runnable prepare) {
+        graphRouteService.runWritable(gitRepoUrl, () -> {
+            if (prepare != null) {
+                prepare.run();
+            }
+            writeBuffer.runInScope(() -> codeGraphService.handle(context));
+        });
+    }
+    
+    /**
+     * 保存请求中直接提供的文件内容，供后续级联更新读取
+     */
+    private void storeContent(String gitRepoUrl, String gitBranch, String projectFilePath, String sourceContent) {
+        if (sourceContent != null && fileContentStore != null) {
+            fileContentStore.put(gitRepoUrl, gitBranch, projectFilePath, sourceContent);
+        }
+    }
+    
     /**
      * 构建上下文（注入 Repository 实现）
      */
@@ -158,151 +285,154 @@ public class IncrementalUpdateService {
         context.setClasspathEntries(classpathEntries);
         context.setSourcepathEntries(sourcepathEntries);
         context.setEnrichers(enrichers);
+        context.setParseBudget(parseBudget);
+        context.setParseMetrics(parseMetrics);
+        context.setParseResultCache(parseResultCache);
+        context.setFileContentStore(fileContentStore);
+        context.setHttpRouteIndex(httpRouteIndexService.getIndex());
+        context.setWriteBatchSize(writeBatchSize);
         
         // ========== 查询函数 (Reader) ==========
+        // 查询图数据库前先刷写写入缓冲区（读屏障），保证读到本次变更已提交的写入
         
-        context.getReader().setFindWhoCallsMe(path -> 
-            relationshipRepository.findWhoCallsMe(path)
-        );
-        
-        context.getReader().setFindWhoCallsMeWithMeta(path -> 
-            relationshipRepository.findWhoCallsMeWithMeta(path).stream()
+        context.getReader().setFindDependentFiles(afterFlush(path -> 
+            fileDependencyRepository.findDependentFiles(gitRepoUrl, gitBranch, path).stream()
                 .map(this::fileMetaInfoToMetadata)
                 .collect(Collectors.toList())
-        );
+        ));
+        
+        context.getReader().setFindFileManifest(afterFlush(path -> fileManifestService.get(gitRepoUrl, gitBranch, path)));
         
-        context.getReader().setFindUnitsByProjectFilePath(path -> 
-            unitRepository.findUnitsByProjectFilePath(path).stream()
+        // 按路径的读取和出边删除都限定在本仓库/分支（scopeId），不会读到或删掉其他范围中同路径文件的节点
+        context.getReader().setFindUnitsByProjectFilePath(afterFlush(path -> 
+            unitRepository.findUnitsByProjectFilePath(gitRepoUrl, gitBranch, path).stream()
                 .map(CodeGraphConverter::toDomain)
                 .collect(Collectors.toList())
-        );
+        ));
         
-        context.getReader().setFindFunctionsByProjectFilePath(path -> 
-            functionRepository.findFunctionsByProjectFilePath(path).stream()
+        context.getReader().setFindFunctionsByProjectFilePath(afterFlush(path -> 
+            functionRepository.findFunctionsByProjectFilePath(gitRepoUrl, gitBranch, path).stream()
                 .map(CodeGraphConverter::toDomain)
                 .collect(Collectors.toList())
-        );
-        
-        context.getReader().setFindExistingFunctionsByQualifiedNames(qualifiedNames -> 
-            functionRepository.findExistingFunctionsByQualifiedNames(qualifiedNames)
-        );
-        
-        context.getReader().setFindExistingUnitsByQualifiedNames(qualifiedNames -> 
-            unitRepository.findExistingUnitsByQualifiedNames(qualifiedNames)
-        );
-        
-        context.getReader().setFindExistingPackagesByQualifiedNames(qualifiedNames -> 
-            packageRepository.findExistingPackagesByQualifiedNames(qualifiedNames)
-        );
-        
-        context.getReader().setFindExistingStructureRelationships(relationships -> 
-            relationshipRepository.findExistingStructureRelationships(relationships)
-        );
-        
-        context.getReader().setFindExistingEndpointsByIds(ids -> 
-            endpointRepository.findExistingEndpointsByIds(ids)
-        );
+        ));
+        
+        // 能由已知函数索引确定的 ID 不再查询图数据库；缓冲区中待写入的函数同样视为已存在
+        context.getReader().setFindExistingFunctionsByQualifiedNames(qualifiedNames -> {
+            java.util.Set<String> existing = new java.util.HashSet<>(
+                writeBuffer.pendingNodeIds(GraphWriteBuffer.Stage.FUNCTIONS, qualifiedNames));
+            existing.addAll(writeBuffer.pendingNodeIds(GraphWriteBuffer.Stage.PLACEHOLDERS, qualifiedNames));
+            List<String> unresolved = qualifiedNames.stream()
+                .filter(id -> !existing.contains(id))
+                .collect(Collectors.toList());
+            if (!unresolved.isEmpty()) {
+                existing.addAll(knownFunctionIndex.findExisting(unresolved,
+                    afterFlush(functionRepository::findExistingFunctionsByQualifiedNames)));
+            }
+            return existing;
+        });
         
-        context.getReader().setFindEndpointsByProjectFilePath(path -> 
-            endpointRepository.findEndpointsByProjectFilePath(path).stream()
+        context.getReader().setFindEndpointsByProjectFilePath(afterFlush(path -> 
+            endpointRepository.findEndpointsByProjectFilePath(gitRepoUrl, gitBranch, path).stream()
                 .map(CodeGraphConverter::toDomain)
                 .collect(Collectors.toList())
-        );
+        ));
         
-        context.getReader().setFindEndpointsByMatchIdentity((matchIdentity, direction) -> 
-            endpointRepository.findEndpointsByMatchIdentity(matchIdentity, direction).stream()
+        context.getReader().setFindEndpointsByMatchIdentities(afterFlush(keys -> 
+            endpointRepository.findEndpointsByMatchIdentities(keys).stream()
                 .map(CodeGraphConverter::toDomain)
                 .collect(Collectors.toList())
+        ));
+        
+        context.getReader().setFindServicePairsByEndpointIds(
+            afterFlush(serviceTopologyRepository::findServicePairsByEndpointIds)
         );
         
         // ========== 修改函数 (Writer) ==========
+        // 节点、关系、出边删除和文件依赖刷新进入写入缓冲区，跨文件合并后按阶段顺序落库（见 registerWriteStages）
+        // 其余写操作直接执行，执行前先刷写缓冲区
         
         context.getWriter().setDeleteFileOutgoingCalls(path -> 
-            relationshipRepository.deleteFileOutgoingCalls(path)
+            writeBuffer.add(GraphWriteBuffer.Stage.DELETE_OUTGOING_CALLS, projectFilePath,
+                List.of(fileMetaInfo(gitRepoUrl, gitBranch, path)))
         );
         
-        context.getWriter().setDeleteNode(nodeId -> 
-            // 使用 FunctionRepository 的删除方法（实际上 Neo4j 实现是通用的）
-            // 或者使用 UnitRepository，效果一样。
-            functionRepository.deleteById(nodeId)
-        );
+        context.getWriter().setDeleteNodes(nodeIds -> {
+            writeBuffer.flush();
+            // 单元、函数、端点一次 UNWIND 删除（Neo4j 实现按各标签的 id 索引查找）
+            functionRepository.deleteByIds(nodeIds);
+            nodeIds.forEach(nodeId -> changeListeners.forEach(listener -> listener.onNodeDeleted(nodeId)));
+        });
         
-        // ========== 批量插入函数 ==========
+        // 节点改写匹配不全时没有改写任何节点，文件依赖、清单和监听器也保持旧路径，由调用方按修改处理
+        context.getWriter().setRenameFile(rename -> {
+            writeBuffer.flush();
+            int renamed = unitRepository.renameFile(gitRepoUrl, gitBranch,
+                rename.getOldProjectFilePath(),
+                rename.getNewProjectFilePath(),
+                rename.getOldPackageName(),
+                rename.getNewPackageName(),
+                rename.getExpectedUnitCount()
+            );
+            if (!rename.isFullyMatched(renamed)) {
+                return renamed;
+            }
+            fileDependencyRepository.renameFile(gitRepoUrl, gitBranch,
+                rename.getOldProjectFilePath(), rename.getNewProjectFilePath());
+            fileManifestService.rename(gitRepoUrl, gitBranch, rename);
+            changeListeners.forEach(listener -> listener.onFileRenamed(rename));
+            return renamed;
+        });
         
-        context.getWriter().setInsertPackagesBatch(packages -> 
-            packageRepository.insertPackagesBatch(
-                packages.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setRefreshFileDependencies(path -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.FILE_DEPENDENCIES, projectFilePath,
+                List.of(fileMetaInfo(gitRepoUrl, gitBranch, path)))
         );
         
-        context.getWriter().setInsertUnitsBatch(units -> 
-            unitRepository.insertUnitsBatch(
-                units.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
-        );
+        context.getWriter().setSaveFileManifest(manifest -> fileManifestService.record(gitRepoUrl, gitBranch, manifest));
         
+        context.getWriter().setRemoveFileManifest(path -> fileManifestService.remove(gitRepoUrl, gitBranch, path));
+        
+        // ========== 批量插入函数 ==========
+        
+        // 目前只用于占位符
         context.getWriter().setInsertFunctionsBatch(functions -> 
-            functionRepository.insertFunctionsBatch(
-                functions.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+            writeBuffer.add(GraphWriteBuffer.Stage.PLACEHOLDERS, projectFilePath, functions)
         );
         
         context.getWriter().setInsertRelationshipsBatch(relationships -> 
-            relationshipRepository.insertRelationshipsBatch(
-                relationships.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+            writeBuffer.add(GraphWriteBuffer.Stage.RELATIONSHIPS, projectFilePath, relationships)
         );
         
-        // ========== 批量更新函数 ==========
+        // ========== 批量写入函数（MERGE） ==========
         
-        context.getWriter().setUpdatePackagesBatch(packages -> 
-            packageRepository.updatePackagesBatch(
-                packages.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setUpsertPackagesBatch(packages -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.PACKAGES, projectFilePath, packages)
         );
         
-        context.getWriter().setUpdateUnitsBatch(units -> 
-            unitRepository.updateUnitsBatch(
-                units.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setUpsertUnitsBatch(units -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.UNITS, projectFilePath, units)
         );
         
-        context.getWriter().setUpdateFunctionsBatch(functions -> 
-            functionRepository.updateFunctionsBatch(
-                functions.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setUpsertFunctionsBatch(functions -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.FUNCTIONS, projectFilePath, functions)
         );
         
-        context.getWriter().setInsertEndpointsBatch(endpoints -> 
-            endpointRepository.insertEndpointsBatch(
-                endpoints.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setUpsertEndpointsBatch(endpoints -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.ENDPOINTS, projectFilePath, endpoints)
         );
         
-        context.getWriter().setUpdateEndpointsBatch(endpoints -> 
-            endpointRepository.updateEndpointsBatch(
-                endpoints.stream()
-                    .map(CodeGraphConverter::toDO)
-                    .collect(Collectors.toList())
-            )
+        context.getWriter().setUpsertRelationshipsBatch(relationships -> 
+            writeBuffer.add(GraphWriteBuffer.Stage.STRUCTURE_RELATIONSHIPS, projectFilePath, relationships)
         );
         
+        // ========== 服务拓扑 ==========
+        
+        // 服务依赖由 MATCHES 关系推导，刷新前先让缓冲中的 MATCHES 落库
+        context.getWriter().setRefreshServiceDependencies(pairs -> {
+            writeBuffer.flush();
+            serviceTopologyRepository.refreshDependencies(pairs);
+        });
+        
         // ========== 事件发送 ==========
         
         context.getSender().setSendEvent(event -> {
@@ -320,9 +450,96 @@ public class IncrementalUpdateService {
             );
         });
         
+        // ========== 分支覆盖层 ==========
+        // 登记为覆盖层的分支不写图数据库，变更只进入覆盖层（见 BranchOverlayProcessor）
+        
+        CodeScope overlay = branchOverlayService.findOverlay(gitRepoUrl, gitBranch);
+        if (overlay != null) {
+            context.setBaseGitBranch(branchOverlayService.baseBranchOf(overlay));
+            context.getReader().setFindOverlayFile(path -> branchOverlayService.findFile(overlay, path));
+            context.getWriter().setPutOverlayFile(file -> branchOverlayService.putFile(overlay, file));
+            context.getWriter().setRemoveOverlayFile(path -> branchOverlayService.removeFile(overlay, path));
+        }
+        
         return context;
     }
     
+    /**
+     * 注册写入缓冲区各阶段的实际写入函数：写库后通知监听器（内存快照、查询缓存）同步更新
+     */
+    private void registerWriteStages() {
+        writeBuffer.register(GraphWriteBuffer.Stage.DELETE_OUTGOING_CALLS, (List<FileMetaInfo> files) -> 
+            files.forEach(file -> {
+                relationshipRepository.deleteFileOutgoingCalls(
+                    file.getGitRepoUrl(), file.getGitBranch(), file.getProjectFilePath());
+                changeListeners.forEach(listener -> listener.onFileOutgoingCallsDeleted(file.getProjectFilePath()));
+            })
+        );
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.PACKAGES, (List<CodePackage> packages) -> {
+            // 同一进程内写入过的包直接跳过
+            List<CodePackage> unknown = knownPackageCache.filterUnknown(packages);
+            if (unknown.isEmpty()) {
+                return;
+            }
+            packageRepository.upsertPackagesBatch(unknown);
+            knownPackageCache.markKnown(unknown);
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.UNITS, (List<CodeUnit> units) -> 
+            unitRepository.upsertUnitsBatch(units)
+        );
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.FUNCTIONS, (List<CodeFunction> functions) -> {
+            functionRepository.upsertFunctionsBatch(functions);
+            changeListeners.forEach(listener -> listener.onNodesSaved(functions));
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.PLACEHOLDERS, (List<CodeFunction> functions) -> {
+            // 按 ID MERGE，即使已知函数索引误判为不存在也不会重复创建
+            functionRepository.insertFunctionsIfAbsent(functions);
+            changeListeners.forEach(listener -> listener.onNodesSaved(functions));
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.ENDPOINTS, (List<CodeEndpoint> endpoints) -> {
+            endpointRepository.upsertEndpointsBatch(endpoints);
+            changeListeners.forEach(listener -> listener.onNodesSaved(endpoints));
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.STRUCTURE_RELATIONSHIPS, (List<CodeRelationship> relationships) -> {
+            relationshipRepository.upsertRelationshipsBatch(relationships);
+            changeListeners.forEach(listener -> listener.onRelationshipsInserted(relationships));
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.RELATIONSHIPS, (List<CodeRelationship> relationships) -> {
+            relationshipRepository.insertRelationshipsBatch(relationships);
+            changeListeners.forEach(listener -> listener.onRelationshipsInserted(relationships));
+        });
+        
+        writeBuffer.register(GraphWriteBuffer.Stage.FILE_DEPENDENCIES, (List<FileMetaInfo> files) -> 
+            files.forEach(file -> fileDependencyRepository.refreshFileDependencies(
+                file.getGitRepoUrl(), file.getGitBranch(), file.getProjectFilePath()))
+        );
+    }
+    
+    /**
+     * 查询前先刷写写入缓冲区
+     */
+    private <T, R> Function<T, R> afterFlush(Function<T, R> query) {
+        return input -> {
+            writeBuffer.flush();
+            return query.apply(input);
+        };
+    }
+    
+    private static FileMetaInfo fileMetaInfo(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        FileMetaInfo file = new FileMetaInfo();
+        file.setProjectFilePath(projectFilePath);
+        file.setGitRepoUrl(gitRepoUrl);
+        file.setGitBranch(gitBranch);
+        return file;
+    }
+    
     /**
      * 将应用层的 FileMetaInfo 转换为领域层的 FileMetadata
      */
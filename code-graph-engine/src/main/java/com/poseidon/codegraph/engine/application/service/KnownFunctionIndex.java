@@ -0,0 +1,346 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.CodeFunctionRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphRouteRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.service.graph.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 已知函数 ID 索引（应用层）
+ * 用于重建调用关系时判断哪些被调用方需要创建占位符：
+ * - LRU 命中：一定存在
+ * - Bloom 过滤器未命中：一定不存在（过滤器由启动时全量加载 + 写路径每次插入维护）
+ * - 其余（Bloom 命中但 LRU 未命中）：才查询图数据库
+ * 所有 ID 都能确定时跳过存在性查询。加载完成前全部回退到查询。
+ * 过滤器和 LRU 按当前路由的目标库各维护一份：函数在一个目标库存在，不代表在另一个目标库也存在；
+ * 每份记录加载时的图数据库代次，库被清空后代次变化，旧的过滤器和 LRU 作废并重新加载
+ */
+@Slf4j
+@Service
+public class KnownFunctionIndex implements GraphChangeListener {
+    
+    private final CodeFunctionRepository functionRepository;
+    private final GraphRouteRepository routeRepository;
+    private final GraphEpochService graphEpochService;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final boolean enabled;
+    private final long expectedIds;
+    private final double falsePositiveRate;
+    private final int lruMaxEntries;
+    
+    /**
+     * 目标库 -> 该库的过滤器和 LRU
+     */
+    private final Map<String, TargetIndex> targets = new ConcurrentHashMap<>();
+    
+    private final AtomicLong queriesSkipped = new AtomicLong();
+    private final AtomicLong queriesIssued = new AtomicLong();
+    private final AtomicLong lruHits = new AtomicLong();
+    private final AtomicLong bloomNegatives = new AtomicLong();
+    private final AtomicLong bloomChecked = new AtomicLong();
+    private final AtomicLong bloomFalsePositives = new AtomicLong();
+    
+    public KnownFunctionIndex(
+            CodeFunctionRepository functionRepository,
+            GraphRouteRepository routeRepository,
+            GraphEpochService graphEpochService,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${code-graph.known-functions.enabled:true}") boolean enabled,
+            @Value("${code-graph.known-functions.expected-ids:5000000}") long expectedIds,
+            @Value("${code-graph.known-functions.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${code-graph.known-functions.lru-max-entries:200000}") int lruMaxEntries) {
+        this.functionRepository = functionRepository;
+        this.routeRepository = routeRepository;
+        this.graphEpochService = graphEpochService;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.enabled = enabled;
+        this.expectedIds = expectedIds;
+        this.falsePositiveRate = falsePositiveRate;
+        this.lruMaxEntries = lruMaxEntries;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+    
+    /**
+     * 后台从图数据库流式重建所有目标库的过滤器
+     */
+    public boolean reload() {
+        if (!enabled) {
+            return false;
+        }
+        boolean submitted = false;
+        for (String target : routeRepository.findTargets()) {
+            submitted |= reload(target);
+        }
+        return submitted;
+    }
+    
+    /**
+     * 作废一个目标库的过滤器并后台重建，重建完成前回退到查询
+     * （函数 ID 被改写、批量复制到该库等绕过写路径的写入之后调用）
+     */
+    public void invalidate(String target) {
+        TargetIndex index = index(target);
+        synchronized (index) {
+            index.filter = null;
+        }
+        synchronized (index.recentIds) {
+            index.recentIds.clear();
+        }
+        reload(target);
+    }
+    
+    /**
+     * 查询当前目标库中已存在的函数 ID，能确定的 ID 不再查询图数据库
+     * @param query 图数据库存在性查询
+     */
+    public Set<String> findExisting(List<String> ids, Function<List<String>, Set<String>> query) {
+        TargetIndex index = index(GraphRoute.current());
+        BloomFilter current = index.filter;
+        if (current == null) {
+            queriesIssued.incrementAndGet();
+            Set<String> existing = query.apply(ids);
+            index.remember(existing);
+            return existing;
+        }
+        
+        Set<String> existing = new HashSet<>();
+        List<String> uncertain = new ArrayList<>();
+        synchronized (index.recentIds) {
+            for (String id : ids) {
+                if (index.recentIds.get(id) != null) {
+                    existing.add(id);
+                    lruHits.incrementAndGet();
+                } else if (!current.mightContain(id)) {
+                    bloomNegatives.incrementAndGet();
+                } else {
+                    uncertain.add(id);
+                }
+            }
+        }
+        if (uncertain.isEmpty()) {
+            queriesSkipped.incrementAndGet();
+            return existing;
+        }
+        
+        queriesIssued.incrementAndGet();
+        Set<String> found = query.apply(uncertain);
+        bloomChecked.addAndGet(uncertain.size());
+        bloomFalsePositives.addAndGet(uncertain.size() - found.size());
+        index.remember(found);
+        existing.addAll(found);
+        return existing;
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> byTarget = new LinkedHashMap<>();
+        targets.forEach((target, index) -> byTarget.put(target, index.snapshot()));
+        stats.put("ready", !targets.isEmpty() && targets.values().stream().allMatch(index -> index.filter != null));
+        stats.put("queriesSkipped", queriesSkipped.get());
+        stats.put("queriesIssued", queriesIssued.get());
+        stats.put("lruHits", lruHits.get());
+        stats.put("bloomNegatives", bloomNegatives.get());
+        stats.put("bloomChecked", bloomChecked.get());
+        stats.put("bloomFalsePositives", bloomFalsePositives.get());
+        long checked = bloomChecked.get();
+        // 实测误判率：Bloom 判为可能存在、查询后确实不存在的比例（含已删除的函数）
+        stats.put("observedFalsePositiveRate", checked == 0 ? 0.0 : (double) bloomFalsePositives.get() / checked);
+        stats.put("targets", byTarget);
+        return stats;
+    }
+    
+    // ========== 写路径维护（监听器在写入所在的目标库路由中调用） ==========
+    
+    @Override
+    public void onNodesSaved(List<? extends CodeNode> nodes) {
+        List<String> ids = new ArrayList<>();
+        for (CodeNode node : nodes) {
+            if (node instanceof CodeFunction && node.getId() != null) {
+                ids.add(node.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        TargetIndex index = index(GraphRoute.current());
+        BloomFilter current = index.filter;
+        BloomFilter building = index.loadingFilter;
+        for (String id : ids) {
+            if (current != null) {
+                current.put(id);
+            }
+            if (building != null) {
+                building.put(id);
+            }
+        }
+        index.remember(ids);
+    }
+    
+    @Override
+    public void onNodeDeleted(String nodeId) {
+        // Bloom 过滤器不支持删除，已删除的 ID 只会多一次查询
+        TargetIndex index = index(GraphRoute.current());
+        synchronized (index.recentIds) {
+            index.recentIds.remove(nodeId);
+        }
+    }
+    
+    @Override
+    public void onFileRenamed(FileRename rename) {
+        if (!Objects.equals(rename.getOldPackageName(), rename.getNewPackageName())) {
+            // 包名变化时函数 ID 被改写，新 ID 不在过滤器中，先回退到查询再后台重建
+            String target = GraphRoute.current();
+            log.info("文件移动导致函数 ID 改写，重建已知函数索引: target={}, {} -> {}",
+                target, rename.getOldProjectFilePath(), rename.getNewProjectFilePath());
+            invalidate(target);
+        }
+    }
+    
+    // ========== 内部方法 ==========
+    
+    /**
+     * 后台从一个目标库流式重建过滤器；正在加载时标记为需要重新加载（本次结果可能缺少新 ID）
+     */
+    private boolean reload(String target) {
+        if (!enabled) {
+            return false;
+        }
+        TargetIndex index = index(target);
+        synchronized (index) {
+            if (index.loading) {
+                index.invalidatedWhileLoading = true;
+                return false;
+            }
+            BloomFilter building = new BloomFilter(expectedIds, falsePositiveRate);
+            try {
+                backgroundTaskExecutor.execute(() -> load(target, index, building));
+            } catch (Exception e) {
+                log.warn("已知函数索引加载任务提交失败: target={}, error={}", target, e.getMessage());
+                return false;
+            }
+            index.loading = true;
+            index.loadingFilter = building;
+            return true;
+        }
+    }
+    
+    /**
+     * 目标库当前代次的索引；代次变化时换成新的空索引并后台重新加载
+     */
+    private TargetIndex index(String target) {
+        String epoch = GraphRoute.call(target, graphEpochService::current);
+        TargetIndex current = targets.get(target);
+        if (current != null && current.epoch.equals(epoch)) {
+            return current;
+        }
+        TargetIndex created = new TargetIndex(epoch, lruMaxEntries);
+        TargetIndex previous = targets.compute(target,
+            (key, existing) -> existing != null && existing.epoch.equals(epoch) ? existing : created);
+        if (previous == created && current != null) {
+            log.warn("图数据库代次变化（已被清空），重建已知函数索引: target={}", target);
+            reload(target);
+        }
+        return previous;
+    }
+    
+    private void load(String target, TargetIndex index, BloomFilter building) {
+        long start = System.currentTimeMillis();
+        boolean loaded = false;
+        try {
+            GraphRoute.run(target, () -> functionRepository.streamFunctionIds(building::put));
+            loaded = true;
+        } catch (Exception e) {
+            log.error("已知函数索引加载失败: target={}, error={}", target, e.getMessage(), e);
+        }
+        boolean retry;
+        synchronized (index) {
+            // 加载期间有函数 ID 被改写或有新的重建请求，本次结果可能缺少新 ID，丢弃并重新加载
+            retry = loaded && index.invalidatedWhileLoading;
+            if (loaded && !retry) {
+                index.filter = building;
+                log.info("已知函数索引加载完成: target={}, ids={}, bits={}, hashes={}, expectedFpp={}, elapsed={}ms",
+                    target, building.insertions(), building.bitCount(), building.hashCount(),
+                    String.format("%.5f", building.expectedFalsePositiveRate()), System.currentTimeMillis() - start);
+            }
+            index.loading = false;
+            index.loadingFilter = null;
+            index.invalidatedWhileLoading = false;
+        }
+        if (retry) {
+            reload(target);
+        }
+    }
+    
+    /**
+     * 一个目标库的过滤器和最近确认存在的 ID（加载状态由实例锁保护）
+     */
+    private static final class TargetIndex {
+        private final String epoch;
+        private final LinkedHashMap<String, Boolean> recentIds;
+        private volatile BloomFilter filter;
+        private volatile BloomFilter loadingFilter;
+        private boolean loading;
+        private boolean invalidatedWhileLoading;
+        
+        private TargetIndex(String epoch, int lruMaxEntries) {
+            this.epoch = epoch;
+            this.recentIds = new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > lruMaxEntries;
+                }
+            };
+        }
+        
+        private void remember(Iterable<String> ids) {
+            synchronized (recentIds) {
+                ids.forEach(id -> recentIds.put(id, Boolean.TRUE));
+            }
+        }
+        
+        private Map<String, Object> snapshot() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            BloomFilter current = filter;
+            stats.put("epoch", epoch);
+            stats.put("ready", current != null);
+            stats.put("loading", loadingFilter != null);
+            synchronized (recentIds) {
+                stats.put("lruEntries", recentIds.size());
+            }
+            if (current != null) {
+                stats.put("insertions", current.insertions());
+                stats.put("bitCount", current.bitCount());
+                stats.put("hashCount", current.hashCount());
+                stats.put("expectedFalsePositiveRate", current.expectedFalsePositiveRate());
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 已存在包 ID 缓存（进程级）
+ * 包被成千上万个文件共享，写入过一次后同一进程内不再重复写入。
+ * 按当前路由的目标库和图数据库代次区分：同一个包在一个目标库写入过，不代表在另一个目标库也存在；
+ * 库被清空后代次变化，之前记录的包全部作废并重新写入
+ * 包节点不会被变更处理删除，只在范围删除释放包时删除（随后从缓存中移除）；超过容量时整体清空，之后按需重新写入
+ */
+@Slf4j
+@Component
+public class KnownPackageCache {
+    
+    private static final char SEPARATOR = '\0';
+    
+    private final Set<String> knownIds = ConcurrentHashMap.newKeySet();
+    private final GraphEpochService graphEpochService;
+    private final int maxEntries;
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    
+    /**
+     * 目标库 -> 缓存中的包所属的代次
+     */
+    private final Map<String, String> epochs = new ConcurrentHashMap<>();
+    
+    public KnownPackageCache(
+            GraphEpochService graphEpochService,
+            @Value("${code-graph.known-packages.max-entries:200000}") int maxEntries) {
+        this.graphEpochService = graphEpochService;
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * 过滤出尚未写入过的包
+     */
+    public List<CodePackage> filterUnknown(List<CodePackage> packages) {
+        String namespace = namespace();
+        List<CodePackage> unknown = packages.stream()
+            .filter(pkg -> !knownIds.contains(namespace + pkg.getId()))
+            .collect(Collectors.toList());
+        skipped.addAndGet(packages.size() - unknown.size());
+        return unknown;
+    }
+    
+    /**
+     * 记录已写入的包（写库成功后调用）
+     */
+    public void markKnown(List<CodePackage> packages) {
+        if (knownIds.size() + packages.size() > maxEntries) {
+            log.info("已存在包 ID 缓存超过容量，清空: size={}", knownIds.size());
+            knownIds.clear();
+        }
+        String namespace = namespace();
+        packages.forEach(pkg -> knownIds.add(namespace + pkg.getId()));
+        written.addAndGet(packages.size());
+    }
+    
+    /**
+     * 移除当前目标库中已被删除的包，下次用到时重新写入
+     */
+    public void evict(Collection<String> packageIds) {
+        String namespace = namespace();
+        packageIds.forEach(id -> knownIds.remove(namespace + id));
+    }
+    
+    public void clear() {
+        knownIds.clear();
+    }
+    
+    /**
+     * 当前路由的键前缀：目标库、代次；代次变化时移除该目标库旧代次的记录
+     */
+    private String namespace() {
+        String route = GraphRoute.current();
+        String epoch = graphEpochService.current();
+        String previous = epochs.put(route, epoch);
+        String prefix = route + SEPARATOR;
+        String namespace = prefix + epoch + SEPARATOR;
+        if (previous != null && !previous.equals(epoch)) {
+            knownIds.removeIf(key -> key.startsWith(prefix) && !key.startsWith(namespace));
+            log.warn("图数据库代次变化（已被清空），作废已存在包缓存: target={}", route);
+        }
+        return namespace;
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", knownIds.size());
+        stats.put("skipped", skipped.get());
+        stats.put("written", written.get());
+        return stats;
+    }
+}
@@ -0,0 +1,209 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.PlaceholderSweep;
+import com.poseidon.codegraph.engine.application.repository.CodeFunctionRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphRouteRepository;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 占位符回收服务（应用层）
+ * 重建调用关系时会为未见过的被调用方创建占位符函数；最后一个调用方消失、或真实函数以不同签名解析后，
+ * 占位符不再有入边，但会一直留在图中拖慢按标签扫描。
+ *
+ * 后台沿函数 ID 索引分批扫描，找出无入边的占位符后在写入缓冲区锁内复查删除，批与批之间按配置限速：
+ * 扫描不持锁；仍被缓冲区中待写入的行引用的占位符本批跳过，删除和已知函数索引的失效在同一临界区内完成。
+ * 任务记录扫描游标：停止或失败后重新提交，从上次的游标继续；扫描完成后重新提交从头开始。
+ * 按项目路由到多个数据库时依次扫描每个目标库，游标属于当前目标库。
+ */
+@Slf4j
+@Service
+public class PlaceholderGcService {
+
+    private final CodeFunctionRepository functionRepository;
+    private final GraphRouteRepository routeRepository;
+    private final GraphWriteBuffer writeBuffer;
+    private final List<GraphChangeListener> changeListeners;
+    private final TaskExecutor maintenanceTaskExecutor;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final AtomicReference<GcJob> currentJob = new AtomicReference<>();
+
+    public PlaceholderGcService(
+            CodeFunctionRepository functionRepository,
+            GraphRouteRepository routeRepository,
+            GraphWriteBuffer writeBuffer,
+            List<GraphChangeListener> changeListeners,
+            @Qualifier("maintenanceTaskExecutor") TaskExecutor maintenanceTaskExecutor,
+            @Value("${code-graph.placeholder-gc.batch-size:500}") int batchSize,
+            @Value("${code-graph.placeholder-gc.pause-millis:200}") long pauseMillis) {
+        this.functionRepository = functionRepository;
+        this.routeRepository = routeRepository;
+        this.writeBuffer = writeBuffer;
+        this.changeListeners = changeListeners;
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /**
+     * 提交回收任务，已有任务在执行时直接返回该任务
+     *
+     * @throws IllegalStateException 维护任务队列已满
+     */
+    public synchronized GcJob submit() {
+        GcJob previous = currentJob.get();
+        if (previous != null && !previous.isFinished()) {
+            return previous;
+        }
+
+        GcJob job = new GcJob();
+        job.setState(GcJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        if (previous != null && !GcJob.STATE_DONE.equals(previous.getState())) {
+            // 上次停止或失败：从目标库和游标继续，累计数沿用
+            job.setTarget(previous.getTarget());
+            job.setCursor(previous.getCursor());
+            job.setScanned(previous.getScanned());
+            job.setReclaimed(previous.getReclaimed());
+            job.setDeferred(previous.getDeferred());
+            job.setBatches(previous.getBatches());
+        }
+        try {
+            maintenanceTaskExecutor.execute(() -> collect(job));
+        } catch (TaskRejectedException e) {
+            throw new IllegalStateException("维护任务队列已满，请稍后重试", e);
+        }
+        currentJob.set(job);
+        return job;
+    }
+
+    /**
+     * 请求停止当前任务（当前批次完成后停止），没有执行中的任务时返回 null
+     */
+    public GcJob stop() {
+        GcJob job = currentJob.get();
+        if (job == null || job.isFinished()) {
+            return null;
+        }
+        job.setStopRequested(true);
+        return job;
+    }
+
+    /**
+     * 最近一次回收任务，没有时返回 null
+     */
+    public GcJob current() {
+        return currentJob.get();
+    }
+
+    private void collect(GcJob job) {
+        job.setState(GcJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        log.info("占位符回收开始: target={}, cursor={}, batchSize={}, pauseMillis={}",
+            job.getTarget(), job.getCursor(), batchSize, pauseMillis);
+        try {
+            List<String> targets = routeRepository.findTargets();
+            int start = job.getTarget() != null ? Math.max(0, targets.indexOf(job.getTarget())) : 0;
+            for (int i = start; i < targets.size() && !job.isStopRequested(); i++) {
+                String target = targets.get(i);
+                if (!target.equals(job.getTarget())) {
+                    job.setTarget(target);
+                    job.setCursor(null);
+                }
+                while (!job.isStopRequested()) {
+                    PlaceholderSweep sweep = GraphRoute.call(target, () ->
+                        functionRepository.findOrphanPlaceholders(job.getCursor(), batchSize));
+                    if (sweep.getScanned() == 0) {
+                        // 本目标库扫描完成，游标指向下一个目标库的开头
+                        job.setTarget(i + 1 < targets.size() ? targets.get(i + 1) : null);
+                        job.setCursor(null);
+                        break;
+                    }
+                    List<String> deleted = sweep.getOrphanIds().isEmpty()
+                        ? List.of()
+                        : GraphRoute.call(target, () -> reclaim(job, sweep.getOrphanIds()));
+                    job.setCursor(sweep.getLastId());
+                    job.setScanned(job.getScanned() + sweep.getScanned());
+                    job.setReclaimed(job.getReclaimed() + deleted.size());
+                    job.setBatches(job.getBatches() + 1);
+                    if (pauseMillis > 0) {
+                        Thread.sleep(pauseMillis);
+                    }
+                }
+            }
+            if (!job.isStopRequested()) {
+                job.setState(GcJob.STATE_DONE);
+            }
+            if (!job.isFinished()) {
+                job.setState(GcJob.STATE_STOPPED);
+            }
+            log.info("占位符回收结束: state={}, scanned={}, reclaimed={}, batches={}",
+                job.getState(), job.getScanned(), job.getReclaimed(), job.getBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setState(GcJob.STATE_STOPPED);
+            log.warn("占位符回收被中断: target={}, cursor={}", job.getTarget(), job.getCursor());
+        } catch (Exception e) {
+            job.setState(GcJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("占位符回收失败: target={}, cursor={}, error={}", job.getTarget(), job.getCursor(), e.getMessage(), e);
+        } finally {
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 在写入缓冲区锁内删除一批孤立占位符：跳过仍被待写入行引用的，删除后立即通知监听器（已知函数索引据此失效），
+     * 锁释放前不会有新的行进入缓冲区或落库
+     */
+    private List<String> reclaim(GcJob job, List<String> orphanIds) {
+        return writeBuffer.runWithPendingReferences(orphanIds, pending -> {
+            List<String> candidates = orphanIds.stream().filter(id -> !pending.contains(id)).toList();
+            job.setDeferred(job.getDeferred() + pending.size());
+            List<String> deleted = functionRepository.deleteOrphanPlaceholders(candidates);
+            deleted.forEach(id -> changeListeners.forEach(listener -> listener.onNodeDeleted(id)));
+            return deleted;
+        });
+    }
+
+    /**
+     * 回收任务状态
+     */
+    @Data
+    public static class GcJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_STOPPED = "STOPPED";
+        public static final String STATE_FAILED = "FAILED";
+
+        private volatile String state;
+        private volatile String target;
+        private volatile String cursor;
+        private volatile long scanned;
+        private volatile long reclaimed;
+        /** 仍被写入缓冲区引用、本轮未回收的占位符数 */
+        private volatile long deferred;
+        private volatile long batches;
+        private volatile boolean stopRequested;
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+
+        public boolean isFinished() {
+            return STATE_DONE.equals(state) || STATE_STOPPED.equals(state) || STATE_FAILED.equals(state);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.GraphTransferBatch;
+import com.poseidon.codegraph.engine.application.model.ScopeDeleteBatch;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.application.repository.CodeUnitRepository;
+import com.poseidon.codegraph.engine.application.repository.FileDependencyRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphTransferRepository;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 项目迁移服务（应用层）
+ * 把一个仓库（全部分支）的图数据从当前目标库迁移到另一个目标库。
+ *
+ * 分阶段执行：等待在途写入 -> 复制节点 -> 复制关系 -> 在目标库重建文件依赖索引 -> 切换路由 -> 分批删除源库数据。
+ * 迁移期间拒绝该仓库的写入；读取在切换路由前走源库，切换后走目标库。复制按 MERGE 写入，可重复执行：
+ * 切换路由前停止或失败，重新提交同一目标从头复制；切换路由后失败，重新提交同一目标只继续删除源库。
+ * 两端分属不同库的关系（如跨服务的 MATCHES、调用其他仓库的函数）无法跨库保存，迁移时丢弃。
+ * 包在仓库间共享：复制该仓库的类引用的包，源库中只解除该仓库的包关系，不再被引用的包才删除
+ */
+@Slf4j
+@Service
+public class ProjectMoveService {
+
+    /** 复制的节点标签（CodeFile 由文件依赖索引在目标库重建） */
+    private static final List<String> COPY_LABELS = List.of("CodePackage", "CodeUnit", "CodeFunction", "CodeEndpoint");
+    /** 删除源库时的标签顺序，与范围删除一致（CodePackage 只释放，不按范围删除） */
+    private static final List<String> DELETE_LABELS = List.of("CodeEndpoint", "CodeFunction", "CodePackage", "CodeUnit", "CodeFile");
+
+    private final GraphRouteService graphRouteService;
+    private final CodeScopeRepository scopeRepository;
+    private final GraphTransferRepository transferRepository;
+    private final FileDependencyRepository fileDependencyRepository;
+    private final CodeUnitRepository unitRepository;
+    private final GraphWriteBuffer writeBuffer;
+    private final KnownPackageCache knownPackageCache;
+    private final KnownFunctionIndex knownFunctionIndex;
+    private final FileManifestService fileManifestService;
+    private final TaskExecutor maintenanceTaskExecutor;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long drainTimeoutMillis;
+
+    private final AtomicReference<MoveJob> currentJob = new AtomicReference<>();
+
+    public ProjectMoveService(
+            GraphRouteService graphRouteService,
+            CodeScopeRepository scopeRepository,
+            GraphTransferRepository transferRepository,
+            FileDependencyRepository fileDependencyRepository,
+            CodeUnitRepository unitRepository,
+            GraphWriteBuffer writeBuffer,
+            KnownPackageCache knownPackageCache,
+            KnownFunctionIndex knownFunctionIndex,
+            FileManifestService fileManifestService,
+            @Qualifier("maintenanceTaskExecutor") TaskExecutor maintenanceTaskExecutor,
+            @Value("${code-graph.project-move.batch-size:2000}") int batchSize,
+            @Value("${code-graph.project-move.pause-millis:50}") long pauseMillis,
+            @Value("${code-graph.project-move.drain-timeout-millis:60000}") long drainTimeoutMillis) {
+        this.graphRouteService = graphRouteService;
+        this.scopeRepository = scopeRepository;
+        this.transferRepository = transferRepository;
+        this.fileDependencyRepository = fileDependencyRepository;
+        this.unitRepository = unitRepository;
+        this.writeBuffer = writeBuffer;
+        this.knownPackageCache = knownPackageCache;
+        this.knownFunctionIndex = knownFunctionIndex;
+        this.fileManifestService = fileManifestService;
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.drainTimeoutMillis = Math.max(0, drainTimeoutMillis);
+    }
+
+    /**
+     * 提交迁移任务
+     *
+     * @throws IllegalArgumentException 参数不合法、目标库未配置、仓库已在目标库或没有数据
+     * @throws IllegalStateException 已有迁移任务在执行，或维护任务队列已满
+     */
+    public synchronized MoveJob submit(String gitRepoUrl, String target) {
+        if (gitRepoUrl == null || gitRepoUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("gitRepoUrl 不能为空");
+        }
+        if (target == null || !graphRouteService.targets().contains(target)) {
+            throw new IllegalArgumentException("目标库未配置: " + target);
+        }
+        MoveJob previous = currentJob.get();
+        if (previous != null && !previous.isFinished()) {
+            throw new IllegalStateException("已有迁移任务在执行: repo=" + previous.getGitRepoUrl()
+                + ", target=" + previous.getTarget());
+        }
+
+        List<Integer> scopeIds = scopeRepository.findScopeIds(gitRepoUrl, null, false);
+        if (scopeIds == null || scopeIds.isEmpty()) {
+            throw new IllegalArgumentException("仓库没有数据，直接登记路由即可: " + gitRepoUrl);
+        }
+        MoveJob job = new MoveJob();
+        job.setGitRepoUrl(gitRepoUrl);
+        job.setTarget(target);
+        job.setScopeIds(scopeIds);
+        job.setState(MoveJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        if (previous != null && !MoveJob.STATE_DONE.equals(previous.getState()) && previous.isRouteSwitched()
+                && previous.getGitRepoUrl().equals(gitRepoUrl) && previous.getTarget().equals(target)) {
+            // 路由已切换：只继续删除源库，累计数沿用
+            job.setSource(previous.getSource());
+            job.setRouteSwitched(true);
+            job.getCopiedNodes().putAll(previous.getCopiedNodes());
+            job.getCopiedRelationships().putAll(previous.getCopiedRelationships());
+            job.getDeletedNodes().putAll(previous.getDeletedNodes());
+            job.setBatches(previous.getBatches());
+        } else {
+            job.setSource(graphRouteService.targetOf(gitRepoUrl));
+            if (target.equals(job.getSource())) {
+                throw new IllegalArgumentException("仓库已在目标库中: " + target);
+            }
+        }
+
+        if (!graphRouteService.markMoving(gitRepoUrl)) {
+            throw new IllegalStateException("仓库正在迁移或删除: " + gitRepoUrl);
+        }
+        try {
+            maintenanceTaskExecutor.execute(() -> move(job));
+        } catch (TaskRejectedException e) {
+            graphRouteService.unmarkMoving(gitRepoUrl);
+            throw new IllegalStateException("维护任务队列已满，请稍后重试", e);
+        }
+        currentJob.set(job);
+        return job;
+    }
+
+    /**
+     * 请求停止当前任务（当前批次完成后停止），没有执行中的任务时返回 null
+     */
+    public MoveJob stop() {
+        MoveJob job = currentJob.get();
+        if (job == null || job.isFinished()) {
+            return null;
+        }
+        job.setStopRequested(true);
+        return job;
+    }
+
+    /**
+     * 最近一次迁移任务，没有时返回 null
+     */
+    public MoveJob current() {
+        return currentJob.get();
+    }
+
+    private void move(MoveJob job) {
+        job.setState(MoveJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        log.info("项目迁移开始: repo={}, source={}, target={}, scopes={}, resume={}, batchSize={}, pauseMillis={}",
+            job.getGitRepoUrl(), job.getSource(), job.getTarget(), job.getScopeIds().size(),
+            job.isRouteSwitched(), batchSize, pauseMillis);
+        try {
+            if (!job.isRouteSwitched()) {
+                // 标记迁移前已开始的写入先执行完，再把它们留在缓冲区的行落到源库，之后才开始复制
+                job.setPhase(MoveJob.PHASE_DRAIN_WRITES);
+                if (!graphRouteService.awaitWritesDrained(job.getGitRepoUrl(), drainTimeoutMillis)) {
+                    throw new IllegalStateException("等待在途写入结束超时: " + job.getGitRepoUrl());
+                }
+                GraphRoute.run(job.getSource(), writeBuffer::flush);
+                copy(job);
+                if (job.isStopRequested()) {
+                    job.setState(MoveJob.STATE_STOPPED);
+                    return;
+                }
+                job.setPhase(MoveJob.PHASE_REBUILD_FILE_DEPENDENCIES);
+                long dependencies = GraphRoute.call(job.getTarget(),
+                    () -> fileDependencyRepository.rebuildScopes(job.getScopeIds()));
+                log.info("项目迁移重建文件依赖索引: target={}, dependencies={}", job.getTarget(), dependencies);
+                // 导入包关系指向不属于范围的共享包节点，不随节点复制，在目标库按单元属性补建
+                long importLinks = GraphRoute.call(job.getTarget(),
+                    () -> unitRepository.linkImportedPackages(job.getScopeIds()));
+                log.info("项目迁移补建导入包关系: target={}, relationships={}", job.getTarget(), importLinks);
+
+                job.setPhase(MoveJob.PHASE_SWITCH_ROUTE);
+                graphRouteService.switchRoute(job.getGitRepoUrl(), job.getTarget());
+                job.setRouteSwitched(true);
+                log.info("项目迁移切换路由: repo={}, target={}", job.getGitRepoUrl(), job.getTarget());
+                // 复制写入不经过写路径监听器，目标库的已知函数索引不含复制过去的函数
+                knownFunctionIndex.invalidate(job.getTarget());
+            }
+
+            job.setPhase(MoveJob.PHASE_DELETE_SOURCE);
+            GraphRoute.run(job.getSource(), () -> deleteSource(job));
+            job.setState(job.isStopRequested() ? MoveJob.STATE_STOPPED : MoveJob.STATE_DONE);
+            log.info("项目迁移结束: state={}, copiedNodes={}, copiedRelationships={}, deletedNodes={}, batches={}",
+                job.getState(), job.getCopiedNodes(), job.getCopiedRelationships(), job.getDeletedNodes(), job.getBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setState(MoveJob.STATE_STOPPED);
+            log.warn("项目迁移被中断: repo={}, phase={}", job.getGitRepoUrl(), job.getPhase());
+        } catch (Exception e) {
+            job.setState(MoveJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("项目迁移失败: repo={}, phase={}, label={}, error={}",
+                job.getGitRepoUrl(), job.getPhase(), job.getCurrentLabel(), e.getMessage(), e);
+        } finally {
+            if (job.isRouteSwitched()) {
+                // 清单按目标库分命名空间：源库下的清单指向正在删除的节点，不再使用
+                fileManifestService.invalidate(job.getGitRepoUrl(), null);
+            }
+            graphRouteService.unmarkMoving(job.getGitRepoUrl());
+            job.setCurrentLabel(null);
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 复制节点和关系：从源库读一批，写入目标库一批
+     */
+    private void copy(MoveJob job) throws InterruptedException {
+        job.setPhase(MoveJob.PHASE_COPY_NODES);
+        for (String label : COPY_LABELS) {
+            job.setCurrentLabel(label);
+            String afterId = null;
+            while (!job.isStopRequested()) {
+                String cursor = afterId;
+                GraphTransferBatch batch = GraphRoute.call(job.getSource(),
+                    () -> transferRepository.readNodes(label, job.getScopeIds(), cursor, batchSize));
+                if (batch.getScanned() == 0) {
+                    break;
+                }
+                GraphRoute.run(job.getTarget(), () -> transferRepository.writeNodes(label, batch.getRows()));
+                job.getCopiedNodes().merge(label, (long) batch.getRows().size(), Long::sum);
+                job.setBatches(job.getBatches() + 1);
+                afterId = batch.getLastId();
+                pause();
+            }
+        }
+
+        job.setPhase(MoveJob.PHASE_COPY_RELATIONSHIPS);
+        for (RelationshipType type : RelationshipType.values()) {
+            job.setCurrentLabel(type.name());
+            String afterId = null;
+            while (!job.isStopRequested()) {
+                String cursor = afterId;
+                GraphTransferBatch batch = GraphRoute.call(job.getSource(),
+                    () -> transferRepository.readRelationships(type, job.getScopeIds(), cursor, batchSize));
+                if (batch.getScanned() == 0) {
+                    break;
+                }
+                long written = GraphRoute.call(job.getTarget(),
+                    () -> transferRepository.writeRelationships(type, batch.getRows()));
+                job.getCopiedRelationships().merge(type.name(), written, Long::sum);
+                job.setBatches(job.getBatches() + 1);
+                afterId = batch.getLastId();
+                pause();
+            }
+        }
+        job.setCurrentLabel(null);
+    }
+
+    /**
+     * 在源库分批删除仓库的关系和节点（在源库路由上下文中执行）。
+     * 数据仍在目标库，不通知内存快照和已知函数索引
+     */
+    private void deleteSource(MoveJob job) {
+        try {
+            for (Integer scopeId : job.getScopeIds()) {
+                for (String label : DELETE_LABELS) {
+                    job.setCurrentLabel(label);
+                    long count;
+                    if ("CodePackage".equals(label)) {
+                        do {
+                            if (job.isStopRequested()) {
+                                return;
+                            }
+                            ScopeDeleteBatch batch = scopeRepository.releasePackagesBatch(scopeId, batchSize);
+                            knownPackageCache.evict(batch.getIds());
+                            job.getDeletedNodes().merge(label, (long) batch.getIds().size(), Long::sum);
+                            job.setBatches(job.getBatches() + 1);
+                            count = batch.getCount();
+                            pause();
+                        } while (count > 0);
+                        continue;
+                    }
+                    do {
+                        if (job.isStopRequested()) {
+                            return;
+                        }
+                        count = scopeRepository.deleteRelationshipsBatch(label, scopeId, batchSize);
+                        job.setBatches(job.getBatches() + 1);
+                        pause();
+                    } while (count > 0);
+                    do {
+                        if (job.isStopRequested()) {
+                            return;
+                        }
+                        count = scopeRepository.deleteNodesBatch(label, scopeId, batchSize).getCount();
+                        job.getDeletedNodes().merge(label, count, Long::sum);
+                        job.setBatches(job.getBatches() + 1);
+                        pause();
+                    } while (count > 0);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setStopRequested(true);
+            log.warn("项目迁移删除源库被中断: repo={}, label={}", job.getGitRepoUrl(), job.getCurrentLabel());
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+    }
+
+    /**
+     * 迁移任务状态
+     */
+    @Data
+    public static class MoveJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_STOPPED = "STOPPED";
+        public static final String STATE_FAILED = "FAILED";
+
+        public static final String PHASE_DRAIN_WRITES = "DRAIN_WRITES";
+        public static final String PHASE_COPY_NODES = "COPY_NODES";
+        public static final String PHASE_COPY_RELATIONSHIPS = "COPY_RELATIONSHIPS";
+        public static final String PHASE_REBUILD_FILE_DEPENDENCIES = "REBUILD_FILE_DEPENDENCIES";
+        public static final String PHASE_SWITCH_ROUTE = "SWITCH_ROUTE";
+        public static final String PHASE_DELETE_SOURCE = "DELETE_SOURCE";
+
+        private String gitRepoUrl;
+        private String source;
+        private String target;
+        private List<Integer> scopeIds;
+        private volatile String state;
+        private volatile String phase;
+        private volatile String currentLabel;
+        private volatile boolean routeSwitched;
+        private final Map<String, Long> copiedNodes = new ConcurrentHashMap<>();
+        private final Map<String, Long> copiedRelationships = new ConcurrentHashMap<>();
+        private final Map<String, Long> deletedNodes = new ConcurrentHashMap<>();
+        private volatile long batches;
+        private volatile boolean stopRequested;
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+
+        public boolean isFinished() {
+            return STATE_DONE.equals(state) || STATE_STOPPED.equals(state) || STATE_FAILED.equals(state);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.ScopeDeleteBatch;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.ServiceTopologyRepository;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 范围删除服务（应用层）
+ * 删除一个仓库（全部分支）或一个分支的全部节点，代替手工执行整库 DETACH DELETE。
+ *
+ * 提交时把仓库标记为删除中（与迁移一样拒绝该仓库的新写入），开始删除前等待已在执行的写入结束并刷写写入缓冲区，
+ * 避免删除过程中或删除之后又有该范围的节点写回；任务结束（完成、停止或失败）后解除标记。
+ *
+ * 按范围、按标签分批执行：先分批删除节点上的关系，再分批删除节点，每批一个事务，事务大小与图规模无关；
+ * 批与批之间按配置暂停，不挤占实时写入。删除可重复执行（只处理剩余节点），停止或失败后重新提交同一目标即可继续。
+ * 全部节点删除后同时清理内存快照、已知函数索引、HTTP 路由索引、文件内容 ref、文件清单、覆盖层和范围登记，
+ * 并按删除前的 MATCHES 关系刷新受影响的服务依赖；节点在仓库所在的目标库中删除，删除整个仓库后同时删除其路由。
+ *
+ * 包按 ID 在仓库间共享，不按 scopeId 删除：只解除该范围的类与包的关系，删除不再被引用的包（同时从已知包缓存移除）。
+ * 范围内仍有未迁移（没有 scopeId）的节点时拒绝删除，避免删不到这些节点却解除了范围登记
+ */
+@Slf4j
+@Service
+public class ScopeDeletionService {
+
+    /** 按顺序处理的标签；CodePackage 只释放不按范围删除，必须在删除类之前处理（之后就找不到该范围的包关系了） */
+    private static final List<String> LABELS = List.of("CodeEndpoint", "CodeFunction", "CodePackage", "CodeUnit", "CodeFile");
+    /** 需要检查是否已迁移的标签（包是共享的，不属于任何一个范围） */
+    private static final List<String> SCOPED_LABELS = List.of("CodeEndpoint", "CodeFunction", "CodeUnit", "CodeFile");
+    /** 需要通知监听器（内存快照、已知函数索引、HTTP 路由索引）的标签 */
+    private static final List<String> INDEXED_LABELS = List.of("CodeEndpoint", "CodeFunction");
+
+    private final CodeScopeRepository scopeRepository;
+    private final ServiceTopologyRepository serviceTopologyRepository;
+    private final BranchOverlayService branchOverlayService;
+    private final GraphRouteService graphRouteService;
+    private final List<GraphChangeListener> changeListeners;
+    private final KnownPackageCache knownPackageCache;
+    private final FileManifestService fileManifestService;
+    private final FileContentStore fileContentStore;
+    private final GraphWriteBuffer writeBuffer;
+    private final TaskExecutor maintenanceTaskExecutor;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long drainTimeoutMillis;
+
+    private final AtomicReference<DeletionJob> currentJob = new AtomicReference<>();
+
+    public ScopeDeletionService(
+            CodeScopeRepository scopeRepository,
+            ServiceTopologyRepository serviceTopologyRepository,
+            BranchOverlayService branchOverlayService,
+            GraphRouteService graphRouteService,
+            List<GraphChangeListener> changeListeners,
+            KnownPackageCache knownPackageCache,
+            FileManifestService fileManifestService,
+            ObjectProvider<FileContentStore> fileContentStore,
+            GraphWriteBuffer writeBuffer,
+            @Qualifier("maintenanceTaskExecutor") TaskExecutor maintenanceTaskExecutor,
+            @Value("${code-graph.scope-delete.batch-size:5000}") int batchSize,
+            @Value("${code-graph.scope-delete.pause-millis:100}") long pauseMillis,
+            @Value("${code-graph.scope-delete.drain-timeout-millis:60000}") long drainTimeoutMillis) {
+        this.scopeRepository = scopeRepository;
+        this.serviceTopologyRepository = serviceTopologyRepository;
+        this.branchOverlayService = branchOverlayService;
+        this.graphRouteService = graphRouteService;
+        this.changeListeners = changeListeners;
+        this.knownPackageCache = knownPackageCache;
+        this.fileManifestService = fileManifestService;
+        this.fileContentStore = fileContentStore.getIfAvailable();
+        this.writeBuffer = writeBuffer;
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.drainTimeoutMillis = Math.max(0, drainTimeoutMillis);
+    }
+
+    /**
+     * 提交删除任务
+     *
+     * @param gitBranch 为空时删除仓库的全部分支
+     * @throws IllegalArgumentException 参数不合法、没有匹配的范围或分支仍是其他覆盖层的基线
+     * @throws IllegalStateException 已有删除任务在执行、仓库正在迁移，或维护任务队列已满
+     */
+    public synchronized DeletionJob submit(String gitRepoUrl, String gitBranch) {
+        if (gitRepoUrl == null || gitRepoUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("gitRepoUrl 不能为空");
+        }
+        String branch = gitBranch == null || gitBranch.trim().isEmpty() ? null : gitBranch;
+        DeletionJob previous = currentJob.get();
+        if (previous != null && !previous.isFinished()) {
+            throw new IllegalStateException("已有删除任务在执行: repo=" + previous.getGitRepoUrl()
+                + ", branch=" + previous.getGitBranch());
+        }
+
+        List<CodeScope> scopes = resolveScopes(gitRepoUrl, branch);
+        DeletionJob job = new DeletionJob();
+        job.setGitRepoUrl(gitRepoUrl);
+        job.setGitBranch(branch);
+        job.setScopes(scopes.size());
+        job.setState(DeletionJob.STATE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        if (previous != null && !DeletionJob.STATE_DONE.equals(previous.getState())
+                && Objects.equals(previous.getGitRepoUrl(), gitRepoUrl) && Objects.equals(previous.getGitBranch(), branch)) {
+            // 同一目标上次停止或失败：累计数沿用
+            job.getDeletedNodes().putAll(previous.getDeletedNodes());
+            job.setDeletedRelationships(previous.getDeletedRelationships());
+            job.setBatches(previous.getBatches());
+        }
+        if (!graphRouteService.markDeleting(gitRepoUrl)) {
+            throw new IllegalStateException("仓库正在迁移或删除: " + gitRepoUrl);
+        }
+        try {
+            maintenanceTaskExecutor.execute(() -> graphRouteService.runInRoute(gitRepoUrl, () -> delete(job, scopes)));
+        } catch (TaskRejectedException e) {
+            graphRouteService.unmarkDeleting(gitRepoUrl);
+            throw new IllegalStateException("维护任务队列已满，请稍后重试", e);
+        }
+        currentJob.set(job);
+        return job;
+    }
+
+    /**
+     * 请求停止当前任务（当前批次完成后停止），没有执行中的任务时返回 null
+     */
+    public DeletionJob stop() {
+        DeletionJob job = currentJob.get();
+        if (job == null || job.isFinished()) {
+            return null;
+        }
+        job.setStopRequested(true);
+        return job;
+    }
+
+    /**
+     * 最近一次删除任务，没有时返回 null
+     */
+    public DeletionJob current() {
+        return currentJob.get();
+    }
+
+    /**
+     * 匹配的范围，覆盖层排在前面（基线必须在覆盖层之后删除）
+     */
+    private List<CodeScope> resolveScopes(String gitRepoUrl, String gitBranch) {
+        List<Integer> ids = scopeRepository.findScopeIds(gitRepoUrl, gitBranch, false);
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("没有匹配的范围: repo=" + gitRepoUrl + ", branch=" + gitBranch);
+        }
+        List<CodeScope> scopes = new ArrayList<>();
+        for (Integer id : ids) {
+            CodeScope scope = scopeRepository.findById(id);
+            if (scope == null) {
+                continue;
+            }
+            for (CodeScope overlay : scopeRepository.findOverlays(id)) {
+                if (!ids.contains(overlay.getId())) {
+                    throw new IllegalArgumentException("分支 " + scope.getGitBranch() + " 是覆盖层分支 "
+                        + overlay.getGitBranch() + " 的基线，请先删除覆盖层分支");
+                }
+            }
+            scopes.add(scope);
+        }
+        scopes.sort(Comparator.comparing(scope -> scope.getBaseScopeId() == null));
+        return scopes;
+    }
+
+    private void delete(DeletionJob job, List<CodeScope> scopes) {
+        job.setState(DeletionJob.STATE_RUNNING);
+        job.setStartedAt(System.currentTimeMillis());
+        log.info("范围删除开始: repo={}, branch={}, scopes={}, batchSize={}, pauseMillis={}",
+            job.getGitRepoUrl(), job.getGitBranch(), scopes.size(), batchSize, pauseMillis);
+        try {
+            // 标记删除前已开始的写入先执行完，再把它们留在缓冲区的行落库，之后才开始删除
+            if (!graphRouteService.awaitWritesDrained(job.getGitRepoUrl(), drainTimeoutMillis)) {
+                throw new IllegalStateException("等待在途写入结束超时: " + job.getGitRepoUrl());
+            }
+            writeBuffer.flush();
+            checkMigrated(job);
+            for (CodeScope scope : scopes) {
+                job.setCurrentScopeId(scope.getId());
+                for (String label : LABELS) {
+                    job.setCurrentLabel(label);
+                    if (!processLabel(job, scope, label)) {
+                        break;
+                    }
+                }
+                if (job.isStopRequested()) {
+                    break;
+                }
+                if (scope.getBaseScopeId() != null) {
+                    branchOverlayService.delete(scope.getGitRepoUrl(), scope.getGitBranch());
+                } else {
+                    scopeRepository.deleteScope(scope.getId());
+                }
+                job.setScopesDone(job.getScopesDone() + 1);
+                log.info("范围删除完成一个范围: scopeId={}, repo={}, branch={}",
+                    scope.getId(), scope.getGitRepoUrl(), scope.getGitBranch());
+            }
+            if (!job.isStopRequested() && job.getGitBranch() == null) {
+                graphRouteService.switchRoute(job.getGitRepoUrl(), GraphRoute.DEFAULT);
+            }
+            job.setState(job.isStopRequested() ? DeletionJob.STATE_STOPPED : DeletionJob.STATE_DONE);
+            log.info("范围删除结束: state={}, deletedNodes={}, deletedRelationships={}, batches={}",
+                job.getState(), job.getDeletedNodes(), job.getDeletedRelationships(), job.getBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setState(DeletionJob.STATE_STOPPED);
+            log.warn("范围删除被中断: scopeId={}, label={}", job.getCurrentScopeId(), job.getCurrentLabel());
+        } catch (Exception e) {
+            job.setState(DeletionJob.STATE_FAILED);
+            job.setError(e.getMessage());
+            log.error("范围删除失败: scopeId={}, label={}, error={}",
+                job.getCurrentScopeId(), job.getCurrentLabel(), e.getMessage(), e);
+        } finally {
+            // 删了多少都要作废清单：清单里的节点可能已不在库中
+            fileManifestService.invalidate(job.getGitRepoUrl(), job.getGitBranch());
+            graphRouteService.unmarkDeleting(job.getGitRepoUrl());
+            job.setCurrentScopeId(null);
+            job.setCurrentLabel(null);
+            job.setFinishedAt(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 范围内还有未迁移的节点时拒绝删除（这些节点按 scopeId 匹配不到）
+     */
+    private void checkMigrated(DeletionJob job) {
+        for (String label : SCOPED_LABELS) {
+            for (CodeScope unmigrated : scopeRepository.findUnmigratedScopes(label)) {
+                if (Objects.equals(unmigrated.getGitRepoUrl(), job.getGitRepoUrl())
+                        && (job.getGitBranch() == null || Objects.equals(unmigrated.getGitBranch(), job.getGitBranch()))) {
+                    throw new IllegalStateException("范围内仍有未迁移的节点，请先执行范围迁移: label=" + label
+                        + ", branch=" + unmigrated.getGitBranch());
+                }
+            }
+        }
+    }
+
+    private boolean processLabel(DeletionJob job, CodeScope scope, String label) throws InterruptedException {
+        if ("CodePackage".equals(label)) {
+            return releasePackages(job, scope);
+        }
+        if (!"CodeEndpoint".equals(label)) {
+            return deleteLabel(job, scope, label);
+        }
+        // 端点的 MATCHES 关系删除前记下涉及的服务对，删完后按剩余的 MATCHES 重新统计
+        List<ServicePair> servicePairs = serviceTopologyRepository.findServicePairsByScope(scope.getId());
+        boolean done = deleteLabel(job, scope, label);
+        serviceTopologyRepository.refreshDependencies(servicePairs);
+        return done;
+    }
+
+    /**
+     * 释放一个范围使用的包（共享的包保留，不再被引用的包删除）
+     *
+     * @return false 表示收到停止请求，未释放完
+     */
+    private boolean releasePackages(DeletionJob job, CodeScope scope) throws InterruptedException {
+        ScopeDeleteBatch batch;
+        do {
+            if (job.isStopRequested()) {
+                return false;
+            }
+            batch = scopeRepository.releasePackagesBatch(scope.getId(), batchSize);
+            knownPackageCache.evict(batch.getIds());
+            job.getDeletedNodes().merge("CodePackage", (long) batch.getIds().size(), Long::sum);
+            job.setBatches(job.getBatches() + 1);
+            pause();
+        } while (batch.getCount() > 0);
+        return true;
+    }
+
+    /**
+     * 删除一个范围内某个标签的全部关系和节点
+     *
+     * @return false 表示收到停止请求，未删完
+     */
+    private boolean deleteLabel(DeletionJob job, CodeScope scope, String label) throws InterruptedException {
+        long relationships;
+        do {
+            if (job.isStopRequested()) {
+                return false;
+            }
+            relationships = scopeRepository.deleteRelationshipsBatch(label, scope.getId(), batchSize);
+            job.setDeletedRelationships(job.getDeletedRelationships() + relationships);
+            job.setBatches(job.getBatches() + 1);
+            pause();
+        } while (relationships > 0);
+
+        ScopeDeleteBatch batch;
+        do {
+            if (job.isStopRequested()) {
+                return false;
+            }
+            batch = scopeRepository.deleteNodesBatch(label, scope.getId(), batchSize);
+            job.getDeletedNodes().merge(label, (long) batch.getCount(), Long::sum);
+            job.setBatches(job.getBatches() + 1);
+            afterNodesDeleted(scope, label, batch);
+            pause();
+        } while (batch.getCount() > 0);
+        return true;
+    }
+
+    private void afterNodesDeleted(CodeScope scope, String label, ScopeDeleteBatch batch) {
+        if (INDEXED_LABELS.contains(label)) {
+            batch.getIds().forEach(id -> changeListeners.forEach(listener -> listener.onNodeDeleted(id)));
+        }
+        if ("CodeUnit".equals(label) && fileContentStore != null) {
+            batch.getProjectFilePaths().forEach(path ->
+                fileContentStore.remove(scope.getGitRepoUrl(), scope.getGitBranch(), path));
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+    }
+
+    /**
+     * 删除任务状态
+     */
+    @Data
+    public static class DeletionJob {
+        public static final String STATE_QUEUED = "QUEUED";
+        public static final String STATE_RUNNING = "RUNNING";
+        public static final String STATE_DONE = "DONE";
+        public static final String STATE_STOPPED = "STOPPED";
+        public static final String STATE_FAILED = "FAILED";
+
+        private String gitRepoUrl;
+        private String gitBranch;
+        private int scopes;
+        private volatile int scopesDone;
+        private volatile String state;
+        private volatile Integer currentScopeId;
+        private volatile String currentLabel;
+        private final Map<String, Long> deletedNodes = new ConcurrentHashMap<>();
+        private volatile long deletedRelationships;
+        private volatile long batches;
+        private volatile boolean stopRequested;
+        private String error;
+        private long submittedAt;
+        private long startedAt;
+        private long finishedAt;
+
+        public boolean isFinished() {
+            return STATE_DONE.equals(state) || STATE_STOPPED.equals(state) || STATE_FAILED.equals(state);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.poseidon.codegraph.engine.application.service;
+
+import com.poseidon.codegraph.engine.application.model.ServiceDependencyDO;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.ServiceTopologyRepository;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 服务拓扑服务（应用层）
+ * 职责：
+ * 1. 查询服务间依赖（DEPENDS_ON 已在端点增删时按目标库增量维护，查询只读默认库中的 Service 层）
+ * 2. 首次上线时从已有 MATCHES 关系构建拓扑
+ */
+@Slf4j
+@Service
+public class ServiceTopologyService {
+    
+    private static final int BACKFILL_BATCH_SIZE = 10000;
+    
+    private final ServiceTopologyRepository serviceTopologyRepository;
+    private final GraphRouteService graphRouteService;
+    
+    public ServiceTopologyService(ServiceTopologyRepository serviceTopologyRepository,
+                                  GraphRouteService graphRouteService) {
+        this.serviceTopologyRepository = serviceTopologyRepository;
+        this.graphRouteService = graphRouteService;
+    }
+    
+    /**
+     * 谁调用了指定服务
+     */
+    public List<ServiceDependencyDO> findDependents(String serviceName) {
+        return serviceTopologyRepository.findDependents(serviceName);
+    }
+    
+    /**
+     * 指定服务调用了谁
+     */
+    public List<ServiceDependencyDO> findDependencies(String serviceName) {
+        return serviceTopologyRepository.findDependencies(serviceName);
+    }
+    
+    /**
+     * 全部服务依赖
+     */
+    public List<ServiceDependencyDO> findAllDependencies() {
+        return serviceTopologyRepository.findAllDependencies();
+    }
+    
+    /**
+     * 从已有 MATCHES 关系构建拓扑（仅用于已有数据的首次初始化）
+     * 逐个目标库：先为升级前写入的端点补齐 service 属性，再按服务对统计
+     * @return 刷新的服务对数量（各目标库合计）
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        int total = 0;
+        for (String target : graphRouteService.targets()) {
+            total += GraphRoute.call(target, () -> {
+                serviceTopologyRepository.backfillEndpointServices(BACKFILL_BATCH_SIZE);
+                List<ServicePair> pairs = serviceTopologyRepository.findAllServicePairs();
+                serviceTopologyRepository.refreshDependencies(pairs);
+                log.info("服务拓扑构建完成一个目标库: target={}, pairs={}", target, pairs.size());
+                return pairs.size();
+            });
+        }
+        log.info("服务拓扑构建完成: pairs={}, elapsed={}ms", total, System.currentTimeMillis() - start);
+        return total;
+    }
+}
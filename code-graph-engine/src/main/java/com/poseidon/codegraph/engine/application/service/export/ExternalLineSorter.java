@@ -0,0 +1,178 @@
+package com.poseidon.codegraph.engine.application.service.export;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 外部排序：按 key 排序任意多的 (key, payload) 行，内存中最多保留 chunkLines 行
+ *
+ * 行先在内存中累积，满一块后排序写成一个有序段文件；读取时对所有段做多路归并。
+ * key 和 payload 中的制表符、换行会被替换为空格
+ */
+public class ExternalLineSorter implements Closeable {
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path workDir;
+    private final String name;
+    private final int chunkLines;
+    private final List<String[]> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long lines;
+
+    public ExternalLineSorter(Path workDir, String name, int chunkLines) {
+        this.workDir = workDir;
+        this.name = name;
+        this.chunkLines = Math.max(1000, chunkLines);
+    }
+
+    public void add(String key, String payload) throws IOException {
+        buffer.add(new String[]{sanitize(key), sanitize(payload)});
+        lines++;
+        if (buffer.size() >= chunkLines) {
+            spill();
+        }
+    }
+
+    public long size() {
+        return lines;
+    }
+
+    /**
+     * 打开有序游标（调用后不能再 add）
+     */
+    public Cursor open() throws IOException {
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        return new Cursor(runs);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(Comparator.comparing((String[] line) -> line[0]));
+        Path run = workDir.resolve(name + "-" + runs.size() + ".run");
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (String[] line : buffer) {
+                writer.write(line[0]);
+                writer.write(SEPARATOR);
+                writer.write(line[1]);
+                writer.newLine();
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    private static String sanitize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0
+            ? value
+            : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * 多路归并游标：按 key 升序逐行返回，相同 key 的行相邻
+     */
+    public static class Cursor implements Closeable {
+
+        private final List<BufferedReader> readers = new ArrayList<>();
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.key));
+        private String key;
+        private String payload;
+
+        private Cursor(List<Path> runs) throws IOException {
+            try {
+                for (Path run : runs) {
+                    BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+                    readers.add(reader);
+                    advance(reader);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * 移动到下一行
+         * @return 没有更多行时返回 false
+         */
+        public boolean next() throws IOException {
+            Head head = heads.poll();
+            if (head == null) {
+                key = null;
+                payload = null;
+                return false;
+            }
+            key = head.key;
+            payload = head.payload;
+            advance(head.reader);
+            return true;
+        }
+
+        /**
+         * 下一行的 key（不移动游标），没有更多行时返回 null
+         */
+        public String peekKey() {
+            Head head = heads.peek();
+            return head != null ? head.key : null;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public String payload() {
+            return payload;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+            readers.clear();
+            heads.clear();
+        }
+
+        private void advance(BufferedReader reader) throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                int split = line.indexOf(SEPARATOR);
+                heads.add(new Head(line.substring(0, split), line.substring(split + 1), reader));
+            }
+        }
+    }
+
+    private static class Head {
+        private final String key;
+        private final String payload;
+        private final BufferedReader reader;
+
+        private Head(String key, String payload, BufferedReader reader) {
+            this.key = key;
+            this.payload = payload;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.poseidon.codegraph.engine.application.service.export;
+
+import com.poseidon.codegraph.engine.application.converter.CodeGraphConverter;
+import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.application.model.CodeFunctionDO;
+import com.poseidon.codegraph.engine.application.model.CodePackageDO;
+import com.poseidon.codegraph.engine.application.model.CodeRelationshipDO;
+import com.poseidon.codegraph.engine.application.model.CodeUnitDO;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeGraphSink;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * neo4j-admin database import 的 CSV 写出器
+ *
+ * 每个节点标签一个节点文件（首行为表头，ID 空间按标签划分），每种关系类型一个关系文件，
+ * 关系两端的标签取自 {@link RelationshipType#getFromLabel()} / {@link RelationshipType#getToLabel()}。
+ *
+ * 内存占用与项目规模无关：
+ * - 关系逐行直接写出
+ * - 节点先写入外部排序，结束时按 ID 归并去重（同一个包会被多个文件重复产出）
+ * - 占位符：CALLS 两端的 ID 进入外部排序，与已定义函数的有序 ID 归并，只为未定义的 ID 写占位符
+ * - MATCHES：带 matchIdentity 的端点按标识排序，同一标识内 outbound × inbound 配对
+ *
+ * 节点只写 scopeId：仓库/分支组合通过 {@link CodeScopeRepository#resolveScopeId} 在默认库的范围登记中分配，
+ * 与增量更新使用同一个编号，不写 CodeScope 节点（导入库中的范围节点会与登记冲突）
+ */
+public class ImportCsvWriter implements CodeGraphSink, Closeable {
+
+    public static final String LABEL_PACKAGE = "CodePackage";
+    public static final String LABEL_UNIT = "CodeUnit";
+    public static final String LABEL_FUNCTION = "CodeFunction";
+    public static final String LABEL_ENDPOINT = "CodeEndpoint";
+
+    private static final List<String> PACKAGE_HEADER = List.of(
+        "id:ID(CodePackage)", ":LABEL", "name", "qualifiedName", "language", "projectFilePath",
+        "scopeId:int", "packagePath");
+
+    private static final List<String> UNIT_HEADER = List.of(
+        "id:ID(CodeUnit)", ":LABEL", "name", "qualifiedName", "language", "projectFilePath",
+        "scopeId:int", "startLine:long", "endLine:long", "unitType", "modifiers:string[]",
+        "isAbstract:boolean", "packageId", "isDegraded:boolean", "importedPackages:string[]", "sourceHash");
+
+    private static final List<String> FUNCTION_HEADER = List.of(
+        "id:ID(CodeFunction)", ":LABEL", "name", "qualifiedName", "language", "projectFilePath",
+        "scopeId:int", "startLine:long", "endLine:long", "signature", "returnType",
+        "modifiers:string[]", "isStatic:boolean", "isAsync:boolean", "isConstructor:boolean",
+        "isPlaceholder:boolean", "isDegraded:boolean");
+
+    private static final List<String> ENDPOINT_HEADER = List.of(
+        "id:ID(CodeEndpoint)", ":LABEL", "name", "qualifiedName", "projectFilePath", "scopeId:int",
+        "language", "startLine:long", "endLine:long", "endpointType", "direction",
+        "isExternal:boolean", "httpMethod", "path", "normalizedPath", "topic", "operation", "brokerType",
+        "keyPattern", "command", "dataStructure", "tableName", "dbOperation", "serviceName", "parseLevel",
+        "targetService", "matchIdentity");
+
+    private final Path outputDir;
+    private final Path workDir;
+    private final ExternalLineSorter packages;
+    private final ExternalLineSorter units;
+    private final ExternalLineSorter functions;
+    private final ExternalLineSorter endpoints;
+    private final ExternalLineSorter callTargets;
+    private final ExternalLineSorter matchCandidates;
+    private final Map<RelationshipType, BufferedWriter> relationshipWriters = new EnumMap<>(RelationshipType.class);
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final List<String> nodeFiles = new ArrayList<>();
+    private final CodeScopeRepository scopeRepository;
+    private final Map<String, Integer> scopeIds = new HashMap<>();
+
+    public ImportCsvWriter(Path outputDir, int sortChunkLines, CodeScopeRepository scopeRepository) throws IOException {
+        this.outputDir = outputDir;
+        this.scopeRepository = scopeRepository;
+        this.workDir = outputDir.resolve(".work");
+        Files.createDirectories(workDir);
+        this.packages = new ExternalLineSorter(workDir, "packages", sortChunkLines);
+        this.units = new ExternalLineSorter(workDir, "units", sortChunkLines);
+        this.functions = new ExternalLineSorter(workDir, "functions", sortChunkLines);
+        this.endpoints = new ExternalLineSorter(workDir, "endpoints", sortChunkLines);
+        this.callTargets = new ExternalLineSorter(workDir, "call-targets", sortChunkLines);
+        this.matchCandidates = new ExternalLineSorter(workDir, "match-candidates", sortChunkLines);
+    }
+
+    // ========== CodeGraphSink：逐个元素写出，不在内存中累积 ==========
+
+    @Override
+    public void acceptPackage(CodePackage pkg) {
+        add(packages, pkg.getId(), csv(packageRow(CodeGraphConverter.toDO(pkg))));
+    }
+
+    @Override
+    public void acceptUnit(CodeUnit unit) {
+        add(units, unit.getId(), csv(unitRow(CodeGraphConverter.toDO(unit))));
+    }
+
+    @Override
+    public void acceptFunction(CodeFunction function) {
+        add(functions, function.getId(), csv(functionRow(CodeGraphConverter.toDO(function))));
+    }
+
+    @Override
+    public void acceptEndpoint(CodeEndpoint endpoint) {
+        add(endpoints, endpoint.getId(), csv(endpointRow(CodeGraphConverter.toDO(endpoint))));
+        if (endpoint.getMatchIdentity() != null && !endpoint.getMatchIdentity().isEmpty()) {
+            add(matchCandidates, endpoint.getMatchIdentity(), endpoint.getDirection() + "\u0001" + endpoint.getId());
+        }
+    }
+
+    @Override
+    public void acceptRelationship(CodeRelationship rel) {
+        if (rel.getRelationshipType() == null || rel.getRelationshipType() == RelationshipType.MATCHES) {
+            // MATCHES 在结束时按 matchIdentity 统一生成
+            return;
+        }
+        if (rel.getRelationshipType() == RelationshipType.CALLS) {
+            add(callTargets, rel.getFromNodeId(), nullToEmpty(rel.getLanguage()));
+            add(callTargets, rel.getToNodeId(), nullToEmpty(rel.getLanguage()));
+        }
+        try {
+            writeRelationship(CodeGraphConverter.toDO(rel), rel.getRelationshipType());
+        } catch (IOException e) {
+            throw new UncheckedIOException("写出关系失败: " + rel.getId(), e);
+        }
+    }
+
+    /**
+     * 归并去重写出所有节点文件和 MATCHES 关系
+     *
+     * @return 每个标签 / 关系类型写出的行数（placeholders 单独计数，已包含在 CodeFunction 中）
+     */
+    public Map<String, Long> finish() throws IOException {
+        writeNodes(LABEL_PACKAGE, PACKAGE_HEADER, packages);
+        writeNodes(LABEL_UNIT, UNIT_HEADER, units);
+        writeFunctionsAndPlaceholders();
+        writeNodes(LABEL_ENDPOINT, ENDPOINT_HEADER, endpoints);
+        writeMatches();
+        for (BufferedWriter writer : relationshipWriters.values()) {
+            writer.close();
+        }
+        return counts;
+    }
+
+    /**
+     * neo4j-admin 导入命令（相对于输出目录执行）
+     */
+    public String importCommand(String databaseName) {
+        StringBuilder command = new StringBuilder("neo4j-admin database import full");
+        command.append(" --id-type=string --array-delimiter=';'");
+        nodeFiles.forEach(file -> command.append(" --nodes=").append(file));
+        relationshipWriters.keySet().forEach(type -> command.append(" --relationships=").append(relationshipFile(type)));
+        command.append(' ').append(databaseName);
+        return command.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (BufferedWriter writer : relationshipWriters.values()) {
+            writer.close();
+        }
+        for (ExternalLineSorter sorter : List.of(packages, units, functions, endpoints, callTargets, matchCandidates)) {
+            sorter.close();
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    // ========== 节点 ==========
+
+    /**
+     * 仓库/分支的范围 ID（由范围登记分配，本次导出内缓存）
+     */
+    private int scopeId(String gitRepoUrl, String gitBranch) {
+        String key = nullToEmpty(gitRepoUrl) + '\u0000' + nullToEmpty(gitBranch);
+        return scopeIds.computeIfAbsent(key, k -> scopeRepository.resolveScopeId(gitRepoUrl, gitBranch));
+    }
+
+    private void writeNodes(String label, List<String> header, ExternalLineSorter sorter) throws IOException {
+        String file = "nodes-" + label + ".csv";
+        long written = 0;
+        try (BufferedWriter writer = open(file, header);
+             ExternalLineSorter.Cursor cursor = sorter.open()) {
+            String previous = null;
+            while (cursor.next()) {
+                if (cursor.key().equals(previous)) {
+                    continue;
+                }
+                previous = cursor.key();
+                writeLine(writer, cursor.payload());
+                written++;
+            }
+        }
+        nodeFiles.add(file);
+        counts.put(label, written);
+    }
+
+    /**
+     * 函数与 CALLS 端点 ID 按序归并：已定义的写函数行，未定义的写占位符行
+     */
+    private void writeFunctionsAndPlaceholders() throws IOException {
+        String file = "nodes-" + LABEL_FUNCTION + ".csv";
+        long written = 0;
+        long placeholders = 0;
+        try (BufferedWriter writer = open(file, FUNCTION_HEADER);
+             ExternalLineSorter.Cursor defined = functions.open();
+             ExternalLineSorter.Cursor targets = callTargets.open()) {
+            String previous = null;
+            boolean hasDefined = defined.next();
+            boolean hasTarget = targets.next();
+            while (hasDefined || hasTarget) {
+                boolean takeDefined = hasDefined && (!hasTarget || defined.key().compareTo(targets.key()) <= 0);
+                String key = takeDefined ? defined.key() : targets.key();
+                if (!key.equals(previous)) {
+                    previous = key;
+                    if (takeDefined) {
+                        writeLine(writer, defined.payload());
+                    } else {
+                        String language = targets.payload().isEmpty() ? null : targets.payload();
+                        writeLine(writer, csv(functionRow(CodeGraphConverter.toDO(CodeFunction.placeholder(key, language)))));
+                        placeholders++;
+                    }
+                    written++;
+                }
+                if (takeDefined) {
+                    hasDefined = defined.next();
+                } else {
+                    hasTarget = targets.next();
+                }
+            }
+        }
+        nodeFiles.add(file);
+        counts.put(LABEL_FUNCTION, written);
+        counts.put("placeholders", placeholders);
+    }
+
+    // ========== 关系 ==========
+
+    /**
+     * 同一 matchIdentity 内 outbound -> inbound 两两配对（单组在内存中展开）
+     */
+    private void writeMatches() throws IOException {
+        try (ExternalLineSorter.Cursor cursor = matchCandidates.open()) {
+            List<String> outbound = new ArrayList<>();
+            List<String> inbound = new ArrayList<>();
+            while (cursor.next()) {
+                String[] parts = cursor.payload().split("\u0001", 2);
+                if ("outbound".equals(parts[0])) {
+                    outbound.add(parts[1]);
+                } else if ("inbound".equals(parts[0])) {
+                    inbound.add(parts[1]);
+                }
+                if (!cursor.key().equals(cursor.peekKey())) {
+                    writeMatchGroup(outbound, inbound);
+                    outbound.clear();
+                    inbound.clear();
+                }
+            }
+        }
+    }
+
+    private void writeMatchGroup(List<String> outbound, List<String> inbound) throws IOException {
+        if (outbound.isEmpty() || inbound.isEmpty()) {
+            return;
+        }
+        Set<String> pairs = new HashSet<>();
+        for (String from : outbound) {
+            for (String to : inbound) {
+                if (!pairs.add(from + "->" + to)) {
+                    continue;
+                }
+                CodeRelationshipDO rel = new CodeRelationshipDO();
+                rel.setId(UUID.randomUUID().toString());
+                rel.setFromNodeId(from);
+                rel.setToNodeId(to);
+                rel.setRelationshipType(RelationshipType.MATCHES.name());
+                rel.setLanguage("java");
+                writeRelationship(rel, RelationshipType.MATCHES);
+            }
+        }
+    }
+
+    private void writeRelationship(CodeRelationshipDO rel, RelationshipType type) throws IOException {
+        BufferedWriter writer = relationshipWriters.get(type);
+        if (writer == null) {
+            writer = open(relationshipFile(type), type == RelationshipType.CALLS
+                ? List.of(":START_ID(" + type.getFromLabel() + ")", ":END_ID(" + type.getToLabel() + ")", ":TYPE",
+                    "callCount:int", "lineNumbers:int[]", "callType")
+                : List.of(":START_ID(" + type.getFromLabel() + ")", ":END_ID(" + type.getToLabel() + ")", ":TYPE",
+                    "id", "fromNodeId", "toNodeId", "relationshipType", "lineNumber:long", "callType", "language"));
+            relationshipWriters.put(type, writer);
+        }
+        if (type == RelationshipType.CALLS) {
+            // 与在线写入一致：每对调用方/被调用方一行（解析阶段已聚合），只带调用次数、调用点和调用类型
+            writeLine(writer, csv(Arrays.asList(
+                rel.getFromNodeId(), rel.getToNodeId(), type.name(),
+                rel.getCallCount() != null ? rel.getCallCount() : 1,
+                rel.getLineNumbers() != null ? rel.getLineNumbers() : rel.getLineNumber() != null ? List.of(rel.getLineNumber()) : null,
+                rel.getCallType())));
+        } else {
+            writeLine(writer, csv(Arrays.asList(
+                rel.getFromNodeId(), rel.getToNodeId(), type.name(),
+                rel.getId(), rel.getFromNodeId(), rel.getToNodeId(), type.name(),
+                rel.getLineNumber(), rel.getCallType(), rel.getLanguage())));
+        }
+        counts.merge(type.name(), 1L, Long::sum);
+    }
+
+    private static void add(ExternalLineSorter sorter, String key, String payload) {
+        try {
+            sorter.add(key, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写出排序段失败: " + key, e);
+        }
+    }
+
+    private static String relationshipFile(RelationshipType type) {
+        return "rels-" + type.name() + ".csv";
+    }
+
+    // ========== 行 ==========
+
+    private List<Object> packageRow(CodePackageDO p) {
+        return Arrays.asList(p.getId(), LABEL_PACKAGE, p.getName(), p.getQualifiedName(), p.getLanguage(),
+            p.getProjectFilePath(), scopeId(p.getGitRepoUrl(), p.getGitBranch()), p.getPackagePath());
+    }
+
+    private List<Object> unitRow(CodeUnitDO u) {
+        return Arrays.asList(u.getId(), LABEL_UNIT, u.getName(), u.getQualifiedName(), u.getLanguage(),
+            u.getProjectFilePath(), scopeId(u.getGitRepoUrl(), u.getGitBranch()), u.getStartLine(), u.getEndLine(),
+            u.getUnitType(), u.getModifiers(), u.getIsAbstract(), u.getPackageId(), u.getIsDegraded(),
+            u.getImportedPackages(), u.getSourceHash());
+    }
+
+    private List<Object> functionRow(CodeFunctionDO f) {
+        return Arrays.asList(f.getId(), LABEL_FUNCTION, f.getName(), f.getQualifiedName(), f.getLanguage(),
+            f.getProjectFilePath(), scopeId(f.getGitRepoUrl(), f.getGitBranch()), f.getStartLine(), f.getEndLine(),
+            f.getSignature(), f.getReturnType(), f.getModifiers(), f.getIsStatic(), f.getIsAsync(),
+            f.getIsConstructor(), f.getIsPlaceholder(), f.getIsDegraded());
+    }
+
+    private List<Object> endpointRow(CodeEndpointDO e) {
+        return Arrays.asList(e.getId(), LABEL_ENDPOINT, e.getName(), e.getQualifiedName(), e.getProjectFilePath(),
+            scopeId(e.getGitRepoUrl(), e.getGitBranch()), e.getLanguage(), e.getStartLine(), e.getEndLine(),
+            e.getEndpointType(), e.getDirection(), e.getIsExternal(), e.getHttpMethod(), e.getPath(),
+            e.getNormalizedPath(), e.getTopic(), e.getOperation(), e.getBrokerType(), e.getKeyPattern(),
+            e.getCommand(), e.getDataStructure(), e.getTableName(), e.getDbOperation(), e.getServiceName(),
+            e.getParseLevel(), e.getTargetService(), e.getMatchIdentity());
+    }
+
+    /**
+     * 编码一行 CSV：null 写空（导入后无该属性），字符串加引号，数组以 ; 分隔；换行替换为空格保证一行一条
+     */
+    static String csv(List<?> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else if (value instanceof List<?> list) {
+                StringBuilder joined = new StringBuilder();
+                for (Object element : list) {
+                    if (joined.length() > 0) {
+                        joined.append(';');
+                    }
+                    joined.append(String.valueOf(element).replace(';', ' '));
+                }
+                quote(line, joined.toString());
+            } else {
+                quote(line, value.toString());
+            }
+        }
+        return line.toString();
+    }
+
+    private static void quote(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else if (c == '\n' || c == '\r') {
+                line.append(' ');
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private BufferedWriter open(String file, List<String> header) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(outputDir.resolve(file), StandardCharsets.UTF_8);
+        writeLine(writer, String.join(",", header));
+        return writer;
+    }
+
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -1,7 +1,12 @@
 package com.poseidon.codegraph.engine.domain.context;
 
 import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
+import com.poseidon.codegraph.engine.domain.parser.ParseBudget;
+import com.poseidon.codegraph.engine.domain.parser.ParseMetrics;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
 import com.poseidon.codegraph.engine.domain.parser.enricher.GraphEnricher;
+import com.poseidon.codegraph.engine.domain.service.route.HttpRouteIndex;
 import lombok.Data;
 
 import java.util.ArrayList;
@@ -45,6 +50,18 @@ public class CodeGraphContext {
         return this.absoluteFilePath;
     }
     
+    /**
+     * 调用方是否显式提供了绝对路径（不含推导）
+     */
+    public boolean hasAbsoluteFilePath() {
+        return this.absoluteFilePath != null && !this.absoluteFilePath.trim().isEmpty();
+    }
+    
+    /**
+     * 调用方直接提供的文件内容（对应 projectFilePath，可为 null）
+     */
+    private String sourceContent;
+    
     /**
      * 项目文件路径（用于标识，相对于 Git 根）
      */
@@ -95,6 +112,46 @@ public class CodeGraphContext {
      */
     private List<GraphEnricher> enrichers = new ArrayList<>();
     
+    /**
+     * 单文件解析预算（超出则降级为结构解析）
+     */
+    private ParseBudget parseBudget;
+    
+    /**
+     * 解析指标（记录超时、降级文件）
+     */
+    private ParseMetrics parseMetrics;
+    
+    /**
+     * 解析结果缓存（可为 null，表示不使用缓存）
+     */
+    private ParseResultCache parseResultCache;
+    
+    /**
+     * 文件内容存储（可为 null；级联更新时按仓库、分支、路径读取文件内容）
+     */
+    private FileContentStore fileContentStore;
+    
+    /**
+     * HTTP 路由索引（可为 null；用于按路径模板匹配跨服务 HTTP 端点）
+     */
+    private HttpRouteIndex httpRouteIndex;
+    
+    /**
+     * 写入批次大小（解析结果按批推送给写入器，内存占用以批次为上限）
+     */
+    private int writeBatchSize = 1000;
+    
+    /**
+     * 覆盖层分支的基线分支（为 null 表示独立分支，变更直接写入图数据库；
+     * 非 null 时变更只写入本分支的覆盖层，内容与基线相同的文件不保存）
+     */
+    private String baseGitBranch;
+    
+    public boolean isOverlay() {
+        return this.baseGitBranch != null;
+    }
+    
     // ========== 操作能力 ==========
     
     /**
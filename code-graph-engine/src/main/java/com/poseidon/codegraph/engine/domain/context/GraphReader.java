@@ -16,25 +16,25 @@ import java.util.function.Function;
 public class GraphReader {
     
     /**
-     * 查找谁依赖我（入边）
-     * Input: projectFilePath -> Output: List<dependentProjectFilePath>
+     * 查找谁依赖我（文件级反向依赖索引，带 Git 元信息）
+     * Input: projectFilePath -> Output: List<FileMetadata>
      */
-    private Function<String, List<String>> findWhoCallsMe;
+    private Function<String, List<FileMetadata>> findDependentFiles;
     
     /**
-     * 查找谁依赖我（带 Git 元信息）
-     * Input: projectFilePath -> Output: List<FileMetadata>
+     * 获取文件清单（引擎最近一次为该文件写入的节点 ID）
+     * Input: projectFilePath -> Output: FileManifest
      */
-    private Function<String, List<FileMetadata>> findWhoCallsMeWithMeta;
+    private Function<String, com.poseidon.codegraph.engine.domain.model.FileManifest> findFileManifest;
     
     /**
-     * 查找文件的所有代码单元
+     * 查找当前仓库/分支（scopeId）下文件的所有代码单元
      * Input: projectFilePath -> Output: List<CodeUnit>
      */
     private Function<String, List<CodeUnit>> findUnitsByProjectFilePath;
     
     /**
-     * 查找文件的所有函数
+     * 查找当前仓库/分支（scopeId）下文件的所有函数
      * Input: projectFilePath -> Output: List<CodeFunction>
      */
     private Function<String, List<CodeFunction>> findFunctionsByProjectFilePath;
@@ -46,39 +46,26 @@ public class GraphReader {
     private Function<java.util.List<String>, java.util.Set<String>> findExistingFunctionsByQualifiedNames;
     
     /**
-     * 批量查询单元是否存在
-     * Input: List<qualifiedName> -> Output: Set<existingQualifiedName>
-     */
-    private Function<java.util.List<String>, java.util.Set<String>> findExistingUnitsByQualifiedNames;
-    
-    /**
-     * 批量查询包是否存在
-     * Input: List<qualifiedName> -> Output: Set<existingQualifiedName>
-     */
-    private Function<java.util.List<String>, java.util.Set<String>> findExistingPackagesByQualifiedNames;
-    
-    /**
-     * 批量查询结构关系是否存在
-     * Input: List<CodeRelationshipDO> -> Output: Set<relationshipKey>
-     * relationshipKey 格式：fromNodeId:toNodeId:relType
+     * 查找当前仓库/分支（scopeId）下文件的所有端点
+     * Input: projectFilePath -> Output: List<CodeEndpoint>
      */
-    private Function<java.util.List<com.poseidon.codegraph.engine.application.model.CodeRelationshipDO>, java.util.Set<String>> findExistingStructureRelationships;
+    private Function<String, java.util.List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint>> findEndpointsByProjectFilePath;
     
     /**
-     * 查询已存在的端点
-     * 输入：端点ID列表，输出：已存在的端点ID集合
+     * 批量根据 (matchIdentity, direction) 查找端点（一次查询）
+     * Input: List<EndpointMatchKey> -> Output: 命中任一键的端点列表
      */
-    private Function<java.util.List<String>, java.util.Set<String>> findExistingEndpointsByIds;
+    private Function<java.util.List<com.poseidon.codegraph.engine.domain.model.EndpointMatchKey>, java.util.List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint>> findEndpointsByMatchIdentities;
     
     /**
-     * 查找文件的所有端点
-     * Input: projectFilePath -> Output: List<CodeEndpoint>
+     * 查询与端点相连的 MATCHES 关系涉及的服务对
+     * Input: List<endpointId> -> Output: List<ServicePair>
      */
-    private Function<String, java.util.List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint>> findEndpointsByProjectFilePath;
+    private Function<java.util.List<String>, java.util.List<com.poseidon.codegraph.engine.domain.model.ServicePair>> findServicePairsByEndpointIds;
     
     /**
-     * 根据 matchIdentity 和 direction 查找端点
-     * Input: (matchIdentity, direction) -> Output: List<CodeEndpoint>
+     * 查询覆盖层中的文件（覆盖层分支专用）
+     * Input: projectFilePath -> Output: 覆盖层文件，与基线相同时为 null
      */
-    private java.util.function.BiFunction<String, String, java.util.List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint>> findEndpointsByMatchIdentity;
-}
\ No newline at end of file
+    private Function<String, com.poseidon.codegraph.engine.domain.model.OverlayFile> findOverlayFile;
+}
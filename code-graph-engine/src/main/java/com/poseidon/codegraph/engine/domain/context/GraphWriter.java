@@ -5,9 +5,12 @@ import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
 import com.poseidon.codegraph.engine.domain.model.CodeFunction;
 import com.poseidon.codegraph.engine.domain.model.CodePackage;
 import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
 import lombok.Data;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 图谱写入器
@@ -19,65 +22,102 @@ public class GraphWriter {
     // ========== 删除函数 ==========
     
     /**
-     * 删除文件的出边
+     * 删除当前仓库/分支（scopeId）下文件的出边
      * Input: projectFilePath
      */
     private Consumer<String> deleteFileOutgoingCalls;
     
     /**
-     * 删除节点
-     * Input: nodeId
+     * 批量删除节点（单元、函数、端点，连同关系）
+     * Input: nodeIds
      */
-    private Consumer<String> deleteNode;
+    private Consumer<java.util.List<String>> deleteNodes;
     
-    // ========== 批量插入函数 ==========
+    /**
+     * 按文件当前的调用出边刷新文件级反向依赖索引
+     * Input: projectFilePath
+     */
+    private Consumer<String> refreshFileDependencies;
     
     /**
-     * 批量插入函数（纯数据库操作）
+     * 记录文件清单（文件节点写入完成后调用）
+     * Input: FileManifest
      */
-    private Consumer<java.util.List<CodeFunction>> insertFunctionsBatch;
+    private Consumer<com.poseidon.codegraph.engine.domain.model.FileManifest> saveFileManifest;
+    
+    /**
+     * 删除文件清单（文件删除后调用）
+     * Input: projectFilePath
+     */
+    private Consumer<String> removeFileManifest;
+    
+    // ========== 原地改写函数 ==========
     
     /**
-     * 批量插入单元（纯数据库操作）
+     * 文件纯移动：原地改写当前仓库/分支下的节点路径（包名变化时同时改写 ID 和全限定名）
+     * 旧路径匹配到的单元少于 FileRename.expectedUnitCount 时不做任何改写
+     * Input: FileRename -> Output: 旧路径匹配到的单元数
      */
-    private Consumer<java.util.List<CodeUnit>> insertUnitsBatch;
+    private Function<FileRename, Integer> renameFile;
+    
+    // ========== 批量插入函数 ==========
     
     /**
-     * 批量插入包（纯数据库操作）
+     * 批量插入函数（纯数据库操作，用于占位符函数）
      */
-    private Consumer<java.util.List<CodePackage>> insertPackagesBatch;
+    private Consumer<java.util.List<CodeFunction>> insertFunctionsBatch;
     
     /**
      * 批量插入关系（包括调用关系、结构关系等）（纯数据库操作）
      */
     private Consumer<java.util.List<CodeRelationship>> insertRelationshipsBatch;
     
-    // ========== 批量更新函数 ==========
+    // ========== 批量写入函数（MERGE，一次往返，不需要先查询存在性） ==========
+    
+    /**
+     * 批量写入包
+     */
+    private Consumer<java.util.List<CodePackage>> upsertPackagesBatch;
+    
+    /**
+     * 批量写入单元
+     */
+    private Consumer<java.util.List<CodeUnit>> upsertUnitsBatch;
+    
+    /**
+     * 批量写入函数
+     */
+    private Consumer<java.util.List<CodeFunction>> upsertFunctionsBatch;
     
     /**
-     * 批量更新函数（纯数据库操作）
+     * 批量写入端点（已存在的端点保持不变）
      */
-    private Consumer<java.util.List<CodeFunction>> updateFunctionsBatch;
+    private Consumer<java.util.List<CodeEndpoint>> upsertEndpointsBatch;
     
     /**
-     * 批量更新单元（纯数据库操作）
+     * 批量写入结构关系（已存在则跳过）
      */
-    private Consumer<java.util.List<CodeUnit>> updateUnitsBatch;
+    private Consumer<java.util.List<CodeRelationship>> upsertRelationshipsBatch;
+    
+    // ========== 服务拓扑 ==========
     
     /**
-     * 批量更新包（纯数据库操作）
+     * 按当前 MATCHES 关系刷新受影响服务对的 DEPENDS_ON 依赖
+     * Input: List<ServicePair>
      */
-    private Consumer<java.util.List<CodePackage>> updatePackagesBatch;
+    private Consumer<java.util.List<ServicePair>> refreshServiceDependencies;
     
-    // ========== 端点操作 ==========
+    // ========== 分支覆盖层 ==========
     
     /**
-     * 批量插入端点（纯数据库操作）
+     * 保存覆盖层文件（内容与基线不同的文件或墓碑）
+     * Input: OverlayFile
      */
-    private Consumer<java.util.List<CodeEndpoint>> insertEndpointsBatch;
+    private Consumer<com.poseidon.codegraph.engine.domain.model.OverlayFile> putOverlayFile;
     
     /**
-     * 批量更新端点（纯数据库操作）
+     * 移除覆盖层文件（内容回到与基线相同）
+     * Input: projectFilePath
      */
-    private Consumer<java.util.List<CodeEndpoint>> updateEndpointsBatch;
+    private Consumer<String> removeOverlayFile;
 }
@@ -49,5 +49,73 @@ public class CodeFunction extends CodeNode {
      * 当调用关系的目标节点不存在时，创建占位符节点
      */
     private Boolean isPlaceholder;
+    
+    /**
+     * 是否为降级解析产出（无绑定，只有结构信息，参数类型可能未完全限定）
+     */
+    private Boolean isDegraded;
+    
+    /**
+     * 创建占位符函数节点
+     * 业务规则：当调用关系的目标节点不存在时，创建占位符节点
+     * 
+     * @param qualifiedName 全限定名（格式：com.example.Class.method(params)）
+     * @param language 语言
+     * @return 占位符节点
+     */
+    public static CodeFunction placeholder(String qualifiedName, String language) {
+        CodeFunction placeholder = new CodeFunction();
+        placeholder.setId(qualifiedName);
+        placeholder.setQualifiedName(qualifiedName);
+        placeholder.setIsPlaceholder(true);
+        placeholder.setLanguage(language);
+        
+        // 从 qualifiedName 中提取 name 和 signature
+        // 格式：com.example.Class.method(params):returnType 或 com.example.Class.method(params)
+        String nameAndSignature = extractMethodNameAndSignature(qualifiedName);
+        if (nameAndSignature != null) {
+            // 如果包含参数，提取方法名
+            int leftParen = nameAndSignature.indexOf('(');
+            if (leftParen > 0) {
+                String methodName = nameAndSignature.substring(0, leftParen);
+                placeholder.setName(methodName);
+                placeholder.setSignature(nameAndSignature);
+            } else {
+                placeholder.setName(nameAndSignature);
+            }
+        }
+        
+        return placeholder;
+    }
+    
+    /**
+     * 从 qualifiedName 中提取方法名和签名
+     * 例如：com.example.Class.method(params) -> method(params)
+     */
+    private static String extractMethodNameAndSignature(String qualifiedName) {
+        if (qualifiedName == null || qualifiedName.isEmpty()) {
+            return null;
+        }
+        
+        // 先找到第一个 '('，确定方法签名的开始位置
+        int leftParen = qualifiedName.indexOf('(');
+        if (leftParen <= 0) {
+            // 没有参数列表，直接找最后一个 '.'
+            int lastDot = qualifiedName.lastIndexOf('.');
+            if (lastDot >= 0 && lastDot < qualifiedName.length() - 1) {
+                return qualifiedName.substring(lastDot + 1);
+            }
+            return qualifiedName;
+        }
+        
+        // 在 '(' 之前的部分找最后一个 '.'
+        String beforeParams = qualifiedName.substring(0, leftParen);
+        int lastDot = beforeParams.lastIndexOf('.');
+        if (lastDot >= 0 && lastDot < beforeParams.length() - 1) {
+            // 返回 method(params) 部分
+            return qualifiedName.substring(lastDot + 1);
+        }
+        
+        return qualifiedName;
+    }
 }
-
@@ -8,9 +8,10 @@ import java.util.List;
 /**
  * 代码图（解析结果容器）
  * 用于存放单次解析的结果（可以是单个文件、多个文件或整个项目）
+ * 同时是全部收集在内存中的 {@link CodeGraphSink} 实现
  */
 @Data
-public class CodeGraph {
+public class CodeGraph implements CodeGraphSink {
     /**
      * 包列表
      */
@@ -120,5 +121,43 @@ public class CodeGraph {
     public List<CodeEndpoint> getEndpointsAsList() {
         return this.endpoints != null ? this.endpoints : new ArrayList<>();
     }
+    
+    // ========== CodeGraphSink ==========
+    
+    @Override
+    public void acceptPackage(CodePackage pkg) {
+        addPackage(pkg);
+    }
+    
+    @Override
+    public void acceptUnit(CodeUnit unit) {
+        addUnit(unit);
+    }
+    
+    @Override
+    public void acceptFunction(CodeFunction function) {
+        addFunction(function);
+    }
+    
+    @Override
+    public void acceptEndpoint(CodeEndpoint endpoint) {
+        addEndpoint(endpoint);
+    }
+    
+    @Override
+    public void acceptRelationship(CodeRelationship relationship) {
+        addRelationship(relationship);
+    }
+    
+    /**
+     * 按“包 → 单元 → 函数 → 端点 → 关系”的顺序推送给接收端，最后 flush
+     */
+    public void emitTo(CodeGraphSink sink) {
+        getPackagesAsList().forEach(sink::acceptPackage);
+        getUnitsAsList().forEach(sink::acceptUnit);
+        getFunctionsAsList().forEach(sink::acceptFunction);
+        getEndpointsAsList().forEach(sink::acceptEndpoint);
+        getRelationshipsAsList().forEach(sink::acceptRelationship);
+        sink.flush();
+    }
 }
-
@@ -0,0 +1,27 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+/**
+ * 代码图接收端
+ * 解析结果逐个节点/关系推送给接收端：{@link CodeGraph} 把它们全部收集在内存中，
+ * 流式接收端（如 {@link com.poseidon.codegraph.engine.domain.service.graph.BoundedGraphSink}）攒够一批就交给下游写出
+ *
+ * 约定：同一文件的节点先于关系推送，{@link #flush()} 表示本轮推送结束
+ */
+public interface CodeGraphSink {
+    
+    void acceptPackage(CodePackage pkg);
+    
+    void acceptUnit(CodeUnit unit);
+    
+    void acceptFunction(CodeFunction function);
+    
+    void acceptEndpoint(CodeEndpoint endpoint);
+    
+    void acceptRelationship(CodeRelationship relationship);
+    
+    /**
+     * 把缓冲中的内容全部交给下游（默认无缓冲）
+     */
+    default void flush() {
+    }
+}
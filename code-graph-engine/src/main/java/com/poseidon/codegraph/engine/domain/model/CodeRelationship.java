@@ -2,6 +2,11 @@ package com.poseidon.codegraph.engine.domain.model;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 代码关系
  * 表示代码元素之间的各种关系
@@ -35,10 +40,20 @@ public class CodeRelationship {
     private RelationshipType relationshipType;
     
     /**
-     * 调用位置行号（仅用于 CALLS 关系）
+     * 调用位置行号（仅用于 CALLS 关系，聚合后为第一个调用点）
      */
     private Integer lineNumber;
     
+    /**
+     * 调用次数（仅用于 CALLS 关系，同一对调用方/被调用方聚合为一条边）
+     */
+    private Integer callCount;
+    
+    /**
+     * 全部调用点行号，按出现顺序（仅用于 CALLS 关系）
+     */
+    private List<Integer> lineNumbers;
+    
     /**
      * 调用类型：static, virtual, direct（仅用于 CALLS 关系）
      */
@@ -48,5 +63,47 @@ public class CodeRelationship {
      * 语言
      */
     private String language;
+    
+    /**
+     * 把同一对 (调用方, 被调用方) 的多条 CALLS 合并为一条，累计调用次数和调用点行号
+     * 其他类型的关系原样保留，顺序按首次出现
+     */
+    public static List<CodeRelationship> aggregateCalls(List<CodeRelationship> relationships) {
+        List<CodeRelationship> result = new ArrayList<>(relationships.size());
+        Map<String, CodeRelationship> calls = new LinkedHashMap<>();
+        for (CodeRelationship rel : relationships) {
+            if (rel.getRelationshipType() != RelationshipType.CALLS) {
+                result.add(rel);
+                continue;
+            }
+            String key = rel.getFromNodeId() + '\u0000' + rel.getToNodeId();
+            CodeRelationship merged = calls.get(key);
+            if (merged == null) {
+                calls.put(key, rel);
+                rel.initCallSites();
+                result.add(rel);
+            } else {
+                merged.mergeCallSites(rel);
+            }
+        }
+        return result;
+    }
+    
+    private void initCallSites() {
+        if (lineNumbers == null) {
+            lineNumbers = new ArrayList<>(1);
+            if (lineNumber != null) {
+                lineNumbers.add(lineNumber);
+            }
+        }
+        if (callCount == null) {
+            callCount = Math.max(1, lineNumbers.size());
+        }
+    }
+    
+    private void mergeCallSites(CodeRelationship other) {
+        other.initCallSites();
+        lineNumbers.addAll(other.getLineNumbers());
+        callCount += other.getCallCount();
+    }
 }
-
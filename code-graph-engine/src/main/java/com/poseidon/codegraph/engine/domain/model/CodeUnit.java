@@ -33,6 +33,21 @@ public class CodeUnit extends CodeNode {
      */
     private String packageId;
     
+    /**
+     * 是否为降级解析产出（无绑定，只有结构信息）
+     */
+    private Boolean isDegraded;
+    
+    /**
+     * 文件导入的包名列表（用于 classpath 变化时定位受影响的文件）
+     */
+    private List<String> importedPackages = new ArrayList<>();
+    
+    /**
+     * 源码哈希（不含 package 声明，用于识别纯移动的文件）
+     */
+    private String sourceHash;
+    
     /**
      * 包含的函数列表
      */
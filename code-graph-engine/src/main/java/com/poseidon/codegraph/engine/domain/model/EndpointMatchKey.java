@@ -0,0 +1,24 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 端点匹配键（领域模型）
+ * 用于批量查询 matchIdentity 相同、方向相反的对端端点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EndpointMatchKey {
+    /**
+     * 匹配标识
+     */
+    private String matchIdentity;
+    
+    /**
+     * 对端方向（inbound/outbound）
+     */
+    private String direction;
+}
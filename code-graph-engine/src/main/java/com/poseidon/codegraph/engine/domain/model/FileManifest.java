@@ -0,0 +1,37 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件清单（领域模型）
+ * 记录引擎最近一次为某个文件写入的节点 ID，删除/修改文件时据此定位旧节点，无需先读取完整节点
+ */
+@Data
+public class FileManifest {
+    /**
+     * 项目文件路径
+     */
+    private String projectFilePath;
+    
+    /**
+     * 代码单元 ID
+     */
+    private List<String> unitIds = new ArrayList<>();
+    
+    /**
+     * 函数 ID
+     */
+    private List<String> functionIds = new ArrayList<>();
+    
+    /**
+     * 端点 ID
+     */
+    private List<String> endpointIds = new ArrayList<>();
+    
+    public int nodeCount() {
+        return unitIds.size() + functionIds.size() + endpointIds.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+import lombok.Data;
+
+/**
+ * 文件重命名/移动（领域模型）
+ * 用于纯移动时原地改写节点的路径和包名
+ */
+@Data
+public class FileRename {
+    /**
+     * 旧项目文件路径
+     */
+    private String oldProjectFilePath;
+    
+    /**
+     * 新项目文件路径
+     */
+    private String newProjectFilePath;
+    
+    /**
+     * 旧包名（与新包名相同时只改写路径）
+     */
+    private String oldPackageName;
+    
+    /**
+     * 新包名
+     */
+    private String newPackageName;
+    
+    /**
+     * 旧路径下应有的单元数（改写前读到的单元数），改写时匹配到的单元少于它则不做任何改写
+     */
+    private int expectedUnitCount;
+    
+    public boolean isPackageChanged() {
+        return oldPackageName != null && !oldPackageName.equals(newPackageName);
+    }
+    
+    /**
+     * 改写是否匹配到了全部旧单元（否则旧节点不在当前范围或尚未迁移 scopeId，改写未执行）
+     */
+    public boolean isFullyMatched(int matchedUnitCount) {
+        return matchedUnitCount > 0 && matchedUnitCount >= expectedUnitCount;
+    }
+}
@@ -0,0 +1,37 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+import lombok.Data;
+
+/**
+ * 分支覆盖层中的文件（领域模型）
+ * 覆盖层只保存内容与基线分支不同的文件：修改/新增的文件带解析结果，删除的文件只留墓碑
+ */
+@Data
+public class OverlayFile {
+    /**
+     * 项目文件路径
+     */
+    private String projectFilePath;
+    
+    /**
+     * 覆盖层中的内容哈希（墓碑为 null）
+     */
+    private String contentHash;
+    
+    /**
+     * 是否为墓碑（文件在本分支已删除，读取时基线中的同名文件也不可见）
+     */
+    private boolean deleted;
+    
+    /**
+     * 文件解析结果（墓碑为 null）
+     */
+    private CodeGraph graph;
+    
+    public static OverlayFile tombstone(String projectFilePath) {
+        OverlayFile file = new OverlayFile();
+        file.setProjectFilePath(projectFilePath);
+        file.setDeleted(true);
+        return file;
+    }
+}
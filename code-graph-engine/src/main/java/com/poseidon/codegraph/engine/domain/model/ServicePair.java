@@ -0,0 +1,34 @@
+package com.poseidon.codegraph.engine.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 服务对（领域模型）
+ * 表示一条服务依赖 fromService -> toService，用于增量刷新服务拓扑
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServicePair {
+    /**
+     * 调用方服务（outbound 端点所属服务）
+     */
+    private String fromService;
+    
+    /**
+     * 被调用方服务（inbound 端点所属服务）
+     */
+    private String toService;
+    
+    /**
+     * 端点所属服务：优先取端点配置的 serviceName，未配置时取仓库地址（都为空时返回 null）
+     */
+    public static String serviceOf(String serviceName, String gitRepoUrl) {
+        if (serviceName != null && !serviceName.isEmpty()) {
+            return serviceName;
+        }
+        return gitRepoUrl != null && !gitRepoUrl.isEmpty() ? gitRepoUrl : null;
+    }
+}
@@ -22,6 +22,12 @@ public enum ChangeType {
      */
     SOURCE_MODIFIED,
     
+    /**
+     * 源码重命名/移动
+     * 对应：RenamedSourceProcessor
+     */
+    SOURCE_RENAMED,
+    
     /**
      * 级联更新（依赖变更引起的更新）
      * 对应：CascadeUpdateProcessor
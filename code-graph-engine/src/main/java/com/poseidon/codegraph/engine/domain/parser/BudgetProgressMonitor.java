@@ -0,0 +1,31 @@
+package com.poseidon.codegraph.engine.domain.parser;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * 带截止时间的进度监视器
+ * 
+ * JDT 在编译/绑定解析过程中会轮询 isCanceled()，
+ * 超过截止时间后返回 true，JDT 随即抛出 OperationCanceledException 中止解析
+ */
+public class BudgetProgressMonitor extends NullProgressMonitor {
+    
+    private final boolean limited;
+    private final long deadlineNanos;
+    
+    /**
+     * @param timeoutMillis 超时时间（毫秒），<= 0 表示不限制
+     */
+    public BudgetProgressMonitor(long timeoutMillis) {
+        this.limited = timeoutMillis > 0;
+        this.deadlineNanos = System.nanoTime() + Math.max(timeoutMillis, 0) * 1_000_000L;
+    }
+    
+    @Override
+    public boolean isCanceled() {
+        if (limited && !super.isCanceled() && System.nanoTime() - deadlineNanos > 0) {
+            setCanceled(true);
+        }
+        return super.isCanceled();
+    }
+}
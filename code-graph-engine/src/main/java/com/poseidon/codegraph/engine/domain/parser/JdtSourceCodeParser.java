@@ -1,11 +1,20 @@
 package com.poseidon.codegraph.engine.domain.parser;
 
+import com.poseidon.codegraph.engine.domain.parser.cache.ClasspathFingerprint;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseCacheKey;
+import com.poseidon.codegraph.engine.domain.parser.endpoint.tracker.ConfigRegistry;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
+import com.poseidon.codegraph.engine.domain.parser.cache.SourceDependencyFingerprint;
+import com.poseidon.codegraph.engine.domain.parser.cache.SourceFingerprint;
 import com.poseidon.codegraph.engine.domain.parser.enricher.GraphEnricher;
 import com.poseidon.codegraph.engine.domain.parser.filter.FilterPipeline;
 import com.poseidon.codegraph.engine.domain.parser.filter.GetterSetterFilter;
 import com.poseidon.codegraph.engine.domain.parser.filter.PackageWhitelistFilter;
 import com.poseidon.codegraph.engine.domain.model.*;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.dom.*;
 import org.eclipse.jdt.core.JavaCore;
 
@@ -28,6 +37,22 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
     private final String[] sourcepathEntries;
     private final ASTTraverser traverser;
     
+    /**
+     * 降级解析使用的遍历器（只提取结构，不依赖绑定）
+     */
+    private final ASTTraverser degradedTraverser = new ASTTraverser(ProcessorRegistry.createStructureOnly().getAll());
+    
+    private ParseBudget parseBudget = ParseBudget.defaults();
+    
+    private ParseMetrics parseMetrics;
+    
+    private ParseResultCache parseResultCache;
+    
+    /**
+     * 是否跳过缓存读取（仍会写入），用于依赖变化触发的重新解析
+     */
+    private boolean refreshCache;
+    
     // 司内包前缀白名单（只解析源码和这些包中的方法调用）
     private static final Set<String> INTERNAL_PACKAGE_PREFIXES = Set.of(
         "com.poseidon."
@@ -69,10 +94,45 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
         this.traverser = new ASTTraverser(ProcessorRegistry.createWithEndpoint().getAll());
     }
     
+    /**
+     * 设置解析预算和指标
+     * @param parseBudget 解析预算（为 null 时使用默认预算）
+     * @param parseMetrics 解析指标（可为 null）
+     */
+    public JdtSourceCodeParser withBudget(ParseBudget parseBudget, ParseMetrics parseMetrics) {
+        this.parseBudget = parseBudget != null ? parseBudget : ParseBudget.defaults();
+        this.parseMetrics = parseMetrics;
+        return this;
+    }
+    
+    /**
+     * 设置解析结果缓存
+     * @param parseResultCache 解析结果缓存（为 null 时不使用缓存）
+     * @param refreshCache 是否跳过缓存读取：级联更新是因为其他文件变化导致绑定可能变化，
+     *                     内容相同也必须重新解析，解析结果会覆盖旧缓存
+     */
+    public JdtSourceCodeParser withCache(ParseResultCache parseResultCache, boolean refreshCache) {
+        this.parseResultCache = parseResultCache;
+        this.refreshCache = refreshCache;
+        return this;
+    }
+    
+    private String readSource(String absoluteFilePath) {
+        try {
+            return Files.readString(Path.of(absoluteFilePath));
+        } catch (IOException e) {
+            log.error("文件读取失败: file={}, error={}", absoluteFilePath, e.getMessage());
+            throw new RuntimeException("Failed to parse file: " + absoluteFilePath, e);
+        }
+    }
+    
     private CompilationUnit createAST(String absoluteFilePath) {
+        return createAST(absoluteFilePath, readSource(absoluteFilePath), null);
+    }
+    
+    private CompilationUnit createAST(String absoluteFilePath, String source, IProgressMonitor monitor) {
         try {
             log.debug("开始解析文件: {}", absoluteFilePath);
-            String source = Files.readString(Path.of(absoluteFilePath));
             ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
             parser.setSource(source.toCharArray());
             parser.setKind(ASTParser.K_COMPILATION_UNIT);
@@ -141,18 +201,38 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
                 parser.setResolveBindings(false);
             }
             
-            CompilationUnit cu = (CompilationUnit) parser.createAST(null);
+            CompilationUnit cu = (CompilationUnit) parser.createAST(monitor);
             log.debug("文件解析完成: {}", absoluteFilePath);
             return cu;
-        } catch (IOException e) {
-            log.error("文件读取失败: file={}, error={}", absoluteFilePath, e.getMessage());
-            throw new RuntimeException("Failed to parse file: " + absoluteFilePath, e);
         } catch (Exception e) {
+            if (monitor != null && monitor.isCanceled()) {
+                // 超出解析预算被取消，由调用方降级处理
+                throw new OperationCanceledException();
+            }
             log.error("AST 创建失败: file={}, error={}", absoluteFilePath, e.getMessage());
             throw new RuntimeException("Failed to create AST for file: " + absoluteFilePath, e);
         }
     }
     
+    /**
+     * 降级解析：不解析绑定，只做语法分析（不受 classpath 规模影响，耗时与文件大小线性相关）
+     */
+    private CompilationUnit createDegradedAST(String absoluteFilePath, String source) {
+        try {
+            ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+            parser.setSource(source.toCharArray());
+            parser.setKind(ASTParser.K_COMPILATION_UNIT);
+            Map<String, String> options = JavaCore.getOptions();
+            JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+            parser.setCompilerOptions(options);
+            parser.setResolveBindings(false);
+            return (CompilationUnit) parser.createAST(null);
+        } catch (Exception e) {
+            log.error("降级 AST 创建失败: file={}, error={}", absoluteFilePath, e.getMessage());
+            throw new RuntimeException("Failed to create degraded AST for file: " + absoluteFilePath, e);
+        }
+    }
+    
     private String[] buildFullClasspath() {
         List<String> fullClasspath = new ArrayList<>();
         if (classpathEntries != null) {
@@ -168,23 +248,84 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
     @Override
     public CodeGraph parse(String absoluteFilePath, String projectName, String projectFilePath,
                           String gitRepoUrl, String gitBranch) {
+        return parseSource(readSource(absoluteFilePath), absoluteFilePath, projectName, projectFilePath, gitRepoUrl, gitBranch);
+    }
+    
+    @Override
+    public CodeGraph parseSource(String source, String absoluteFilePath, String projectName, String projectFilePath,
+                                 String gitRepoUrl, String gitBranch) {
         log.info("开始解析代码图谱（使用 Processor 架构）: absoluteFile={}, projectFile={}, git={}/{}", 
                 absoluteFilePath, projectFilePath, gitRepoUrl, gitBranch);
         
-        // 创建 AST
-        CompilationUnit cu = createAST(absoluteFilePath);
+        long startNanos = System.nanoTime();
+        // 绑定解析需要编译单元名称；未提供绝对路径时以项目路径代替（只要求以 .java 结尾）
+        String unitName = absoluteFilePath != null ? absoluteFilePath : "/" + projectFilePath;
+        
+        // 查询解析结果缓存（命中则跳过 JDT）
+        ParseCacheKey cacheKey = null;
+        if (parseResultCache != null) {
+            cacheKey = new ParseCacheKey(ContentHasher.sha256(source),
+                ClasspathFingerprint.of(classpathEntries, sourcepathEntries),
+                SourceDependencyFingerprint.of(source, sourcepathEntries),
+                ConfigRegistry.projectFingerprint(absoluteFilePath));
+            if (!refreshCache) {
+                CodeGraph cached = parseResultCache.get(cacheKey);
+                if (cached != null) {
+                    restamp(cached, projectFilePath, gitRepoUrl, gitBranch);
+                    log.info("解析缓存命中: file={}, units={}, functions={}, relationships={}, endpoints={}",
+                             projectFilePath,
+                             cached.getUnitsAsList().size(),
+                             cached.getFunctionsAsList().size(),
+                             cached.getRelationshipsAsList().size(),
+                             cached.getEndpointsAsList().size());
+                    return cached;
+                }
+            }
+        }
         
         // 创建 ProcessorContext
         ProcessorContext context = new ProcessorContext();
-        context.setCompilationUnit(cu);
         context.setAbsoluteFilePath(absoluteFilePath);
         context.setProjectName(projectName);
         context.setProjectFilePath(projectFilePath);
         context.setGitRepoUrl(gitRepoUrl);
         context.setGitBranch(gitBranch);
         
+        // 创建 AST（超出预算时降级为无绑定解析）
+        if (parseBudget.isOversized(source)) {
+            degrade(context, source, ParseMetrics.REASON_OVERSIZED, startNanos);
+        } else {
+            BudgetProgressMonitor monitor = new BudgetProgressMonitor(parseBudget.getTimeoutMillis());
+            try {
+                context.setCompilationUnit(createAST(unitName, source, monitor));
+            } catch (RuntimeException e) {
+                if (!monitor.isCanceled()) {
+                    throw e;
+                }
+            }
+            // JDT 部分阶段会吞掉取消信号并返回不完整的 AST，统一以监视器状态为准
+            if (monitor.isCanceled()) {
+                degrade(context, source, ParseMetrics.REASON_TIMEOUT, startNanos);
+            }
+        }
+        
         // 使用 ASTTraverser 遍历并触发所有 Processor
-        CodeGraph graph = traverser.traverse(context);
+        CodeGraph graph = context.isDegraded()
+            ? degradedTraverser.traverse(context)
+            : traverser.traverse(context);
+        
+        if (parseMetrics != null) {
+            parseMetrics.recordParsed(elapsedMillis(startNanos));
+        }
+        
+        // 记录源码哈希（不含 package 声明），用于识别纯移动的文件
+        String sourceHash = SourceFingerprint.bodyHash(source);
+        graph.getUnitsAsList().forEach(unit -> unit.setSourceHash(sourceHash));
+        
+        // 降级结果不缓存（超时与机器负载有关，下次可能可以完整解析）
+        if (cacheKey != null && !context.isDegraded()) {
+            parseResultCache.put(cacheKey, graph);
+        }
         
         log.info("代码图谱解析完成: file={}, packages={}, units={}, functions={}, relationships={}, endpoints={}",
                  projectFilePath,
@@ -197,6 +338,69 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
         return graph;
     }
     
+    /**
+     * 为缓存命中的图谱填充位置相关字段（文件路径、Git 信息、关系 ID）
+     */
+    private void restamp(CodeGraph graph, String projectFilePath, String gitRepoUrl, String gitBranch) {
+        Path parent = Path.of(projectFilePath).getParent();
+        String packageDir = parent != null ? parent.toString().replace('\\', '/') : "";
+        for (CodePackage pkg : graph.getPackagesAsList()) {
+            pkg.setProjectFilePath(packageDir);
+            pkg.setGitRepoUrl(gitRepoUrl);
+            pkg.setGitBranch(gitBranch);
+        }
+        
+        Map<String, CodeUnit> unitsById = new java.util.HashMap<>();
+        for (CodeUnit unit : graph.getUnitsAsList()) {
+            unit.setProjectFilePath(projectFilePath);
+            unit.setGitRepoUrl(gitRepoUrl);
+            unit.setGitBranch(gitBranch);
+            unitsById.put(unit.getId(), unit);
+        }
+        
+        Map<String, CodeFunction> functionsById = new java.util.HashMap<>();
+        for (CodeFunction function : graph.getFunctionsAsList()) {
+            function.setProjectFilePath(projectFilePath);
+            function.setGitRepoUrl(gitRepoUrl);
+            function.setGitBranch(gitBranch);
+            functionsById.put(function.getId(), function);
+        }
+        
+        for (CodeEndpoint endpoint : graph.getEndpointsAsList()) {
+            endpoint.setProjectFilePath(projectFilePath);
+            endpoint.setGitRepoUrl(gitRepoUrl);
+            endpoint.setGitBranch(gitBranch);
+        }
+        
+        for (CodeRelationship rel : graph.getRelationshipsAsList()) {
+            rel.setId(UUID.randomUUID().toString());
+            // 恢复 Unit 的临时 functions 列表
+            if (rel.getRelationshipType() == RelationshipType.UNIT_TO_FUNCTION) {
+                CodeUnit unit = unitsById.get(rel.getFromNodeId());
+                CodeFunction function = functionsById.get(rel.getToNodeId());
+                if (unit != null && function != null) {
+                    unit.addFunction(function);
+                }
+            }
+        }
+    }
+    
+    private void degrade(ProcessorContext context, String source, String reason, long startNanos) {
+        long elapsed = elapsedMillis(startNanos);
+        log.warn("文件超出解析预算，降级为结构解析: file={}, reason={}, elapsed={}ms, chars={}",
+                 context.getProjectFilePath(), reason, elapsed, source.length());
+        context.setCompilationUnit(createDegradedAST(context.getAbsoluteFilePath(), source));
+        context.setDegraded(true);
+        context.setDegradeReason(reason);
+        if (parseMetrics != null) {
+            parseMetrics.recordDegraded(context.getProjectFilePath(), reason, elapsed);
+        }
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+    
     @Override
     public List<CodePackage> parsePackages(String absoluteFilePath, String projectName, String projectFilePath) {
         CompilationUnit cu = createAST(absoluteFilePath);
@@ -453,8 +657,11 @@ public class JdtSourceCodeParser extends AbstractSourceCodeParser {
             }
         });
         
-        log.info("文件调用关系解析完成: file={}, relationshipCount={}", projectFilePath, relationships.size());
-        return relationships;
+        // 同一对调用方/被调用方聚合为一条边
+        List<CodeRelationship> aggregated = CodeRelationship.aggregateCalls(relationships);
+        log.info("文件调用关系解析完成: file={}, callSites={}, relationshipCount={}", 
+                 projectFilePath, relationships.size(), aggregated.size());
+        return aggregated;
     }
     
     private String extractPackageName(CompilationUnit cu) {
@@ -0,0 +1,82 @@
+package com.poseidon.codegraph.engine.domain.parser;
+
+import lombok.Data;
+
+/**
+ * 单文件解析预算
+ * 
+ * 职责：
+ * - 限制单个文件的解析规模（字节数、行数），超出直接走降级解析
+ * - 限制带绑定解析的耗时，超时通过 IProgressMonitor 取消 JDT 并走降级解析
+ * 
+ * 降级解析：不解析绑定，只提取结构（Package、Unit、Function、结构关系），
+ * 不提取调用关系和端点，产出的节点带 isDegraded 标记
+ */
+@Data
+public class ParseBudget {
+    
+    /**
+     * 单文件最大字节数（UTF-8 编码），超出直接降级（<= 0 表示不限制）
+     */
+    private long maxFileBytes = 1024 * 1024;
+    
+    /**
+     * 单文件最大行数，超出直接降级（<= 0 表示不限制）
+     */
+    private int maxFileLines = 20000;
+    
+    /**
+     * 带绑定解析的最大耗时（毫秒），超时取消并降级（<= 0 表示不限制）
+     */
+    private long timeoutMillis = 30000;
+    
+    /**
+     * 默认预算
+     */
+    public static ParseBudget defaults() {
+        return new ParseBudget();
+    }
+    
+    /**
+     * 判断文件规模是否超出预算
+     */
+    public boolean isOversized(String source) {
+        if (maxFileBytes > 0 && utf8Length(source, maxFileBytes) > maxFileBytes) {
+            return true;
+        }
+        if (maxFileLines > 0) {
+            int lines = 1;
+            for (int i = 0; i < source.length(); i++) {
+                if (source.charAt(i) == '\n' && ++lines > maxFileLines) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * UTF-8 编码后的字节数，超过 limit 后不再继续统计（不分配编码后的字节数组）
+     */
+    private static long utf8Length(String source, long limit) {
+        // 每个 UTF-16 字符最多编码为 3 字节（代理对两个字符共 4 字节），字符数已能确定结果时直接返回
+        if (source.length() > limit || (long) source.length() * 3 <= limit) {
+            return source.length();
+        }
+        long bytes = 0;
+        for (int i = 0; i < source.length() && bytes <= limit; i++) {
+            char c = source.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < source.length() && Character.isLowSurrogate(source.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
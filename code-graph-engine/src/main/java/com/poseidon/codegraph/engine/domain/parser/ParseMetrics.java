@@ -0,0 +1,118 @@
+package com.poseidon.codegraph.engine.domain.parser;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 解析指标
+ *
+ * 职责：
+ * - 统计解析文件数、超时数、降级数
+ * - 保留最近的超时/降级文件明细，便于定位“拖慢解析的大文件”
+ *
+ * 领域层纯 Java，线程安全，由应用层注入并对外暴露
+ */
+public class ParseMetrics {
+
+    /**
+     * 降级原因：文件规模超出预算
+     */
+    public static final String REASON_OVERSIZED = "OVERSIZED";
+
+    /**
+     * 降级原因：带绑定解析超时
+     */
+    public static final String REASON_TIMEOUT = "TIMEOUT";
+
+    private static final int MAX_RECENT_RECORDS = 200;
+
+    private final AtomicLong parsedFiles = new AtomicLong();
+    private final AtomicLong timedOutFiles = new AtomicLong();
+    private final AtomicLong degradedFiles = new AtomicLong();
+    private final AtomicLong totalParseMillis = new AtomicLong();
+
+    private final Deque<DegradedFileRecord> recentDegraded = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentSize = new AtomicInteger();
+
+    /**
+     * 记录一次解析（不论是否降级）
+     */
+    public void recordParsed(long elapsedMillis) {
+        parsedFiles.incrementAndGet();
+        totalParseMillis.addAndGet(elapsedMillis);
+    }
+
+    /**
+     * 记录一次降级解析
+     *
+     * @param projectFilePath 文件路径
+     * @param reason 降级原因（OVERSIZED / TIMEOUT）
+     * @param elapsedMillis 降级前已消耗的时间
+     */
+    public void recordDegraded(String projectFilePath, String reason, long elapsedMillis) {
+        degradedFiles.incrementAndGet();
+        if (REASON_TIMEOUT.equals(reason)) {
+            timedOutFiles.incrementAndGet();
+        }
+
+        DegradedFileRecord record = new DegradedFileRecord();
+        record.setProjectFilePath(projectFilePath);
+        record.setReason(reason);
+        record.setElapsedMillis(elapsedMillis);
+        record.setTimestamp(System.currentTimeMillis());
+        recentDegraded.addFirst(record);
+
+        if (recentSize.incrementAndGet() > MAX_RECENT_RECORDS) {
+            recentDegraded.pollLast();
+            recentSize.decrementAndGet();
+        }
+    }
+
+    /**
+     * 导出指标快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("parsedFiles", parsedFiles.get());
+        snapshot.put("timedOutFiles", timedOutFiles.get());
+        snapshot.put("degradedFiles", degradedFiles.get());
+        snapshot.put("totalParseMillis", totalParseMillis.get());
+        snapshot.put("recentDegraded", getRecentDegraded());
+        return snapshot;
+    }
+
+    public long getParsedFiles() {
+        return parsedFiles.get();
+    }
+
+    public long getTimedOutFiles() {
+        return timedOutFiles.get();
+    }
+
+    public long getDegradedFiles() {
+        return degradedFiles.get();
+    }
+
+    public List<DegradedFileRecord> getRecentDegraded() {
+        return new ArrayList<>(recentDegraded);
+    }
+
+    /**
+     * 降级文件明细
+     */
+    @Data
+    public static class DegradedFileRecord {
+        private String projectFilePath;
+        private String reason;
+        private long elapsedMillis;
+        private long timestamp;
+    }
+}
@@ -63,6 +63,18 @@ public class ProcessorContext {
      */
     private String packageName;
     
+    // ===== 解析模式 =====
+    
+    /**
+     * 是否为降级解析（无绑定，只提取结构）
+     */
+    private boolean degraded;
+    
+    /**
+     * 降级原因（OVERSIZED / TIMEOUT）
+     */
+    private String degradeReason;
+    
     // ===== 遍历上下文（当前位置）=====
     
     /**
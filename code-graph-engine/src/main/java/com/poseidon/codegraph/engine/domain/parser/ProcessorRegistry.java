@@ -69,6 +69,20 @@ public class ProcessorRegistry {
         return registry;
     }
     
+    /**
+     * 创建只提取结构的注册表（降级解析使用）
+     * 不依赖绑定：Package、Unit、Function 节点 + 结构关系，不含调用关系和端点
+     */
+    public static ProcessorRegistry createStructureOnly() {
+        ProcessorRegistry registry = new ProcessorRegistry();
+        registry.register(new com.poseidon.codegraph.engine.domain.parser.processor.PackageProcessor());
+        registry.register(new com.poseidon.codegraph.engine.domain.parser.processor.UnitProcessor());
+        registry.register(new com.poseidon.codegraph.engine.domain.parser.processor.FunctionProcessor());
+        registry.register(new com.poseidon.codegraph.engine.domain.parser.processor.StructureRelationshipProcessor());
+        log.info("创建 StructureOnly 注册表（4 个 Processor）");
+        return registry;
+    }
+    
     /**
      * 创建空注册表（用于自定义配置）
      */
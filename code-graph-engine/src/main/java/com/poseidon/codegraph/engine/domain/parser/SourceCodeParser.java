@@ -37,6 +37,22 @@ public interface SourceCodeParser {
     CodeGraph parse(String absoluteFilePath, String projectName, String projectFilePath, 
                     String gitRepoUrl, String gitBranch);
 
+    /**
+     * 解析给定的源码内容，返回完整的代码图谱
+     * 
+     * 用于调用方直接提供文件内容的场景（引擎与 Git 工作区不共享文件系统）
+     * 
+     * @param source 源码内容
+     * @param absoluteFilePath 文件绝对路径（可为 null；仅用于日志和端点配置扫描）
+     * @param projectName 项目名称
+     * @param projectFilePath 项目相对路径
+     * @param gitRepoUrl Git 仓库 URL
+     * @param gitBranch Git 分支名
+     * @return 解析出的代码图谱
+     */
+    CodeGraph parseSource(String source, String absoluteFilePath, String projectName, String projectFilePath,
+                          String gitRepoUrl, String gitBranch);
+
     /**
      * 仅解析包（package 声明）
      * 
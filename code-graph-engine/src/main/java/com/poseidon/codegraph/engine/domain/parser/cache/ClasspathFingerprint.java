@@ -0,0 +1,44 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * classpath 指纹
+ * 
+ * 按顺序对 classpath 条目（路径 + 文件大小 + 修改时间）和 sourcepath 条目（路径）做摘要：
+ * - 依赖升级（jar 路径或内容变化）会改变指纹
+ * - 条目顺序影响类型解析结果，因此不排序
+ */
+public final class ClasspathFingerprint {
+    
+    private ClasspathFingerprint() {
+    }
+    
+    public static String of(String[] classpathEntries, String[] sourcepathEntries) {
+        MessageDigest digest = ContentHasher.newDigest();
+        if (classpathEntries != null) {
+            for (String entry : classpathEntries) {
+                if (entry == null || entry.isEmpty()) {
+                    continue;
+                }
+                File file = new File(entry);
+                update(digest, "cp:" + entry + ":" + file.length() + ":" + file.lastModified());
+            }
+        }
+        if (sourcepathEntries != null) {
+            for (String entry : sourcepathEntries) {
+                if (entry != null && !entry.isEmpty()) {
+                    update(digest, "sp:" + entry);
+                }
+            }
+        }
+        return ContentHasher.toHex(digest.digest());
+    }
+    
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
@@ -0,0 +1,54 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import java.util.Map;
+
+/**
+ * 文件内容存储（按内容哈希寻址）
+ * 
+ * - blob：内容哈希 -> 文件内容，相同内容只存一份
+ * - ref：（仓库、分支、项目文件路径）-> 内容哈希，记录每个文件最近一次提交的内容
+ * 
+ * 调用方通过 API 直接上传文件内容时写入；级联更新等没有原始路径的场景通过 ref 读取，
+ * 引擎因此不需要与 Git 工作区共享文件系统。不再被任何 ref 引用的 blob 会被删除。
+ */
+public interface FileContentStore {
+    
+    /**
+     * 保存文件内容并绑定 ref
+     * @return 内容哈希
+     */
+    String put(String gitRepoUrl, String gitBranch, String projectFilePath, String content);
+    
+    /**
+     * 按 ref 读取文件内容
+     * @return 文件内容，ref 不存在时返回 null
+     */
+    String get(String gitRepoUrl, String gitBranch, String projectFilePath);
+    
+    /**
+     * 按 ref 读取内容哈希（不读取内容）
+     * @return 内容哈希，ref 不存在时返回 null
+     */
+    String getHash(String gitRepoUrl, String gitBranch, String projectFilePath);
+    
+    /**
+     * 按内容哈希读取文件内容
+     * @return 文件内容，不存在时返回 null
+     */
+    String getByHash(String contentHash);
+    
+    /**
+     * 删除 ref（文件删除时调用）
+     */
+    void remove(String gitRepoUrl, String gitBranch, String projectFilePath);
+    
+    /**
+     * 移动 ref（文件重命名时调用）
+     */
+    void move(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath);
+    
+    /**
+     * 导出指标快照
+     */
+    Map<String, Object> snapshot();
+}
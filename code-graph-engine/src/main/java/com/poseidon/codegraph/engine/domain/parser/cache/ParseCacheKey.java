@@ -0,0 +1,33 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import lombok.Data;
+
+/**
+ * 解析结果缓存键
+ * 规则集版本由缓存实现自身持有（进程内不变），不放在键中；
+ * 端点值依赖项目配置（占位符展开），项目指纹不同的相同内容不共享缓存；
+ * 绑定依赖 sourcepath 下被引用的源文件，这些文件变化时键随之变化
+ */
+@Data
+public class ParseCacheKey {
+    
+    /**
+     * 文件内容哈希（SHA-256）
+     */
+    private final String contentHash;
+    
+    /**
+     * classpath 指纹
+     */
+    private final String classpathFingerprint;
+    
+    /**
+     * 直接依赖的 sourcepath 源文件指纹（见 SourceDependencyFingerprint）
+     */
+    private final String sourceDependencyFingerprint;
+    
+    /**
+     * 项目指纹（项目根目录 + 配置字典指纹，见 ConfigRegistry#projectFingerprint）
+     */
+    private final String projectFingerprint;
+}
@@ -0,0 +1,36 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+
+import java.util.Map;
+
+/**
+ * 解析结果缓存（领域层接口）
+ * 
+ * 以（文件内容哈希、classpath 指纹、规则集版本）为键缓存 JdtSourceCodeParser 的解析结果，
+ * 命中时跳过 JDT 直接进入写入阶段。
+ * 
+ * 缓存的图谱与位置无关：不包含 projectFilePath / gitRepoUrl / gitBranch 和关系 ID，
+ * 由解析器在命中时按本次请求重新填充（同一内容在不同分支、不同路径可复用）
+ */
+public interface ParseResultCache {
+    
+    /**
+     * 查询缓存
+     * @param key 缓存键
+     * @return 缓存的图谱，未命中返回 null
+     */
+    CodeGraph get(ParseCacheKey key);
+    
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param graph 解析结果
+     */
+    void put(ParseCacheKey key, CodeGraph graph);
+    
+    /**
+     * 导出缓存指标（命中、未命中、淘汰、占用空间等）
+     */
+    Map<String, Object> snapshot();
+}
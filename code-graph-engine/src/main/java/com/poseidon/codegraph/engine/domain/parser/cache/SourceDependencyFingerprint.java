@@ -0,0 +1,102 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 源码依赖指纹
+ *
+ * 绑定解析会读取 sourcepath 下的其他源文件，这些文件变化后，内容不变的文件解析结果也可能变化。
+ * 从源码文本提取直接依赖的源文件，按（相对路径 + 文件大小 + 修改时间）做摘要：
+ * - 同包的所有源文件（无需导入即可引用）
+ * - 单类型导入、静态导入对应的源文件（嵌套类型、静态成员取外层类型的文件）
+ * - 按需导入（a.b.*）对应目录下的所有源文件
+ *
+ * 不在 sourcepath 下的导入（JDK、jar）由 classpath 指纹覆盖；经由直接依赖间接引用的文件
+ * （如被导入类的父类）不在指纹中，其变化通过文件级反向依赖触发的级联更新（跳过缓存读取）重新解析
+ */
+public final class SourceDependencyFingerprint {
+
+    private static final Pattern IMPORT_DECLARATION =
+        Pattern.compile("^[ \\t]*import\\s+(static\\s+)?([\\w.\\s]+?)(\\s*\\.\\s*\\*)?\\s*;", Pattern.MULTILINE);
+
+    private static final String JAVA_SUFFIX = ".java";
+
+    private SourceDependencyFingerprint() {
+    }
+
+    public static String of(String source, String[] sourcepathEntries) {
+        MessageDigest digest = ContentHasher.newDigest();
+        if (sourcepathEntries == null || sourcepathEntries.length == 0) {
+            return ContentHasher.toHex(digest.digest());
+        }
+
+        // 相对 sourcepath 根目录的依赖：目录（取其中全部源文件）或类型的限定名（取最长的存在的文件）
+        Set<String> directories = new TreeSet<>();
+        Set<String> types = new TreeSet<>();
+        String packageName = SourceFingerprint.packageName(source);
+        directories.add(packageName != null ? packageName.replace('.', '/') : "");
+        Matcher matcher = IMPORT_DECLARATION.matcher(source);
+        while (matcher.find()) {
+            String name = matcher.group(2).replaceAll("\\s+", "");
+            boolean isStatic = matcher.group(1) != null;
+            boolean onDemand = matcher.group(3) != null;
+            if (onDemand && !isStatic) {
+                // a.b.* 是包，a.b.C.* 是类型的成员类型：两者都记下，不存在的一方不影响摘要
+                directories.add(name.replace('.', '/'));
+            }
+            if (onDemand || !isStatic) {
+                types.add(name);
+            } else {
+                int lastDot = name.lastIndexOf('.');
+                types.add(lastDot > 0 ? name.substring(0, lastDot) : name);
+            }
+        }
+
+        Set<String> entries = new TreeSet<>();
+        for (String root : sourcepathEntries) {
+            if (root == null || root.isEmpty()) {
+                continue;
+            }
+            File rootDir = new File(root);
+            for (String directory : directories) {
+                File[] children = new File(rootDir, directory).listFiles(
+                    (dir, fileName) -> fileName.endsWith(JAVA_SUFFIX));
+                if (children != null) {
+                    for (File child : children) {
+                        entries.add(describe(root, directory + "/" + child.getName(), child));
+                    }
+                }
+            }
+            for (String type : types) {
+                String candidate = type.replace('.', '/');
+                while (true) {
+                    File file = new File(rootDir, candidate + JAVA_SUFFIX);
+                    if (file.isFile()) {
+                        entries.add(describe(root, candidate + JAVA_SUFFIX, file));
+                        break;
+                    }
+                    int lastSlash = candidate.lastIndexOf('/');
+                    if (lastSlash <= 0) {
+                        break;
+                    }
+                    candidate = candidate.substring(0, lastSlash);
+                }
+            }
+        }
+        for (String entry : entries) {
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return ContentHasher.toHex(digest.digest());
+    }
+
+    private static String describe(String root, String relativePath, File file) {
+        return root + ":" + relativePath + ":" + file.length() + ":" + file.lastModified();
+    }
+}
@@ -0,0 +1,33 @@
+package com.poseidon.codegraph.engine.domain.parser.cache;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 源码指纹
+ * 
+ * 用于识别“纯移动”的文件：git mv 后只有 package 声明变化，其余内容不变。
+ * - packageName：提取 package 声明（无声明时返回 null，即默认包）
+ * - bodyHash：去掉 package 声明后的内容哈希
+ */
+public final class SourceFingerprint {
+    
+    private static final Pattern PACKAGE_DECLARATION =
+        Pattern.compile("^[ \\t]*package\\s+([\\w.\\s]+?)\\s*;", Pattern.MULTILINE);
+    
+    private SourceFingerprint() {
+    }
+    
+    public static String packageName(String source) {
+        Matcher matcher = PACKAGE_DECLARATION.matcher(source);
+        return matcher.find() ? matcher.group(1).replaceAll("\\s+", "") : null;
+    }
+    
+    public static String bodyHash(String source) {
+        Matcher matcher = PACKAGE_DECLARATION.matcher(source);
+        String body = matcher.find()
+            ? source.substring(0, matcher.start()) + source.substring(matcher.end())
+            : source;
+        return ContentHasher.sha256(body);
+    }
+}
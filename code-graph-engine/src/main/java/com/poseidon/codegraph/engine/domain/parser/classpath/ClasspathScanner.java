@@ -0,0 +1,141 @@
+package com.poseidon.codegraph.engine.domain.parser.classpath;
+
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * classpath 扫描器
+ *
+ * 职责：
+ * - 计算 jar 集合指纹（只看文件元信息，开销很小，可在请求线程上调用）
+ * - 扫描 jar 目录表，生成包级摘要（只读中央目录中的类名和 CRC，不解压内容）
+ *
+ * 只处理 jar：目录形式的 classpath 条目通常是本项目自己的编译输出，
+ * 其变化已经通过源文件变更事件覆盖，这里不跟踪。
+ * 单个 jar 的扫描结果按（路径 + 大小 + 修改时间）缓存，依赖升级时只需扫描新增的 jar。
+ */
+@Slf4j
+public class ClasspathScanner {
+
+    private static final int MAX_CACHED_JARS = 4096;
+
+    /**
+     * jar 标识 -> 包名 -> 包摘要
+     */
+    private final Map<String, Map<String, Long>> jarCache = new ConcurrentHashMap<>();
+
+    /**
+     * 计算 jar 集合指纹（与顺序无关）
+     */
+    public String jarSetKey(String[] classpathEntries) {
+        MessageDigest digest = ContentHasher.newDigest();
+        String[] identities = jarIdentities(classpathEntries);
+        Arrays.sort(identities);
+        for (String identity : identities) {
+            digest.update(identity.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return ContentHasher.toHex(digest.digest());
+    }
+
+    /**
+     * 扫描 classpath 生成快照
+     */
+    public ClasspathSnapshot scan(String[] classpathEntries) {
+        Map<String, Long> packageDigests = new HashMap<>();
+        for (String entry : nonEmpty(classpathEntries)) {
+            if (!isJar(entry)) {
+                continue;
+            }
+            File file = new File(entry);
+            Map<String, Long> jarDigests = jarCache.get(identity(file));
+            if (jarDigests == null) {
+                jarDigests = scanJar(file);
+                if (jarCache.size() >= MAX_CACHED_JARS) {
+                    jarCache.clear();
+                }
+                jarCache.put(identity(file), jarDigests);
+            }
+            // 加法合并：与 jar 顺序无关，同名类出现在多个 jar 中也不会互相抵消
+            jarDigests.forEach((pkg, value) -> packageDigests.merge(pkg, value, Long::sum));
+        }
+
+        ClasspathSnapshot snapshot = new ClasspathSnapshot();
+        snapshot.setJarSetKey(jarSetKey(classpathEntries));
+        snapshot.setPackageDigests(packageDigests);
+        return snapshot;
+    }
+
+    // ========== 内部方法 ==========
+
+    private Map<String, Long> scanJar(File file) {
+        if (!file.isFile()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> digests = new HashMap<>();
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                int slash = name.lastIndexOf('/');
+                String pkg = slash > 0 ? name.substring(0, slash).replace('/', '.') : "";
+                digests.merge(pkg, classDigest(name, entry.getCrc()), Long::sum);
+            }
+        } catch (IOException e) {
+            log.warn("扫描 jar 失败，按空 jar 处理: jar={}, error={}", file, e.getMessage());
+        }
+        return digests;
+    }
+
+    private static long classDigest(String name, long crc) {
+        long x = ((long) name.hashCode() << 32) ^ (crc & 0xFFFFFFFFL);
+        // splitmix64 混淆，降低加法合并时的碰撞概率
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    private static String[] jarIdentities(String[] classpathEntries) {
+        return Arrays.stream(nonEmpty(classpathEntries))
+            .filter(ClasspathScanner::isJar)
+            .map(entry -> identity(new File(entry)))
+            .toArray(String[]::new);
+    }
+
+    private static String identity(File file) {
+        return file.getPath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    private static boolean isJar(String entry) {
+        return entry.endsWith(".jar");
+    }
+
+    private static String[] nonEmpty(String[] entries) {
+        if (entries == null) {
+            return new String[0];
+        }
+        return Arrays.stream(entries)
+            .filter(Objects::nonNull)
+            .filter(entry -> !entry.isEmpty())
+            .toArray(String[]::new);
+    }
+}
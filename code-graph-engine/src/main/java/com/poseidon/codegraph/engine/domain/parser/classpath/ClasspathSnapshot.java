@@ -0,0 +1,77 @@
+package com.poseidon.codegraph.engine.domain.parser.classpath;
+
+import lombok.Data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * classpath 快照
+ *
+ * - jarSetKey：所有 jar 的（路径 + 大小 + 修改时间）摘要，用于在请求线程上快速判断 classpath 是否变化
+ * - packageDigests：包名 -> 包内所有类（类名 + CRC）的摘要，用于定位具体变化的包
+ */
+@Data
+public class ClasspathSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private String jarSetKey;
+
+    private Map<String, Long> packageDigests = new HashMap<>();
+
+    /**
+     * 对比两个快照，返回新增、删除或内容变化的包（按名称排序）
+     */
+    public Set<String> diffPackages(ClasspathSnapshot other) {
+        Set<String> changed = new TreeSet<>();
+        Map<String, Long> otherDigests = other != null ? other.getPackageDigests() : Map.of();
+        for (Map.Entry<String, Long> entry : packageDigests.entrySet()) {
+            if (!entry.getValue().equals(otherDigests.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String pkg : otherDigests.keySet()) {
+            if (!packageDigests.containsKey(pkg)) {
+                changed.add(pkg);
+            }
+        }
+        return changed;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FORMAT_VERSION);
+        data.writeUTF(jarSetKey);
+        data.writeInt(packageDigests.size());
+        for (Map.Entry<String, Long> entry : packageDigests.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeLong(entry.getValue());
+        }
+        data.flush();
+    }
+
+    public static ClasspathSnapshot readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("不支持的 classpath 快照版本: " + version);
+        }
+        ClasspathSnapshot snapshot = new ClasspathSnapshot();
+        snapshot.setJarSetKey(data.readUTF());
+        int size = data.readInt();
+        Map<String, Long> digests = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            digests.put(data.readUTF(), data.readLong());
+        }
+        snapshot.setPackageDigests(digests);
+        return snapshot;
+    }
+}
@@ -29,6 +29,8 @@ public class EndpointParsingService {
     
     private List<EndpointParseRule> allRules;
     
+    private String ruleSetVersion;
+    
     public EndpointParsingService() {
         this.ruleLoader = new EprRuleLoader();
         this.scopeFilter = new ScopeFilter();
@@ -39,9 +41,17 @@ public class EndpointParsingService {
     public void init() {
         // 启动时加载所有规则
         this.allRules = ruleLoader.loadAllRules();
+        this.ruleSetVersion = ruleLoader.computeRuleSetVersion();
         log.info("端点解析服务初始化完成，已加载 {} 条 EPR 规则", allRules.size());
     }
     
+    /**
+     * 获取规则集版本（规则文件内容摘要）
+     */
+    public String getRuleSetVersion() {
+        return ruleSetVersion;
+    }
+    
     /**
      * 解析文件中的端点
      *
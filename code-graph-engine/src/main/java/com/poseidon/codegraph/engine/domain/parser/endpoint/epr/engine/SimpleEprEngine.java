@@ -8,11 +8,11 @@ import com.poseidon.codegraph.engine.domain.model.endpoint.HttpEndpoint;
 import com.poseidon.codegraph.engine.domain.model.endpoint.MqEndpoint;
 import com.poseidon.codegraph.engine.domain.model.endpoint.RedisEndpoint;
 import com.poseidon.codegraph.engine.domain.parser.endpoint.epr.model.*;
+import com.poseidon.codegraph.engine.domain.parser.endpoint.tracker.ConfigRegistry;
 import com.poseidon.codegraph.engine.domain.parser.endpoint.tracker.UniversalValueTracer;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jdt.core.dom.*;
 
-import java.io.File;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -1386,17 +1386,7 @@ public class SimpleEprEngine {
     }
     
     private String getProjectRoot(String projectFilePath) {
-        if (projectFilePath == null) return null;
-        // 启发式寻找项目根目录：寻找包含 src 的那一级
-        File file = new File(projectFilePath);
-        File current = file.getParentFile();
-        while (current != null) {
-            if (new File(current, "src").exists() || new File(current, "pom.xml").exists()) {
-                return current.getAbsolutePath();
-            }
-            current = current.getParentFile();
-        }
-        return null;
+        return ConfigRegistry.findProjectRoot(projectFilePath);
     }
 
     /**
@@ -2,6 +2,7 @@ package com.poseidon.codegraph.engine.domain.parser.endpoint.epr.loader;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
 import com.poseidon.codegraph.engine.domain.parser.endpoint.epr.model.EndpointParseRule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
@@ -11,9 +12,11 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -66,6 +69,28 @@ public class EprRuleLoader {
         return rules;
     }
     
+    /**
+     * 计算规则集版本（所有内置规则文件内容的摘要）
+     * 规则内容变化时版本随之变化，用于使解析结果缓存失效
+     */
+    public String computeRuleSetVersion() {
+        try {
+            Resource[] resources = resourcePatternResolver.getResources(BUILTIN_RULES_PATH);
+            Arrays.sort(resources, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+            MessageDigest digest = ContentHasher.newDigest();
+            for (Resource resource : resources) {
+                try (InputStream is = resource.getInputStream()) {
+                    digest.update(String.valueOf(resource.getFilename()).getBytes(StandardCharsets.UTF_8));
+                    digest.update(is.readAllBytes());
+                }
+            }
+            return ContentHasher.toHex(digest.digest()).substring(0, 16);
+        } catch (IOException e) {
+            log.error("计算规则集版本失败", e);
+            return "unknown";
+        }
+    }
+    
     /**
      * 加载内置 .epr 规则
      */
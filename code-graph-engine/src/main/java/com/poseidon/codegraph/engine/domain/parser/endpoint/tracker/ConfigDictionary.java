@@ -1,5 +1,6 @@
 package com.poseidon.codegraph.engine.domain.parser.endpoint.tracker;
 
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
 import lombok.extern.slf4j.Slf4j;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,6 +17,7 @@ public class ConfigDictionary {
 
     // 核心存储：Key -> [所有可能的值]
     private final Map<String, Set<ConfigValue>> dictionary = new ConcurrentHashMap<>();
+    private volatile String fingerprint;
     private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
 
     /**
@@ -24,6 +26,25 @@ public class ConfigDictionary {
     public void addProperty(String key, String value, String sourceFile, String profile, int priority) {
         dictionary.computeIfAbsent(key, k -> new HashSet<>())
                   .add(new ConfigValue(value, sourceFile, profile, priority));
+        fingerprint = null;
+    }
+
+    /**
+     * 字典内容指纹（按 Key 和值排序后哈希），配置变化后指纹随之变化
+     */
+    public String fingerprint() {
+        String cached = fingerprint;
+        if (cached != null) {
+            return cached;
+        }
+        StringBuilder content = new StringBuilder();
+        new TreeMap<>(dictionary).forEach((key, values) -> values.stream()
+            .map(v -> key + "=" + v.getValue() + "|" + v.getProfile() + "|" + v.getPriority())
+            .sorted()
+            .forEach(line -> content.append(line).append('\n')));
+        cached = ContentHasher.sha256(content.toString());
+        fingerprint = cached;
+        return cached;
     }
 
     /**
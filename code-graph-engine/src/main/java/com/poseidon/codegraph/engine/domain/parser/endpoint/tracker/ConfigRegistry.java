@@ -1,5 +1,6 @@
 package com.poseidon.codegraph.engine.domain.parser.endpoint.tracker;
 
+import java.io.File;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,6 +30,32 @@ public class ConfigRegistry {
         });
     }
 
+    /**
+     * 启发式寻找文件所在的项目根目录：向上找到包含 src 或 pom.xml 的一级，找不到时返回 null
+     */
+    public static String findProjectRoot(String absoluteFilePath) {
+        if (absoluteFilePath == null) return null;
+        File current = new File(absoluteFilePath).getParentFile();
+        while (current != null) {
+            if (new File(current, "src").exists() || new File(current, "pom.xml").exists()) {
+                return current.getAbsolutePath();
+            }
+            current = current.getParentFile();
+        }
+        return null;
+    }
+
+    /**
+     * 文件所在项目的指纹：项目根目录 + 配置字典指纹（端点值依赖两者，用于解析结果缓存键）
+     */
+    public static String projectFingerprint(String absoluteFilePath) {
+        String projectRoot = findProjectRoot(absoluteFilePath);
+        if (projectRoot == null) {
+            return "";
+        }
+        return projectRoot + "|" + getDictionary(projectRoot).fingerprint();
+    }
+
     /**
      * 清理某个项目的字典（用于重新扫描）
      */
@@ -18,6 +18,8 @@ import java.util.Collections;
 public class UniversalValueTracer {
     
     private static final int MAX_DEPTH = 10;  // 防止无限递归
+    private static final int MAX_STEPS = 256;  // 单次追踪最多访问的表达式数（防止大文件中追踪失控）
+    private static final int MAX_POSSIBLE_VALUES = 64;  // 拼接组合的最大候选值数（防止笛卡尔积爆炸）
     
     /**
      * 追踪表达式的值
@@ -37,6 +39,12 @@ public class UniversalValueTracer {
         if (visited.contains(expr)) {
             return TraceResult.unknown("{CIRCULAR}");
         }
+        
+        // 步数预算（visited 记录了本次追踪访问过的所有表达式）
+        if (visited.size() >= MAX_STEPS) {
+            log.warn("追踪步数超过限制: {}", MAX_STEPS);
+            return TraceResult.unknown("{MAX_STEPS}");
+        }
         visited.add(expr);
         
         // ===== 类型 1: 字面量（终止条件） =====
@@ -270,20 +278,31 @@ public class UniversalValueTracer {
         // 确定整体解析等级
         ParseLevel overallLevel = determineOverallLevel(levels);
         
+        // 组合被截断时，结果不再完整
+        if (concatenatedResults.size() >= MAX_POSSIBLE_VALUES && overallLevel == ParseLevel.FULL) {
+            overallLevel = ParseLevel.PARTIAL;
+        }
+        
         return new TraceResult(concatenatedResults, overallLevel);
     }
 
     /**
      * 计算多个列表的笛卡尔积字符串拼接
+     * 候选值数量超过 MAX_POSSIBLE_VALUES 时截断
      */
     private List<String> cartesianProduct(List<List<String>> lists) {
         List<String> result = new ArrayList<>();
         result.add("");
         for (List<String> list : lists) {
             List<String> nextBatch = new ArrayList<>();
+            outer:
             for (String prefix : result) {
                 for (String suffix : list) {
                     nextBatch.add(prefix + suffix);
+                    if (nextBatch.size() >= MAX_POSSIBLE_VALUES) {
+                        log.warn("拼接候选值超过限制，已截断: {}", MAX_POSSIBLE_VALUES);
+                        break outer;
+                    }
                 }
             }
             result = nextBatch;
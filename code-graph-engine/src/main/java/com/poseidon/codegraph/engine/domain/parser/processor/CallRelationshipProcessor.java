@@ -1,5 +1,6 @@
 package com.poseidon.codegraph.engine.domain.parser.processor;
 
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
 import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
 import com.poseidon.codegraph.engine.domain.model.RelationshipType;
 import com.poseidon.codegraph.engine.domain.parser.ASTNodeProcessor;
@@ -24,6 +25,7 @@ import java.util.UUID;
  * - 从 MethodInvocation 节点提取方法调用关系
  * - 构建 CALLS 关系: Caller Function -> Called Function
  * - 过滤掉不必要的调用（getter/setter、非项目包等）
+ * - 遍历完成后把同一对调用方/被调用方的多次调用聚合为一条边（调用次数 + 调用点行号）
  * 
  * 优先级：4（可以与节点提取并行，因为不依赖全局节点信息）
  */
@@ -97,6 +99,15 @@ public class CallRelationshipProcessor implements ASTNodeProcessor {
         log.trace("✓ 提取调用关系: {} -> {}", callerQualifiedName, targetQualifiedName);
     }
     
+    @Override
+    public void onTraversalComplete(ProcessorContext context) {
+        CodeGraph graph = context.getGraph();
+        int before = graph.getRelationshipsAsList().size();
+        graph.setRelationships(CodeRelationship.aggregateCalls(graph.getRelationshipsAsList()));
+        log.debug("聚合调用关系: file={}, before={}, after={}", 
+            context.getProjectFilePath(), before, graph.getRelationships().size());
+    }
+    
     @Override
     public int getPriority() {
         return 4;  // 可以与节点提取并行
@@ -31,7 +31,7 @@ public class FunctionProcessor implements ASTNodeProcessor {
         ProcessorContext context
     ) {
         // 从 graph 中找到对应的 CodeUnit
-        CodeUnit unit = findUnitInGraph(context.getGraph(), enclosingType);
+        CodeUnit unit = findUnitInGraph(context, enclosingType);
         if (unit == null) {
             log.warn("未找到对应的 CodeUnit，跳过方法: {}", method.getName().getIdentifier());
             return;
@@ -41,27 +41,29 @@ public class FunctionProcessor implements ASTNodeProcessor {
         function.setName(method.getName().getIdentifier());
         
         IMethodBinding binding = method.resolveBinding();
-        if (binding == null) {
+        if (binding != null) {
+            // 使用 IMethodBinding 生成 qualifiedName（与 CallRelationshipProcessor 保持一致）
+            String qualifiedName = buildQualifiedMethodName(binding);
+            function.setQualifiedName(qualifiedName);
+            function.setId(qualifiedName);
+            
+            // 生成简单签名（用于显示）
+            String signature = buildSimpleSignature(binding);
+            function.setSignature(signature);
+            
+            ITypeBinding returnTypeBinding = binding.getReturnType();
+            if (returnTypeBinding != null) {
+                function.setReturnType(getQualifiedTypeName(returnTypeBinding));
+            } else {
+                function.setReturnType("void");
+            }
+        } else if (context.isDegraded()) {
+            fillFromSyntax(function, method, unit, context);
+        } else {
             log.error("方法绑定解析失败: method={}", function.getName());
             throw new RuntimeException("方法绑定解析失败: " + function.getName());
         }
         
-        // 使用 IMethodBinding 生成 qualifiedName（与 CallRelationshipProcessor 保持一致）
-        String qualifiedName = buildQualifiedMethodName(binding);
-        function.setQualifiedName(qualifiedName);
-        function.setId(qualifiedName);
-        
-        // 生成简单签名（用于显示）
-        String signature = buildSimpleSignature(binding);
-        function.setSignature(signature);
-        
-        ITypeBinding returnTypeBinding = binding.getReturnType();
-        if (returnTypeBinding != null) {
-            function.setReturnType(getQualifiedTypeName(returnTypeBinding));
-        } else {
-            function.setReturnType("void");
-        }
-        
         int modifiers = method.getModifiers();
         function.setModifiers(extractModifiers(modifiers));
         function.setIsStatic(Modifier.isStatic(modifiers));
@@ -96,19 +98,149 @@ public class FunctionProcessor implements ASTNodeProcessor {
     
     // ========== 辅助方法 ==========
     
-    private CodeUnit findUnitInGraph(CodeGraph graph, TypeDeclaration typeDecl) {
+    private CodeUnit findUnitInGraph(ProcessorContext context, TypeDeclaration typeDecl) {
+        CodeGraph graph = context.getGraph();
         ITypeBinding binding = typeDecl.resolveBinding();
-        if (binding == null) {
+        String qualifiedName;
+        if (binding != null) {
+            qualifiedName = binding.getQualifiedName();
+        } else if (context.isDegraded()) {
+            qualifiedName = UnitProcessor.buildQualifiedName(context.getPackageName(), typeDecl);
+        } else {
             return null;
         }
         
-        String qualifiedName = binding.getQualifiedName();
         return graph.getUnitsAsList().stream()
             .filter(u -> qualifiedName.equals(u.getQualifiedName()))
             .findFirst()
             .orElse(null);
     }
     
+    /**
+     * 降级解析：没有绑定时按语法生成 qualifiedName、签名和返回类型
+     * 参数类型按 import / java.lang / 同包 规则还原全限定名，尽量与绑定结果保持一致，
+     * 以便文件恢复正常解析后节点 ID 不变
+     */
+    private void fillFromSyntax(CodeFunction function, MethodDeclaration method, CodeUnit unit, ProcessorContext context) {
+        StringBuilder qualified = new StringBuilder();
+        qualified.append(unit.getQualifiedName()).append(".").append(function.getName()).append("(");
+        StringBuilder signature = new StringBuilder();
+        signature.append(function.getName()).append("(");
+        
+        List<?> parameters = method.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            SingleVariableDeclaration param = (SingleVariableDeclaration) parameters.get(i);
+            String simpleName = erasureName(param.getType());
+            String dims = "[]".repeat(param.getExtraDimensions() + (param.isVarargs() ? 1 : 0));
+            if (i > 0) {
+                qualified.append(",");
+                signature.append(",");
+            }
+            qualified.append(resolveTypeName(simpleName, context)).append(dims);
+            signature.append(simpleName.substring(simpleName.lastIndexOf('.') + 1)).append(dims);
+        }
+        
+        qualified.append(")");
+        signature.append(")");
+        function.setQualifiedName(qualified.toString());
+        function.setId(qualified.toString());
+        function.setSignature(signature.toString());
+        
+        Type returnType = method.getReturnType2();
+        function.setReturnType(returnType != null ? resolveTypeName(erasureName(returnType), context) : "void");
+        function.setIsDegraded(true);
+    }
+    
+    /**
+     * 语法层面的类型擦除：去掉泛型参数，数组保留 [] 后缀
+     */
+    private String erasureName(Type type) {
+        if (type.isArrayType()) {
+            ArrayType arrayType = (ArrayType) type;
+            return erasureName(arrayType.getElementType()) + "[]".repeat(arrayType.getDimensions());
+        }
+        if (type.isParameterizedType()) {
+            return erasureName(((ParameterizedType) type).getType());
+        }
+        return type.toString();
+    }
+    
+    /**
+     * 按语法规则还原类型全限定名：基本类型 > 已限定 > 本文件声明的类型 > 单类型 import > java.lang > 同包
+     */
+    private String resolveTypeName(String typeName, ProcessorContext context) {
+        String dims = "";
+        int arrayStart = typeName.indexOf('[');
+        if (arrayStart > 0) {
+            dims = typeName.substring(arrayStart);
+            typeName = typeName.substring(0, arrayStart);
+        }
+        if (PRIMITIVE_TYPES.contains(typeName) || typeName.contains(".")) {
+            return typeName + dims;
+        }
+        
+        // 本文件声明的类型（含嵌套类型）按外层类型名限定，与绑定结果一致
+        String declared = findDeclaredType(context.getCompilationUnit(), typeName, context.getPackageName());
+        if (declared != null) {
+            return declared + dims;
+        }
+        
+        boolean hasWildcardImport = false;
+        for (Object obj : context.getCompilationUnit().imports()) {
+            ImportDeclaration imp = (ImportDeclaration) obj;
+            if (imp.isStatic()) {
+                continue;
+            }
+            if (imp.isOnDemand()) {
+                hasWildcardImport = true;
+                continue;
+            }
+            String imported = imp.getName().getFullyQualifiedName();
+            if (imported.endsWith("." + typeName)) {
+                return imported + dims;
+            }
+        }
+        if (JAVA_LANG_TYPES.contains(typeName)) {
+            return "java.lang." + typeName + dims;
+        }
+        if (!hasWildcardImport) {
+            return UnitProcessor.buildQualifiedName(context.getPackageName(), typeName) + dims;
+        }
+        return typeName + dims;
+    }
+    
+    /**
+     * 在编译单元中查找简单名匹配的类型声明（含嵌套类型），返回其全限定名
+     */
+    private String findDeclaredType(CompilationUnit cu, String simpleName, String packageName) {
+        String[] found = new String[1];
+        cu.accept(new ASTVisitor() {
+            @Override
+            public boolean preVisit2(ASTNode node) {
+                if (found[0] != null) {
+                    return false;
+                }
+                if (node instanceof AbstractTypeDeclaration type && simpleName.equals(type.getName().getIdentifier())) {
+                    found[0] = UnitProcessor.buildQualifiedName(packageName, type);
+                    return false;
+                }
+                // 只进入类型声明，方法体中的局部类型没有全限定名
+                return node instanceof CompilationUnit || node instanceof AbstractTypeDeclaration;
+            }
+        });
+        return found[0];
+    }
+    
+    private static final java.util.Set<String> PRIMITIVE_TYPES = java.util.Set.of(
+        "void", "boolean", "byte", "char", "short", "int", "long", "float", "double"
+    );
+    
+    private static final java.util.Set<String> JAVA_LANG_TYPES = java.util.Set.of(
+        "Object", "String", "Boolean", "Byte", "Character", "Short", "Integer", "Long", "Float", "Double",
+        "Number", "Void", "Class", "Enum", "Iterable", "Runnable", "Thread", "Throwable", "Exception",
+        "RuntimeException", "Error", "StringBuilder", "StringBuffer", "CharSequence", "Comparable"
+    );
+    
     /**
      * 生成完整的 qualifiedName（与 CallRelationshipProcessor 保持一致）
      * 格式：com.example.Class.method(com.example.Param1,com.example.Param2)
@@ -4,12 +4,17 @@ import com.poseidon.codegraph.engine.domain.model.CodeUnit;
 import com.poseidon.codegraph.engine.domain.parser.ASTNodeProcessor;
 import com.poseidon.codegraph.engine.domain.parser.ProcessorContext;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Unit 节点提取器（Class/Interface/Enum）
@@ -30,12 +35,17 @@ public class UnitProcessor implements ASTNodeProcessor {
         unit.setName(type.getName().getIdentifier());
         
         ITypeBinding binding = type.resolveBinding();
-        if (binding == null) {
+        if (binding != null) {
+            unit.setQualifiedName(binding.getQualifiedName());
+        } else if (context.isDegraded()) {
+            // 降级解析没有绑定，按 包名 + 外层类型名 + 类名 拼接（与绑定的 getQualifiedName 一致）
+            unit.setQualifiedName(buildQualifiedName(context.getPackageName(), type));
+            unit.setIsDegraded(true);
+        } else {
             log.error("类型绑定解析失败: class={}, 请检查 classpath 配置", unit.getName());
             throw new RuntimeException("类型绑定解析失败: " + unit.getName());
         }
         
-        unit.setQualifiedName(binding.getQualifiedName());
         unit.setId(unit.getQualifiedName());
         unit.setUnitType(type.isInterface() ? "interface" : "class");
         
@@ -55,6 +65,9 @@ public class UnitProcessor implements ASTNodeProcessor {
             unit.setPackageId(context.getPackageName());
         }
         
+        // 记录文件导入的包（classpath 变化时据此定位受影响的文件）
+        unit.setImportedPackages(extractImportedPackages(context.getCompilationUnit()));
+        
         // 只添加节点，不创建关系
         context.getGraph().addUnit(unit);
         
@@ -73,6 +86,50 @@ public class UnitProcessor implements ASTNodeProcessor {
     
     // ========== 辅助方法 ==========
     
+    /**
+     * 按包名拼接类型全限定名（降级解析使用）
+     */
+    public static String buildQualifiedName(String packageName, String simpleName) {
+        if (packageName == null || packageName.isEmpty()) {
+            return simpleName;
+        }
+        return packageName + "." + simpleName;
+    }
+    
+    /**
+     * 按语法还原类型全限定名（降级解析使用）：嵌套类型带上外层类型名，如 a.b.Outer.Inner
+     */
+    public static String buildQualifiedName(String packageName, AbstractTypeDeclaration type) {
+        StringBuilder name = new StringBuilder(type.getName().getIdentifier());
+        ASTNode parent = type.getParent();
+        while (parent instanceof AbstractTypeDeclaration enclosing) {
+            name.insert(0, enclosing.getName().getIdentifier() + ".");
+            parent = enclosing.getParent();
+        }
+        return buildQualifiedName(packageName, name.toString());
+    }
+    
+    /**
+     * 提取文件导入的包名（去重、排序）
+     * - import a.b.C;            -> a.b
+     * - import a.b.*;            -> a.b
+     * - import static a.b.C.m;   -> a.b
+     * - import static a.b.C.*;   -> a.b
+     */
+    public static List<String> extractImportedPackages(CompilationUnit cu) {
+        TreeSet<String> packages = new TreeSet<>();
+        for (Object obj : cu.imports()) {
+            ImportDeclaration imp = (ImportDeclaration) obj;
+            String name = imp.getName().getFullyQualifiedName();
+            int drop = (imp.isOnDemand() ? 0 : 1) + (imp.isStatic() ? 1 : 0);
+            for (int i = 0; i < drop && name.lastIndexOf('.') > 0; i++) {
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+            packages.add(name);
+        }
+        return new ArrayList<>(packages);
+    }
+    
     private List<String> extractModifiers(int modifiers) {
         List<String> modifierList = new ArrayList<>();
         if (Modifier.isPublic(modifiers)) modifierList.add("public");
@@ -19,11 +19,13 @@ public class CodeGraphService {
     private final List<CodeChangeProcessor> processors = new ArrayList<>();
     
     public CodeGraphService() {
-        // 注册所有处理器
+        // 注册所有处理器（覆盖层分支的变更全部由覆盖层处理器接管，必须排在最前）
+        processors.add(new BranchOverlayProcessor());
         processors.add(new CascadeUpdateProcessor());
         processors.add(new NewSourceProcessor());
         processors.add(new RemovedSourceProcessor());
         processors.add(new ModifiedSourceProcessor());
+        processors.add(new RenamedSourceProcessor());
     }
     
     /**
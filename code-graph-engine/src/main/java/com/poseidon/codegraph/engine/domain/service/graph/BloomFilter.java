@@ -0,0 +1,90 @@
+package com.poseidon.codegraph.engine.domain.service.graph;
+
+/**
+ * 字符串 Bloom 过滤器
+ * mightContain 返回 false 时一定不存在；返回 true 时可能存在（存在误判）
+ * 线程安全：写入与读取互斥（synchronized），单次操作只访问 k 个位
+ */
+public class BloomFilter {
+    
+    private static final double LN2 = Math.log(2);
+    
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private long insertions;
+    
+    /**
+     * @param expectedInsertions 预期元素数
+     * @param falsePositiveRate 预期误判率（元素数不超过预期时）
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.bits = new long[(int) (bitCount / 64)];
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * LN2));
+    }
+    
+    public synchronized void put(String value) {
+        long hash = hash64(value);
+        long h1 = fmix64(hash);
+        long h2 = fmix64(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        insertions++;
+    }
+    
+    public synchronized boolean mightContain(String value) {
+        long hash = hash64(value);
+        long h1 = fmix64(hash);
+        long h2 = fmix64(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 按当前写入次数估算的误判率：(1 - e^(-k·n/m))^k
+     */
+    public synchronized double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+    
+    public synchronized long insertions() {
+        return insertions;
+    }
+    
+    public long bitCount() {
+        return bitCount;
+    }
+    
+    public int hashCount() {
+        return hashCount;
+    }
+    
+    private static long hash64(String value) {
+        // FNV-1a 64 位
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93fe53f2a3bL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
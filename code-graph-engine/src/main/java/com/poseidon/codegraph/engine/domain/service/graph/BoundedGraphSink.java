@@ -0,0 +1,165 @@
+package com.poseidon.codegraph.engine.domain.service.graph;
+
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeGraphSink;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 有界流式接收端
+ * 每类元素各自缓冲，攒满 batchSize 就在推送线程上同步交给 {@link BatchHandler}：
+ * 下游写完之前推送方被阻塞（背压），缓冲区内存上限为 5 × batchSize 个元素，与项目规模无关
+ *
+ * 关系批次写出前先把所有已缓冲的节点写出，保证节点先于指向它们的边落库
+ */
+public class BoundedGraphSink implements CodeGraphSink {
+
+    /**
+     * 批次处理器（未覆盖的类型直接丢弃）
+     */
+    public interface BatchHandler {
+        default void onPackages(List<CodePackage> packages) {
+        }
+
+        default void onUnits(List<CodeUnit> units) {
+        }
+
+        default void onFunctions(List<CodeFunction> functions) {
+        }
+
+        default void onEndpoints(List<CodeEndpoint> endpoints) {
+        }
+
+        default void onRelationships(List<CodeRelationship> relationships) {
+        }
+    }
+
+    private final int batchSize;
+    private final BatchHandler handler;
+    private List<CodePackage> packages = new ArrayList<>();
+    private List<CodeUnit> units = new ArrayList<>();
+    private List<CodeFunction> functions = new ArrayList<>();
+    private List<CodeEndpoint> endpoints = new ArrayList<>();
+    private List<CodeRelationship> relationships = new ArrayList<>();
+    private int batches;
+
+    public BoundedGraphSink(int batchSize, BatchHandler handler) {
+        this.batchSize = Math.max(1, batchSize);
+        this.handler = handler;
+    }
+
+    @Override
+    public void acceptPackage(CodePackage pkg) {
+        packages.add(pkg);
+        if (packages.size() >= batchSize) {
+            drainPackages();
+        }
+    }
+
+    @Override
+    public void acceptUnit(CodeUnit unit) {
+        units.add(unit);
+        if (units.size() >= batchSize) {
+            drainUnits();
+        }
+    }
+
+    @Override
+    public void acceptFunction(CodeFunction function) {
+        functions.add(function);
+        if (functions.size() >= batchSize) {
+            drainFunctions();
+        }
+    }
+
+    @Override
+    public void acceptEndpoint(CodeEndpoint endpoint) {
+        endpoints.add(endpoint);
+        if (endpoints.size() >= batchSize) {
+            drainEndpoints();
+        }
+    }
+
+    @Override
+    public void acceptRelationship(CodeRelationship relationship) {
+        relationships.add(relationship);
+        if (relationships.size() >= batchSize) {
+            drainNodes();
+            drainRelationships();
+        }
+    }
+
+    @Override
+    public void flush() {
+        drainNodes();
+        drainRelationships();
+    }
+
+    /**
+     * 已交给下游的批次数
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    // ========== 内部方法 ==========
+
+    private void drainNodes() {
+        drainPackages();
+        drainUnits();
+        drainFunctions();
+        drainEndpoints();
+    }
+
+    // 先换上新缓冲区再回调：下游处理期间推送的新元素不会混进正在写出的批次
+
+    private void drainPackages() {
+        if (!packages.isEmpty()) {
+            List<CodePackage> batch = packages;
+            packages = new ArrayList<>();
+            batches++;
+            handler.onPackages(batch);
+        }
+    }
+
+    private void drainUnits() {
+        if (!units.isEmpty()) {
+            List<CodeUnit> batch = units;
+            units = new ArrayList<>();
+            batches++;
+            handler.onUnits(batch);
+        }
+    }
+
+    private void drainFunctions() {
+        if (!functions.isEmpty()) {
+            List<CodeFunction> batch = functions;
+            functions = new ArrayList<>();
+            batches++;
+            handler.onFunctions(batch);
+        }
+    }
+
+    private void drainEndpoints() {
+        if (!endpoints.isEmpty()) {
+            List<CodeEndpoint> batch = endpoints;
+            endpoints = new ArrayList<>();
+            batches++;
+            handler.onEndpoints(batch);
+        }
+    }
+
+    private void drainRelationships() {
+        if (!relationships.isEmpty()) {
+            List<CodeRelationship> batch = relationships;
+            relationships = new ArrayList<>();
+            batches++;
+            handler.onRelationships(batch);
+        }
+    }
+}
@@ -0,0 +1,1062 @@
+package com.poseidon.codegraph.engine.domain.service.graph;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 调用图内存快照（CSR 压缩邻接表）
+ *
+ * 结构：
+ * - 节点按 int 编号，保存节点 ID 和所属文件编号
+ * - 基线边用 CSR 存储：正向（出边）和反向（入边）各一组 offsets/edges，可选堆外内存
+ * - 每条边编码为 (对端编号 << 2) | 关系类型，类型占低 2 位
+ * - 增量修改写入差量层（新增边、已删除节点、已清空 CALLS 出边的节点），遍历时与基线合并
+ * - 每个文件记录所属节点编号，按文件清空出边、改写路径时只访问该文件的节点
+ * - 差量超过阈值时 compact() 合并为新的基线：锁内只冻结差量（复制文件编号、位图和差量边），
+ *   锁外构建新的 CSR，期间的修改记入日志；最后在写锁内换入新基线（volatile 引用）并重放日志
+ * - 分支覆盖层（{@link Overlay}）不修改快照，只在遍历时叠加：覆盖层文件的节点和出边取代基线中同一文件的节点和出边
+ *
+ * 语义与图数据库写路径保持一致：
+ * - removeNode 等价于 DETACH DELETE（同 ID 再次写入时分配新编号，旧边不再可达）
+ * - clearOutgoingCalls 等价于删除文件的 CALLS 出边
+ *
+ * 领域层纯 Java，线程安全（读写锁）
+ */
+public class CallGraphSnapshot {
+
+    public static final int CALLS = 0;
+    public static final int ENDPOINT_TO_FUNCTION = 1;
+    public static final int FUNCTION_TO_ENDPOINT = 2;
+    public static final int MATCHES = 3;
+
+    /**
+     * 类型掩码：全部关系类型
+     */
+    public static final int ALL_TYPES = 0b1111;
+
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = 0b11;
+    private static final int NO_FILE = -1;
+
+    private final boolean offHeap;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ========== 节点 ==========
+
+    private String[] ids;
+    private int[] fileOf;
+    private int nodeCount;
+    private Map<String, Integer> nodeIndex;
+    private List<String> files;
+    private Map<String, Integer> fileIndex;
+    /**
+     * 文件编号 -> 所属节点编号（已删除的节点留在列表中，访问时跳过，合并时清除）
+     */
+    private List<IntList> fileNodes;
+    private BitSet dead = new BitSet();
+
+    // ========== 基线 CSR ==========
+
+    /**
+     * 基线 CSR 构建后只读，合并时整体替换
+     */
+    private volatile Base base = Base.EMPTY;
+
+    /**
+     * 基线中 CALLS 出边已被清空的节点
+     */
+    private BitSet callsCleared = new BitSet();
+
+    // ========== 差量层 ==========
+
+    private Map<Integer, IntList> addedOut = new HashMap<>();
+    private Map<Integer, IntList> addedIn = new HashMap<>();
+    private int deltaEdges;
+    private int deltaOps;
+
+    /**
+     * 合并进行中时记录的修改（合并结束后在新基线上重放），不在合并时为 null
+     */
+    private List<Runnable> journal;
+
+    private CallGraphSnapshot(boolean offHeap, String[] ids, int[] fileOf, int nodeCount,
+                              Map<String, Integer> nodeIndex, List<String> files, Map<String, Integer> fileIndex) {
+        this.offHeap = offHeap;
+        this.ids = ids;
+        this.fileOf = fileOf;
+        this.nodeCount = nodeCount;
+        this.nodeIndex = nodeIndex;
+        this.files = files;
+        this.fileIndex = fileIndex;
+        this.fileNodes = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            fileNodes.add(new IntList());
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (fileOf[node] != NO_FILE) {
+                fileNodes.get(fileOf[node]).add(node);
+            }
+        }
+    }
+
+    public static Builder builder(boolean offHeap) {
+        return new Builder(offHeap);
+    }
+
+    /**
+     * 关系类型名 -> 类型编号（不参与快照的类型返回 -1）
+     */
+    public static int typeOf(String relationshipType) {
+        if (relationshipType == null) {
+            return -1;
+        }
+        return switch (relationshipType) {
+            case "CALLS" -> CALLS;
+            case "ENDPOINT_TO_FUNCTION" -> ENDPOINT_TO_FUNCTION;
+            case "FUNCTION_TO_ENDPOINT" -> FUNCTION_TO_ENDPOINT;
+            case "MATCHES" -> MATCHES;
+            default -> -1;
+        };
+    }
+
+    // ========== 增量修改 ==========
+
+    /**
+     * 新增或更新节点（已存在时只更新所属文件）
+     */
+    public void upsertNode(String id, String projectFilePath) {
+        lock.writeLock().lock();
+        try {
+            upsertNodeLocked(id, projectFilePath);
+            journalLocked(() -> upsertNodeLocked(id, projectFilePath));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertNodeLocked(String id, String projectFilePath) {
+        int node = internLocked(id);
+        int file = fileLocked(projectFilePath);
+        int previous = fileOf[node];
+        if (previous != file) {
+            if (previous != NO_FILE) {
+                fileNodes.get(previous).removeFirst(node);
+            }
+            if (file != NO_FILE) {
+                fileNodes.get(file).add(node);
+            }
+            fileOf[node] = file;
+        }
+        deltaOps++;
+    }
+
+    /**
+     * 新增边（端点不存在时自动创建无文件节点，对应占位符）
+     */
+    public void addEdge(String fromId, String toId, int type) {
+        if (type < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            addEdgeLocked(fromId, toId, type);
+            journalLocked(() -> addEdgeLocked(fromId, toId, type));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addEdgeLocked(String fromId, String toId, int type) {
+        int from = internLocked(fromId);
+        int to = internLocked(toId);
+        addedOut.computeIfAbsent(from, k -> new IntList()).add(encode(to, type));
+        addedIn.computeIfAbsent(to, k -> new IntList()).add(encode(from, type));
+        deltaEdges++;
+        deltaOps++;
+    }
+
+    /**
+     * 删除节点及其所有边
+     */
+    public void removeNode(String id) {
+        lock.writeLock().lock();
+        try {
+            removeNodeLocked(id);
+            journalLocked(() -> removeNodeLocked(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeNodeLocked(String id) {
+        Integer node = nodeIndex.remove(id);
+        if (node != null) {
+            dead.set(node);
+            deltaOps++;
+        }
+    }
+
+    /**
+     * 删除文件内所有节点的 CALLS 出边
+     */
+    public void clearOutgoingCalls(String projectFilePath) {
+        lock.writeLock().lock();
+        try {
+            clearOutgoingCallsLocked(projectFilePath);
+            journalLocked(() -> clearOutgoingCallsLocked(projectFilePath));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearOutgoingCallsLocked(String projectFilePath) {
+        Integer file = fileIndex.get(projectFilePath);
+        if (file == null) {
+            return;
+        }
+        IntList nodes = fileNodes.get(file);
+        for (int n = 0; n < nodes.size(); n++) {
+            int node = nodes.get(n);
+            if (dead.get(node)) {
+                continue;
+            }
+            callsCleared.set(node);
+            IntList out = addedOut.get(node);
+            if (out == null) {
+                continue;
+            }
+            for (int i = 0; i < out.size(); i++) {
+                int edge = out.get(i);
+                if ((edge & TYPE_MASK) == CALLS) {
+                    IntList in = addedIn.get(edge >>> TYPE_BITS);
+                    if (in != null) {
+                        in.removeFirst(encode(node, CALLS));
+                    }
+                    deltaEdges--;
+                }
+            }
+            out.removeType(CALLS);
+        }
+        deltaOps++;
+    }
+
+    /**
+     * 文件路径改写（节点 ID 不变）
+     */
+    public void renameFile(String oldProjectFilePath, String newProjectFilePath) {
+        lock.writeLock().lock();
+        try {
+            renameFileLocked(oldProjectFilePath, newProjectFilePath);
+            journalLocked(() -> renameFileLocked(oldProjectFilePath, newProjectFilePath));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void renameFileLocked(String oldProjectFilePath, String newProjectFilePath) {
+        Integer file = fileIndex.remove(oldProjectFilePath);
+        if (file == null) {
+            return;
+        }
+        Integer existing = fileIndex.get(newProjectFilePath);
+        if (existing == null) {
+            files.set(file, newProjectFilePath);
+            fileIndex.put(newProjectFilePath, file);
+        } else {
+            IntList moved = fileNodes.get(file);
+            IntList target = fileNodes.get(existing);
+            for (int n = 0; n < moved.size(); n++) {
+                int node = moved.get(n);
+                fileOf[node] = existing;
+                target.add(node);
+            }
+            fileNodes.set(file, new IntList());
+        }
+        deltaOps++;
+    }
+
+    /**
+     * 差量操作数（用于判断是否需要合并）
+     */
+    public int deltaOps() {
+        lock.readLock().lock();
+        try {
+            return deltaOps;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 将差量层合并为新的基线（丢弃已删除节点，重新编号）
+     *
+     * 写锁内只冻结当前状态（基线只读，直接引用；复制文件编号、位图和差量边），新 CSR 在锁外构建；
+     * 构建期间的修改照常生效并记入日志，换入新基线后在写锁内重放，读写只在冻结和换入时短暂等待
+     */
+    public void compact() {
+        Base frozenBase;
+        String[] frozenIds;
+        int[] frozenFileOf;
+        String[] frozenFiles;
+        int frozenCount;
+        BitSet frozenDead;
+        BitSet frozenCallsCleared;
+        Map<Integer, IntList> frozenOut;
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                // 已有合并在进行
+                return;
+            }
+            frozenBase = base;
+            // 已分配编号的 ID 不会再被改写，数组扩容后旧数组中的这些位置也保持不变，无需复制
+            frozenIds = ids;
+            frozenCount = nodeCount;
+            frozenFileOf = Arrays.copyOf(fileOf, nodeCount);
+            frozenFiles = files.toArray(new String[0]);
+            frozenDead = (BitSet) dead.clone();
+            frozenCallsCleared = (BitSet) callsCleared.clone();
+            frozenOut = new HashMap<>(addedOut.size() * 2);
+            addedOut.forEach((node, edges) -> frozenOut.put(node, edges.copy()));
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CallGraphSnapshot rebuilt;
+        try {
+            Builder builder = new Builder(offHeap);
+            int[] remap = new int[frozenCount];
+            Arrays.fill(remap, -1);
+            for (int node = 0; node < frozenCount; node++) {
+                if (!frozenDead.get(node)) {
+                    int file = frozenFileOf[node];
+                    remap[node] = builder.internNode(frozenIds[node], file == NO_FILE ? null : frozenFiles[file]);
+                }
+            }
+            for (int node = 0; node < frozenCount; node++) {
+                if (remap[node] < 0) {
+                    continue;
+                }
+                int from = remap[node];
+                if (node < frozenBase.nodeCount) {
+                    boolean skipCalls = frozenCallsCleared.get(node);
+                    for (int i = frozenBase.outOffsets.get(node), end = frozenBase.outOffsets.get(node + 1); i < end; i++) {
+                        int edge = frozenBase.outEdges.get(i);
+                        int type = edge & TYPE_MASK;
+                        int neighbor = edge >>> TYPE_BITS;
+                        if ((skipCalls && type == CALLS) || frozenDead.get(neighbor)) {
+                            continue;
+                        }
+                        builder.addEdge(from, remap[neighbor], type);
+                    }
+                }
+                IntList delta = frozenOut.get(node);
+                if (delta != null) {
+                    for (int i = 0; i < delta.size(); i++) {
+                        int edge = delta.get(i);
+                        int neighbor = edge >>> TYPE_BITS;
+                        if (!frozenDead.get(neighbor)) {
+                            builder.addEdge(from, remap[neighbor], edge & TYPE_MASK);
+                        }
+                    }
+                }
+            }
+            rebuilt = builder.build();
+        } catch (RuntimeException | Error e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Runnable> pending = journal;
+            journal = null;
+            this.ids = rebuilt.ids;
+            this.fileOf = rebuilt.fileOf;
+            this.nodeCount = rebuilt.nodeCount;
+            this.nodeIndex = rebuilt.nodeIndex;
+            this.files = rebuilt.files;
+            this.fileIndex = rebuilt.fileIndex;
+            this.fileNodes = rebuilt.fileNodes;
+            this.base = rebuilt.base;
+            this.dead = new BitSet();
+            this.callsCleared = new BitSet();
+            this.addedOut = new HashMap<>();
+            this.addedIn = new HashMap<>();
+            this.deltaEdges = 0;
+            this.deltaOps = 0;
+            pending.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== 查询 ==========
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return nodeIndex.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 广度优先遍历
+     * @param startId 起点节点 ID
+     * @param reverse true 沿入边（调用方方向），false 沿出边（被调用方方向）
+     * @param maxDepth 最大层数
+     * @param maxNodes 最多返回节点数（不含起点）
+     * @param typeMask 允许的关系类型掩码（1 << 类型）
+     * @return 遍历结果（按层数从小到大），起点不存在时结果为空
+     */
+    public Traversal traverse(String startId, boolean reverse, int maxDepth, int maxNodes, int typeMask) {
+        return traverse(List.of(startId), reverse, maxDepth, maxNodes, typeMask, 0L);
+    }
+
+    /**
+     * 多起点广度优先遍历（记录每个节点的前驱和到达它的关系类型，用于还原路径）
+     * @param startIds 起点节点 ID（不存在的忽略）
+     * @param deadlineNanos 截止时间（System.nanoTime()），0 表示不限时
+     */
+    public Traversal traverse(Collection<String> startIds, boolean reverse, int maxDepth, int maxNodes,
+                              int typeMask, long deadlineNanos) {
+        lock.readLock().lock();
+        try {
+            Traversal traversal = new Traversal();
+            // 按访问顺序记录节点、层数、前驱位置、到达类型，队列即结果（BFS 保证层数非递减）
+            BitSet visited = new BitSet(nodeCount);
+            IntList order = new IntList();
+            IntList depths = new IntList();
+            IntList parents = new IntList();
+            IntList viaTypes = new IntList();
+            for (String startId : startIds) {
+                Integer start = nodeIndex.get(startId);
+                if (start != null && !visited.get(start)) {
+                    visited.set(start);
+                    order.add(start);
+                    depths.add(0);
+                    parents.add(-1);
+                    viaTypes.add(-1);
+                    traversal.startIds.add(startId);
+                }
+            }
+            int startCount = order.size();
+            int[] head = new int[1];
+            boolean[] truncated = new boolean[1];
+            EdgeVisitor visitor = (neighbor, type) -> {
+                if (truncated[0] || visited.get(neighbor)) {
+                    return;
+                }
+                if (order.size() - startCount >= maxNodes) {
+                    truncated[0] = true;
+                    return;
+                }
+                visited.set(neighbor);
+                order.add(neighbor);
+                depths.add(depths.get(head[0]) + 1);
+                parents.add(head[0]);
+                viaTypes.add(type);
+            };
+            for (; head[0] < order.size() && !truncated[0]; head[0]++) {
+                if (depths.get(head[0]) >= maxDepth) {
+                    break;
+                }
+                if (deadlineNanos != 0L && (head[0] & 0x3FF) == 0 && System.nanoTime() > deadlineNanos) {
+                    traversal.timedOut = true;
+                    break;
+                }
+                if (reverse) {
+                    forEachIn(order.get(head[0]), typeMask, visitor);
+                } else {
+                    forEachOut(order.get(head[0]), typeMask, visitor);
+                }
+            }
+
+            for (int i = startCount; i < order.size(); i++) {
+                int node = order.get(i);
+                int parent = parents.get(i);
+                traversal.ids.add(ids[node]);
+                traversal.depths.add(depths.get(i));
+                traversal.files.add(fileOf[node] == NO_FILE ? null : files.get(fileOf[node]));
+                traversal.parents.add(parent < startCount ? -(parent + 1) : parent - startCount);
+                traversal.viaTypes.add(viaTypes.get(i));
+            }
+            traversal.truncated = truncated[0];
+            return traversal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 叠加分支覆盖层的多起点广度优先遍历（覆盖层为空时等同于 {@link #traverse(Collection, boolean, int, int, int, long)}）
+     *
+     * 解析规则（覆盖层优先，其余回落到基线）：
+     * - 覆盖层文件中的节点，以及基线中属于覆盖层文件的节点，出边只取覆盖层中的边
+     * - 基线中属于覆盖层文件、但覆盖层中已不存在的节点不可达（文件删除或函数被删除）
+     * - MATCHES 由端点标识推导而非文件产出，两端可达时保留基线中的边
+     */
+    public Traversal traverse(Collection<String> startIds, boolean reverse, int maxDepth, int maxNodes,
+                              int typeMask, long deadlineNanos, Overlay overlay) {
+        if (overlay == null || overlay.files.isEmpty()) {
+            return traverse(startIds, reverse, maxDepth, maxNodes, typeMask, deadlineNanos);
+        }
+        lock.readLock().lock();
+        try {
+            Traversal traversal = new Traversal();
+            Set<String> visited = new HashSet<>();
+            List<String> order = new ArrayList<>();
+            IntList depths = new IntList();
+            IntList parents = new IntList();
+            IntList viaTypes = new IntList();
+            for (String startId : startIds) {
+                if (liveInOverlay(startId, overlay) && visited.add(startId)) {
+                    order.add(startId);
+                    depths.add(0);
+                    parents.add(-1);
+                    viaTypes.add(-1);
+                    traversal.startIds.add(startId);
+                }
+            }
+            int startCount = order.size();
+            int[] head = new int[1];
+            boolean[] truncated = new boolean[1];
+            IdVisitor visitor = (neighbor, type) -> {
+                if (truncated[0] || visited.contains(neighbor)) {
+                    return;
+                }
+                if (order.size() - startCount >= maxNodes) {
+                    truncated[0] = true;
+                    return;
+                }
+                visited.add(neighbor);
+                order.add(neighbor);
+                depths.add(depths.get(head[0]) + 1);
+                parents.add(head[0]);
+                viaTypes.add(type);
+            };
+            for (; head[0] < order.size() && !truncated[0]; head[0]++) {
+                if (depths.get(head[0]) >= maxDepth) {
+                    break;
+                }
+                if (deadlineNanos != 0L && (head[0] & 0x3FF) == 0 && System.nanoTime() > deadlineNanos) {
+                    traversal.timedOut = true;
+                    break;
+                }
+                if (reverse) {
+                    forEachInOverlay(order.get(head[0]), typeMask, overlay, visitor);
+                } else {
+                    forEachOutOverlay(order.get(head[0]), typeMask, overlay, visitor);
+                }
+            }
+
+            for (int i = startCount; i < order.size(); i++) {
+                String id = order.get(i);
+                int parent = parents.get(i);
+                traversal.ids.add(id);
+                traversal.depths.add(depths.get(i));
+                traversal.files.add(fileInOverlay(id, overlay));
+                traversal.parents.add(parent < startCount ? -(parent + 1) : parent - startCount);
+                traversal.viaTypes.add(viaTypes.get(i));
+            }
+            traversal.truncated = truncated[0];
+            return traversal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("nodes", nodeIndex.size());
+            stats.put("nodeSlots", nodeCount);
+            stats.put("files", fileIndex.size());
+            Base current = base;
+            stats.put("baseEdges", current.outEdges != null ? current.outEdges.capacity() : 0);
+            stats.put("deltaEdges", deltaEdges);
+            stats.put("deltaOps", deltaOps);
+            stats.put("offHeap", offHeap);
+            long csrBytes = 4L * (capacity(current.outOffsets) + capacity(current.outEdges)
+                + capacity(current.inOffsets) + capacity(current.inEdges));
+            stats.put("csrBytes", csrBytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 内部方法 ==========
+
+    private void forEachOut(int node, int typeMask, EdgeVisitor visitor) {
+        Base current = base;
+        if (node < current.nodeCount) {
+            boolean skipCalls = callsCleared.get(node);
+            for (int i = current.outOffsets.get(node), end = current.outOffsets.get(node + 1); i < end; i++) {
+                int edge = current.outEdges.get(i);
+                int type = edge & TYPE_MASK;
+                if (skipCalls && type == CALLS) {
+                    continue;
+                }
+                emit(edge >>> TYPE_BITS, type, typeMask, visitor);
+            }
+        }
+        IntList delta = addedOut.isEmpty() ? null : addedOut.get(node);
+        if (delta != null) {
+            for (int i = 0; i < delta.size(); i++) {
+                int edge = delta.get(i);
+                emit(edge >>> TYPE_BITS, edge & TYPE_MASK, typeMask, visitor);
+            }
+        }
+    }
+
+    private void forEachIn(int node, int typeMask, EdgeVisitor visitor) {
+        Base current = base;
+        if (node < current.nodeCount) {
+            for (int i = current.inOffsets.get(node), end = current.inOffsets.get(node + 1); i < end; i++) {
+                int edge = current.inEdges.get(i);
+                int source = edge >>> TYPE_BITS;
+                int type = edge & TYPE_MASK;
+                if (type == CALLS && callsCleared.get(source)) {
+                    continue;
+                }
+                emit(source, type, typeMask, visitor);
+            }
+        }
+        IntList delta = addedIn.isEmpty() ? null : addedIn.get(node);
+        if (delta != null) {
+            for (int i = 0; i < delta.size(); i++) {
+                int edge = delta.get(i);
+                emit(edge >>> TYPE_BITS, edge & TYPE_MASK, typeMask, visitor);
+            }
+        }
+    }
+
+    private void forEachOutOverlay(String id, int typeMask, Overlay overlay, IdVisitor visitor) {
+        Integer node = nodeIndex.get(id);
+        boolean overridden = overriddenInOverlay(id, node, overlay);
+        if (node != null) {
+            int mask = overridden ? typeMask & (1 << MATCHES) : typeMask;
+            forEachOut(node, mask, (neighbor, type) -> {
+                if (liveInOverlay(neighbor, overlay)) {
+                    visitor.visit(ids[neighbor], type);
+                }
+            });
+        }
+        if (overridden) {
+            overlay.forEach(overlay.out, id, typeMask, visitor);
+        }
+    }
+
+    private void forEachInOverlay(String id, int typeMask, Overlay overlay, IdVisitor visitor) {
+        Integer node = nodeIndex.get(id);
+        if (node != null) {
+            forEachIn(node, typeMask, (source, type) -> {
+                String sourceId = ids[source];
+                if (type == MATCHES
+                    ? liveInOverlay(source, overlay)
+                    : !overriddenInOverlay(sourceId, source, overlay)) {
+                    visitor.visit(sourceId, type);
+                }
+            });
+        }
+        overlay.forEach(overlay.in, id, typeMask, visitor);
+    }
+
+    /**
+     * 节点由覆盖层定义：覆盖层中有该节点，或基线中该节点属于覆盖层文件
+     */
+    private boolean overriddenInOverlay(String id, Integer node, Overlay overlay) {
+        return overlay.nodes.containsKey(id)
+            || (node != null && fileOf[node] != NO_FILE && overlay.files.contains(files.get(fileOf[node])));
+    }
+
+    private boolean liveInOverlay(String id, Overlay overlay) {
+        if (overlay.nodes.containsKey(id) || overlay.out.containsKey(id) || overlay.in.containsKey(id)) {
+            return true;
+        }
+        Integer node = nodeIndex.get(id);
+        return node != null && liveInOverlay(node, overlay);
+    }
+
+    /**
+     * 基线节点在覆盖层下是否可达：不属于覆盖层文件，或在覆盖层中仍然存在（含覆盖层边引用的占位符）
+     */
+    private boolean liveInOverlay(int node, Overlay overlay) {
+        if (fileOf[node] == NO_FILE || !overlay.files.contains(files.get(fileOf[node]))) {
+            return true;
+        }
+        String id = ids[node];
+        return overlay.nodes.containsKey(id) || overlay.in.containsKey(id);
+    }
+
+    private String fileInOverlay(String id, Overlay overlay) {
+        String file = overlay.nodes.get(id);
+        if (file != null) {
+            return file;
+        }
+        Integer node = nodeIndex.get(id);
+        return node == null || fileOf[node] == NO_FILE ? null : files.get(fileOf[node]);
+    }
+
+    private void emit(int neighbor, int type, int typeMask, EdgeVisitor visitor) {
+        if ((typeMask & (1 << type)) == 0 || dead.get(neighbor)) {
+            return;
+        }
+        visitor.visit(neighbor, type);
+    }
+
+    private int internLocked(String id) {
+        Integer existing = nodeIndex.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (nodeCount == ids.length) {
+            int capacity = Math.max(16, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            fileOf = Arrays.copyOf(fileOf, capacity);
+        }
+        int node = nodeCount++;
+        ids[node] = id;
+        fileOf[node] = NO_FILE;
+        nodeIndex.put(id, node);
+        return node;
+    }
+
+    private int fileLocked(String projectFilePath) {
+        if (projectFilePath == null) {
+            return NO_FILE;
+        }
+        return fileIndex.computeIfAbsent(projectFilePath, k -> {
+            files.add(k);
+            fileNodes.add(new IntList());
+            return files.size() - 1;
+        });
+    }
+
+    /**
+     * 合并进行中时记录修改，换入新基线后重放
+     */
+    private void journalLocked(Runnable op) {
+        if (journal != null) {
+            journal.add(op);
+        }
+    }
+
+    private static int capacity(IntBuffer buffer) {
+        return buffer != null ? buffer.capacity() : 0;
+    }
+
+    private static int encode(int node, int type) {
+        return (node << TYPE_BITS) | type;
+    }
+
+    /**
+     * 基线 CSR：节点数和正反向 offsets/edges，构建后不再修改
+     */
+    private record Base(int nodeCount, IntBuffer outOffsets, IntBuffer outEdges, IntBuffer inOffsets, IntBuffer inEdges) {
+        private static final Base EMPTY = new Base(0, null, null, null, null);
+    }
+
+    @FunctionalInterface
+    private interface EdgeVisitor {
+        void visit(int neighbor, int type);
+    }
+
+    @FunctionalInterface
+    private interface IdVisitor {
+        void visit(String neighborId, int type);
+    }
+
+    /**
+     * 分支覆盖层视图：覆盖层分支中与基线内容不同的文件（含已删除文件）及其节点和边
+     * 与快照本身无关，可被多个快照版本复用；构建完成后只读
+     */
+    public static class Overlay {
+        private final Set<String> files = new HashSet<>();
+        private final Map<String, String> nodes = new HashMap<>();
+        private final Map<String, List<Link>> out = new HashMap<>();
+        private final Map<String, List<Link>> in = new HashMap<>();
+        private int edgeCount;
+
+        /**
+         * 登记覆盖层文件（修改、新增或删除），基线中该文件的节点和出边不再生效
+         */
+        public Overlay addFile(String projectFilePath) {
+            files.add(projectFilePath);
+            return this;
+        }
+
+        public Overlay addNode(String id, String projectFilePath) {
+            nodes.put(id, projectFilePath);
+            return this;
+        }
+
+        /**
+         * 添加边（类型不参与快照时忽略）
+         */
+        public Overlay addEdge(String fromId, String toId, String relationshipType) {
+            int type = typeOf(relationshipType);
+            if (type >= 0) {
+                out.computeIfAbsent(fromId, k -> new ArrayList<>()).add(new Link(toId, type));
+                in.computeIfAbsent(toId, k -> new ArrayList<>()).add(new Link(fromId, type));
+                edgeCount++;
+            }
+            return this;
+        }
+
+        public int fileCount() {
+            return files.size();
+        }
+
+        public int nodeCount() {
+            return nodes.size();
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        private void forEach(Map<String, List<Link>> links, String id, int typeMask, IdVisitor visitor) {
+            List<Link> list = links.get(id);
+            if (list == null) {
+                return;
+            }
+            for (Link link : list) {
+                if ((typeMask & (1 << link.type)) != 0) {
+                    visitor.visit(link.id, link.type);
+                }
+            }
+        }
+    }
+
+    private static final class Link {
+        private final String id;
+        private final int type;
+
+        private Link(String id, int type) {
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    /**
+     * 遍历结果（不含起点）
+     * parents[i] >= 0 表示前驱为结果中第 parents[i] 个节点，< 0 表示前驱为起点 startIds[-parents[i] - 1]
+     */
+    @Getter
+    public static class Traversal {
+        private final List<String> startIds = new ArrayList<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<Integer> depths = new ArrayList<>();
+        private final List<String> files = new ArrayList<>();
+        private final List<Integer> parents = new ArrayList<>();
+        private final List<Integer> viaTypes = new ArrayList<>();
+        private boolean truncated;
+        private boolean timedOut;
+
+        /**
+         * 还原从起点到第 index 个结果节点的路径（起点在前）
+         */
+        public List<String> pathTo(int index) {
+            java.util.LinkedList<String> path = new java.util.LinkedList<>();
+            int current = index;
+            while (current >= 0) {
+                path.addFirst(ids.get(current));
+                current = parents.get(current);
+            }
+            path.addFirst(startIds.get(-current - 1));
+            return path;
+        }
+    }
+
+    /**
+     * 快照构建器：流式接收节点和边，最后一次性生成 CSR
+     */
+    public static class Builder {
+
+        private final boolean offHeap;
+        private String[] ids = new String[1024];
+        private int[] fileOf = new int[1024];
+        private int nodeCount;
+        private final Map<String, Integer> nodeIndex = new HashMap<>();
+        private final List<String> files = new ArrayList<>();
+        private final Map<String, Integer> fileIndex = new HashMap<>();
+        private final IntList edgeFrom = new IntList();
+        private final IntList edgeTo = new IntList();
+
+        private Builder(boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+
+        /**
+         * 添加节点（重复添加时更新所属文件）
+         */
+        public Builder addNode(String id, String projectFilePath) {
+            internNode(id, projectFilePath);
+            return this;
+        }
+
+        /**
+         * 添加边（类型不参与快照时忽略）
+         */
+        public Builder addEdge(String fromId, String toId, String relationshipType) {
+            int type = typeOf(relationshipType);
+            if (type >= 0) {
+                addEdge(internNode(fromId, null), internNode(toId, null), type);
+            }
+            return this;
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeFrom.size();
+        }
+
+        public CallGraphSnapshot build() {
+            CallGraphSnapshot snapshot = new CallGraphSnapshot(offHeap,
+                Arrays.copyOf(ids, Math.max(16, nodeCount)), Arrays.copyOf(fileOf, Math.max(16, nodeCount)),
+                nodeCount, nodeIndex, files, fileIndex);
+
+            int[] outCounts = new int[nodeCount + 1];
+            int[] inCounts = new int[nodeCount + 1];
+            for (int i = 0; i < edgeFrom.size(); i++) {
+                outCounts[edgeFrom.get(i) + 1]++;
+                inCounts[(edgeTo.get(i) >>> TYPE_BITS) + 1]++;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                outCounts[i + 1] += outCounts[i];
+                inCounts[i + 1] += inCounts[i];
+            }
+            IntBuffer outOffsets = allocate(nodeCount + 1).put(outCounts);
+            IntBuffer inOffsets = allocate(nodeCount + 1).put(inCounts);
+
+            IntBuffer outEdges = allocate(edgeFrom.size());
+            IntBuffer inEdges = allocate(edgeFrom.size());
+            int[] outCursor = Arrays.copyOf(outCounts, nodeCount);
+            int[] inCursor = Arrays.copyOf(inCounts, nodeCount);
+            for (int i = 0; i < edgeFrom.size(); i++) {
+                int from = edgeFrom.get(i);
+                int encodedTo = edgeTo.get(i);
+                int to = encodedTo >>> TYPE_BITS;
+                outEdges.put(outCursor[from]++, encodedTo);
+                inEdges.put(inCursor[to]++, encode(from, encodedTo & TYPE_MASK));
+            }
+            snapshot.base = new Base(nodeCount, outOffsets, outEdges, inOffsets, inEdges);
+            return snapshot;
+        }
+
+        private int internNode(String id, String projectFilePath) {
+            Integer node = nodeIndex.get(id);
+            if (node == null) {
+                if (nodeCount == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                    fileOf = Arrays.copyOf(fileOf, fileOf.length * 2);
+                }
+                node = nodeCount++;
+                ids[node] = id;
+                fileOf[node] = NO_FILE;
+                nodeIndex.put(id, node);
+            }
+            if (projectFilePath != null) {
+                fileOf[node] = fileIndex.computeIfAbsent(projectFilePath, k -> {
+                    files.add(k);
+                    return files.size() - 1;
+                });
+            }
+            return node;
+        }
+
+        private void addEdge(int from, int to, int type) {
+            edgeFrom.add(from);
+            edgeTo.add(encode(to, type));
+        }
+
+        private IntBuffer allocate(int size) {
+            return offHeap
+                ? ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asIntBuffer()
+                : IntBuffer.allocate(size);
+        }
+    }
+
+    /**
+     * 可增长的 int 列表（避免装箱）
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        IntList copy() {
+            IntList copy = new IntList();
+            copy.values = Arrays.copyOf(values, Math.max(4, size));
+            copy.size = size;
+            return copy;
+        }
+
+        void removeFirst(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    System.arraycopy(values, i + 1, values, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        void removeType(int type) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if ((values[i] & TYPE_MASK) != type) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+    }
+}
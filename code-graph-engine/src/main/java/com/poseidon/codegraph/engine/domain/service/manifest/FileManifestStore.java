@@ -0,0 +1,41 @@
+package com.poseidon.codegraph.engine.domain.service.manifest;
+
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 文件清单存储
+ * 由写路径同步维护（write-through），未命中时由调用方从图数据库重建后回填。
+ * 清单按命名空间隔离（由调用方决定，包含目标库、图数据库代次和代码范围），不同命名空间下同一路径互不影响
+ */
+public interface FileManifestStore {
+    
+    /**
+     * 读取文件清单
+     * @return 清单，未缓存时返回 null
+     */
+    FileManifest get(String namespace, String projectFilePath);
+    
+    /**
+     * 保存文件清单（覆盖）
+     */
+    void put(String namespace, FileManifest manifest);
+    
+    /**
+     * 删除文件清单
+     */
+    void remove(String namespace, String projectFilePath);
+    
+    /**
+     * 删除命名空间满足条件的全部清单（范围删除、项目迁移、图数据库被清空时调用）
+     * @return 删除的命名空间数
+     */
+    int removeNamespaces(Predicate<String> filter);
+    
+    /**
+     * 导出指标快照
+     */
+    Map<String, Object> snapshot();
+}
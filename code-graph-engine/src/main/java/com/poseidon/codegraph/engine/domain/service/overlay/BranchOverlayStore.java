@@ -0,0 +1,45 @@
+package com.poseidon.codegraph.engine.domain.service.overlay;
+
+import com.poseidon.codegraph.engine.domain.model.OverlayFile;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分支覆盖层存储
+ * 按范围 ID 保存覆盖层分支中与基线内容不同的文件，读取时覆盖层优先、其余文件回落到基线
+ */
+public interface BranchOverlayStore {
+    
+    /**
+     * 读取覆盖层中的文件
+     * @return 文件，不在覆盖层中（与基线相同）时返回 null
+     */
+    OverlayFile get(int scopeId, String projectFilePath);
+    
+    /**
+     * 覆盖层中的全部文件
+     */
+    List<OverlayFile> list(int scopeId);
+    
+    /**
+     * 保存文件（覆盖）
+     */
+    void put(int scopeId, OverlayFile file);
+    
+    /**
+     * 移除文件（文件内容回到与基线相同）
+     */
+    void remove(int scopeId, String projectFilePath);
+    
+    /**
+     * 删除整个覆盖层
+     * @return 删除的文件数
+     */
+    int drop(int scopeId);
+    
+    /**
+     * 导出指标快照
+     */
+    Map<String, Object> snapshot();
+}
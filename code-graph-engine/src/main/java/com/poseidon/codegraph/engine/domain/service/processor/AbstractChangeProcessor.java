@@ -6,6 +6,7 @@ import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
 import com.poseidon.codegraph.engine.domain.model.event.CodeChangeEvent;
 import com.poseidon.codegraph.engine.domain.parser.SourceCodeParser;
 import com.poseidon.codegraph.engine.domain.parser.JdtSourceCodeParser;
+import com.poseidon.codegraph.engine.domain.service.graph.BoundedGraphSink;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
@@ -34,18 +35,21 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
                 context.getClasspathEntries(),
                 context.getSourcepathEntries(),
                 context.getEnrichers()
-            );
+            ).withBudget(context.getParseBudget(), context.getParseMetrics())
+             .withCache(context.getParseResultCache(), context.getChangeType() == ChangeType.CASCADE_UPDATE);
         } else {
             return new JdtSourceCodeParser(
                 context.getClasspathEntries(),
                 context.getSourcepathEntries()
-            );
+            ).withBudget(context.getParseBudget(), context.getParseMetrics())
+             .withCache(context.getParseResultCache(), context.getChangeType() == ChangeType.CASCADE_UPDATE);
         }
     }
     
     protected CodeGraph parseFile(CodeGraphContext context, String absoluteFilePath, String projectFilePath) {
-        return createParser(context).parse(
-            absoluteFilePath, 
+        return createParser(context).parseSource(
+            resolveSource(context, projectFilePath),
+            context.hasAbsoluteFilePath() ? absoluteFilePath : null,
             context.getProjectName(), 
             projectFilePath,
             context.getGitRepoUrl(),
@@ -53,146 +57,92 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
         );
     }
     
-    protected void saveNodes(CodeGraph graph, CodeGraphContext context) {
-        // 批量保存：先查询是否存在，存在则更新，不存在则插入
-        
-        // 1. 处理 Packages
-        java.util.List<CodePackage> packages = graph.getPackagesAsList();
-        if (!packages.isEmpty()) {
-            savePackagesWithCheck(packages, context);
-        }
-        
-        // 2. 处理 Units
-        java.util.List<CodeUnit> units = graph.getUnitsAsList();
-        if (!units.isEmpty()) {
-            saveUnitsWithCheck(units, context);
-        }
-        
-        // 3. 处理 Functions
-        java.util.List<CodeFunction> functions = graph.getFunctionsAsList();
-        if (!functions.isEmpty()) {
-            saveFunctionsWithCheck(functions, context);
-        }
-        
-        // 4. 处理 Endpoints（端点）
-        java.util.List<CodeEndpoint> endpoints = graph.getEndpointsAsList();
-        if (!endpoints.isEmpty()) {
-            saveEndpointsWithCheck(endpoints, context);
-            // 保存端点后，尝试创建 MATCHES 关系
-            createEndpointMatchRelationships(endpoints, context);
-        }
-        
-        // 5. 处理结构关系（BELONGS_TO 和端点关系）
-        java.util.List<CodeRelationship> allRelationships = graph.getRelationshipsAsList();
-        java.util.List<CodeRelationship> structureRelationships = allRelationships.stream()
-            .filter(rel -> rel.getRelationshipType() == RelationshipType.PACKAGE_TO_UNIT 
-                       || rel.getRelationshipType() == RelationshipType.UNIT_TO_FUNCTION
-                       || rel.getRelationshipType() == RelationshipType.ENDPOINT_TO_FUNCTION
-                       || rel.getRelationshipType() == RelationshipType.FUNCTION_TO_ENDPOINT)
-            .collect(java.util.stream.Collectors.toList());
-        
-        if (!structureRelationships.isEmpty()) {
-            saveStructureRelationshipsWithCheck(structureRelationships, context);
-        }
-    }
-    
     /**
-     * 批量保存包：先查询存在性，然后分离插入/更新
+     * 获取文件内容，优先级：
+     * 1. 请求中直接提供的内容
+     * 2. 请求中显式提供的绝对路径
+     * 3. 文件内容存储中该文件最近一次的内容（级联更新没有原始路径）
+     * 4. 推导出的绝对路径
      */
-    private void savePackagesWithCheck(java.util.List<CodePackage> packages, CodeGraphContext context) {
-        // 查询哪些包已存在
-        java.util.List<String> packageIds = packages.stream()
-            .map(CodePackage::getId)
-            .collect(java.util.stream.Collectors.toList());
-        java.util.Set<String> existingIds = context.getReader()
-            .getFindExistingPackagesByQualifiedNames()
-            .apply(packageIds);
-        
-        // 分离需要插入和更新的包
-        java.util.List<CodePackage> toInsert = new java.util.ArrayList<>();
-        java.util.List<CodePackage> toUpdate = new java.util.ArrayList<>();
-        
-        for (CodePackage pkg : packages) {
-            if (existingIds.contains(pkg.getId())) {
-                toUpdate.add(pkg);
-            } else {
-                toInsert.add(pkg);
+    protected String resolveSource(CodeGraphContext context, String projectFilePath) {
+        if (context.getSourceContent() != null && projectFilePath.equals(context.getProjectFilePath())) {
+            return context.getSourceContent();
+        }
+        if (context.hasAbsoluteFilePath()) {
+            return readSource(context.getAbsoluteFilePath());
+        }
+        if (context.getFileContentStore() != null) {
+            String content = context.getFileContentStore()
+                .get(context.getGitRepoUrl(), context.getGitBranch(), projectFilePath);
+            if (content != null) {
+                log.debug("从文件内容存储读取: file={}", projectFilePath);
+                return content;
             }
         }
-        
-        // 批量插入和更新
-        if (!toInsert.isEmpty()) {
-            context.getWriter().getInsertPackagesBatch().accept(toInsert);
-        }
-        if (!toUpdate.isEmpty()) {
-            context.getWriter().getUpdatePackagesBatch().accept(toUpdate);
-        }
+        return readSource(context.getAbsoluteFilePath());
     }
     
     /**
-     * 批量保存单元：先查询存在性，然后分离插入/更新
+     * 读取源文件内容
      */
-    private void saveUnitsWithCheck(java.util.List<CodeUnit> units, CodeGraphContext context) {
-        // 查询哪些单元已存在
-        java.util.List<String> unitIds = units.stream()
-            .map(CodeUnit::getId)
-            .collect(java.util.stream.Collectors.toList());
-        java.util.Set<String> existingIds = context.getReader()
-            .getFindExistingUnitsByQualifiedNames()
-            .apply(unitIds);
-        
-        // 分离需要插入和更新的单元
-        java.util.List<CodeUnit> toInsert = new java.util.ArrayList<>();
-        java.util.List<CodeUnit> toUpdate = new java.util.ArrayList<>();
-        
-        for (CodeUnit unit : units) {
-            if (existingIds.contains(unit.getId())) {
-                toUpdate.add(unit);
-            } else {
-                toInsert.add(unit);
-            }
-        }
-        
-        // 批量插入和更新
-        if (!toInsert.isEmpty()) {
-            context.getWriter().getInsertUnitsBatch().accept(toInsert);
-        }
-        if (!toUpdate.isEmpty()) {
-            context.getWriter().getUpdateUnitsBatch().accept(toUpdate);
+    protected String readSource(String absoluteFilePath) {
+        try {
+            return java.nio.file.Files.readString(java.nio.file.Path.of(absoluteFilePath));
+        } catch (java.io.IOException e) {
+            log.error("文件读取失败: file={}, error={}", absoluteFilePath, e.getMessage());
+            throw new RuntimeException("读取文件失败: " + absoluteFilePath, e);
         }
     }
     
-    /**
-     * 批量保存函数：先查询存在性，然后分离插入/更新
-     */
-    private void saveFunctionsWithCheck(java.util.List<CodeFunction> functions, CodeGraphContext context) {
-        // 查询哪些函数已存在
-        java.util.List<String> functionIds = functions.stream()
-            .map(CodeFunction::getId)
-            .collect(java.util.stream.Collectors.toList());
-        java.util.Set<String> existingIds = context.getReader()
-            .getFindExistingFunctionsByQualifiedNames()
-            .apply(functionIds);
-        
-        // 分离需要插入和更新的函数
-        java.util.List<CodeFunction> toInsert = new java.util.ArrayList<>();
-        java.util.List<CodeFunction> toUpdate = new java.util.ArrayList<>();
-        
-        for (CodeFunction func : functions) {
-            if (existingIds.contains(func.getId())) {
-                toUpdate.add(func);
-            } else {
-                toInsert.add(func);
+    protected void saveNodes(CodeGraph graph, CodeGraphContext context) {
+        // 按批推送：每类节点每批一次 MERGE 写入，不再先查询存在性；关系批次写出前先写出已缓冲的节点
+        graph.emitTo(new BoundedGraphSink(context.getWriteBatchSize(), new BoundedGraphSink.BatchHandler() {
+            @Override
+            public void onPackages(java.util.List<CodePackage> packages) {
+                context.getWriter().getUpsertPackagesBatch().accept(packages);
             }
-        }
-        
-        // 批量插入和更新
-        if (!toInsert.isEmpty()) {
-            context.getWriter().getInsertFunctionsBatch().accept(toInsert);
-        }
-        if (!toUpdate.isEmpty()) {
-            context.getWriter().getUpdateFunctionsBatch().accept(toUpdate);
-        }
+            
+            @Override
+            public void onUnits(java.util.List<CodeUnit> units) {
+                context.getWriter().getUpsertUnitsBatch().accept(units);
+            }
+            
+            @Override
+            public void onFunctions(java.util.List<CodeFunction> functions) {
+                context.getWriter().getUpsertFunctionsBatch().accept(functions);
+            }
+            
+            @Override
+            public void onEndpoints(java.util.List<CodeEndpoint> endpoints) {
+                saveEndpoints(endpoints, context);
+                if (context.getHttpRouteIndex() != null) {
+                    endpoints.forEach(context.getHttpRouteIndex()::add);
+                }
+                // 保存端点后，尝试创建 MATCHES 关系
+                createEndpointMatchRelationships(endpoints, context);
+            }
+            
+            @Override
+            public void onRelationships(java.util.List<CodeRelationship> relationships) {
+                // 只写结构关系（BELONGS_TO 和端点关系），CALLS 由 rebuildFileCallRelationships 处理
+                java.util.List<CodeRelationship> structureRelationships = new java.util.ArrayList<>();
+                for (CodeRelationship rel : relationships) {
+                    if (isStructureRelationship(rel.getRelationshipType())) {
+                        structureRelationships.add(rel);
+                    }
+                }
+                if (!structureRelationships.isEmpty()) {
+                    context.getWriter().getUpsertRelationshipsBatch().accept(structureRelationships);
+                }
+            }
+        }));
+    }
+    
+    private static boolean isStructureRelationship(RelationshipType type) {
+        return type == RelationshipType.PACKAGE_TO_UNIT
+            || type == RelationshipType.UNIT_TO_FUNCTION
+            || type == RelationshipType.ENDPOINT_TO_FUNCTION
+            || type == RelationshipType.FUNCTION_TO_ENDPOINT;
     }
     
     /**
@@ -202,6 +152,8 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
      * - 只在两端都存在时才创建关系
      * - 不创建 placeholder 端点
      * - 双向关系：outbound ↔ inbound
+     * - 一次查询取回所有对端，一次批量写入所有关系（往返次数与端点数量无关）
+     * - HTTP 端点额外通过内存路由索引按路径模板匹配（如 /api/users/{param} ↔ /api/users/{id}/）
      */
     private void createEndpointMatchRelationships(java.util.List<CodeEndpoint> endpoints, CodeGraphContext context) {
         if (endpoints.isEmpty()) {
@@ -210,28 +162,43 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
         
         log.info("开始创建端点匹配关系，共 {} 个端点", endpoints.size());
         
-        java.util.List<CodeRelationship> matchRelationships = new java.util.ArrayList<>();
-        
+        // 1. 收集查询键：每个端点查找 matchIdentity 相同、方向相反的对端
+        java.util.Map<String, EndpointMatchKey> keys = new java.util.LinkedHashMap<>();
         for (CodeEndpoint endpoint : endpoints) {
             // 只处理有 matchIdentity 的端点
             if (endpoint.getMatchIdentity() == null || endpoint.getMatchIdentity().isEmpty()) {
                 log.debug("端点没有 matchIdentity，跳过: {}", endpoint.getId());
                 continue;
             }
-            
-            // 根据方向查找匹配的对端
-            String targetDirection = "inbound".equals(endpoint.getDirection()) ? "outbound" : "inbound";
-            
-            // 查询数据库中所有匹配的对端端点
-            java.util.List<CodeEndpoint> matchingEndpoints = context.getReader()
-                .getFindEndpointsByMatchIdentity()
-                .apply(endpoint.getMatchIdentity(), targetDirection);
+            String targetDirection = oppositeDirection(endpoint.getDirection());
+            keys.putIfAbsent(matchKey(endpoint.getMatchIdentity(), targetDirection),
+                new EndpointMatchKey(endpoint.getMatchIdentity(), targetDirection));
+        }
+        
+        // 2. 批量查询所有对端端点，按 (matchIdentity, direction) 分组
+        java.util.Map<String, java.util.List<CodeEndpoint>> candidatesByKey = keys.isEmpty()
+            ? java.util.Collections.emptyMap()
+            : context.getReader()
+                .getFindEndpointsByMatchIdentities()
+                .apply(new java.util.ArrayList<>(keys.values()))
+                .stream()
+                .collect(java.util.stream.Collectors.groupingBy(
+                    e -> matchKey(e.getMatchIdentity(), e.getDirection())));
+        
+        // 3. 为每个匹配的对端创建 MATCHES 关系（按端点对去重）
+        java.util.Map<String, CodeRelationship> matchRelationships = new java.util.LinkedHashMap<>();
+        for (CodeEndpoint endpoint : endpoints) {
+            if (endpoint.getMatchIdentity() == null || endpoint.getMatchIdentity().isEmpty()) {
+                continue;
+            }
+            String targetDirection = oppositeDirection(endpoint.getDirection());
+            java.util.List<CodeEndpoint> matchingEndpoints = candidatesByKey.getOrDefault(
+                matchKey(endpoint.getMatchIdentity(), targetDirection), java.util.Collections.emptyList());
             
             log.debug("端点 {} ({}) 找到 {} 个匹配的 {} 端点",
                 endpoint.getName(), endpoint.getDirection(), 
                 matchingEndpoints.size(), targetDirection);
             
-            // 为每个匹配的对端创建 MATCHES 关系
             for (CodeEndpoint matchingEndpoint : matchingEndpoints) {
                 CodeRelationship rel = new CodeRelationship();
                 rel.setId(java.util.UUID.randomUUID().toString());
@@ -247,104 +214,145 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
                 }
                 
                 rel.setLanguage("java");
-                matchRelationships.add(rel);
-                
-                log.debug("创建 MATCHES 关系: {} ({}) -> {} ({})",
-                    endpoint.getName(), endpoint.getDirection(),
-                    matchingEndpoint.getName(), matchingEndpoint.getDirection());
+                matchRelationships.putIfAbsent(rel.getFromNodeId() + "->" + rel.getToNodeId(), rel);
             }
         }
         
-        // 批量保存 MATCHES 关系
+        // 4. HTTP 端点按路径模板匹配（路由索引）
+        if (context.getHttpRouteIndex() != null) {
+            for (CodeEndpoint endpoint : endpoints) {
+                boolean outbound = "outbound".equals(endpoint.getDirection());
+                for (String matchedId : context.getHttpRouteIndex().match(endpoint)) {
+                    CodeRelationship rel = new CodeRelationship();
+                    rel.setId(java.util.UUID.randomUUID().toString());
+                    rel.setRelationshipType(RelationshipType.MATCHES);
+                    rel.setFromNodeId(outbound ? endpoint.getId() : matchedId);
+                    rel.setToNodeId(outbound ? matchedId : endpoint.getId());
+                    rel.setLanguage("java");
+                    matchRelationships.putIfAbsent(rel.getFromNodeId() + "->" + rel.getToNodeId(), rel);
+                }
+            }
+        }
+        
+        // 5. 批量保存 MATCHES 关系（仓储层对 MATCHES 使用 UNWIND + MERGE）
         if (!matchRelationships.isEmpty()) {
-            context.getWriter().getInsertRelationshipsBatch().accept(matchRelationships);
+            context.getWriter().getInsertRelationshipsBatch().accept(new java.util.ArrayList<>(matchRelationships.values()));
             log.info("✓ 端点匹配关系创建完成: 共创建 {} 个 MATCHES 关系", matchRelationships.size());
+            // 6. 刷新这些端点涉及的服务依赖
+            refreshServiceDependencies(findServicePairs(endpoints, context), context);
         } else {
             log.info("✓ 没有匹配的端点，无需创建 MATCHES 关系");
         }
     }
     
     /**
-     * 批量保存端点：先去重，再查询存在性，最后只插入新端点
-     * 注意：端点属性稳定，不需要更新已存在的端点
+     * 查询端点的 MATCHES 关系涉及的服务对（未注入服务拓扑能力时返回空）
      */
-    private void saveEndpointsWithCheck(java.util.List<CodeEndpoint> endpoints, CodeGraphContext context) {
-        // 1. 先按 ID 去重（同一次解析中，相同 ID 的端点只保留第一个）
-        java.util.Map<String, CodeEndpoint> uniqueEndpoints = new java.util.LinkedHashMap<>();
-        for (CodeEndpoint endpoint : endpoints) {
-            uniqueEndpoints.putIfAbsent(endpoint.getId(), endpoint);
-        }
-        
-        java.util.List<CodeEndpoint> deduplicatedEndpoints = new java.util.ArrayList<>(uniqueEndpoints.values());
-        
-        log.info("端点去重：原始 {} 个，去重后 {} 个", 
-            endpoints.size(), deduplicatedEndpoints.size());
-        
-        // 2. 查询哪些端点已在数据库中存在
-        java.util.List<String> endpointIds = deduplicatedEndpoints.stream()
+    private java.util.List<com.poseidon.codegraph.engine.domain.model.ServicePair> findServicePairs(
+            java.util.List<CodeEndpoint> endpoints, CodeGraphContext context) {
+        return findServicePairsByIds(endpoints.stream()
             .map(CodeEndpoint::getId)
-            .collect(java.util.stream.Collectors.toList());
-        
-        java.util.Set<String> existingIds = context.getReader()
-            .getFindExistingEndpointsByIds()
-            .apply(endpointIds);
-        
-        // 3. 只插入不存在的端点（跳过已存在的）
-        java.util.List<CodeEndpoint> toInsert = deduplicatedEndpoints.stream()
-            .filter(e -> !existingIds.contains(e.getId()))
-            .collect(java.util.stream.Collectors.toList());
-        
-        // 批量插入新端点
-        if (!toInsert.isEmpty()) {
-            context.getWriter().getInsertEndpointsBatch().accept(toInsert);
+            .distinct()
+            .collect(java.util.stream.Collectors.toList()), context);
+    }
+    
+    private java.util.List<com.poseidon.codegraph.engine.domain.model.ServicePair> findServicePairsByIds(
+            java.util.List<String> endpointIds, CodeGraphContext context) {
+        if (endpointIds.isEmpty() || context.getReader().getFindServicePairsByEndpointIds() == null) {
+            return new java.util.ArrayList<>();
         }
-        
-        log.info("端点保存完成：去重后 {} 个，新插入 {} 个，已存在 {} 个（跳过）",
-            deduplicatedEndpoints.size(), toInsert.size(), existingIds.size());
+        return context.getReader().getFindServicePairsByEndpointIds().apply(endpointIds);
     }
     
     /**
-     * 批量保存结构关系：先查询存在性，再分离插入
+     * 按当前 MATCHES 关系刷新服务对的 DEPENDS_ON 依赖（只统计受影响的服务对，不做全量重算）
      */
-    private void saveStructureRelationshipsWithCheck(java.util.List<CodeRelationship> relationships, CodeGraphContext context) {
-        if (relationships.isEmpty()) {
+    private void refreshServiceDependencies(java.util.List<com.poseidon.codegraph.engine.domain.model.ServicePair> pairs,
+                                            CodeGraphContext context) {
+        if (pairs.isEmpty() || context.getWriter().getRefreshServiceDependencies() == null) {
             return;
         }
-        
-        // 查询哪些结构关系已存在
-        java.util.List<com.poseidon.codegraph.engine.application.model.CodeRelationshipDO> relationshipDOs = relationships.stream()
-            .map(com.poseidon.codegraph.engine.application.converter.CodeGraphConverter::toDO)
-            .collect(java.util.stream.Collectors.toList());
-        
-        java.util.Set<String> existingKeys = context.getReader().getFindExistingStructureRelationships() != null
-            ? context.getReader().getFindExistingStructureRelationships().apply(relationshipDOs)
-            : new java.util.HashSet<>();
-        
-        // 分离需要插入的关系
-        java.util.List<CodeRelationship> toInsert = new java.util.ArrayList<>();
-        
-        for (CodeRelationship rel : relationships) {
-            String key = rel.getFromNodeId() + ":" + rel.getToNodeId() + ":" + rel.getRelationshipType();
-            if (!existingKeys.contains(key)) {
-                toInsert.add(rel);
-            }
+        context.getWriter().getRefreshServiceDependencies().accept(pairs);
+    }
+    
+    private static String oppositeDirection(String direction) {
+        return "inbound".equals(direction) ? "outbound" : "inbound";
+    }
+    
+    private static String matchKey(String matchIdentity, String direction) {
+        return direction + "|" + matchIdentity;
+    }
+    
+    /**
+     * 批量保存端点：先按 ID 去重，再按 ID MERGE（已存在的端点属性稳定，保持不变）
+     */
+    private void saveEndpoints(java.util.List<CodeEndpoint> endpoints, CodeGraphContext context) {
+        java.util.Map<String, CodeEndpoint> uniqueEndpoints = new java.util.LinkedHashMap<>();
+        for (CodeEndpoint endpoint : endpoints) {
+            uniqueEndpoints.putIfAbsent(endpoint.getId(), endpoint);
         }
-        
-        // 批量插入新关系（结构关系不需要更新，因为没有可变属性）
-        if (!toInsert.isEmpty()) {
-            context.getWriter().getInsertRelationshipsBatch().accept(toInsert);
-            log.info("批量插入结构关系: count={}", toInsert.size());
-        } else {
-            log.debug("所有结构关系已存在，跳过插入");
+        context.getWriter().getUpsertEndpointsBatch().accept(new java.util.ArrayList<>(uniqueEndpoints.values()));
+        log.info("端点保存完成：原始 {} 个，去重后 {} 个", endpoints.size(), uniqueEndpoints.size());
+    }
+    
+    protected void deleteNodes(FileManifest manifest, CodeGraphContext context) {
+        // 删除端点前记下其 MATCHES 涉及的服务对，删除后刷新服务依赖
+        java.util.List<com.poseidon.codegraph.engine.domain.model.ServicePair> servicePairs =
+            findServicePairsByIds(manifest.getEndpointIds(), context);
+        // 文件的全部旧节点一次删除
+        java.util.List<String> nodeIds = new java.util.ArrayList<>(manifest.nodeCount());
+        nodeIds.addAll(manifest.getUnitIds());
+        nodeIds.addAll(manifest.getFunctionIds());
+        nodeIds.addAll(manifest.getEndpointIds());
+        if (!nodeIds.isEmpty()) {
+            context.getWriter().getDeleteNodes().accept(nodeIds);
+        }
+        if (context.getHttpRouteIndex() != null) {
+            manifest.getEndpointIds().forEach(id -> context.getHttpRouteIndex().remove(id));
+        }
+        refreshServiceDependencies(servicePairs, context);
+    }
+    
+    /**
+     * 获取文件清单：优先使用清单缓存，未注入时按文件查询三类节点
+     */
+    protected FileManifest loadFileManifest(CodeGraphContext context, String projectFilePath) {
+        if (context.getReader().getFindFileManifest() != null) {
+            return context.getReader().getFindFileManifest().apply(projectFilePath);
+        }
+        FileManifest manifest = new FileManifest();
+        manifest.setProjectFilePath(projectFilePath);
+        context.getReader().getFindUnitsByProjectFilePath().apply(projectFilePath)
+            .forEach(unit -> manifest.getUnitIds().add(unit.getId()));
+        context.getReader().getFindFunctionsByProjectFilePath().apply(projectFilePath)
+            .forEach(func -> manifest.getFunctionIds().add(func.getId()));
+        context.getReader().getFindEndpointsByProjectFilePath().apply(projectFilePath)
+            .forEach(endpoint -> manifest.getEndpointIds().add(endpoint.getId()));
+        return manifest;
+    }
+    
+    /**
+     * 记录文件清单（节点写入完成后调用，清单即本次解析出的节点）
+     */
+    protected void recordFileManifest(CodeGraphContext context, String projectFilePath, CodeGraph graph) {
+        if (context.getWriter().getSaveFileManifest() == null) {
+            return;
         }
+        FileManifest manifest = new FileManifest();
+        manifest.setProjectFilePath(projectFilePath);
+        graph.getUnitsAsList().forEach(unit -> manifest.getUnitIds().add(unit.getId()));
+        graph.getFunctionsAsList().forEach(func -> manifest.getFunctionIds().add(func.getId()));
+        graph.getEndpointsAsList().forEach(endpoint -> manifest.getEndpointIds().add(endpoint.getId()));
+        context.getWriter().getSaveFileManifest().accept(manifest);
     }
     
-    protected void deleteNodes(List<CodeUnit> units, List<CodeFunction> fileFunctions, 
-                            List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint> endpoints,
-                            CodeGraphContext context) {
-        units.forEach(unit -> context.getWriter().getDeleteNode().accept(unit.getId()));
-        fileFunctions.forEach(func -> context.getWriter().getDeleteNode().accept(func.getId()));
-        endpoints.forEach(endpoint -> context.getWriter().getDeleteNode().accept(endpoint.getId()));
+    /**
+     * 删除文件清单
+     */
+    protected void removeFileManifest(CodeGraphContext context, String projectFilePath) {
+        if (context.getWriter().getRemoveFileManifest() != null) {
+            context.getWriter().getRemoveFileManifest().accept(projectFilePath);
+        }
     }
     
     protected int rebuildFileCallRelationships(CodeGraphContext context, String absoluteFilePath, String projectFilePath,
@@ -356,46 +364,59 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
             graph = parseFile(context, absoluteFilePath, projectFilePath);
         }
         
-        java.util.List<CodeRelationship> relationships = graph.getRelationshipsAsList();
-        // 只处理 CALLS 关系
-        java.util.List<CodeRelationship> callRelationships = relationships.stream()
-            .filter(rel -> rel.getRelationshipType() == RelationshipType.CALLS)
-            .collect(java.util.stream.Collectors.toList());
+        // 只处理 CALLS 关系：按批检查端点存在性、补占位符、写入调用关系
+        int[] callCount = new int[1];
+        BoundedGraphSink sink = new BoundedGraphSink(context.getWriteBatchSize(), new BoundedGraphSink.BatchHandler() {
+            @Override
+            public void onRelationships(java.util.List<CodeRelationship> callRelationships) {
+                insertCallRelationships(context, callRelationships);
+                callCount[0] += callRelationships.size();
+            }
+        });
+        for (CodeRelationship rel : graph.getRelationshipsAsList()) {
+            if (rel.getRelationshipType() == RelationshipType.CALLS) {
+                sink.acceptRelationship(rel);
+            }
+        }
+        sink.flush();
         
-        if (callRelationships.isEmpty()) {
+        if (callCount[0] == 0) {
             log.info("文件没有调用关系: file={}", projectFilePath);
-            return 0;
+        } else {
+            log.info("文件包含 {} 条调用关系: file={}, batches={}", callCount[0], projectFilePath, sink.getBatches());
         }
-        
-        log.info("文件包含 {} 条调用关系: file={}", callRelationships.size(), projectFilePath);
-        
-        // 批量查询：收集所有需要检查的节点ID
-        java.util.Set<String> nodeIds = new java.util.HashSet<>();
+        refreshFileDependencies(context, projectFilePath);
+        return callCount[0];
+    }
+    
+    /**
+     * 写入一批调用关系：不存在的端点先创建占位符节点
+     */
+    private void insertCallRelationships(CodeGraphContext context, java.util.List<CodeRelationship> callRelationships) {
+        // 批量查询：收集所有需要检查的节点ID（记下首次出现时的语言，用于占位符）
+        java.util.Map<String, String> nodeLanguages = new java.util.LinkedHashMap<>();
         for (CodeRelationship rel : callRelationships) {
-            nodeIds.add(rel.getFromNodeId());
-            nodeIds.add(rel.getToNodeId());
+            nodeLanguages.putIfAbsent(rel.getFromNodeId(), rel.getLanguage());
+            nodeLanguages.putIfAbsent(rel.getToNodeId(), rel.getLanguage());
         }
         
-        log.debug("收集到 {} 个需要检查的节点ID", nodeIds.size());
+        log.debug("收集到 {} 个需要检查的节点ID", nodeLanguages.size());
         
         // 批量查询哪些节点已存在
         java.util.Set<String> existingIds = context.getReader()
             .getFindExistingFunctionsByQualifiedNames()
-            .apply(new java.util.ArrayList<>(nodeIds));
+            .apply(new java.util.ArrayList<>(nodeLanguages.keySet()));
         
         log.debug("数据库中已存在 {} 个节点", existingIds.size());
         
         // 批量创建占位符节点（不存在的节点）
         java.util.List<CodeFunction> placeholders = new java.util.ArrayList<>();
-        for (String nodeId : nodeIds) {
+        nodeLanguages.forEach((nodeId, language) -> {
             if (!existingIds.contains(nodeId)) {
-                // 从 relationships 中获取 language（假设同一个文件的关系使用相同语言）
-                String language = relationships.get(0).getLanguage();
-                CodeFunction placeholder = createPlaceholderFunction(nodeId, language);
-                placeholders.add(placeholder);
+                placeholders.add(CodeFunction.placeholder(nodeId, language));
                 log.debug("需要创建占位符节点: {}", nodeId);
             }
-        }
+        });
         
         // 批量插入占位符节点（占位符节点是新创建的，直接插入）
         if (!placeholders.isEmpty()) {
@@ -406,92 +427,37 @@ public abstract class AbstractChangeProcessor implements CodeChangeProcessor {
         // 批量插入调用关系（调用关系是新创建的，直接插入）
         log.info("批量插入调用关系: count={}", callRelationships.size());
         context.getWriter().getInsertRelationshipsBatch().accept(callRelationships);
-        
-        return callRelationships.size();
     }
     
     /**
-     * 创建占位符函数节点
-     * 业务规则：当调用关系的目标节点不存在时，创建占位符节点
-     * 
-     * @param qualifiedName 全限定名（格式：com.example.Class.method(params)）
-     * @param language 语言
-     * @return 占位符节点
+     * 查找依赖指定文件的文件（排除文件自身）
      */
-    private CodeFunction createPlaceholderFunction(String qualifiedName, String language) {
-        CodeFunction placeholder = new CodeFunction();
-        placeholder.setId(qualifiedName);
-        placeholder.setQualifiedName(qualifiedName);
-        placeholder.setIsPlaceholder(true);
-        placeholder.setLanguage(language);
-        
-        // 从 qualifiedName 中提取 name 和 signature
-        // 格式：com.example.Class.method(params):returnType 或 com.example.Class.method(params)
-        String nameAndSignature = extractMethodNameAndSignature(qualifiedName);
-        if (nameAndSignature != null) {
-            // 如果包含参数，提取方法名
-            int leftParen = nameAndSignature.indexOf('(');
-            if (leftParen > 0) {
-                String methodName = nameAndSignature.substring(0, leftParen);
-                placeholder.setName(methodName);
-                placeholder.setSignature(nameAndSignature);
-            } else {
-                placeholder.setName(nameAndSignature);
-            }
+    protected List<FileMetadata> findDependentFiles(CodeGraphContext context, String projectFilePath) {
+        if (context.getReader().getFindDependentFiles() == null) {
+            return new ArrayList<>();
         }
-        
-        return placeholder;
+        return context.getReader().getFindDependentFiles().apply(projectFilePath).stream()
+            .filter(meta -> meta.getProjectFilePath() != null && !meta.getProjectFilePath().equals(projectFilePath))
+            .collect(Collectors.toList());
     }
     
     /**
-     * 从 qualifiedName 中提取方法名和签名
-     * 例如：com.example.Class.method(params) -> method(params)
+     * 按文件当前的调用出边刷新文件级反向依赖索引
      */
-    private String extractMethodNameAndSignature(String qualifiedName) {
-        if (qualifiedName == null || qualifiedName.isEmpty()) {
-            return null;
+    protected void refreshFileDependencies(CodeGraphContext context, String projectFilePath) {
+        if (context.getWriter().getRefreshFileDependencies() != null) {
+            context.getWriter().getRefreshFileDependencies().accept(projectFilePath);
         }
-        
-        // 先找到第一个 '('，确定方法签名的开始位置
-        int leftParen = qualifiedName.indexOf('(');
-        if (leftParen <= 0) {
-            // 没有参数列表，直接找最后一个 '.'
-            int lastDot = qualifiedName.lastIndexOf('.');
-            if (lastDot >= 0 && lastDot < qualifiedName.length() - 1) {
-                return qualifiedName.substring(lastDot + 1);
-            }
-            return qualifiedName;
-        }
-        
-        // 在 '(' 之前的部分找最后一个 '.'
-        String beforeParams = qualifiedName.substring(0, leftParen);
-        int lastDot = beforeParams.lastIndexOf('.');
-        if (lastDot >= 0 && lastDot < beforeParams.length() - 1) {
-            // 返回 method(params) 部分
-            return qualifiedName.substring(lastDot + 1);
-        }
-        
-        return qualifiedName;
     }
     
-    protected void triggerCascadeChanges(CodeGraphContext context, List<String> dependentFiles) {
+    protected void triggerCascadeChanges(CodeGraphContext context, List<FileMetadata> dependentFiles) {
         if (dependentFiles.isEmpty()) {
             return;
         }
         
         log.info("开始处理级联变更: dependentCount={}", dependentFiles.size());
         
-        // 查询依赖文件的 Git 元信息
-        List<FileMetadata> dependentFilesWithMeta = context.getReader().getFindWhoCallsMeWithMeta() != null
-            ? context.getReader().getFindWhoCallsMeWithMeta().apply(context.getOldProjectFilePath())
-            : new ArrayList<>();
-        
-        // 过滤掉不需要级联的文件
-        List<FileMetadata> filteredMeta = dependentFilesWithMeta.stream()
-            .filter(meta -> dependentFiles.contains(meta.getProjectFilePath()))
-            .collect(Collectors.toList());
-        
-        for (FileMetadata fileMeta : filteredMeta) {
+        for (FileMetadata fileMeta : dependentFiles) {
             if (context.getSender() != null && context.getSender().getSendEvent() != null) {
                 CodeChangeEvent event = new CodeChangeEvent();
                 event.setEventId(UUID.randomUUID().toString());
@@ -0,0 +1,86 @@
+package com.poseidon.codegraph.engine.domain.service.processor;
+
+import com.poseidon.codegraph.engine.domain.context.CodeGraphContext;
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.model.OverlayFile;
+import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分支覆盖层处理器
+ *
+ * 覆盖层分支的变更不写图数据库，只维护本分支与基线分支的差异：
+ * - 新增/修改：内容哈希与基线相同时移出覆盖层（读取回落到基线），不同时解析后存入覆盖层
+ * - 删除：写入墓碑，基线中的同名文件对本分支不可见
+ * - 重命名：旧路径写墓碑，新路径按修改处理
+ * - 级联更新：只重新解析已在覆盖层中的文件，与基线相同的文件沿用基线的调用关系
+ *
+ * 索引一个新分支的成本与变更文件数成正比，不再为每个分支复制整张图
+ */
+@Slf4j
+public class BranchOverlayProcessor extends AbstractChangeProcessor {
+
+    @Override
+    public boolean support(CodeGraphContext context) {
+        return context.isOverlay();
+    }
+
+    @Override
+    public void handle(CodeGraphContext context) {
+        ChangeType changeType = context.getChangeType();
+        switch (changeType) {
+            case SOURCE_ADDED, SOURCE_MODIFIED -> stage(context, context.getNewProjectFilePath());
+            case SOURCE_DELETED -> markDeleted(context, context.getOldProjectFilePath());
+            case SOURCE_RENAMED -> {
+                markDeleted(context, context.getOldProjectFilePath());
+                stage(context, context.getNewProjectFilePath());
+            }
+            case CASCADE_UPDATE -> {
+                OverlayFile existing = context.getReader().getFindOverlayFile().apply(context.getOldProjectFilePath());
+                if (existing != null && !existing.isDeleted()) {
+                    stage(context, context.getOldProjectFilePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * 按内容哈希决定文件进入还是移出覆盖层
+     */
+    private void stage(CodeGraphContext context, String projectFilePath) {
+        String content = resolveSource(context, projectFilePath);
+        String contentHash = ContentHasher.sha256(content);
+        String baseHash = context.getFileContentStore() != null
+            ? context.getFileContentStore().getHash(context.getGitRepoUrl(), context.getBaseGitBranch(), projectFilePath)
+            : null;
+
+        if (contentHash.equals(baseHash)) {
+            context.getWriter().getRemoveOverlayFile().accept(projectFilePath);
+            log.info("覆盖层文件与基线相同，回落到基线: branch={}, base={}, file={}",
+                context.getGitBranch(), context.getBaseGitBranch(), projectFilePath);
+            return;
+        }
+
+        OverlayFile existing = context.getReader().getFindOverlayFile().apply(projectFilePath);
+        if (existing != null && contentHash.equals(existing.getContentHash())) {
+            log.debug("覆盖层文件内容未变化: branch={}, file={}", context.getGitBranch(), projectFilePath);
+            return;
+        }
+
+        CodeGraph graph = parseFile(context, context.getAbsoluteFilePath(), projectFilePath);
+        OverlayFile file = new OverlayFile();
+        file.setProjectFilePath(projectFilePath);
+        file.setContentHash(contentHash);
+        file.setGraph(graph);
+        context.getWriter().getPutOverlayFile().accept(file);
+        log.info("写入覆盖层文件: branch={}, base={}, file={}, functions={}, relationships={}",
+            context.getGitBranch(), context.getBaseGitBranch(), projectFilePath,
+            graph.getFunctionsAsList().size(), graph.getRelationshipsAsList().size());
+    }
+
+    private void markDeleted(CodeGraphContext context, String projectFilePath) {
+        context.getWriter().getPutOverlayFile().accept(OverlayFile.tombstone(projectFilePath));
+        log.info("覆盖层文件删除: branch={}, file={}", context.getGitBranch(), projectFilePath);
+    }
+}
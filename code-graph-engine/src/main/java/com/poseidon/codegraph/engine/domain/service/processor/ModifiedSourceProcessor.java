@@ -1,9 +1,9 @@
 package com.poseidon.codegraph.engine.domain.service.processor;
 
 import com.poseidon.codegraph.engine.domain.context.CodeGraphContext;
-import com.poseidon.codegraph.engine.domain.model.CodeFunction;
 import com.poseidon.codegraph.engine.domain.model.CodeGraph;
-import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+import com.poseidon.codegraph.engine.domain.model.FileMetadata;
 import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,28 +28,24 @@ public class ModifiedSourceProcessor extends AbstractChangeProcessor {
         
         log.info("处理修改文件: {}", newProjectFilePath);
         
-        // 步骤 1：查找谁依赖我（入边）
-        List<String> dependentFiles = context.getReader().getFindWhoCallsMe().apply(oldProjectFilePath);
-        
+        // 步骤 1：查找谁依赖我（文件级反向依赖索引，一次查询）
         // 排除自己，避免不必要的自我级联更新（自身更新由当前 Processor 处理）
-        if (dependentFiles != null) {
-            dependentFiles.remove(oldProjectFilePath);
-        }
-        
+        List<FileMetadata> dependentFiles = findDependentFiles(context, oldProjectFilePath);
         log.debug("找到依赖文件: {} 个", dependentFiles.size());
         
         // 步骤 2：触发级联变更（依赖我的文件）
         triggerCascadeChanges(context, dependentFiles);
         
-        // 步骤 3：删除该文件的旧节点
-        List<CodeUnit> oldUnits = context.getReader().getFindUnitsByProjectFilePath().apply(oldProjectFilePath);
-        List<CodeFunction> oldFunctions = context.getReader().getFindFunctionsByProjectFilePath().apply(oldProjectFilePath);
-        List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint> oldEndpoints = 
-            context.getReader().getFindEndpointsByProjectFilePath().apply(oldProjectFilePath);
-        
-        log.info("准备删除旧节点: {} 个单元, {} 个方法, {} 个端点", oldUnits.size(), oldFunctions.size(), oldEndpoints.size());
-        deleteNodes(oldUnits, oldFunctions, oldEndpoints, context);
+        // 步骤 3：删除该文件的旧节点（按文件清单，命中时不读图数据库）
+        FileManifest oldManifest = loadFileManifest(context, oldProjectFilePath);
+        log.info("准备删除旧节点: {} 个单元, {} 个方法, {} 个端点",
+            oldManifest.getUnitIds().size(), oldManifest.getFunctionIds().size(), oldManifest.getEndpointIds().size());
+        deleteNodes(oldManifest, context);
         log.info("旧节点删除完成");
+        if (!java.util.Objects.equals(oldProjectFilePath, newProjectFilePath)) {
+            refreshFileDependencies(context, oldProjectFilePath);
+            removeFileManifest(context, oldProjectFilePath);
+        }
         
         // 步骤 4：解析新文件
         // 注意：这里我们使用 absoluteFilePath 来读取文件内容，使用 newProjectFilePath 作为节点标识
@@ -58,6 +54,7 @@ public class ModifiedSourceProcessor extends AbstractChangeProcessor {
         
         // 步骤 5：保存新节点
         saveNodes(newGraph, context);
+        recordFileManifest(context, newProjectFilePath, newGraph);
         log.debug("保存新节点完成");
         
         // 步骤 6：重建当前文件的调用关系
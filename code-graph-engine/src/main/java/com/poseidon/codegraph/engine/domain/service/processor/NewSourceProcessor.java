@@ -29,6 +29,7 @@ public class NewSourceProcessor extends AbstractChangeProcessor {
         
         // 步骤 2：保存节点
         saveNodes(graph, context);
+        recordFileManifest(context, projectFilePath, graph);
         log.debug("保存节点完成");
         
         // 步骤 3：建立调用关系
@@ -1,8 +1,8 @@
 package com.poseidon.codegraph.engine.domain.service.processor;
 
 import com.poseidon.codegraph.engine.domain.context.CodeGraphContext;
-import com.poseidon.codegraph.engine.domain.model.CodeFunction;
-import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+import com.poseidon.codegraph.engine.domain.model.FileMetadata;
 import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,25 +24,20 @@ public class RemovedSourceProcessor extends AbstractChangeProcessor {
         String projectFilePath = context.getOldProjectFilePath();
         log.info("处理删除文件: {}", projectFilePath);
         
-        // 步骤 1：查找谁依赖我
-        List<String> dependentFiles = context.getReader().getFindWhoCallsMe().apply(projectFilePath);
-        
+        // 步骤 1：查找谁依赖我（文件级反向依赖索引，一次查询）
         // 排除自己，防止级联更新重新创建已被删除的节点（因为自引用导致 CascadeUpdateProcessor 重建本节点）
-        if (dependentFiles != null) {
-            dependentFiles.remove(projectFilePath);
-        }
-        
+        List<FileMetadata> dependentFiles = findDependentFiles(context, projectFilePath);
         log.debug("找到依赖文件: {} 个", dependentFiles.size());
         
-        // 步骤 2：查找该文件的所有节点
-        List<CodeUnit> units = context.getReader().getFindUnitsByProjectFilePath().apply(projectFilePath);
-        List<CodeFunction> fileFunctions = context.getReader().getFindFunctionsByProjectFilePath().apply(projectFilePath);
-        List<com.poseidon.codegraph.engine.domain.model.CodeEndpoint> endpoints = 
-            context.getReader().getFindEndpointsByProjectFilePath().apply(projectFilePath);
+        // 步骤 2：按文件清单删除所有节点（会自动删除所有相关的边，清单命中时不读图数据库）
+        FileManifest manifest = loadFileManifest(context, projectFilePath);
+        deleteNodes(manifest, context);
+        removeFileManifest(context, projectFilePath);
+        log.debug("删除节点: {} 个单元, {} 个方法, {} 个端点",
+            manifest.getUnitIds().size(), manifest.getFunctionIds().size(), manifest.getEndpointIds().size());
         
-        // 步骤 3：删除所有节点（会自动删除所有相关的边）
-        deleteNodes(units, fileFunctions, endpoints, context);
-        log.debug("删除节点: {} 个单元, {} 个方法, {} 个端点", units.size(), fileFunctions.size(), endpoints.size());
+        // 文件已无调用出边，清理它在依赖索引中的出边
+        refreshFileDependencies(context, projectFilePath);
         
         // 步骤 4：触发级联变更
         triggerCascadeChanges(context, dependentFiles);
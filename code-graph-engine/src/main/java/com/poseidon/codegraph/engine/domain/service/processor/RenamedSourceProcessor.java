@@ -0,0 +1,147 @@
+package com.poseidon.codegraph.engine.domain.service.processor;
+
+import com.poseidon.codegraph.engine.domain.context.CodeGraphContext;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.FileRename;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import com.poseidon.codegraph.engine.domain.model.event.ChangeType;
+import com.poseidon.codegraph.engine.domain.parser.cache.SourceFingerprint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 源码重命名/移动处理器
+ * 
+ * 业务规则：
+ * - 纯移动（除 package 声明外内容不变）：原地改写路径，包名变化时同时改写 ID 前缀，不重新解析、不触发级联
+ * - 内容有变化、ID 无法安全改写、或原地改写匹配不到全部旧单元：按修改处理（删除旧路径节点，解析新路径文件，级联通知调用方）
+ */
+@Slf4j
+public class RenamedSourceProcessor extends AbstractChangeProcessor {
+    
+    private final ModifiedSourceProcessor fallbackProcessor = new ModifiedSourceProcessor();
+    
+    @Override
+    public boolean support(CodeGraphContext context) {
+        return context.getChangeType() == ChangeType.SOURCE_RENAMED;
+    }
+    
+    @Override
+    public void handle(CodeGraphContext context) {
+        String oldProjectFilePath = context.getOldProjectFilePath();
+        String newProjectFilePath = context.getNewProjectFilePath();
+        
+        log.info("处理重命名文件: {} -> {}", oldProjectFilePath, newProjectFilePath);
+        
+        // 步骤 1：判断是否为纯移动（旧单元只读当前仓库/分支）
+        List<CodeUnit> oldUnits = context.getReader().getFindUnitsByProjectFilePath().apply(oldProjectFilePath);
+        String source = resolveSource(context, newProjectFilePath);
+        String sourceHash = SourceFingerprint.bodyHash(source);
+        
+        boolean pureMove = !oldUnits.isEmpty() 
+            && oldUnits.stream().allMatch(unit -> sourceHash.equals(unit.getSourceHash()));
+        if (!pureMove) {
+            log.info("文件内容有变化，按修改处理: {}", newProjectFilePath);
+            fallbackProcessor.handle(context);
+            return;
+        }
+        
+        // 步骤 2：包名变化时检查 ID 能否按前缀改写
+        String oldPackageName = oldUnits.get(0).getPackageId();
+        String newPackageName = SourceFingerprint.packageName(source);
+        boolean packageChanged = !Objects.equals(oldPackageName, newPackageName);
+        if (packageChanged) {
+            List<CodeFunction> oldFunctions = context.getReader().getFindFunctionsByProjectFilePath().apply(oldProjectFilePath);
+            if (!canRewriteIds(oldUnits, oldFunctions, oldPackageName, newPackageName)) {
+                log.info("包名变化且 ID 无法按前缀改写，按修改处理: {} -> {}", oldPackageName, newPackageName);
+                fallbackProcessor.handle(context);
+                return;
+            }
+        }
+        
+        // 步骤 3：原地改写路径（和 ID 前缀）
+        FileRename rename = new FileRename();
+        rename.setOldProjectFilePath(oldProjectFilePath);
+        rename.setNewProjectFilePath(newProjectFilePath);
+        rename.setOldPackageName(oldPackageName);
+        rename.setNewPackageName(newPackageName);
+        rename.setExpectedUnitCount(oldUnits.size());
+        int renamed = context.getWriter().getRenameFile().apply(rename);
+        if (!rename.isFullyMatched(renamed)) {
+            // 读到的旧单元里有尚未迁移 scopeId 的历史节点，按范围改写匹配不全：改写未执行，按修改处理
+            log.warn("原地改写只匹配到 {}/{} 个单元，按修改处理: {} -> {}",
+                renamed, oldUnits.size(), oldProjectFilePath, newProjectFilePath);
+            fallbackProcessor.handle(context);
+            return;
+        }
+        
+        // 步骤 4：包名变化时挂到新包下
+        if (packageChanged) {
+            saveNodes(buildPackageGraph(context, oldUnits, oldPackageName, newPackageName), context);
+        }
+        
+        log.info("文件纯移动处理完成: {} 个单元, packageChanged={}", oldUnits.size(), packageChanged);
+    }
+    
+    /**
+     * ID 只改写包名前缀：若前缀之后仍引用旧包（如参数类型），无法判断被引用的类型是否一起移动，放弃原地改写
+     */
+    private boolean canRewriteIds(List<CodeUnit> units, List<CodeFunction> functions,
+                                  String oldPackageName, String newPackageName) {
+        if (oldPackageName == null || newPackageName == null) {
+            return false;
+        }
+        String oldPrefix = oldPackageName + ".";
+        for (CodeUnit unit : units) {
+            if (!isRewritable(unit.getId(), oldPrefix)) {
+                return false;
+            }
+        }
+        for (CodeFunction function : functions) {
+            if (!isRewritable(function.getId(), oldPrefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean isRewritable(String id, String oldPrefix) {
+        return id != null && id.startsWith(oldPrefix) && !id.substring(oldPrefix.length()).contains(oldPrefix);
+    }
+    
+    private CodeGraph buildPackageGraph(CodeGraphContext context, List<CodeUnit> oldUnits,
+                                        String oldPackageName, String newPackageName) {
+        CodeGraph graph = new CodeGraph();
+        
+        CodePackage codePackage = new CodePackage();
+        codePackage.setId(newPackageName);
+        codePackage.setName(newPackageName);
+        codePackage.setQualifiedName(newPackageName);
+        codePackage.setPackagePath(newPackageName.replace('.', '/'));
+        Path parent = Path.of(context.getNewProjectFilePath()).getParent();
+        codePackage.setProjectFilePath(parent != null ? parent.toString().replace('\\', '/') : "");
+        codePackage.setLanguage("java");
+        codePackage.setGitRepoUrl(context.getGitRepoUrl());
+        codePackage.setGitBranch(context.getGitBranch());
+        graph.addPackage(codePackage);
+        
+        for (CodeUnit unit : oldUnits) {
+            CodeRelationship rel = new CodeRelationship();
+            rel.setId(UUID.randomUUID().toString());
+            rel.setRelationshipType(RelationshipType.PACKAGE_TO_UNIT);
+            rel.setFromNodeId(newPackageName);
+            rel.setToNodeId(newPackageName + unit.getId().substring(oldPackageName.length()));
+            rel.setLanguage("java");
+            graph.addRelationship(rel);
+        }
+        return graph;
+    }
+}
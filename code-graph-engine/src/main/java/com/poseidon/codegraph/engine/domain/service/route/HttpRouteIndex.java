@@ -0,0 +1,294 @@
+package com.poseidon.codegraph.engine.domain.service.route;
+
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.HttpEndpoint;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HTTP 路由索引（按路径段组织的前缀树）
+ * 
+ * 职责：
+ * - 入站端点按服务分别建树，出站端点共用一棵树
+ * - 路径段为 {xxx}、* 或 ** 时视为通配段，匹配对端任意一个段（双向）
+ * - 给定一个端点，在对端方向的树中按路径段逐层查找，复杂度与路径长度成正比
+ * 
+ * 匹配规则：
+ * - HTTP 方法相同，或任一端方法未知（null / UNKNOWN / ANY）
+ * - 出站端点指定了 targetService 时只匹配该服务的入站端点
+ * - 出站路径包含协议和主机时去掉主机部分；以通配段开头（未解析出的 baseUrl）时，依次去掉开头的通配段重试
+ * 
+ * 领域层纯 Java，线程安全
+ */
+public class HttpRouteIndex {
+    
+    private static final String ANY_SERVICE = "";
+    
+    /**
+     * 服务名 -> 入站路由树
+     */
+    private final Map<String, Node> inboundTrees = new HashMap<>();
+    
+    /**
+     * 出站路由树
+     */
+    private final Node outboundTree = new Node();
+    
+    /**
+     * 端点 ID -> 已索引的路由（用于删除）
+     */
+    private final Map<String, RouteEntry> entries = new HashMap<>();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * 索引端点（非 HTTP 端点忽略；重复添加幂等）
+     */
+    public void add(CodeEndpoint endpoint) {
+        RouteEntry entry = toEntry(endpoint);
+        if (entry == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(entry.getEndpointId());
+            Node node = treeFor(entry, true);
+            for (String segment : entry.getSegments()) {
+                node = node.child(segment, true);
+            }
+            node.routes.add(entry);
+            entries.put(entry.getEndpointId(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 移除端点
+     */
+    public void remove(String endpointId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(endpointId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 查找与端点路由匹配的对端端点 ID
+     */
+    public List<String> match(CodeEndpoint endpoint) {
+        RouteEntry entry = toEntry(endpoint);
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            List<String> segments = entry.getSegments();
+            // 出站路径开头的通配段可能是未解析出的 baseUrl，依次去掉重试
+            int start = 0;
+            do {
+                List<String> candidate = segments.subList(start, segments.size());
+                for (Node root : oppositeTrees(entry)) {
+                    collect(root, candidate, 0, entry, result);
+                }
+            } while (result.isEmpty() && entry.isOutbound() && start < segments.size() && isWildcard(segments.get(start++)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.remove(entry.getEndpointId());
+        return new ArrayList<>(result);
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // ========== 内部方法 ==========
+    
+    private void collect(Node node, List<String> segments, int depth, RouteEntry query, Set<String> result) {
+        if (depth == segments.size()) {
+            for (RouteEntry candidate : node.routes) {
+                if (accepts(query, candidate)) {
+                    result.add(candidate.getEndpointId());
+                }
+            }
+            return;
+        }
+        String segment = segments.get(depth);
+        if (isWildcard(segment)) {
+            // 查询段为通配：匹配所有子节点
+            for (Node child : node.literals.values()) {
+                collect(child, segments, depth + 1, query, result);
+            }
+        } else {
+            Node literal = node.literals.get(segment);
+            if (literal != null) {
+                collect(literal, segments, depth + 1, query, result);
+            }
+        }
+        if (node.wildcard != null) {
+            collect(node.wildcard, segments, depth + 1, query, result);
+        }
+    }
+    
+    private boolean accepts(RouteEntry query, RouteEntry candidate) {
+        if (!methodMatches(query.getHttpMethod(), candidate.getHttpMethod())) {
+            return false;
+        }
+        RouteEntry outbound = query.isOutbound() ? query : candidate;
+        RouteEntry inbound = query.isOutbound() ? candidate : query;
+        return outbound.getTargetService() == null
+            || outbound.getTargetService().equals(inbound.getServiceName());
+    }
+    
+    private List<Node> oppositeTrees(RouteEntry entry) {
+        List<Node> trees = new ArrayList<>();
+        if (!entry.isOutbound()) {
+            trees.add(outboundTree);
+        } else if (entry.getTargetService() != null) {
+            Node tree = inboundTrees.get(entry.getTargetService());
+            if (tree != null) {
+                trees.add(tree);
+            }
+        } else {
+            trees.addAll(inboundTrees.values());
+        }
+        return trees;
+    }
+    
+    private Node treeFor(RouteEntry entry, boolean create) {
+        if (entry.isOutbound()) {
+            return outboundTree;
+        }
+        String service = entry.getServiceName() != null ? entry.getServiceName() : ANY_SERVICE;
+        return create ? inboundTrees.computeIfAbsent(service, k -> new Node()) : inboundTrees.get(service);
+    }
+    
+    private void removeLocked(String endpointId) {
+        RouteEntry entry = entries.remove(endpointId);
+        if (entry == null) {
+            return;
+        }
+        Node node = treeFor(entry, false);
+        for (String segment : entry.getSegments()) {
+            if (node == null) {
+                return;
+            }
+            node = node.child(segment, false);
+        }
+        if (node != null) {
+            node.routes.remove(entry);
+        }
+    }
+    
+    private static RouteEntry toEntry(CodeEndpoint endpoint) {
+        if (!(endpoint instanceof HttpEndpoint http) || endpoint.getId() == null) {
+            return null;
+        }
+        String path = http.getNormalizedPath() != null ? http.getNormalizedPath() : http.getPath();
+        if (path == null) {
+            return null;
+        }
+        RouteEntry entry = new RouteEntry();
+        entry.setEndpointId(endpoint.getId());
+        entry.setHttpMethod(http.getHttpMethod());
+        entry.setServiceName(endpoint.getServiceName());
+        entry.setTargetService(endpoint.getTargetService());
+        entry.setOutbound("outbound".equals(endpoint.getDirection()));
+        entry.setSegments(splitPath(path));
+        return entry;
+    }
+    
+    /**
+     * 拆分路径段：去掉协议和主机、查询串、片段和空段
+     */
+    static List<String> splitPath(String path) {
+        String p = path;
+        int scheme = p.indexOf("://");
+        if (scheme >= 0) {
+            int slash = p.indexOf('/', scheme + 3);
+            p = slash >= 0 ? p.substring(slash) : "";
+        }
+        int query = indexOfAny(p, '?', '#');
+        if (query >= 0) {
+            p = p.substring(0, query);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : p.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(isWildcard(segment) ? "*" : segment);
+            }
+        }
+        return segments;
+    }
+    
+    private static int indexOfAny(String s, char a, char b) {
+        int ia = s.indexOf(a);
+        int ib = s.indexOf(b);
+        if (ia < 0) {
+            return ib;
+        }
+        return ib < 0 ? ia : Math.min(ia, ib);
+    }
+    
+    private static boolean isWildcard(String segment) {
+        return "*".equals(segment) || "**".equals(segment)
+            || (segment.startsWith("{") && segment.endsWith("}"));
+    }
+    
+    private static boolean methodMatches(String a, String b) {
+        return isAnyMethod(a) || isAnyMethod(b) || a.equalsIgnoreCase(b);
+    }
+    
+    private static boolean isAnyMethod(String method) {
+        return method == null || method.isEmpty() || "UNKNOWN".equalsIgnoreCase(method) || "ANY".equalsIgnoreCase(method);
+    }
+    
+    /**
+     * 前缀树节点
+     */
+    private static class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node wildcard;
+        private final Set<RouteEntry> routes = new LinkedHashSet<>();
+        
+        Node child(String segment, boolean create) {
+            if ("*".equals(segment)) {
+                if (wildcard == null && create) {
+                    wildcard = new Node();
+                }
+                return wildcard;
+            }
+            return create ? literals.computeIfAbsent(segment, k -> new Node()) : literals.get(segment);
+        }
+    }
+    
+    /**
+     * 已索引的路由
+     */
+    @Data
+    public static class RouteEntry {
+        private String endpointId;
+        private String httpMethod;
+        private String serviceName;
+        private String targetService;
+        private boolean outbound;
+        private List<String> segments;
+    }
+}
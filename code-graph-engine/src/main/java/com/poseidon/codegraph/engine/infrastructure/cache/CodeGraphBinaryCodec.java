@@ -0,0 +1,406 @@
+package com.poseidon.codegraph.engine.infrastructure.cache;
+
+import com.poseidon.codegraph.engine.domain.model.*;
+import com.poseidon.codegraph.engine.domain.model.endpoint.DbEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.HttpEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.MqEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.RedisEndpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CodeGraph 紧凑二进制编解码器（解析结果缓存使用）
+ *
+ * 格式：
+ * - 魔数 + 格式版本
+ * - 字符串表内联：首次出现写入 UTF，之后只写引用编号（限定名、语言等大量重复字符串只存一次）
+ * - 整数使用变长编码，可空字段用 0 表示 null
+ * - 不写入位置相关字段（projectFilePath / gitRepoUrl / gitBranch）和关系 ID，由解析器命中后重新填充
+ */
+public final class CodeGraphBinaryCodec {
+
+    private static final int MAGIC = 0x43475043;  // "CGPC"
+
+    /**
+     * 格式版本（字段增减时递增，旧缓存自动失效）
+     */
+    public static final int FORMAT_VERSION = 4;
+
+    private CodeGraphBinaryCodec() {
+    }
+
+    // ========== 编码 ==========
+
+    public static void encode(CodeGraph graph, OutputStream output) throws IOException {
+        Writer out = new Writer(new DataOutputStream(output));
+        out.data.writeInt(MAGIC);
+        out.data.writeInt(FORMAT_VERSION);
+
+        List<CodePackage> packages = graph.getPackagesAsList();
+        out.writeVarInt(packages.size());
+        for (CodePackage pkg : packages) {
+            writeNode(out, pkg);
+            out.writeString(pkg.getPackagePath());
+        }
+
+        List<CodeUnit> units = graph.getUnitsAsList();
+        out.writeVarInt(units.size());
+        for (CodeUnit unit : units) {
+            writeNode(out, unit);
+            out.writeString(unit.getUnitType());
+            out.writeStringList(unit.getModifiers());
+            out.writeBoolean(unit.getIsAbstract());
+            out.writeString(unit.getPackageId());
+            out.writeBoolean(unit.getIsDegraded());
+            out.writeStringList(unit.getImportedPackages());
+            out.writeString(unit.getSourceHash());
+        }
+
+        List<CodeFunction> functions = graph.getFunctionsAsList();
+        out.writeVarInt(functions.size());
+        for (CodeFunction function : functions) {
+            writeNode(out, function);
+            out.writeString(function.getSignature());
+            out.writeString(function.getReturnType());
+            out.writeStringList(function.getModifiers());
+            out.writeBoolean(function.getIsStatic());
+            out.writeBoolean(function.getIsAsync());
+            out.writeBoolean(function.getIsConstructor());
+            out.writeBoolean(function.getIsPlaceholder());
+            out.writeBoolean(function.getIsDegraded());
+        }
+
+        List<CodeEndpoint> endpoints = graph.getEndpointsAsList();
+        out.writeVarInt(endpoints.size());
+        for (CodeEndpoint endpoint : endpoints) {
+            out.writeString(endpoint.getEndpointType() != null ? endpoint.getEndpointType().name() : null);
+            writeNode(out, endpoint);
+            out.writeString(endpoint.getDirection());
+            out.writeBoolean(endpoint.getIsExternal());
+            out.writeString(endpoint.getServiceName());
+            out.writeString(endpoint.getParseLevel());
+            out.writeString(endpoint.getTargetService());
+            out.writeString(endpoint.getMatchIdentity());
+            if (endpoint instanceof HttpEndpoint http) {
+                out.writeString(http.getHttpMethod());
+                out.writeString(http.getPath());
+                out.writeString(http.getNormalizedPath());
+            } else if (endpoint instanceof MqEndpoint mq) {
+                out.writeString(mq.getTopic());
+                out.writeString(mq.getOperation());
+                out.writeString(mq.getBrokerType());
+            } else if (endpoint instanceof RedisEndpoint redis) {
+                out.writeString(redis.getKeyPattern());
+                out.writeString(redis.getCommand());
+                out.writeString(redis.getDataStructure());
+            } else if (endpoint instanceof DbEndpoint db) {
+                out.writeString(db.getTableName());
+                out.writeString(db.getDbOperation());
+            }
+        }
+
+        List<CodeRelationship> relationships = graph.getRelationshipsAsList();
+        out.writeVarInt(relationships.size());
+        for (CodeRelationship rel : relationships) {
+            out.writeString(rel.getFromNodeId());
+            out.writeString(rel.getToNodeId());
+            out.writeString(rel.getRelationshipType() != null ? rel.getRelationshipType().name() : null);
+            out.writeInt(rel.getLineNumber());
+            out.writeInt(rel.getCallCount());
+            out.writeIntList(rel.getLineNumbers());
+            out.writeString(rel.getCallType());
+            out.writeString(rel.getLanguage());
+        }
+
+        out.data.flush();
+    }
+
+    private static void writeNode(Writer out, CodeNode node) throws IOException {
+        out.writeString(node.getId());
+        out.writeString(node.getName());
+        out.writeString(node.getQualifiedName());
+        out.writeString(node.getLanguage());
+        out.writeInt(node.getStartLine());
+        out.writeInt(node.getEndLine());
+    }
+
+    // ========== 解码 ==========
+
+    public static CodeGraph decode(InputStream input) throws IOException {
+        Reader in = new Reader(new DataInputStream(input));
+        if (in.data.readInt() != MAGIC) {
+            throw new IOException("不是解析结果缓存文件");
+        }
+        int version = in.data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("缓存格式版本不匹配: " + version);
+        }
+
+        CodeGraph graph = new CodeGraph();
+
+        int packageCount = in.readVarInt();
+        for (int i = 0; i < packageCount; i++) {
+            CodePackage pkg = new CodePackage();
+            readNode(in, pkg);
+            pkg.setPackagePath(in.readString());
+            graph.addPackage(pkg);
+        }
+
+        int unitCount = in.readVarInt();
+        for (int i = 0; i < unitCount; i++) {
+            CodeUnit unit = new CodeUnit();
+            readNode(in, unit);
+            unit.setUnitType(in.readString());
+            unit.setModifiers(in.readStringList());
+            unit.setIsAbstract(in.readBoolean());
+            unit.setPackageId(in.readString());
+            unit.setIsDegraded(in.readBoolean());
+            unit.setImportedPackages(in.readStringList());
+            unit.setSourceHash(in.readString());
+            graph.addUnit(unit);
+        }
+
+        int functionCount = in.readVarInt();
+        for (int i = 0; i < functionCount; i++) {
+            CodeFunction function = new CodeFunction();
+            readNode(in, function);
+            function.setSignature(in.readString());
+            function.setReturnType(in.readString());
+            function.setModifiers(in.readStringList());
+            function.setIsStatic(in.readBoolean());
+            function.setIsAsync(in.readBoolean());
+            function.setIsConstructor(in.readBoolean());
+            function.setIsPlaceholder(in.readBoolean());
+            function.setIsDegraded(in.readBoolean());
+            graph.addFunction(function);
+        }
+
+        int endpointCount = in.readVarInt();
+        for (int i = 0; i < endpointCount; i++) {
+            String typeName = in.readString();
+            EndpointType type = typeName != null ? EndpointType.valueOf(typeName) : EndpointType.UNKNOWN;
+            CodeEndpoint endpoint = switch (type) {
+                case HTTP -> new HttpEndpoint();
+                case MQ -> new MqEndpoint();
+                case REDIS -> new RedisEndpoint();
+                case DB -> new DbEndpoint();
+                default -> new HttpEndpoint();
+            };
+            endpoint.setEndpointType(type);
+            readNode(in, endpoint);
+            endpoint.setDirection(in.readString());
+            endpoint.setIsExternal(in.readBoolean());
+            endpoint.setServiceName(in.readString());
+            endpoint.setParseLevel(in.readString());
+            endpoint.setTargetService(in.readString());
+            endpoint.setMatchIdentity(in.readString());
+            if (endpoint instanceof HttpEndpoint http) {
+                http.setHttpMethod(in.readString());
+                http.setPath(in.readString());
+                http.setNormalizedPath(in.readString());
+            } else if (endpoint instanceof MqEndpoint mq) {
+                mq.setTopic(in.readString());
+                mq.setOperation(in.readString());
+                mq.setBrokerType(in.readString());
+            } else if (endpoint instanceof RedisEndpoint redis) {
+                redis.setKeyPattern(in.readString());
+                redis.setCommand(in.readString());
+                redis.setDataStructure(in.readString());
+            } else if (endpoint instanceof DbEndpoint db) {
+                db.setTableName(in.readString());
+                db.setDbOperation(in.readString());
+            }
+            graph.addEndpoint(endpoint);
+        }
+
+        int relationshipCount = in.readVarInt();
+        for (int i = 0; i < relationshipCount; i++) {
+            CodeRelationship rel = new CodeRelationship();
+            rel.setFromNodeId(in.readString());
+            rel.setToNodeId(in.readString());
+            String relType = in.readString();
+            rel.setRelationshipType(relType != null ? RelationshipType.valueOf(relType) : null);
+            rel.setLineNumber(in.readInt());
+            rel.setCallCount(in.readInt());
+            rel.setLineNumbers(in.readIntList());
+            rel.setCallType(in.readString());
+            rel.setLanguage(in.readString());
+            graph.addRelationship(rel);
+        }
+
+        return graph;
+    }
+
+    private static void readNode(Reader in, CodeNode node) throws IOException {
+        node.setId(in.readString());
+        node.setName(in.readString());
+        node.setQualifiedName(in.readString());
+        node.setLanguage(in.readString());
+        node.setStartLine(in.readInt());
+        node.setEndLine(in.readInt());
+    }
+
+    // ========== 基础读写 ==========
+
+    private static final class Writer {
+        private final DataOutputStream data;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream data) {
+            this.data = data;
+        }
+
+        /**
+         * 0 = null；1 = 新字符串（后跟 UTF）；n + 2 = 引用第 n 个已出现的字符串
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(1);
+            data.writeUTF(value);
+        }
+
+        void writeStringList(List<String> values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeIntList(List<Integer> values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (Integer value : values) {
+                writeInt(value);
+            }
+        }
+
+        void writeBoolean(Boolean value) throws IOException {
+            data.writeByte(value == null ? 0 : (value ? 2 : 1));
+        }
+
+        /**
+         * 可空整数：0 = null，否则为 zigzag(value) + 1
+         */
+        void writeInt(Integer value) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            int zigzag = (value << 1) ^ (value >> 31);
+            writeVarLong((zigzag & 0xFFFFFFFFL) + 1);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                data.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            data.writeByte((int) value);
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream data;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream data) {
+            this.data = data;
+        }
+
+        String readString() throws IOException {
+            int tag = readVarInt();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag == 1) {
+                String value = data.readUTF();
+                strings.add(value);
+                return value;
+            }
+            return strings.get(tag - 2);
+        }
+
+        List<String> readStringList() throws IOException {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        List<Integer> readIntList() throws IOException {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            List<Integer> values = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                values.add(readInt());
+            }
+            return values;
+        }
+
+        Boolean readBoolean() throws IOException {
+            int value = data.readByte();
+            return value == 0 ? null : value == 2;
+        }
+
+        Integer readInt() throws IOException {
+            long raw = readVarLong();
+            if (raw == 0) {
+                return null;
+            }
+            int zigzag = (int) (raw - 1);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                int b = data.readUnsignedByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+    }
+}
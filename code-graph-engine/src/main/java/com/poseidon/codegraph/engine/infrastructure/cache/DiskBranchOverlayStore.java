@@ -0,0 +1,204 @@
+package com.poseidon.codegraph.engine.infrastructure.cache;
+
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.model.OverlayFile;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.service.overlay.BranchOverlayStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基于内存的分支覆盖层存储，写穿到本地磁盘
+ *
+ * 磁盘目录结构：{dir}/{范围 ID}/ab/{SHA-256(路径)}.overlay，内容为路径、墓碑标记、内容哈希和
+ * {@link CodeGraphBinaryCodec} 编码的解析结果。覆盖层只含变更文件，启动时全部载入内存；
+ * 解析结果格式升级后旧文件无法解码，跳过即可（该文件回落到基线，重新推送后恢复）。
+ */
+@Slf4j
+public class DiskBranchOverlayStore implements BranchOverlayStore {
+
+    private static final String SUFFIX = ".overlay";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final Map<Integer, Map<String, OverlayFile>> overlays = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory 磁盘目录（为 null 时只用内存，重启后覆盖层需要重新推送）
+     */
+    public DiskBranchOverlayStore(Path directory) {
+        this.directory = directory;
+        if (directory != null) {
+            load();
+        }
+    }
+
+    @Override
+    public OverlayFile get(int scopeId, String projectFilePath) {
+        Map<String, OverlayFile> files = overlays.get(scopeId);
+        return files != null ? files.get(projectFilePath) : null;
+    }
+
+    @Override
+    public List<OverlayFile> list(int scopeId) {
+        Map<String, OverlayFile> files = overlays.get(scopeId);
+        return files != null ? new ArrayList<>(files.values()) : new ArrayList<>();
+    }
+
+    @Override
+    public void put(int scopeId, OverlayFile file) {
+        overlays.computeIfAbsent(scopeId, k -> new ConcurrentHashMap<>()).put(file.getProjectFilePath(), file);
+        if (directory == null) {
+            return;
+        }
+        try {
+            writeAtomically(filePath(scopeId, file.getProjectFilePath()), encode(file));
+        } catch (IOException e) {
+            log.error("写入分支覆盖层文件失败: scopeId={}, file={}, error={}",
+                scopeId, file.getProjectFilePath(), e.getMessage(), e);
+            throw new RuntimeException("写入分支覆盖层文件失败: " + file.getProjectFilePath(), e);
+        }
+    }
+
+    @Override
+    public void remove(int scopeId, String projectFilePath) {
+        Map<String, OverlayFile> files = overlays.get(scopeId);
+        if (files != null) {
+            files.remove(projectFilePath);
+        }
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(filePath(scopeId, projectFilePath));
+        } catch (IOException e) {
+            log.warn("删除分支覆盖层文件失败: scopeId={}, file={}, error={}", scopeId, projectFilePath, e.getMessage());
+        }
+    }
+
+    @Override
+    public int drop(int scopeId) {
+        Map<String, OverlayFile> files = overlays.remove(scopeId);
+        if (directory != null) {
+            Path scopeDir = directory.resolve(String.valueOf(scopeId));
+            if (Files.exists(scopeDir)) {
+                try (Stream<Path> stream = Files.walk(scopeDir)) {
+                    for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException e) {
+                    log.warn("删除分支覆盖层目录失败: dir={}, error={}", scopeDir, e.getMessage());
+                }
+            }
+        }
+        return files != null ? files.size() : 0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("overlays", overlays.size());
+        snapshot.put("files", overlays.values().stream().mapToInt(Map::size).sum());
+        snapshot.put("persistent", directory != null);
+        return snapshot;
+    }
+
+    // ========== 内部方法 ==========
+
+    private Path filePath(int scopeId, String projectFilePath) {
+        String name = ContentHasher.sha256(projectFilePath);
+        return directory.resolve(String.valueOf(scopeId)).resolve(name.substring(0, 2)).resolve(name + SUFFIX);
+    }
+
+    private static byte[] encode(OverlayFile file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(file.getProjectFilePath());
+        out.writeBoolean(file.isDeleted());
+        if (!file.isDeleted()) {
+            out.writeUTF(file.getContentHash());
+            out.flush();
+            CodeGraphBinaryCodec.encode(file.getGraph(), out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static OverlayFile decode(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        String projectFilePath = in.readUTF();
+        if (in.readBoolean()) {
+            return OverlayFile.tombstone(projectFilePath);
+        }
+        OverlayFile file = new OverlayFile();
+        file.setProjectFilePath(projectFilePath);
+        file.setContentHash(in.readUTF());
+        CodeGraph graph = CodeGraphBinaryCodec.decode(in);
+        // 编码时不写文件路径，读取后按覆盖层文件补回
+        graph.getUnitsAsList().forEach(node -> node.setProjectFilePath(projectFilePath));
+        graph.getFunctionsAsList().forEach(node -> node.setProjectFilePath(projectFilePath));
+        graph.getEndpointsAsList().forEach(node -> node.setProjectFilePath(projectFilePath));
+        file.setGraph(graph);
+        return file;
+    }
+
+    private static void writeAtomically(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TMP_SUFFIX);
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 启动时从磁盘恢复全部覆盖层
+     */
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(directory, 3)) {
+                files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .collect(Collectors.toList());
+            }
+            int skipped = 0;
+            for (Path path : files) {
+                int scopeId = Integer.parseInt(directory.relativize(path).getName(0).toString());
+                try (InputStream in = Files.newInputStream(path)) {
+                    OverlayFile file = decode(in);
+                    overlays.computeIfAbsent(scopeId, k -> new ConcurrentHashMap<>()).put(file.getProjectFilePath(), file);
+                } catch (IOException e) {
+                    log.warn("跳过无法读取的分支覆盖层文件: file={}, error={}", path, e.getMessage());
+                    Files.deleteIfExists(path);
+                    skipped++;
+                }
+            }
+            log.info("分支覆盖层存储初始化完成: dir={}, overlays={}, files={}, skipped={}",
+                directory, overlays.size(), files.size() - skipped, skipped);
+        } catch (IOException | NumberFormatException e) {
+            log.error("分支覆盖层存储初始化失败: dir={}, error={}", directory, e.getMessage(), e);
+            throw new RuntimeException("分支覆盖层存储初始化失败: " + directory, e);
+        }
+    }
+}
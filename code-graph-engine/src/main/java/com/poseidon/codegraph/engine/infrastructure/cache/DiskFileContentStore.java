@@ -0,0 +1,280 @@
+package com.poseidon.codegraph.engine.infrastructure.cache;
+
+import com.poseidon.codegraph.engine.application.converter.FileContentCodec;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基于本地磁盘的文件内容存储
+ *
+ * 目录结构：
+ * - blobs/ab/{内容哈希}.gz：gzip 压缩的文件内容
+ * - refs/cd/{SHA-256(仓库|分支|路径)}.ref：文件当前内容哈希
+ *
+ * ref 和 blob 引用计数常驻内存，启动时从 refs 目录恢复；最近读写的 blob 保留在内存 LRU 中，
+ * 同一文件解析、重建调用关系时不必重复读盘。读取 blob 时解压后的大小与请求解码共用同一上限，
+ * 超过上限（被篡改或损坏的 blob）按未命中处理。
+ *
+ * 引用计数变化、回收 blob 文件、确认 blob 存在并绑定 ref 都在同一把锁内完成：
+ * 并发写入相同内容时，不会出现一方刚确认 blob 存在、另一方随即把它当作无引用删除的情况
+ */
+@Slf4j
+public class DiskFileContentStore implements FileContentStore {
+
+    private static final String BLOB_SUFFIX = ".gz";
+    private static final String REF_SUFFIX = ".ref";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int MAX_HOT_BLOBS = 256;
+
+    private final Path blobDir;
+    private final Path refDir;
+    private final long maxContentBytes;
+
+    /**
+     * ref 键 -> 内容哈希
+     */
+    private final Map<String, String> refs = new HashMap<>();
+
+    /**
+     * 内容哈希 -> 引用次数
+     */
+    private final Map<String, Integer> refCounts = new HashMap<>();
+
+    private final LinkedHashMap<String, String> hotBlobs = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_HOT_BLOBS;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong blobsWritten = new AtomicLong();
+    private final AtomicLong blobsDeleted = new AtomicLong();
+
+    public DiskFileContentStore(Path directory, long maxContentBytes) {
+        this.maxContentBytes = maxContentBytes;
+        this.blobDir = directory.resolve("blobs");
+        this.refDir = directory.resolve("refs");
+        loadRefs();
+    }
+
+    @Override
+    public String put(String gitRepoUrl, String gitBranch, String projectFilePath, String content) {
+        String contentHash = ContentHasher.sha256(content);
+        Path blob = blobPath(contentHash);
+        try {
+            // 压缩和首次写盘在锁外进行，锁内只做确认
+            byte[] data = null;
+            if (!Files.exists(blob)) {
+                data = gzip(content);
+                writeAtomically(blob, data);
+                blobsWritten.incrementAndGet();
+            }
+            synchronized (this) {
+                if (!Files.exists(blob)) {
+                    // 锁外确认之后被回收（原引用方在此期间解绑）：重新写入，之后绑定前不会再被删除
+                    writeAtomically(blob, data != null ? data : gzip(content));
+                    blobsWritten.incrementAndGet();
+                }
+                hotBlobs.put(contentHash, content);
+                bind(refKey(gitRepoUrl, gitBranch, projectFilePath), contentHash);
+            }
+        } catch (IOException e) {
+            log.error("写入文件内容失败: file={}, error={}", projectFilePath, e.getMessage(), e);
+            throw new RuntimeException("写入文件内容失败: " + projectFilePath, e);
+        }
+        return contentHash;
+    }
+
+    @Override
+    public String get(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        String contentHash;
+        synchronized (this) {
+            contentHash = refs.get(refKey(gitRepoUrl, gitBranch, projectFilePath));
+        }
+        if (contentHash == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        return getByHash(contentHash);
+    }
+
+    @Override
+    public synchronized String getHash(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        return refs.get(refKey(gitRepoUrl, gitBranch, projectFilePath));
+    }
+
+    @Override
+    public String getByHash(String contentHash) {
+        synchronized (this) {
+            String content = hotBlobs.get(contentHash);
+            if (content != null) {
+                hits.incrementAndGet();
+                return content;
+            }
+        }
+        Path blob = blobPath(contentHash);
+        if (!Files.exists(blob)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+            String content = new String(FileContentCodec.readBounded(in, maxContentBytes), StandardCharsets.UTF_8);
+            synchronized (this) {
+                hotBlobs.put(contentHash, content);
+            }
+            hits.incrementAndGet();
+            return content;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("读取文件内容失败: hash={}, error={}", contentHash, e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void remove(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        bind(refKey(gitRepoUrl, gitBranch, projectFilePath), null);
+    }
+
+    @Override
+    public synchronized void move(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath) {
+        String oldKey = refKey(gitRepoUrl, gitBranch, oldProjectFilePath);
+        String contentHash = refs.get(oldKey);
+        if (contentHash == null) {
+            return;
+        }
+        bind(refKey(gitRepoUrl, gitBranch, newProjectFilePath), contentHash);
+        bind(oldKey, null);
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            snapshot.put("refs", refs.size());
+            snapshot.put("blobs", refCounts.size());
+            snapshot.put("hotBlobs", hotBlobs.size());
+        }
+        snapshot.put("hits", hits.get());
+        snapshot.put("misses", misses.get());
+        snapshot.put("blobsWritten", blobsWritten.get());
+        snapshot.put("blobsDeleted", blobsDeleted.get());
+        return snapshot;
+    }
+
+    // ========== 内部方法 ==========
+
+    /**
+     * 绑定（contentHash 为 null 时解绑）ref，并回收不再被引用的 blob（调用方持有 this 锁）
+     */
+    private void bind(String refKey, String contentHash) {
+        String previous = contentHash != null ? refs.put(refKey, contentHash) : refs.remove(refKey);
+        if (contentHash != null && contentHash.equals(previous)) {
+            return;
+        }
+        if (contentHash != null) {
+            refCounts.merge(contentHash, 1, Integer::sum);
+        }
+        try {
+            Path refFile = refPath(refKey);
+            if (contentHash != null) {
+                writeAtomically(refFile, contentHash.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(refFile);
+            }
+        } catch (IOException e) {
+            log.warn("写入文件内容 ref 失败: ref={}, error={}", refKey, e.getMessage());
+        }
+        if (previous != null && refCounts.merge(previous, -1, Integer::sum) <= 0) {
+            refCounts.remove(previous);
+            hotBlobs.remove(previous);
+            try {
+                Files.deleteIfExists(blobPath(previous));
+                blobsDeleted.incrementAndGet();
+            } catch (IOException e) {
+                log.debug("删除文件内容失败: hash={}", previous);
+            }
+        }
+    }
+
+    private static String refKey(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        return ContentHasher.sha256(gitRepoUrl + "|" + gitBranch + "|" + projectFilePath);
+    }
+
+    private Path blobPath(String contentHash) {
+        return blobDir.resolve(contentHash.substring(0, 2)).resolve(contentHash + BLOB_SUFFIX);
+    }
+
+    private Path refPath(String refKey) {
+        return refDir.resolve(refKey.substring(0, 2)).resolve(refKey + REF_SUFFIX);
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeAtomically(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TMP_SUFFIX);
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 启动时从 refs 目录恢复 ref 和引用计数
+     */
+    private void loadRefs() {
+        try {
+            Files.createDirectories(blobDir);
+            Files.createDirectories(refDir);
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(refDir, 2)) {
+                files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(REF_SUFFIX))
+                    .collect(Collectors.toList());
+            }
+            synchronized (this) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String contentHash = Files.readString(file, StandardCharsets.UTF_8).trim();
+                    refs.put(name.substring(0, name.length() - REF_SUFFIX.length()), contentHash);
+                    refCounts.merge(contentHash, 1, Integer::sum);
+                }
+            }
+            log.info("文件内容存储初始化完成: dir={}, refs={}, blobs={}", refDir.getParent(), refs.size(), refCounts.size());
+        } catch (IOException e) {
+            log.error("文件内容存储初始化失败: dir={}, error={}", refDir.getParent(), e.getMessage(), e);
+            throw new RuntimeException("文件内容存储初始化失败: " + refDir.getParent(), e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.poseidon.codegraph.engine.infrastructure.cache;
+
+import com.poseidon.codegraph.engine.domain.model.CodeGraph;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseCacheKey;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基于本地磁盘的解析结果缓存
+ *
+ * - 缓存文件名 = SHA-256(内容哈希 | classpath 指纹 | 规则集版本 | 格式版本)，按前两位分目录
+ * - 总大小受 maxBytes 限制，超出时按 LRU 淘汰（命中时刷新文件修改时间，重启后按修改时间恢复 LRU 顺序）
+ * - 写入先落临时文件再原子替换，进程中断不会留下半个缓存文件
+ */
+@Slf4j
+public class DiskParseResultCache implements ParseResultCache {
+
+    private static final String SUFFIX = ".cgc";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final String ruleSetVersion;
+
+    /**
+     * LRU 索引：文件名 -> 文件大小（访问顺序）
+     */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DiskParseResultCache(Path directory, long maxBytes, String ruleSetVersion) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ruleSetVersion = ruleSetVersion;
+        loadIndex();
+    }
+
+    @Override
+    public CodeGraph get(ParseCacheKey key) {
+        String name = fileName(key);
+        synchronized (this) {
+            if (!index.containsKey(name)) {
+                misses.incrementAndGet();
+                return null;
+            }
+            index.get(name);  // 刷新 LRU 顺序
+        }
+
+        Path file = resolve(name);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            CodeGraph graph = CodeGraphBinaryCodec.decode(in);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return graph;
+        } catch (IOException e) {
+            log.warn("读取解析缓存失败，丢弃该缓存: file={}, error={}", file, e.getMessage());
+            remove(name);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    @Override
+    public void put(ParseCacheKey key, CodeGraph graph) {
+        String name = fileName(key);
+        Path file = resolve(name);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), name, TMP_SUFFIX);
+            long size;
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                    CodeGraphBinaryCodec.encode(graph, out);
+                }
+                size = Files.size(tmp);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+
+            synchronized (this) {
+                Long previous = index.put(name, size);
+                totalBytes += size - (previous != null ? previous : 0);
+            }
+            puts.incrementAndGet();
+            evictIfNecessary();
+        } catch (IOException e) {
+            log.warn("写入解析缓存失败: file={}, error={}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("hits", hits.get());
+        snapshot.put("misses", misses.get());
+        snapshot.put("puts", puts.get());
+        snapshot.put("evictions", evictions.get());
+        synchronized (this) {
+            snapshot.put("entries", index.size());
+            snapshot.put("totalBytes", totalBytes);
+        }
+        snapshot.put("maxBytes", maxBytes);
+        snapshot.put("ruleSetVersion", ruleSetVersion);
+        return snapshot;
+    }
+
+    // ========== 内部方法 ==========
+
+    private String fileName(ParseCacheKey key) {
+        String composite = key.getContentHash() + "|" + key.getClasspathFingerprint() + "|"
+            + key.getSourceDependencyFingerprint() + "|" + key.getProjectFingerprint() + "|" + ruleSetVersion + "|" + CodeGraphBinaryCodec.FORMAT_VERSION;
+        return ContentHasher.sha256(composite) + SUFFIX;
+    }
+
+    private Path resolve(String name) {
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private void evictIfNecessary() {
+        while (true) {
+            String victim;
+            synchronized (this) {
+                if (totalBytes <= maxBytes || index.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+                Map.Entry<String, Long> eldest = it.next();
+                victim = eldest.getKey();
+                totalBytes -= eldest.getValue();
+                it.remove();
+            }
+            try {
+                Files.deleteIfExists(resolve(victim));
+                evictions.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("淘汰解析缓存失败: file={}, error={}", victim, e.getMessage());
+            }
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (this) {
+            Long size = index.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(resolve(name));
+        } catch (IOException e) {
+            log.debug("删除解析缓存失败: file={}", name);
+        }
+    }
+
+    /**
+     * 启动时扫描缓存目录，按修改时间从旧到新重建 LRU 索引
+     */
+    private void loadIndex() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(directory, 2)) {
+                files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> !deleteIfTemp(p))
+                    .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .collect(Collectors.toList());
+            }
+            synchronized (this) {
+                for (Path file : files) {
+                    long size = Files.size(file);
+                    index.put(file.getFileName().toString(), size);
+                    totalBytes += size;
+                }
+            }
+            log.info("解析缓存初始化完成: dir={}, entries={}, totalBytes={}, maxBytes={}",
+                directory, index.size(), totalBytes, maxBytes);
+            evictIfNecessary();
+        } catch (IOException e) {
+            log.error("解析缓存初始化失败: dir={}, error={}", directory, e.getMessage(), e);
+            throw new RuntimeException("解析缓存初始化失败: " + directory, e);
+        }
+    }
+
+    /**
+     * 清理上次进程中断残留的临时文件
+     */
+    private boolean deleteIfTemp(Path file) {
+        if (!file.getFileName().toString().endsWith(TMP_SUFFIX)) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("清理临时缓存文件失败: file={}", file);
+        }
+        return true;
+    }
+    
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
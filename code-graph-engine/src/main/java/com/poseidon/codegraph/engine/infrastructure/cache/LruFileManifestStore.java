@@ -0,0 +1,274 @@
+package com.poseidon.codegraph.engine.infrastructure.cache;
+
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+import com.poseidon.codegraph.engine.domain.parser.cache.ContentHasher;
+import com.poseidon.codegraph.engine.domain.service.manifest.FileManifestStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 基于内存 LRU 的文件清单存储，可选写穿到本地磁盘
+ *
+ * 磁盘目录结构：{dir}/{SHA-256(命名空间) 前 16 位}/ab/{SHA-256(路径)}.manifest，每行一条 "类型 ID"
+ * （P 路径 / U 单元 / F 函数 / E 端点）；每个命名空间目录下的 NAMESPACE 文件记录命名空间原文，按条件删除时据此匹配。
+ * 内存未命中时先读磁盘，磁盘也没有才返回 null，由调用方从图数据库重建。
+ */
+@Slf4j
+public class LruFileManifestStore implements FileManifestStore {
+    
+    private static final String SUFFIX = ".manifest";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String NAMESPACE_FILE = "NAMESPACE";
+    private static final char KEY_SEPARATOR = '\u0000';
+    
+    private final Path directory;
+    private final LinkedHashMap<String, FileManifest> entries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong namespaceRemovals = new AtomicLong();
+    
+    /**
+     * @param maxEntries 内存中最多保留的清单数
+     * @param directory 磁盘目录（为 null 时只用内存）
+     */
+    public LruFileManifestStore(int maxEntries, Path directory) {
+        this.directory = directory;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FileManifest> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    @Override
+    public FileManifest get(String namespace, String projectFilePath) {
+        String key = key(namespace, projectFilePath);
+        synchronized (this) {
+            FileManifest manifest = entries.get(key);
+            if (manifest != null) {
+                hits.incrementAndGet();
+                return copy(manifest);
+            }
+        }
+        FileManifest manifest = readFromDisk(namespace, projectFilePath);
+        if (manifest == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (this) {
+            entries.putIfAbsent(key, manifest);
+        }
+        return copy(manifest);
+    }
+    
+    @Override
+    public void put(String namespace, FileManifest manifest) {
+        FileManifest stored = copy(manifest);
+        synchronized (this) {
+            entries.put(key(namespace, stored.getProjectFilePath()), stored);
+        }
+        writes.incrementAndGet();
+        writeToDisk(namespace, stored);
+    }
+    
+    @Override
+    public void remove(String namespace, String projectFilePath) {
+        synchronized (this) {
+            entries.remove(key(namespace, projectFilePath));
+        }
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(pathOf(namespace, projectFilePath));
+        } catch (IOException e) {
+            log.warn("删除文件清单失败: file={}, error={}", projectFilePath, e.getMessage());
+        }
+    }
+    
+    @Override
+    public int removeNamespaces(Predicate<String> filter) {
+        Set<String> removed = new HashSet<>();
+        synchronized (this) {
+            Iterator<String> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                String namespace = namespaceOf(keys.next());
+                if (filter.test(namespace)) {
+                    removed.add(namespace);
+                    keys.remove();
+                }
+            }
+        }
+        if (directory != null && Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory)) {
+                for (Path dir : dirs) {
+                    String namespace = readNamespace(dir);
+                    if (namespace != null && filter.test(namespace)) {
+                        removed.add(namespace);
+                        deleteRecursively(dir);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("清理文件清单目录失败: dir={}, error={}", directory, e.getMessage());
+            }
+        }
+        namespaceRemovals.addAndGet(removed.size());
+        return removed.size();
+    }
+    
+    @Override
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("persistent", directory != null);
+        stats.put("hits", hits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("writes", writes.get());
+        stats.put("namespaceRemovals", namespaceRemovals.get());
+        return stats;
+    }
+    
+    // ========== 内部方法 ==========
+    
+    private FileManifest readFromDisk(String namespace, String projectFilePath) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(pathOf(namespace, projectFilePath), StandardCharsets.UTF_8);
+            FileManifest manifest = new FileManifest();
+            for (String line : lines) {
+                if (line.length() < 2) {
+                    continue;
+                }
+                String value = line.substring(2);
+                switch (line.charAt(0)) {
+                    case 'P' -> manifest.setProjectFilePath(value);
+                    case 'U' -> manifest.getUnitIds().add(value);
+                    case 'F' -> manifest.getFunctionIds().add(value);
+                    case 'E' -> manifest.getEndpointIds().add(value);
+                    default -> { }
+                }
+            }
+            // 哈希碰撞或文件损坏时视为未命中
+            return projectFilePath.equals(manifest.getProjectFilePath()) ? manifest : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("读取文件清单失败: file={}, error={}", projectFilePath, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeToDisk(String namespace, FileManifest manifest) {
+        if (directory == null) {
+            return;
+        }
+        StringBuilder content = new StringBuilder();
+        content.append("P ").append(manifest.getProjectFilePath()).append('\n');
+        manifest.getUnitIds().forEach(id -> content.append("U ").append(id).append('\n'));
+        manifest.getFunctionIds().forEach(id -> content.append("F ").append(id).append('\n'));
+        manifest.getEndpointIds().forEach(id -> content.append("E ").append(id).append('\n'));
+        Path target = pathOf(namespace, manifest.getProjectFilePath());
+        try {
+            Files.createDirectories(target.getParent());
+            writeNamespace(namespaceDir(namespace), namespace);
+            Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 磁盘只是加速层，写失败时删掉旧文件，避免之后读到过期清单
+            log.warn("写入文件清单失败: file={}, error={}", manifest.getProjectFilePath(), e.getMessage());
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // 忽略
+            }
+        }
+    }
+    
+    private Path pathOf(String namespace, String projectFilePath) {
+        String hash = ContentHasher.sha256(projectFilePath);
+        return namespaceDir(namespace).resolve(hash.substring(0, 2)).resolve(hash + SUFFIX);
+    }
+    
+    private Path namespaceDir(String namespace) {
+        return directory.resolve(ContentHasher.sha256(namespace).substring(0, 16));
+    }
+    
+    private static void writeNamespace(Path dir, String namespace) throws IOException {
+        Path file = dir.resolve(NAMESPACE_FILE);
+        if (!Files.exists(file)) {
+            Path tmp = dir.resolve(NAMESPACE_FILE + TMP_SUFFIX);
+            Files.writeString(tmp, namespace, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    private static String readNamespace(Path dir) {
+        Path file = dir.resolve(NAMESPACE_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("删除文件清单失败: path={}, error={}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("删除文件清单目录失败: dir={}, error={}", dir, e.getMessage());
+        }
+    }
+    
+    private static String key(String namespace, String projectFilePath) {
+        return namespace + KEY_SEPARATOR + projectFilePath;
+    }
+    
+    private static String namespaceOf(String key) {
+        return key.substring(0, key.lastIndexOf(KEY_SEPARATOR));
+    }
+    
+    private static FileManifest copy(FileManifest source) {
+        FileManifest copy = new FileManifest();
+        copy.setProjectFilePath(source.getProjectFilePath());
+        copy.setUnitIds(new ArrayList<>(source.getUnitIds()));
+        copy.setFunctionIds(new ArrayList<>(source.getFunctionIds()));
+        copy.setEndpointIds(new ArrayList<>(source.getEndpointIds()));
+        return copy;
+    }
+}
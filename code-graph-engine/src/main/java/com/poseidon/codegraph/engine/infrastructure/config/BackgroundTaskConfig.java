@@ -0,0 +1,64 @@
+package com.poseidon.codegraph.engine.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 后台任务配置类
+ * 负责创建后台任务执行器，承载不适合在请求线程上执行的批量重建任务；
+ * 长时间运行的维护任务（范围删除、占位符回收、批量导出、项目迁移、范围迁移）使用单独的执行器，
+ * 不会把快照加载、已知函数索引重建等启动任务堵在队列后面
+ */
+@Slf4j
+@Configuration
+public class BackgroundTaskConfig {
+    
+    @Value("${code-graph.background.pool-size:1}")
+    private int poolSize;
+    
+    @Value("${code-graph.background.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${code-graph.maintenance.pool-size:1}")
+    private int maintenancePoolSize;
+    
+    @Value("${code-graph.maintenance.queue-capacity:10}")
+    private int maintenanceQueueCapacity;
+    
+    /**
+     * 后台任务执行器
+     * 默认单线程：批量任务之间按提交顺序执行，避免对同一批文件并发写图
+     */
+    @Bean(name = "backgroundTaskExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor backgroundTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("code-graph-bg-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        log.info("后台任务执行器: poolSize={}, queueCapacity={}", poolSize, queueCapacity);
+        return executor;
+    }
+    
+    /**
+     * 维护任务执行器
+     * 默认单线程：维护任务之间按提交顺序执行，各任务自身只允许一个在执行
+     */
+    @Bean(name = "maintenanceTaskExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor maintenanceTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maintenancePoolSize);
+        executor.setMaxPoolSize(maintenancePoolSize);
+        executor.setQueueCapacity(maintenanceQueueCapacity);
+        executor.setThreadNamePrefix("code-graph-maint-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        log.info("维护任务执行器: poolSize={}, queueCapacity={}", maintenancePoolSize, maintenanceQueueCapacity);
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.poseidon.codegraph.engine.infrastructure.config;
+
+import com.poseidon.codegraph.engine.domain.service.overlay.BranchOverlayStore;
+import com.poseidon.codegraph.engine.infrastructure.cache.DiskBranchOverlayStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 分支覆盖层配置类
+ */
+@Slf4j
+@Configuration
+public class BranchOverlayConfig {
+
+    @Bean
+    public BranchOverlayStore branchOverlayStore(
+            @Value("${code-graph.branch-overlay.persistent:true}") boolean persistent,
+            @Value("${code-graph.branch-overlay.dir:${user.home}/.code-graph/branch-overlay}") String dir) {
+        log.info("分支覆盖层存储: persistent={}, dir={}", persistent, dir);
+        return new DiskBranchOverlayStore(persistent ? Path.of(dir) : null);
+    }
+}
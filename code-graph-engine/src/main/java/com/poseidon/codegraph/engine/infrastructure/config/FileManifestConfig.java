@@ -0,0 +1,27 @@
+package com.poseidon.codegraph.engine.infrastructure.config;
+
+import com.poseidon.codegraph.engine.domain.service.manifest.FileManifestStore;
+import com.poseidon.codegraph.engine.infrastructure.cache.LruFileManifestStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 文件清单配置类
+ */
+@Slf4j
+@Configuration
+public class FileManifestConfig {
+    
+    @Bean
+    public FileManifestStore fileManifestStore(
+            @Value("${code-graph.file-manifest.max-entries:100000}") int maxEntries,
+            @Value("${code-graph.file-manifest.persistent:false}") boolean persistent,
+            @Value("${code-graph.file-manifest.dir:${user.home}/.code-graph/manifest}") String dir) {
+        log.info("文件清单存储: maxEntries={}, persistent={}", maxEntries, persistent);
+        return new LruFileManifestStore(maxEntries, persistent ? Path.of(dir) : null);
+    }
+}
@@ -1,5 +1,8 @@
 package com.poseidon.codegraph.engine.infrastructure.config;
 
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.infrastructure.repository.neo4j.Neo4jRoutingDriver;
+import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.AuthTokens;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
@@ -7,9 +10,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Neo4j 配置类
+ * 仓储统一注入路由 Driver：按当前路由上下文把会话打开到目标库（见 {@link Neo4jRoutingDriver}）
  */
+@Slf4j
 @Configuration
 public class Neo4jConfig {
     
@@ -22,9 +31,46 @@ public class Neo4jConfig {
     @Value("${spring.neo4j.authentication.password:password}")
     private String password;
     
+    /**
+     * 默认库的数据库名（为空时使用服务器的默认数据库）
+     */
+    @Value("${code-graph.neo4j-routing.default-database:}")
+    private String defaultDatabase;
+    
+    /**
+     * 其他目标库：名称=数据库[@bolt://其他服务器:7687]，逗号分隔（其他服务器使用相同的认证信息）
+     */
+    @Value("${code-graph.neo4j-routing.targets:}")
+    private String targets;
+    
     @Bean
     public Driver neo4jDriver() {
-        return GraphDatabase.driver(uri, AuthTokens.basic(username, password));
+        Driver defaultDriver = GraphDatabase.driver(uri, AuthTokens.basic(username, password));
+        Map<String, Driver> driversByUri = new HashMap<>();
+        driversByUri.put(uri, defaultDriver);
+        
+        Map<String, Neo4jRoutingDriver.Target> routes = new LinkedHashMap<>();
+        routes.put(GraphRoute.DEFAULT, new Neo4jRoutingDriver.Target(defaultDriver, blankToNull(defaultDatabase)));
+        for (String entry : targets.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] nameAndSpec = entry.trim().split("=", 2);
+            if (nameAndSpec.length != 2 || nameAndSpec[0].isBlank() || nameAndSpec[1].isBlank()
+                    || GraphRoute.DEFAULT.equals(nameAndSpec[0].trim())) {
+                throw new IllegalArgumentException("路由目标库配置不合法: " + entry);
+            }
+            String[] databaseAndUri = nameAndSpec[1].trim().split("@", 2);
+            String targetUri = databaseAndUri.length == 2 ? databaseAndUri[1].trim() : uri;
+            Driver driver = driversByUri.computeIfAbsent(targetUri,
+                key -> GraphDatabase.driver(key, AuthTokens.basic(username, password)));
+            routes.put(nameAndSpec[0].trim(), new Neo4jRoutingDriver.Target(driver, databaseAndUri[0].trim()));
+        }
+        log.info("Neo4j 路由目标库: targets={}, servers={}", routes.keySet(), driversByUri.keySet());
+        return new Neo4jRoutingDriver(defaultDriver, routes);
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 }
-
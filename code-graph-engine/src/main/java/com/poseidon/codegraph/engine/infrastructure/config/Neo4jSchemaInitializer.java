@@ -0,0 +1,93 @@
+package com.poseidon.codegraph.engine.infrastructure.config;
+
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.infrastructure.repository.neo4j.Neo4jRoutingDriver;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Neo4j 约束与索引初始化
+ * 节点按 id MERGE 写入，id 唯一约束既提供 MERGE 所需的索引，也保证并发写入同一包/函数时不会产生重复节点。
+ * 范围 (:CodeScope) 按 (gitRepoUrl, gitBranch) 组合唯一，节点上的 scopeId 建索引供按仓库/分支过滤。
+ * 导入包 (:CodeImportedPackage) 按包名唯一，供 classpath 变化时按导入包反查文件。
+ * 按项目路由到多个数据库时，每个目标库都创建一遍
+ */
+@Slf4j
+@Component
+public class Neo4jSchemaInitializer {
+    
+    private static final List<String> CONSTRAINTS = List.of(
+        "CREATE CONSTRAINT code_package_id IF NOT EXISTS FOR (n:CodePackage) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT code_unit_id IF NOT EXISTS FOR (n:CodeUnit) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT code_function_id IF NOT EXISTS FOR (n:CodeFunction) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT code_endpoint_id IF NOT EXISTS FOR (n:CodeEndpoint) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT code_scope_id IF NOT EXISTS FOR (n:CodeScope) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT code_scope_key IF NOT EXISTS FOR (n:CodeScope) REQUIRE (n.gitRepoUrl, n.gitBranch) IS UNIQUE",
+        "CREATE CONSTRAINT code_imported_package_name IF NOT EXISTS FOR (n:CodeImportedPackage) REQUIRE n.name IS UNIQUE"
+    );
+    
+    private static final List<String> INDEXES = List.of(
+        "CREATE INDEX code_package_scope IF NOT EXISTS FOR (n:CodePackage) ON (n.scopeId)",
+        "CREATE INDEX code_unit_scope_path IF NOT EXISTS FOR (n:CodeUnit) ON (n.scopeId, n.projectFilePath)",
+        "CREATE INDEX code_function_scope_path IF NOT EXISTS FOR (n:CodeFunction) ON (n.scopeId, n.projectFilePath)",
+        "CREATE INDEX code_function_placeholder IF NOT EXISTS FOR (n:CodeFunction) ON (n.isPlaceholder)",
+        "CREATE INDEX code_endpoint_scope IF NOT EXISTS FOR (n:CodeEndpoint) ON (n.scopeId)",
+        "CREATE INDEX code_endpoint_service IF NOT EXISTS FOR (n:CodeEndpoint) ON (n.service)"
+    );
+    
+    private final Driver driver;
+    private final TaskExecutor backgroundTaskExecutor;
+    
+    public Neo4jSchemaInitializer(Driver driver, @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor) {
+        this.driver = driver;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            backgroundTaskExecutor.execute(this::createSchema);
+        } catch (Exception e) {
+            log.warn("Neo4j 约束初始化任务提交失败: error={}", e.getMessage());
+        }
+    }
+    
+    private void createSchema() {
+        List<String> targets = driver instanceof Neo4jRoutingDriver routing
+            ? routing.targetNames()
+            : List.of(GraphRoute.DEFAULT);
+        for (String target : targets) {
+            GraphRoute.run(target, this::createSchemaInRoute);
+        }
+        log.info("Neo4j 约束与索引初始化完成: targets={}, constraints={}, indexes={}",
+            targets, CONSTRAINTS.size(), INDEXES.size());
+    }
+    
+    private void createSchemaInRoute() {
+        for (String statement : CONSTRAINTS) {
+            try (Session session = driver.session()) {
+                session.run(statement).consume();
+            } catch (Exception e) {
+                // 已有重复数据时约束创建失败，不影响写入，只是 MERGE 失去并发保护
+                log.warn("创建 Neo4j 约束失败: target={}, statement={}, error={}",
+                    GraphRoute.current(), statement, e.getMessage());
+            }
+        }
+        for (String statement : INDEXES) {
+            try (Session session = driver.session()) {
+                session.run(statement).consume();
+            } catch (Exception e) {
+                log.warn("创建 Neo4j 索引失败: target={}, statement={}, error={}",
+                    GraphRoute.current(), statement, e.getMessage());
+            }
+        }
+    }
+}
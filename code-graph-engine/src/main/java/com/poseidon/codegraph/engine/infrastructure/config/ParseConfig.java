@@ -0,0 +1,73 @@
+package com.poseidon.codegraph.engine.infrastructure.config;
+
+import com.poseidon.codegraph.engine.domain.parser.ParseBudget;
+import com.poseidon.codegraph.engine.domain.parser.ParseMetrics;
+import com.poseidon.codegraph.engine.domain.parser.cache.FileContentStore;
+import com.poseidon.codegraph.engine.domain.parser.cache.ParseResultCache;
+import com.poseidon.codegraph.engine.domain.parser.endpoint.EndpointParsingService;
+import com.poseidon.codegraph.engine.infrastructure.cache.DiskFileContentStore;
+import com.poseidon.codegraph.engine.infrastructure.cache.DiskParseResultCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 解析配置类
+ * 负责创建单文件解析预算、解析指标、解析结果缓存和文件内容存储
+ */
+@Slf4j
+@Configuration
+public class ParseConfig {
+    
+    @Value("${code-graph.parse.max-file-bytes:1048576}")
+    private long maxFileBytes;
+    
+    @Value("${code-graph.parse.max-file-lines:20000}")
+    private int maxFileLines;
+    
+    @Value("${code-graph.parse.timeout-millis:30000}")
+    private long timeoutMillis;
+    
+    @Bean
+    public ParseBudget parseBudget() {
+        ParseBudget budget = new ParseBudget();
+        budget.setMaxFileBytes(maxFileBytes);
+        budget.setMaxFileLines(maxFileLines);
+        budget.setTimeoutMillis(timeoutMillis);
+        log.info("解析预算: maxFileBytes={}, maxFileLines={}, timeoutMillis={}", 
+            maxFileBytes, maxFileLines, timeoutMillis);
+        return budget;
+    }
+    
+    @Bean
+    public ParseMetrics parseMetrics() {
+        return new ParseMetrics();
+    }
+    
+    /**
+     * 解析结果缓存（code-graph.parse-cache.enabled=false 时不创建）
+     */
+    @Bean
+    @ConditionalOnProperty(name = "code-graph.parse-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public ParseResultCache parseResultCache(
+            EndpointParsingService endpointParsingService,
+            @Value("${code-graph.parse-cache.dir:${user.home}/.code-graph/parse-cache}") String dir,
+            @Value("${code-graph.parse-cache.max-bytes:536870912}") long maxBytes) {
+        return new DiskParseResultCache(Path.of(dir), maxBytes, endpointParsingService.getRuleSetVersion());
+    }
+    
+    /**
+     * 文件内容存储（code-graph.content-store.enabled=false 时不创建）
+     */
+    @Bean
+    @ConditionalOnProperty(name = "code-graph.content-store.enabled", havingValue = "true", matchIfMissing = true)
+    public FileContentStore fileContentStore(
+            @Value("${code-graph.content-store.dir:${user.home}/.code-graph/content-store}") String dir,
+            @Value("${code-graph.content-store.max-decoded-bytes:16777216}") long maxDecodedBytes) {
+        return new DiskFileContentStore(Path.of(dir), maxDecodedBytes);
+    }
+}
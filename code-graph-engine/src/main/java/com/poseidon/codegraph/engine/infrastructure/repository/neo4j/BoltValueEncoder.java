@@ -0,0 +1,210 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeNode;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+import com.poseidon.codegraph.engine.domain.model.endpoint.DbEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.HttpEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.MqEndpoint;
+import com.poseidon.codegraph.engine.domain.model.endpoint.RedisEndpoint;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.value.MapValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 领域模型 -> Bolt 参数编码器
+ *
+ * 写入热路径上直接把领域对象编码成驱动的 {@link Value}，不再经过 DO 和 Map&lt;String, Object&gt; 两层中间拷贝：
+ * 每个节点只分配一个按实际属性数定容的 Map 和各属性自身的 Value。
+ * 值为 null 的属性不写入参数，Cypher 中 row.xxx 取到的仍是 null，写库结果与逐字段传 null 相同
+ *
+ * 属性名和默认值与原 xxxToMap 保持一致（modifiers/importedPackages 缺省为空列表，isPlaceholder/isDegraded 缺省为 false）
+ */
+public final class BoltValueEncoder {
+
+    private static final Value EMPTY_LIST = Values.value(new Value[0]);
+
+    private BoltValueEncoder() {
+    }
+
+    /**
+     * 批量编码为 Bolt 列表参数
+     */
+    public static <T> Value encodeAll(List<T> items, Function<T, Value> encoder) {
+        Value[] values = new Value[items.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = encoder.apply(items.get(i));
+        }
+        return Values.value(values);
+    }
+
+    public static Value encode(CodePackage pkg, ToIntBiFunction<String, String> scopeIds) {
+        Map<String, Value> map = newMap(7);
+        putNodeFields(map, pkg, scopeIds);
+        put(map, "packagePath", pkg.getPackagePath());
+        return new MapValue(map);
+    }
+
+    public static Value encode(CodeUnit unit, ToIntBiFunction<String, String> scopeIds) {
+        Map<String, Value> map = newMap(15);
+        putNodeFields(map, unit, scopeIds);
+        put(map, "unitType", unit.getUnitType());
+        putList(map, "modifiers", unit.getModifiers());
+        put(map, "isAbstract", unit.getIsAbstract());
+        put(map, "packageId", unit.getPackageId());
+        put(map, "isDegraded", Boolean.TRUE.equals(unit.getIsDegraded()));
+        putList(map, "importedPackages", unit.getImportedPackages());
+        put(map, "sourceHash", unit.getSourceHash());
+        return new MapValue(map);
+    }
+
+    public static Value encode(CodeFunction function, ToIntBiFunction<String, String> scopeIds) {
+        Map<String, Value> map = newMap(16);
+        putNodeFields(map, function, scopeIds);
+        put(map, "signature", function.getSignature());
+        put(map, "returnType", function.getReturnType());
+        putList(map, "modifiers", function.getModifiers());
+        put(map, "isStatic", function.getIsStatic());
+        put(map, "isAsync", function.getIsAsync());
+        put(map, "isConstructor", function.getIsConstructor());
+        put(map, "isPlaceholder", Boolean.TRUE.equals(function.getIsPlaceholder()));
+        put(map, "isDegraded", Boolean.TRUE.equals(function.getIsDegraded()));
+        return new MapValue(map);
+    }
+
+    /**
+     * 端点只编码公共字段和自身子类型的字段，其余协议的字段不出现在参数中（functionId 不持久化）
+     */
+    public static Value encode(CodeEndpoint endpoint, ToIntBiFunction<String, String> scopeIds) {
+        Map<String, Value> map = newMap(18);
+        putNodeFields(map, endpoint, scopeIds);
+        if (endpoint.getEndpointType() != null) {
+            put(map, "endpointType", endpoint.getEndpointType().name());
+        }
+        put(map, "direction", endpoint.getDirection());
+        put(map, "isExternal", endpoint.getIsExternal());
+        put(map, "serviceName", endpoint.getServiceName());
+        put(map, "service", ServicePair.serviceOf(endpoint.getServiceName(), endpoint.getGitRepoUrl()));
+        put(map, "parseLevel", endpoint.getParseLevel());
+        put(map, "targetService", endpoint.getTargetService());
+        put(map, "matchIdentity", endpoint.getMatchIdentity());
+
+        if (endpoint instanceof HttpEndpoint http) {
+            put(map, "httpMethod", http.getHttpMethod());
+            put(map, "path", http.getPath());
+            put(map, "normalizedPath", http.getNormalizedPath());
+        } else if (endpoint instanceof MqEndpoint mq) {
+            put(map, "topic", mq.getTopic());
+            put(map, "operation", mq.getOperation());
+            put(map, "brokerType", mq.getBrokerType());
+        } else if (endpoint instanceof RedisEndpoint redis) {
+            put(map, "keyPattern", redis.getKeyPattern());
+            put(map, "dataStructure", redis.getDataStructure());
+            put(map, "command", redis.getCommand());
+        } else if (endpoint instanceof DbEndpoint db) {
+            put(map, "tableName", db.getTableName());
+            put(map, "dbOperation", db.getDbOperation());
+        }
+        return new MapValue(map);
+    }
+
+    /**
+     * CALLS 只编码两端 ID、调用次数、调用点行号和调用类型（关系 ID、类型、语言等由边本身和两端节点表达，不再冗余存储）
+     */
+    public static Value encode(CodeRelationship relationship) {
+        if (relationship.getRelationshipType() == RelationshipType.CALLS) {
+            Map<String, Value> map = newMap(5);
+            put(map, "fromNodeId", relationship.getFromNodeId());
+            put(map, "toNodeId", relationship.getToNodeId());
+            put(map, "callCount", relationship.getCallCount() != null ? relationship.getCallCount() : 1);
+            putIntList(map, "lineNumbers", relationship.getLineNumbers() != null
+                ? relationship.getLineNumbers()
+                : relationship.getLineNumber() != null ? List.of(relationship.getLineNumber()) : List.of());
+            put(map, "callType", relationship.getCallType());
+            return new MapValue(map);
+        }
+        Map<String, Value> map = newMap(7);
+        put(map, "id", relationship.getId());
+        put(map, "fromNodeId", relationship.getFromNodeId());
+        put(map, "toNodeId", relationship.getToNodeId());
+        if (relationship.getRelationshipType() != null) {
+            put(map, "relationshipType", relationship.getRelationshipType().name());
+        }
+        put(map, "lineNumber", relationship.getLineNumber());
+        put(map, "callType", relationship.getCallType());
+        put(map, "language", relationship.getLanguage());
+        return new MapValue(map);
+    }
+
+    // ========== 内部方法 ==========
+
+    /**
+     * 按最大属性数定容，避免写入过程中扩容
+     */
+    private static Map<String, Value> newMap(int maxEntries) {
+        return new HashMap<>((int) (maxEntries / 0.75f) + 1);
+    }
+
+    /**
+     * 仓库 URL 和分支不再逐节点写入，只写范围 ID（见 {@link Neo4jCodeScopeRepository}）
+     */
+    private static void putNodeFields(Map<String, Value> map, CodeNode node, ToIntBiFunction<String, String> scopeIds) {
+        put(map, "id", node.getId());
+        put(map, "name", node.getName());
+        put(map, "qualifiedName", node.getQualifiedName());
+        put(map, "language", node.getLanguage());
+        put(map, "projectFilePath", node.getProjectFilePath());
+        put(map, "scopeId", scopeIds.applyAsInt(node.getGitRepoUrl(), node.getGitBranch()));
+        put(map, "startLine", node.getStartLine());
+        put(map, "endLine", node.getEndLine());
+    }
+
+    private static void put(Map<String, Value> map, String key, String value) {
+        if (value != null) {
+            map.put(key, Values.value(value));
+        }
+    }
+
+    private static void put(Map<String, Value> map, String key, Integer value) {
+        if (value != null) {
+            map.put(key, Values.value(value.intValue()));
+        }
+    }
+
+    private static void put(Map<String, Value> map, String key, Boolean value) {
+        if (value != null) {
+            map.put(key, Values.value(value.booleanValue()));
+        }
+    }
+
+    private static void putList(Map<String, Value> map, String key, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            map.put(key, EMPTY_LIST);
+            return;
+        }
+        Value[] items = new Value[values.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Values.value(values.get(i));
+        }
+        map.put(key, Values.value(items));
+    }
+
+    private static void putIntList(Map<String, Value> map, String key, List<Integer> values) {
+        Value[] items = new Value[values.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Values.value(values.get(i).intValue());
+        }
+        map.put(key, Values.value(items));
+    }
+}
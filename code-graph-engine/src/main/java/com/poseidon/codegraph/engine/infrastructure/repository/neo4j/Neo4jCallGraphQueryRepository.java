@@ -0,0 +1,114 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.model.CallGraphNodeDO;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.repository.CallGraphQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.types.Node;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Neo4j 调用图查询仓储实现
+ */
+@Slf4j
+@Repository
+public class Neo4jCallGraphQueryRepository implements CallGraphQueryRepository {
+    
+    private final Driver driver;
+    private final Neo4jCodeScopeRepository scopeRepository;
+    
+    public Neo4jCallGraphQueryRepository(Driver driver, Neo4jCodeScopeRepository scopeRepository) {
+        this.driver = driver;
+        this.scopeRepository = scopeRepository;
+    }
+    
+    @Override
+    public CallGraphNodeDO findFunction(String functionId) {
+        String cypher = """
+            MATCH (f:CodeFunction {id: $id})
+            RETURN f
+            """;
+        
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher, Map.of("id", functionId));
+            return result.hasNext() ? toNode(result.next().get("f").asNode()) : null;
+        } catch (Exception e) {
+            log.error("查询函数失败: id={}, error={}", functionId, e.getMessage(), e);
+            throw new RuntimeException("查询函数失败: " + functionId, e);
+        }
+    }
+    
+    @Override
+    public List<CallGraphNodeDO> findFunctionsByIds(List<String> functionIds) {
+        if (functionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String cypher = """
+            UNWIND $ids AS id
+            MATCH (f:CodeFunction {id: id})
+            RETURN f
+            """;
+        
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher, Map.of("ids", functionIds));
+            return result.stream()
+                .map(record -> toNode(record.get("f").asNode()))
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("批量查询函数失败: count={}, error={}", functionIds.size(), e.getMessage(), e);
+            throw new RuntimeException("批量查询函数失败", e);
+        }
+    }
+    
+    @Override
+    public List<CallGraphNodeDO> findNeighbors(List<String> functionIds, boolean callers) {
+        if (functionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String cypher = callers
+            ? """
+                UNWIND $ids AS id
+                MATCH (:CodeFunction {id: id})<-[:CALLS]-(n:CodeFunction)
+                RETURN DISTINCT n
+                """
+            : """
+                UNWIND $ids AS id
+                MATCH (:CodeFunction {id: id})-[:CALLS]->(n:CodeFunction)
+                RETURN DISTINCT n
+                """;
+        
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher, Map.of("ids", functionIds));
+            return result.stream()
+                .map(record -> toNode(record.get("n").asNode()))
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("查询调用邻居失败: count={}, callers={}, error={}", functionIds.size(), callers, e.getMessage(), e);
+            throw new RuntimeException("查询调用邻居失败", e);
+        }
+    }
+    
+    private CallGraphNodeDO toNode(Node node) {
+        CallGraphNodeDO dobj = new CallGraphNodeDO();
+        dobj.setId(node.get("id").asString());
+        dobj.setName(node.get("name").asString(null));
+        dobj.setQualifiedName(node.get("qualifiedName").asString(null));
+        dobj.setSignature(node.get("signature").asString(null));
+        dobj.setProjectFilePath(node.get("projectFilePath").asString(null));
+        CodeScope scope = scopeRepository.scopeOf(node);
+        dobj.setGitRepoUrl(scope.getGitRepoUrl());
+        dobj.setGitBranch(scope.getGitBranch());
+        dobj.setIsPlaceholder(node.get("isPlaceholder").isNull() ? null : node.get("isPlaceholder").asBoolean());
+        return dobj;
+    }
+}
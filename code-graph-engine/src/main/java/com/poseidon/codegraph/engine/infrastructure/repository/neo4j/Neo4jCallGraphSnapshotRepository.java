@@ -0,0 +1,68 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.repository.CallGraphSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Neo4j 调用图快照加载仓储实现
+ * 结果按批拉取（fetchSize），逐条回调，内存占用与结果集大小无关
+ */
+@Slf4j
+@Repository
+public class Neo4jCallGraphSnapshotRepository implements CallGraphSnapshotRepository {
+    
+    private static final long FETCH_SIZE = 10000;
+    
+    private final Driver driver;
+    
+    public Neo4jCallGraphSnapshotRepository(Driver driver) {
+        this.driver = driver;
+    }
+    
+    @Override
+    public void streamNodes(BiConsumer<String, String> visitor) {
+        String cypher = """
+            MATCH (n)
+            WHERE n:CodeFunction OR n:CodeEndpoint
+            RETURN n.id AS id, n.projectFilePath AS projectFilePath
+            """;
+        
+        try (Session session = driver.session(SessionConfig.builder().withFetchSize(FETCH_SIZE).build())) {
+            Result result = session.run(cypher);
+            while (result.hasNext()) {
+                Record record = result.next();
+                visitor.accept(record.get("id").asString(), record.get("projectFilePath").asString(null));
+            }
+        } catch (Exception e) {
+            log.error("流式读取快照节点失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("流式读取快照节点失败", e);
+        }
+    }
+    
+    @Override
+    public void streamEdges(EdgeVisitor visitor) {
+        String cypher = """
+            MATCH (a)-[r:CALLS|ENDPOINT_TO_FUNCTION|FUNCTION_TO_ENDPOINT|MATCHES]->(b)
+            RETURN a.id AS fromId, b.id AS toId, type(r) AS type
+            """;
+        
+        try (Session session = driver.session(SessionConfig.builder().withFetchSize(FETCH_SIZE).build())) {
+            Result result = session.run(cypher);
+            while (result.hasNext()) {
+                Record record = result.next();
+                visitor.visit(record.get("fromId").asString(), record.get("toId").asString(), record.get("type").asString());
+            }
+        } catch (Exception e) {
+            log.error("流式读取快照关系失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("流式读取快照关系失败", e);
+        }
+    }
+}
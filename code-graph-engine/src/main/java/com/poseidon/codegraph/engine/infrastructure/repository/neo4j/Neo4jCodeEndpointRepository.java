@@ -1,11 +1,16 @@
 package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
 
 import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
 import com.poseidon.codegraph.engine.application.repository.CodeEndpointRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.EndpointMatchKey;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Result;
+import org.neo4j.driver.Values;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
@@ -19,102 +24,56 @@ import java.util.stream.Collectors;
 public class Neo4jCodeEndpointRepository implements CodeEndpointRepository {
     
     private final Driver driver;
+    private final Neo4jCodeScopeRepository scopeRepository;
     
-    public Neo4jCodeEndpointRepository(Driver driver) {
+    public Neo4jCodeEndpointRepository(Driver driver, Neo4jCodeScopeRepository scopeRepository) {
         this.driver = driver;
+        this.scopeRepository = scopeRepository;
     }
     
     @Override
-    public void insertEndpointsBatch(List<CodeEndpointDO> endpoints) {
+    public void upsertEndpointsBatch(List<CodeEndpoint> endpoints) {
         if (endpoints.isEmpty()) {
             return;
         }
         
         String cypher = """
             UNWIND $endpoints AS endpoint
-            CREATE (e:CodeEndpoint {
-                id: endpoint.id,
-                name: endpoint.name,
-                qualifiedName: endpoint.qualifiedName,
-                projectFilePath: endpoint.projectFilePath,
-                gitRepoUrl: endpoint.gitRepoUrl,
-                gitBranch: endpoint.gitBranch,
-                language: endpoint.language,
-                startLine: endpoint.startLine,
-                endLine: endpoint.endLine,
-                endpointType: endpoint.endpointType,
-                direction: endpoint.direction,
-                isExternal: endpoint.isExternal,
-                httpMethod: endpoint.httpMethod,
-                path: endpoint.path,
-                normalizedPath: endpoint.normalizedPath,
-                topic: endpoint.topic,
-                operation: endpoint.operation,
-                brokerType: endpoint.brokerType,
-                keyPattern: endpoint.keyPattern,
-                command: endpoint.command,
-                dataStructure: endpoint.dataStructure,
-                tableName: endpoint.tableName,
-                dbOperation: endpoint.dbOperation,
-                serviceName: endpoint.serviceName,
-                parseLevel: endpoint.parseLevel,
-                targetService: endpoint.targetService,
-                matchIdentity: endpoint.matchIdentity
-            })
-            """;
-        
-        try (Session session = driver.session()) {
-            session.run(cypher, Map.of("endpoints", toMapList(endpoints)));
-            log.info("批量插入端点成功: count={}", endpoints.size());
-        } catch (Exception e) {
-            log.error("批量插入端点失败: error={}", e.getMessage(), e);
-            throw new RuntimeException("批量插入端点失败", e);
-        }
-    }
-    
-    @Override
-    public void updateEndpointsBatch(List<CodeEndpointDO> endpoints) {
-        if (endpoints.isEmpty()) {
-            return;
-        }
-        
-        String cypher = """
-            UNWIND $endpoints AS endpoint
-            MATCH (e:CodeEndpoint {id: endpoint.id})
-            SET e.name = endpoint.name,
-                e.qualifiedName = endpoint.qualifiedName,
-                e.projectFilePath = endpoint.projectFilePath,
-                e.gitRepoUrl = endpoint.gitRepoUrl,
-                e.gitBranch = endpoint.gitBranch,
-                e.language = endpoint.language,
-                e.startLine = endpoint.startLine,
-                e.endLine = endpoint.endLine,
-                e.endpointType = endpoint.endpointType,
-                e.direction = endpoint.direction,
-                e.isExternal = endpoint.isExternal,
-                e.httpMethod = endpoint.httpMethod,
-                e.path = endpoint.path,
-                e.normalizedPath = endpoint.normalizedPath,
-                e.topic = endpoint.topic,
-                e.operation = endpoint.operation,
-                e.brokerType = endpoint.brokerType,
-                e.keyPattern = endpoint.keyPattern,
-                e.command = endpoint.command,
-                e.dataStructure = endpoint.dataStructure,
-                e.tableName = endpoint.tableName,
-                e.dbOperation = endpoint.dbOperation,
-                e.serviceName = endpoint.serviceName,
-                e.parseLevel = endpoint.parseLevel,
-                e.targetService = endpoint.targetService,
-                e.matchIdentity = endpoint.matchIdentity
+            MERGE (e:CodeEndpoint {id: endpoint.id})
+            ON CREATE SET e.name = endpoint.name,
+                          e.qualifiedName = endpoint.qualifiedName,
+                          e.projectFilePath = endpoint.projectFilePath,
+                          e.scopeId = endpoint.scopeId,
+                          e.language = endpoint.language,
+                          e.startLine = endpoint.startLine,
+                          e.endLine = endpoint.endLine,
+                          e.endpointType = endpoint.endpointType,
+                          e.direction = endpoint.direction,
+                          e.isExternal = endpoint.isExternal,
+                          e.httpMethod = endpoint.httpMethod,
+                          e.path = endpoint.path,
+                          e.normalizedPath = endpoint.normalizedPath,
+                          e.topic = endpoint.topic,
+                          e.operation = endpoint.operation,
+                          e.brokerType = endpoint.brokerType,
+                          e.keyPattern = endpoint.keyPattern,
+                          e.command = endpoint.command,
+                          e.dataStructure = endpoint.dataStructure,
+                          e.tableName = endpoint.tableName,
+                          e.dbOperation = endpoint.dbOperation,
+                          e.serviceName = endpoint.serviceName,
+                          e.service = endpoint.service,
+                          e.parseLevel = endpoint.parseLevel,
+                          e.targetService = endpoint.targetService,
+                          e.matchIdentity = endpoint.matchIdentity
             """;
         
         try (Session session = driver.session()) {
-            session.run(cypher, Map.of("endpoints", toMapList(endpoints)));
-            log.info("批量更新端点成功: count={}", endpoints.size());
+            session.run(cypher, Values.parameters("endpoints", BoltValueEncoder.encodeAll(endpoints, node -> BoltValueEncoder.encode(node, scopeRepository::resolveScopeId))));
+            log.info("批量写入端点成功: count={}", endpoints.size());
         } catch (Exception e) {
-            log.error("批量更新端点失败: error={}", e.getMessage(), e);
-            throw new RuntimeException("批量更新端点失败", e);
+            log.error("批量写入端点失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("批量写入端点失败", e);
         }
     }
     
@@ -132,37 +91,40 @@ public class Neo4jCodeEndpointRepository implements CodeEndpointRepository {
     }
     
     @Override
-    public Set<String> findExistingEndpointsByIds(List<String> ids) {
+    public List<CodeEndpointDO> findEndpointsByIds(List<String> ids) {
         if (ids.isEmpty()) {
-            return Collections.emptySet();
+            return new ArrayList<>();
         }
         
         String cypher = """
-            MATCH (e:CodeEndpoint)
-            WHERE e.id IN $ids
-            RETURN e.id AS id
+            UNWIND $ids AS id
+            MATCH (e:CodeEndpoint {id: id})
+            RETURN e
             """;
         
         try (Session session = driver.session()) {
             Result result = session.run(cypher, Map.of("ids", ids));
-            return result.stream()
-                .map(record -> record.get("id").asString())
-                .collect(Collectors.toSet());
+            return parseEndpointsFromResult(result);
         } catch (Exception e) {
-            log.error("查询端点存在性失败: error={}", e.getMessage(), e);
-            throw new RuntimeException("查询端点存在性失败", e);
+            log.error("批量查询端点失败: count={}, error={}", ids.size(), e.getMessage(), e);
+            throw new RuntimeException("批量查询端点失败", e);
         }
     }
     
     @Override
-    public List<CodeEndpointDO> findEndpointsByProjectFilePath(String projectFilePath) {
+    public List<CodeEndpointDO> findEndpointsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        // 尚未迁移 scopeId 的历史节点视为匹配
         String cypher = """
             MATCH (e:CodeEndpoint {projectFilePath: $projectFilePath})
+            WHERE $scopeIds IS NULL OR e.scopeId IS NULL OR e.scopeId IN $scopeIds
             RETURN e
             """;
         
+        Map<String, Object> params = new HashMap<>();
+        params.put("scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true));
+        params.put("projectFilePath", projectFilePath);
         try (Session session = driver.session()) {
-            Result result = session.run(cypher, Map.of("projectFilePath", projectFilePath));
+            Result result = session.run(cypher, params);
             return parseEndpointsFromResult(result);
         } catch (Exception e) {
             log.error("查询端点失败: projectFilePath={}, error={}", projectFilePath, e.getMessage(), e);
@@ -171,31 +133,48 @@ public class Neo4jCodeEndpointRepository implements CodeEndpointRepository {
     }
     
     @Override
-    public List<CodeEndpointDO> findEndpointsByMatchIdentity(String matchIdentity, String direction) {
-        String cypher;
-        Map<String, Object> params = new HashMap<>();
-        params.put("matchIdentity", matchIdentity);
+    public List<CodeEndpointDO> findEndpointsByType(String endpointType) {
+        String cypher = """
+            MATCH (e:CodeEndpoint {endpointType: $endpointType})
+            RETURN e
+            """;
         
-        if (direction != null && !direction.isEmpty()) {
-            cypher = """
-                MATCH (e:CodeEndpoint {matchIdentity: $matchIdentity, direction: $direction})
-                RETURN e
-                """;
-            params.put("direction", direction);
-        } else {
-            cypher = """
-                MATCH (e:CodeEndpoint {matchIdentity: $matchIdentity})
-                RETURN e
-                """;
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher, Map.of("endpointType", endpointType));
+            return parseEndpointsFromResult(result);
+        } catch (Exception e) {
+            log.error("按类型查询端点失败: endpointType={}, error={}", endpointType, e.getMessage(), e);
+            throw new RuntimeException("按类型查询端点失败: " + endpointType, e);
+        }
+    }
+    
+    @Override
+    public List<CodeEndpointDO> findEndpointsByMatchIdentities(List<EndpointMatchKey> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
         }
         
+        String cypher = """
+            UNWIND $keys AS key
+            MATCH (e:CodeEndpoint {matchIdentity: key.matchIdentity, direction: key.direction})
+            RETURN DISTINCT e
+            """;
+        
+        List<Map<String, Object>> params = keys.stream()
+            .map(key -> {
+                Map<String, Object> map = new HashMap<>();
+                map.put("matchIdentity", key.getMatchIdentity());
+                map.put("direction", key.getDirection());
+                return map;
+            })
+            .collect(Collectors.toList());
+        
         try (Session session = driver.session()) {
-            Result result = session.run(cypher, params);
+            Result result = session.run(cypher, Map.of("keys", params));
             return parseEndpointsFromResult(result);
         } catch (Exception e) {
-            log.error("查询端点失败: matchIdentity={}, direction={}, error={}", 
-                matchIdentity, direction, e.getMessage(), e);
-            throw new RuntimeException("查询端点失败: " + matchIdentity, e);
+            log.error("批量查询端点失败: keys={}, error={}", keys.size(), e.getMessage(), e);
+            throw new RuntimeException("批量查询端点失败: keys=" + keys.size(), e);
         }
     }
     
@@ -212,8 +191,9 @@ public class Neo4jCodeEndpointRepository implements CodeEndpointRepository {
             endpoint.setName(node.get("name").asString(null));
             endpoint.setQualifiedName(node.get("qualifiedName").asString(null));
             endpoint.setProjectFilePath(node.get("projectFilePath").asString(null));
-            endpoint.setGitRepoUrl(node.get("gitRepoUrl").asString(null));
-            endpoint.setGitBranch(node.get("gitBranch").asString(null));
+            CodeScope scope = scopeRepository.scopeOf(node);
+            endpoint.setGitRepoUrl(scope.getGitRepoUrl());
+            endpoint.setGitBranch(scope.getGitBranch());
             endpoint.setLanguage(node.get("language").asString(null));
             endpoint.setStartLine(node.get("startLine").asInt(0));
             endpoint.setEndLine(node.get("endLine").asInt(0));
@@ -241,42 +221,5 @@ public class Neo4jCodeEndpointRepository implements CodeEndpointRepository {
         
         return endpoints;
     }
-    
-    private List<Map<String, Object>> toMapList(List<CodeEndpointDO> endpoints) {
-        return endpoints.stream().map(this::toMap).collect(Collectors.toList());
-    }
-    
-    private Map<String, Object> toMap(CodeEndpointDO endpoint) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", endpoint.getId());
-        map.put("name", endpoint.getName());
-        map.put("qualifiedName", endpoint.getQualifiedName());
-        map.put("projectFilePath", endpoint.getProjectFilePath());
-        map.put("gitRepoUrl", endpoint.getGitRepoUrl());
-        map.put("gitBranch", endpoint.getGitBranch());
-        map.put("language", endpoint.getLanguage());
-        map.put("startLine", endpoint.getStartLine());
-        map.put("endLine", endpoint.getEndLine());
-        map.put("endpointType", endpoint.getEndpointType());
-        map.put("direction", endpoint.getDirection());
-        map.put("isExternal", endpoint.getIsExternal());
-        map.put("httpMethod", endpoint.getHttpMethod());
-        map.put("path", endpoint.getPath());
-        map.put("normalizedPath", endpoint.getNormalizedPath());
-        map.put("topic", endpoint.getTopic());
-        map.put("operation", endpoint.getOperation());
-        map.put("brokerType", endpoint.getBrokerType());
-        map.put("keyPattern", endpoint.getKeyPattern());
-        map.put("command", endpoint.getCommand());
-        map.put("dataStructure", endpoint.getDataStructure());
-        map.put("tableName", endpoint.getTableName());
-        map.put("dbOperation", endpoint.getDbOperation());
-        map.put("serviceName", endpoint.getServiceName());
-        map.put("parseLevel", endpoint.getParseLevel());
-        map.put("targetService", endpoint.getTargetService());
-        map.put("matchIdentity", endpoint.getMatchIdentity());
-        // functionId 不再持久化
-        return map;
-    }
 }
 
@@ -1,10 +1,17 @@
 package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
 
+import com.poseidon.codegraph.engine.application.model.ChangedFile;
 import com.poseidon.codegraph.engine.application.model.CodeFunctionDO;
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.PlaceholderSweep;
 import com.poseidon.codegraph.engine.application.repository.CodeFunctionRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
 import org.neo4j.driver.Values;
 import org.springframework.stereotype.Repository;
 
@@ -14,28 +21,36 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
 
+    private static final long FETCH_SIZE = 10000;
+    
     private final Driver neo4jDriver;
+    private final Neo4jCodeScopeRepository scopeRepository;
 
-    public Neo4jCodeFunctionRepository(Driver neo4jDriver) {
+    public Neo4jCodeFunctionRepository(Driver neo4jDriver, Neo4jCodeScopeRepository scopeRepository) {
         this.neo4jDriver = neo4jDriver;
+        this.scopeRepository = scopeRepository;
     }
 
     @Override
-    public List<CodeFunctionDO> findFunctionsByProjectFilePath(String projectFilePath) {
+    public List<CodeFunctionDO> findFunctionsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        // 按 (scopeId, projectFilePath) 索引查找；尚未迁移 scopeId 的历史节点视为匹配
         String cypher = """
-            MATCH (func:CodeFunction)
-            WHERE func.projectFilePath = $projectFilePath
+            MATCH (func:CodeFunction {projectFilePath: $projectFilePath})
+            WHERE $scopeIds IS NULL OR func.scopeId IS NULL OR func.scopeId IN $scopeIds
             RETURN func
             """;
         
         try (Session session = neo4jDriver.session()) {
-            return session.run(cypher, Values.parameters("projectFilePath", projectFilePath))
+            return session.run(cypher, Values.parameters(
+                    "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true),
+                    "projectFilePath", projectFilePath))
                 .stream()
                 .map(record -> mapToCodeFunctionDO(record.get("func").asMap()))
                 .collect(Collectors.toList());
@@ -63,65 +78,121 @@ public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
     }
 
     @Override
-    public void insertFunctionsBatch(List<CodeFunctionDO> functions) {
+    public List<String> findFunctionIdsByChangedLines(String gitRepoUrl, String gitBranch, List<ChangedFile> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // 历史数据可能没有 Git 信息或尚未迁移 scopeId，缺失时视为匹配（宁可多报受影响函数，不可漏掉）
+        String cypher = """
+            UNWIND $changes AS change
+            MATCH (f:CodeFunction {projectFilePath: change.projectFilePath})
+            WHERE ($scopeIds IS NULL OR f.scopeId IS NULL OR f.scopeId IN $scopeIds)
+              AND (size(change.ranges) = 0
+                   OR any(r IN change.ranges WHERE f.startLine <= r.endLine AND f.endLine >= r.startLine))
+            RETURN DISTINCT f.id AS id
+            """;
+        
+        List<Map<String, Object>> changeMaps = changes.stream()
+            .map(change -> {
+                Map<String, Object> map = new HashMap<>();
+                map.put("projectFilePath", change.getProjectFilePath());
+                map.put("ranges", change.getRanges() == null ? List.of() : change.getRanges().stream()
+                    .map(range -> Map.<String, Object>of(
+                        "startLine", range.getStartLine(),
+                        "endLine", range.getEndLine() != null ? range.getEndLine() : range.getStartLine()))
+                    .collect(Collectors.toList()));
+                return map;
+            })
+            .collect(Collectors.toList());
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("changes", changeMaps);
+        params.put("scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true));
+        
+        try (Session session = neo4jDriver.session()) {
+            return session.run(cypher, params)
+                .stream()
+                .map(record -> record.get("id").asString())
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("按变更行查询函数失败: files={}, error={}", changes.size(), e.getMessage(), e);
+            throw new RuntimeException("按变更行查询函数失败", e);
+        }
+    }
+
+    @Override
+    public void insertFunctionsIfAbsent(List<CodeFunction> functions) {
         if (functions == null || functions.isEmpty()) {
             return;
         }
         
-        log.debug("批量插入函数开始: count={}", functions.size());
-        
-        String insertCypher = """
+        String cypher = """
             UNWIND $functions AS func
-            CREATE (f:CodeFunction {
-                id: func.id,
-                name: func.name,
-                qualifiedName: func.qualifiedName,
-                language: func.language,
-                projectFilePath: func.projectFilePath,
-                gitRepoUrl: func.gitRepoUrl,
-                gitBranch: func.gitBranch,
-                startLine: func.startLine,
-                endLine: func.endLine,
-                signature: func.signature,
-                returnType: func.returnType,
-                modifiers: func.modifiers,
-                isStatic: func.isStatic,
-                isAsync: func.isAsync,
-                isConstructor: func.isConstructor,
-                isPlaceholder: func.isPlaceholder
-            })
+            MERGE (f:CodeFunction {id: func.id})
+            ON CREATE SET f.name = func.name,
+                          f.qualifiedName = func.qualifiedName,
+                          f.language = func.language,
+                          f.projectFilePath = func.projectFilePath,
+                          f.scopeId = func.scopeId,
+                          f.startLine = func.startLine,
+                          f.endLine = func.endLine,
+                          f.signature = func.signature,
+                          f.returnType = func.returnType,
+                          f.modifiers = func.modifiers,
+                          f.isStatic = func.isStatic,
+                          f.isAsync = func.isAsync,
+                          f.isConstructor = func.isConstructor,
+                          f.isPlaceholder = func.isPlaceholder,
+                          f.isDegraded = func.isDegraded
             """;
         
-        List<Map<String, Object>> insertParams = functions.stream()
-            .map(this::functionToMap)
-            .collect(Collectors.toList());
-        
         try (Session session = neo4jDriver.session()) {
-            session.run(insertCypher, Values.parameters("functions", insertParams));
-            log.info("批量插入函数成功: count={}", functions.size());
+            session.run(cypher, Values.parameters("functions", BoltValueEncoder.encodeAll(functions, node -> BoltValueEncoder.encode(node, scopeRepository::resolveScopeId))));
+            log.info("批量插入函数（不存在时）成功: count={}", functions.size());
         } catch (Exception e) {
-            log.error("批量插入函数失败: count={}, error={}", functions.size(), e.getMessage(), e);
+            log.error("批量插入函数（不存在时）失败: count={}, error={}", functions.size(), e.getMessage(), e);
             throw new RuntimeException("批量插入函数失败", e);
         }
     }
+    
+    @Override
+    public void streamFunctionIds(Consumer<String> visitor) {
+        String cypher = """
+            MATCH (f:CodeFunction)
+            RETURN f.id AS id
+            """;
+        
+        try (Session session = neo4jDriver.session(SessionConfig.builder().withFetchSize(FETCH_SIZE).build())) {
+            Result result = session.run(cypher);
+            while (result.hasNext()) {
+                String id = result.next().get("id").asString(null);
+                if (id != null) {
+                    visitor.accept(id);
+                }
+            }
+        } catch (Exception e) {
+            log.error("流式读取函数 ID 失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("流式读取函数 ID 失败", e);
+        }
+    }
 
     @Override
-    public void updateFunctionsBatch(List<CodeFunctionDO> functions) {
+    public void upsertFunctionsBatch(List<CodeFunction> functions) {
         if (functions == null || functions.isEmpty()) {
             return;
         }
         
-        log.debug("批量更新函数开始: count={}", functions.size());
+        log.debug("批量写入函数开始: count={}", functions.size());
         
-        String updateCypher = """
+        String upsertCypher = """
             UNWIND $functions AS func
-            MATCH (f:CodeFunction {id: func.id})
+            MERGE (f:CodeFunction {id: func.id})
             SET f.name = func.name,
                 f.qualifiedName = func.qualifiedName,
                 f.language = func.language,
                 f.projectFilePath = func.projectFilePath,
-                f.gitRepoUrl = func.gitRepoUrl,
-                f.gitBranch = func.gitBranch,
+                f.scopeId = func.scopeId,
                 f.startLine = func.startLine,
                 f.endLine = func.endLine,
                 f.signature = func.signature,
@@ -130,19 +201,16 @@ public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
                 f.isStatic = func.isStatic,
                 f.isAsync = func.isAsync,
                 f.isConstructor = func.isConstructor,
-                f.isPlaceholder = func.isPlaceholder
+                f.isPlaceholder = func.isPlaceholder,
+                f.isDegraded = func.isDegraded
             """;
         
-        List<Map<String, Object>> updateParams = functions.stream()
-            .map(this::functionToMap)
-            .collect(Collectors.toList());
-        
         try (Session session = neo4jDriver.session()) {
-            session.run(updateCypher, Values.parameters("functions", updateParams));
-            log.info("批量更新函数成功: count={}", functions.size());
+            session.run(upsertCypher, Values.parameters("functions", BoltValueEncoder.encodeAll(functions, node -> BoltValueEncoder.encode(node, scopeRepository::resolveScopeId))));
+            log.info("批量写入函数成功: count={}", functions.size());
         } catch (Exception e) {
-            log.error("批量更新函数失败: count={}, error={}", functions.size(), e.getMessage(), e);
-            throw new RuntimeException("批量更新函数失败", e);
+            log.error("批量写入函数失败: count={}, error={}", functions.size(), e.getMessage(), e);
+            throw new RuntimeException("批量写入函数失败", e);
         }
     }
     
@@ -159,6 +227,88 @@ public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
             log.debug("删除节点: {}", id);
         }
     }
+    
+    @Override
+    public void deleteByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        // 每种标签都按 id 唯一索引查找，不做全库扫描
+        String cypher = """
+            UNWIND $ids AS id
+            CALL {
+                WITH id
+                MATCH (n:CodeUnit {id: id}) RETURN n
+                UNION
+                WITH id
+                MATCH (n:CodeFunction {id: id}) RETURN n
+                UNION
+                WITH id
+                MATCH (n:CodeEndpoint {id: id}) RETURN n
+            }
+            DETACH DELETE n
+            """;
+        
+        try (Session session = neo4jDriver.session()) {
+            session.run(cypher, Values.parameters("ids", ids)).consume();
+            log.debug("批量删除节点: count={}", ids.size());
+        } catch (Exception e) {
+            log.error("批量删除节点失败: count={}, error={}", ids.size(), e.getMessage(), e);
+            throw new RuntimeException("批量删除节点失败", e);
+        }
+    }
+
+    @Override
+    public PlaceholderSweep findOrphanPlaceholders(String afterId, int batchSize) {
+        // 按 id 唯一索引做范围查找并由索引提供顺序，每批代价只与批大小有关；
+        // 不按 isPlaceholder 索引取再排序，否则每批都要扫描并排序全部占位符
+        String cypher = """
+            MATCH (p:CodeFunction)
+            WHERE p.id > $afterId
+            WITH p ORDER BY p.id ASC LIMIT $batchSize
+            WITH collect(p) AS batch
+            RETURN size(batch) AS scanned,
+                   CASE WHEN size(batch) = 0 THEN null ELSE batch[size(batch) - 1].id END AS lastId,
+                   [p IN batch WHERE p.isPlaceholder = true AND NOT EXISTS { (p)<--() } | p.id] AS orphanIds
+            """;
+        
+        try (Session session = neo4jDriver.session()) {
+            Record record = session.executeRead(tx -> tx.run(cypher, Values.parameters(
+                "afterId", afterId != null ? afterId : "",
+                "batchSize", batchSize)).single());
+            PlaceholderSweep sweep = new PlaceholderSweep();
+            sweep.setScanned(record.get("scanned").asInt());
+            sweep.setLastId(record.get("lastId").asString(null));
+            sweep.setOrphanIds(record.get("orphanIds").asList(value -> value.asString()));
+            return sweep;
+        } catch (Exception e) {
+            log.error("扫描占位符失败: afterId={}, error={}", afterId, e.getMessage(), e);
+            throw new RuntimeException("扫描占位符失败", e);
+        }
+    }
+    
+    @Override
+    public List<String> deleteOrphanPlaceholders(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 入边检查和删除在同一事务内，扫描之后新建了入边的占位符不会被删除
+        String cypher = """
+            UNWIND $ids AS id
+            MATCH (p:CodeFunction {id: id})
+            WHERE p.isPlaceholder = true AND NOT EXISTS { (p)<--() }
+            DETACH DELETE p
+            RETURN collect(id) AS deletedIds
+            """;
+        
+        try (Session session = neo4jDriver.session()) {
+            return session.executeWrite(tx -> tx.run(cypher, Values.parameters("ids", ids))
+                .single().get("deletedIds").asList(value -> value.asString()));
+        } catch (Exception e) {
+            log.error("回收占位符失败: count={}, error={}", ids.size(), e.getMessage(), e);
+            throw new RuntimeException("回收占位符失败", e);
+        }
+    }
 
     private CodeFunctionDO mapToCodeFunctionDO(Map<String, Object> map) {
         CodeFunctionDO function = new CodeFunctionDO();
@@ -167,8 +317,9 @@ public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
         function.setQualifiedName((String) map.get("qualifiedName"));
         function.setLanguage((String) map.get("language"));
         function.setProjectFilePath((String) map.get("projectFilePath"));
-        function.setGitRepoUrl((String) map.get("gitRepoUrl"));
-        function.setGitBranch((String) map.get("gitBranch"));
+        CodeScope scope = scopeRepository.scopeOf(map);
+        function.setGitRepoUrl(scope.getGitRepoUrl());
+        function.setGitBranch(scope.getGitBranch());
         function.setStartLine(map.get("startLine") != null ? ((Number) map.get("startLine")).intValue() : null);
         function.setEndLine(map.get("endLine") != null ? ((Number) map.get("endLine")).intValue() : null);
         function.setSignature((String) map.get("signature"));
@@ -178,28 +329,8 @@ public class Neo4jCodeFunctionRepository implements CodeFunctionRepository {
         function.setIsAsync(map.get("isAsync") != null ? (Boolean) map.get("isAsync") : false);
         function.setIsConstructor(map.get("isConstructor") != null ? (Boolean) map.get("isConstructor") : false);
         function.setIsPlaceholder(map.get("isPlaceholder") != null ? (Boolean) map.get("isPlaceholder") : false);
+        function.setIsDegraded(map.get("isDegraded") != null ? (Boolean) map.get("isDegraded") : false);
         return function;
     }
-
-    private Map<String, Object> functionToMap(CodeFunctionDO function) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", function.getId());
-        map.put("name", function.getName());
-        map.put("qualifiedName", function.getQualifiedName());
-        map.put("language", function.getLanguage());
-        map.put("projectFilePath", function.getProjectFilePath());
-        map.put("gitRepoUrl", function.getGitRepoUrl());
-        map.put("gitBranch", function.getGitBranch());
-        map.put("startLine", function.getStartLine());
-        map.put("endLine", function.getEndLine());
-        map.put("signature", function.getSignature());
-        map.put("returnType", function.getReturnType());
-        map.put("modifiers", function.getModifiers() != null ? function.getModifiers() : new ArrayList<>());
-        map.put("isStatic", function.getIsStatic());
-        map.put("isAsync", function.getIsAsync());
-        map.put("isConstructor", function.getIsConstructor());
-        map.put("isPlaceholder", function.getIsPlaceholder() != null ? function.getIsPlaceholder() : false);
-        return map;
-    }
 }
 
@@ -1,129 +1,53 @@
 package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
 
-import com.poseidon.codegraph.engine.application.model.CodePackageDO;
 import com.poseidon.codegraph.engine.application.repository.CodePackageRepository;
+import com.poseidon.codegraph.engine.domain.model.CodePackage;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Values;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 public class Neo4jCodePackageRepository implements CodePackageRepository {
 
     private final Driver neo4jDriver;
+    private final Neo4jCodeScopeRepository scopeRepository;
 
-    public Neo4jCodePackageRepository(Driver neo4jDriver) {
+    public Neo4jCodePackageRepository(Driver neo4jDriver, Neo4jCodeScopeRepository scopeRepository) {
         this.neo4jDriver = neo4jDriver;
+        this.scopeRepository = scopeRepository;
     }
 
     @Override
-    public Set<String> findExistingPackagesByQualifiedNames(List<String> qualifiedNames) {
-        if (qualifiedNames == null || qualifiedNames.isEmpty()) {
-            return new HashSet<>();
-        }
-        
-        String cypher = """
-            MATCH (p:CodePackage)
-            WHERE p.id IN $qualifiedNames OR p.qualifiedName IN $qualifiedNames
-            RETURN DISTINCT COALESCE(p.id, p.qualifiedName) AS id
-            """;
-        
-        try (Session session = neo4jDriver.session()) {
-            return session.run(cypher, Values.parameters("qualifiedNames", qualifiedNames))
-                .stream()
-                .map(record -> record.get("id").asString())
-                .collect(Collectors.toSet());
-        }
-    }
-
-    @Override
-    public void insertPackagesBatch(List<CodePackageDO> packages) {
+    public void upsertPackagesBatch(List<CodePackage> packages) {
         if (packages == null || packages.isEmpty()) {
             return;
         }
         
-        log.debug("批量插入包开始: count={}", packages.size());
+        log.debug("批量写入包开始: count={}", packages.size());
         
-        String insertCypher = """
+        String upsertCypher = """
             UNWIND $packages AS pkg
-            CREATE (p:CodePackage {
-                id: pkg.id,
-                name: pkg.name,
-                qualifiedName: pkg.qualifiedName,
-                language: pkg.language,
-                projectFilePath: pkg.projectFilePath,
-                gitRepoUrl: pkg.gitRepoUrl,
-                gitBranch: pkg.gitBranch,
-                packagePath: pkg.packagePath
-            })
-            """;
-        
-        List<Map<String, Object>> params = packages.stream()
-            .map(this::packageToMap)
-            .collect(Collectors.toList());
-        
-        try (Session session = neo4jDriver.session()) {
-            session.run(insertCypher, Values.parameters("packages", params));
-            log.info("批量插入包成功: count={}", packages.size());
-        } catch (Exception e) {
-            log.error("批量插入包失败: count={}, error={}", packages.size(), e.getMessage(), e);
-            throw new RuntimeException("批量插入包失败", e);
-        }
-    }
-
-    @Override
-    public void updatePackagesBatch(List<CodePackageDO> packages) {
-        if (packages == null || packages.isEmpty()) {
-            return;
-        }
-        
-        log.debug("批量更新包开始: count={}", packages.size());
-        
-        String updateCypher = """
-            UNWIND $packages AS pkg
-            MATCH (p:CodePackage {id: pkg.id})
+            MERGE (p:CodePackage {id: pkg.id})
             SET p.name = pkg.name,
                 p.qualifiedName = pkg.qualifiedName,
                 p.language = pkg.language,
                 p.projectFilePath = pkg.projectFilePath,
-                p.gitRepoUrl = pkg.gitRepoUrl,
-                p.gitBranch = pkg.gitBranch,
+                p.scopeId = pkg.scopeId,
                 p.packagePath = pkg.packagePath
             """;
         
-        List<Map<String, Object>> params = packages.stream()
-            .map(this::packageToMap)
-            .collect(Collectors.toList());
-        
         try (Session session = neo4jDriver.session()) {
-            session.run(updateCypher, Values.parameters("packages", params));
-            log.info("批量更新包成功: count={}", packages.size());
+            session.run(upsertCypher, Values.parameters("packages", BoltValueEncoder.encodeAll(packages, node -> BoltValueEncoder.encode(node, scopeRepository::resolveScopeId))));
+            log.info("批量写入包成功: count={}", packages.size());
         } catch (Exception e) {
-            log.error("批量更新包失败: count={}, error={}", packages.size(), e.getMessage(), e);
-            throw new RuntimeException("批量更新包失败", e);
+            log.error("批量写入包失败: count={}, error={}", packages.size(), e.getMessage(), e);
+            throw new RuntimeException("批量写入包失败", e);
         }
     }
-
-    private Map<String, Object> packageToMap(CodePackageDO pkg) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", pkg.getId());
-        map.put("name", pkg.getName());
-        map.put("qualifiedName", pkg.getQualifiedName());
-        map.put("language", pkg.getLanguage());
-        map.put("projectFilePath", pkg.getProjectFilePath());
-        map.put("gitRepoUrl", pkg.getGitRepoUrl());
-        map.put("gitBranch", pkg.getGitBranch());
-        map.put("packagePath", pkg.getPackagePath());
-        return map;
-    }
 }
 
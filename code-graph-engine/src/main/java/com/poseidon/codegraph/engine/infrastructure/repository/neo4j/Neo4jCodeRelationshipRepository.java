@@ -1,16 +1,15 @@
 package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
 
-import com.poseidon.codegraph.engine.application.model.CodeRelationshipDO;
-import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
 import com.poseidon.codegraph.engine.application.repository.CodeRelationshipRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
-import org.neo4j.driver.Record;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Values;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -20,79 +19,70 @@ import java.util.stream.Collectors;
 public class Neo4jCodeRelationshipRepository implements CodeRelationshipRepository {
 
     private final Driver neo4jDriver;
+    private final Neo4jCodeScopeRepository scopeRepository;
 
-    public Neo4jCodeRelationshipRepository(Driver neo4jDriver) {
+    public Neo4jCodeRelationshipRepository(Driver neo4jDriver, Neo4jCodeScopeRepository scopeRepository) {
         this.neo4jDriver = neo4jDriver;
+        this.scopeRepository = scopeRepository;
     }
 
     @Override
-    public List<String> findWhoCallsMe(String targetProjectFilePath) {
-        log.debug("查询依赖文件: targetFile={}", targetProjectFilePath);
-        String cypher = """
-            MATCH (caller:CodeFunction)-[:CALLS]->(callee:CodeFunction)
-            WHERE callee.projectFilePath = $targetProjectFilePath
-            RETURN DISTINCT caller.projectFilePath AS projectFilePath
-            """;
-        
-        try (Session session = neo4jDriver.session()) {
-            List<String> result = session.run(cypher, Values.parameters("targetProjectFilePath", targetProjectFilePath))
-                .stream()
-                .map(record -> record.get("projectFilePath").asString())
-                .distinct()
-                .collect(Collectors.toList());
-            log.debug("查询依赖文件完成: targetFile={}, dependentCount={}", targetProjectFilePath, result.size());
-            return result;
-        } catch (Exception e) {
-            log.error("查询依赖文件失败: targetFile={}, error={}", targetProjectFilePath, e.getMessage(), e);
-            throw new RuntimeException("查询依赖文件失败: " + targetProjectFilePath, e);
+    public List<String> findCallerFilePathsByCalleePackages(String gitRepoUrl, String gitBranch, List<String> packageNames) {
+        if (packageNames == null || packageNames.isEmpty()) {
+            return new ArrayList<>();
         }
-    }
-
-    @Override
-    public List<FileMetaInfo> findWhoCallsMeWithMeta(String targetProjectFilePath) {
-        log.debug("查询依赖文件（带 Git 元信息）: targetFile={}", targetProjectFilePath);
+        log.debug("按被调用包查询调用方文件: packages={}", packageNames.size());
+        // 被调用方从索引出发，避免扫描全部 CALLS 边：
+        // 1. 已解析的函数：包节点（id 唯一索引）-> 单元 -> 函数
+        // 2. 占位符（外部 jar 中的函数，没有单元）：ID 以 "包名." 开头，用 id 索引做范围查找（'/' 紧跟在 '.' 之后）
         String cypher = """
-            MATCH (caller:CodeFunction)-[:CALLS]->(callee:CodeFunction)
-            WHERE callee.projectFilePath = $targetProjectFilePath
-            RETURN DISTINCT 
-                caller.projectFilePath AS projectFilePath,
-                caller.gitRepoUrl AS gitRepoUrl,
-                caller.gitBranch AS gitBranch
+            UNWIND $packageNames AS pkg
+            CALL {
+                WITH pkg
+                MATCH (:CodePackage {id: pkg})-[:PACKAGE_TO_UNIT]->(:CodeUnit)-[:UNIT_TO_FUNCTION]->(callee:CodeFunction)
+                RETURN callee
+                UNION
+                WITH pkg
+                MATCH (callee:CodeFunction)
+                WHERE callee.id > pkg + '.' AND callee.id < pkg + '/'
+                  AND callee.isPlaceholder = true
+                RETURN callee
+            }
+            MATCH (caller:CodeFunction)-[:CALLS]->(callee)
+            WHERE ($scopeIds IS NULL OR caller.scopeId IS NULL OR caller.scopeId IN $scopeIds)
+            RETURN DISTINCT caller.projectFilePath AS projectFilePath
             """;
         
         try (Session session = neo4jDriver.session()) {
-            List<FileMetaInfo> result = session.run(cypher, Values.parameters("targetProjectFilePath", targetProjectFilePath))
+            return session.run(cypher, Values.parameters(
+                    "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true),
+                    "packageNames", packageNames))
                 .stream()
-                .map(this::recordToFileMetaInfo)
+                .map(record -> record.get("projectFilePath").asString(null))
+                .filter(path -> path != null)
                 .distinct()
                 .collect(Collectors.toList());
-            log.debug("查询依赖文件完成（带 Git 元信息）: targetFile={}, dependentCount={}", targetProjectFilePath, result.size());
-            return result;
         } catch (Exception e) {
-            log.error("查询依赖文件失败（带 Git 元信息）: targetFile={}, error={}", targetProjectFilePath, e.getMessage(), e);
-            throw new RuntimeException("查询依赖文件失败（带 Git 元信息）: " + targetProjectFilePath, e);
+            log.error("按被调用包查询调用方文件失败: packages={}, error={}", packageNames.size(), e.getMessage(), e);
+            throw new RuntimeException("按被调用包查询调用方文件失败", e);
         }
     }
 
-    private FileMetaInfo recordToFileMetaInfo(Record record) {
-        FileMetaInfo meta = new FileMetaInfo();
-        meta.setProjectFilePath(record.get("projectFilePath").asString(null));
-        meta.setGitRepoUrl(record.get("gitRepoUrl").asString(null));
-        meta.setGitBranch(record.get("gitBranch").asString(null));
-        return meta;
-    }
-
     @Override
-    public void deleteFileOutgoingCalls(String projectFilePath) {
+    public void deleteFileOutgoingCalls(String gitRepoUrl, String gitBranch, String projectFilePath) {
         log.debug("删除文件出边: file={}", projectFilePath);
+        // 只删除本仓库/分支中该文件发起的调用；尚未迁移 scopeId 的历史节点视为匹配
         String cypher = """
-            MATCH (caller:CodeFunction)-[r:CALLS]->()
-            WHERE caller.projectFilePath = $projectFilePath
+            MATCH (caller:CodeFunction {projectFilePath: $projectFilePath})
+            WHERE $scopeIds IS NULL OR caller.scopeId IS NULL OR caller.scopeId IN $scopeIds
+            MATCH (caller)-[r:CALLS]->()
             DELETE r
             """;
         
         try (Session session = neo4jDriver.session()) {
-            session.run(cypher, Values.parameters("projectFilePath", projectFilePath));
+            session.run(cypher, Values.parameters(
+                "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true),
+                "projectFilePath", projectFilePath));
             log.info("删除文件出边成功: file={}", projectFilePath);
         } catch (Exception e) {
             log.error("删除文件出边失败: file={}, error={}", projectFilePath, e.getMessage(), e);
@@ -101,7 +91,7 @@ public class Neo4jCodeRelationshipRepository implements CodeRelationshipReposito
     }
 
     @Override
-    public void insertRelationshipsBatch(List<CodeRelationshipDO> relationships) {
+    public void insertRelationshipsBatch(List<CodeRelationship> relationships) {
         if (relationships == null || relationships.isEmpty()) {
             return;
         }
@@ -109,39 +99,23 @@ public class Neo4jCodeRelationshipRepository implements CodeRelationshipReposito
         log.debug("批量插入关系开始: count={}", relationships.size());
         
         // 按关系类型分组（使用 Stream API）
-        Map<String, List<CodeRelationshipDO>> groupedByType = relationships.stream()
-            .collect(Collectors.groupingBy(CodeRelationshipDO::getRelationshipType));
+        Map<RelationshipType, List<CodeRelationship>> groupedByType = relationships.stream()
+            .collect(Collectors.groupingBy(CodeRelationship::getRelationshipType));
         
         // 对每种类型的关系，使用枚举中的标签信息构造 Cypher 并执行
-        groupedByType.forEach((typeName, rels) -> {
-            try {
-                // 从枚举获取标签信息
-                com.poseidon.codegraph.engine.domain.model.RelationshipType relType = 
-                    com.poseidon.codegraph.engine.domain.model.RelationshipType.valueOf(typeName);
-                
-                String fromLabel = relType.getFromLabel();
-                String toLabel = relType.getToLabel();
-                
-                // 构造通用 Cypher（标签从枚举获取，不再硬编码）
-                String cypher = buildInsertCypher(fromLabel, toLabel, typeName);
-                
-                // 转换为参数
-                List<Map<String, Object>> params = rels.stream()
-                    .map(this::relationshipToMap)
-                    .collect(Collectors.toList());
-                
-                // 执行插入
-                try (Session session = neo4jDriver.session()) {
-                    session.run(cypher, Values.parameters("relationships", params));
-                    log.info("批量插入 {} 关系成功: count={}", typeName, rels.size());
-                } catch (Exception e) {
-                    log.error("批量插入 {} 关系失败: count={}, error={}", typeName, rels.size(), e.getMessage(), e);
-                    throw new RuntimeException("批量插入 " + typeName + " 关系失败", e);
-                }
-                
-            } catch (IllegalArgumentException e) {
-                log.error("未知的关系类型: {}", typeName, e);
-                throw new RuntimeException("未知的关系类型: " + typeName, e);
+        groupedByType.forEach((relType, rels) -> {
+            String typeName = relType.name();
+            
+            // 构造通用 Cypher（标签从枚举获取，不再硬编码）
+            String cypher = buildInsertCypher(relType.getFromLabel(), relType.getToLabel(), typeName);
+            
+            // 执行插入
+            try (Session session = neo4jDriver.session()) {
+                session.run(cypher, Values.parameters("relationships", BoltValueEncoder.encodeAll(rels, BoltValueEncoder::encode)));
+                log.info("批量插入 {} 关系成功: count={}", typeName, rels.size());
+            } catch (Exception e) {
+                log.error("批量插入 {} 关系失败: count={}, error={}", typeName, rels.size(), e.getMessage(), e);
+                throw new RuntimeException("批量插入 " + typeName + " 关系失败", e);
             }
         });
         
@@ -152,6 +126,43 @@ public class Neo4jCodeRelationshipRepository implements CodeRelationshipReposito
                      .collect(Collectors.joining(", ")));
     }
     
+    @Override
+    public void upsertRelationshipsBatch(List<CodeRelationship> relationships) {
+        if (relationships == null || relationships.isEmpty()) {
+            return;
+        }
+        
+        Map<RelationshipType, List<CodeRelationship>> groupedByType = relationships.stream()
+            .collect(Collectors.groupingBy(CodeRelationship::getRelationshipType));
+        
+        groupedByType.forEach((relType, rels) -> {
+            String typeName = relType.name();
+            
+            // 按 (from, to, type) MERGE，只在新建时写属性（结构关系没有可变属性）
+            String cypher = String.format("""
+                UNWIND $relationships AS rel
+                MATCH (from:%s {id: rel.fromNodeId})
+                MATCH (to:%s {id: rel.toNodeId})
+                MERGE (from)-[r:%s]->(to)
+                ON CREATE SET r.id = rel.id,
+                              r.fromNodeId = rel.fromNodeId,
+                              r.toNodeId = rel.toNodeId,
+                              r.relationshipType = rel.relationshipType,
+                              r.lineNumber = rel.lineNumber,
+                              r.callType = rel.callType,
+                              r.language = rel.language
+                """, relType.getFromLabel(), relType.getToLabel(), typeName);
+            
+            try (Session session = neo4jDriver.session()) {
+                session.run(cypher, Values.parameters("relationships", BoltValueEncoder.encodeAll(rels, BoltValueEncoder::encode)));
+                log.info("批量写入 {} 关系成功: count={}", typeName, rels.size());
+            } catch (Exception e) {
+                log.error("批量写入 {} 关系失败: count={}, error={}", typeName, rels.size(), e.getMessage(), e);
+                throw new RuntimeException("批量写入 " + typeName + " 关系失败", e);
+            }
+        });
+    }
+    
     /**
      * 构造插入关系的 Cypher 语句
      * 
@@ -161,6 +172,19 @@ public class Neo4jCodeRelationshipRepository implements CodeRelationshipReposito
      * @return Cypher 语句
      */
     private String buildInsertCypher(String fromLabel, String toLabel, String relationshipType) {
+        // CALLS 每对调用方/被调用方只有一条边，调用点聚合在边属性上；重复写入同一对时覆盖为最新结果
+        if (RelationshipType.CALLS.name().equals(relationshipType)) {
+            return String.format("""
+                UNWIND $relationships AS rel
+                MATCH (from:%s {id: rel.fromNodeId})
+                MATCH (to:%s {id: rel.toNodeId})
+                MERGE (from)-[r:CALLS]->(to)
+                SET r.callCount = rel.callCount,
+                    r.lineNumbers = rel.lineNumbers,
+                    r.callType = rel.callType
+                """, fromLabel, toLabel);
+        }
+        
         // MATCHES 关系使用 MERGE 避免重复，其他关系使用 CREATE
         boolean useMerge = "MATCHES".equals(relationshipType);
         String createOrMerge = useMerge ? "MERGE" : "CREATE";
@@ -181,53 +205,6 @@ public class Neo4jCodeRelationshipRepository implements CodeRelationshipReposito
             """, fromLabel, toLabel, createOrMerge, relationshipType);
     }
 
-    /**
-     * 将关系 DO 转换为 Map（用于 Cypher 参数）
-     */
-    private Map<String, Object> relationshipToMap(CodeRelationshipDO relationship) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", relationship.getId());
-        map.put("fromNodeId", relationship.getFromNodeId());
-        map.put("toNodeId", relationship.getToNodeId());
-        map.put("relationshipType", relationship.getRelationshipType());
-        map.put("lineNumber", relationship.getLineNumber());
-        map.put("callType", relationship.getCallType());
-        map.put("language", relationship.getLanguage());
-        return map;
-    }
 
-    @Override
-    public java.util.Set<String> findExistingStructureRelationships(List<CodeRelationshipDO> relationships) {
-        if (relationships == null || relationships.isEmpty()) {
-            return new java.util.HashSet<>();
-        }
-        
-        // 构建查询条件：检查 (fromNodeId, toNodeId, relationshipType) 的组合是否存在
-        List<Map<String, Object>> relPairs = relationships.stream()
-            .map(rel -> {
-                Map<String, Object> pair = new HashMap<>();
-                pair.put("fromNodeId", rel.getFromNodeId());
-                pair.put("toNodeId", rel.getToNodeId());
-                pair.put("relationshipType", rel.getRelationshipType());
-                return pair;
-            })
-            .collect(Collectors.toList());
-        
-        String cypher = """
-            UNWIND $relPairs AS pair
-            MATCH (from)-[r]->(to)
-            WHERE from.id = pair.fromNodeId 
-              AND to.id = pair.toNodeId
-              AND type(r) = pair.relationshipType
-            RETURN pair.fromNodeId + ':' + pair.toNodeId + ':' + pair.relationshipType AS key
-            """;
-        
-        try (Session session = neo4jDriver.session()) {
-            return session.run(cypher, Values.parameters("relPairs", relPairs))
-                .stream()
-                .map(record -> record.get("key").asString())
-                .collect(Collectors.toSet());
-        }
-    }
 }
 
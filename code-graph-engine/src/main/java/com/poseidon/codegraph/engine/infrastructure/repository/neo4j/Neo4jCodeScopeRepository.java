@@ -0,0 +1,469 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.ScopeDeleteBatch;
+import com.poseidon.codegraph.engine.application.repository.CodeScopeRepository;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.MapAccessor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Neo4j 代码范围仓储实现
+ *
+ * 模型：(:CodeScope {id, gitRepoUrl, gitBranch, baseScopeId})，(gitRepoUrl, gitBranch) 组合唯一，
+ * baseScopeId 非空表示该分支是基线分支上的覆盖层。
+ * 未知的仓库/分支在库中存为空串（MERGE 不接受 null），对外仍表现为 null。
+ * 范围数量只有仓库数 × 分支数，全部缓存在内存中，写入和读取节点时不再为范围额外查库。
+ * 范围节点始终保存在默认库（范围 ID 全局分配），按范围处理节点的操作跟随当前路由
+ */
+@Slf4j
+@Repository
+public class Neo4jCodeScopeRepository implements CodeScopeRepository {
+
+    private static final String UNKNOWN = "";
+
+    private final Driver driver;
+    private final Map<String, CodeScope> scopesByKey = new ConcurrentHashMap<>();
+    private final Map<Integer, CodeScope> scopesById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public Neo4jCodeScopeRepository(Driver driver) {
+        this.driver = driver;
+    }
+
+    @Override
+    public int resolveScopeId(String gitRepoUrl, String gitBranch) {
+        ensureLoaded();
+        CodeScope cached = scopesByKey.get(key(gitRepoUrl, gitBranch));
+        if (cached != null) {
+            return cached.getId();
+        }
+        return allocate(gitRepoUrl, gitBranch).getId();
+    }
+
+    @Override
+    public CodeScope findById(int scopeId) {
+        ensureLoaded();
+        CodeScope scope = scopesById.get(scopeId);
+        if (scope == null) {
+            // 可能是其他实例新建的范围
+            reload();
+            scope = scopesById.get(scopeId);
+        }
+        return scope;
+    }
+
+    @Override
+    public CodeScope findScope(String gitRepoUrl, String gitBranch) {
+        ensureLoaded();
+        return scopesByKey.get(key(gitRepoUrl, gitBranch));
+    }
+
+    @Override
+    public CodeScope registerOverlay(String gitRepoUrl, String gitBranch, String baseBranch) {
+        int baseScopeId = resolveScopeId(gitRepoUrl, baseBranch);
+        int scopeId = resolveScopeId(gitRepoUrl, gitBranch);
+        try (Session session = catalogSession()) {
+            Record record = session.run("""
+                    MATCH (s:CodeScope {id: $scopeId})
+                    SET s.baseScopeId = $baseScopeId
+                    RETURN s.id AS id, s.gitRepoUrl AS gitRepoUrl, s.gitBranch AS gitBranch, s.baseScopeId AS baseScopeId
+                    """, Values.parameters("scopeId", scopeId, "baseScopeId", baseScopeId))
+                .single();
+            CodeScope scope = toScope(record);
+            cache(scope);
+            log.info("登记分支覆盖层: repo={}, branch={}, base={}", gitRepoUrl, gitBranch, baseBranch);
+            return scope;
+        } catch (Exception e) {
+            log.error("登记分支覆盖层失败: repo={}, branch={}, error={}", gitRepoUrl, gitBranch, e.getMessage(), e);
+            throw new RuntimeException("登记分支覆盖层失败: " + gitBranch, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean deleteScope(int scopeId) {
+        // 节点在当前路由的目标库中，范围节点在默认库中
+        String referencedCypher = """
+            RETURN EXISTS {
+                MATCH (n:CodePackage|CodeUnit|CodeFunction|CodeEndpoint|CodeFile)
+                WHERE n.scopeId = $scopeId
+            } AS referenced
+            """;
+        String deleteCypher = """
+            MATCH (s:CodeScope {id: $scopeId})
+            REMOVE s.baseScopeId
+            FOREACH (_ IN CASE WHEN $referenced THEN [] ELSE [1] END | DELETE s)
+            RETURN $referenced AS referenced
+            """;
+
+        try {
+            boolean referenced;
+            try (Session session = driver.session()) {
+                referenced = session.run(referencedCypher, Values.parameters("scopeId", scopeId))
+                    .single().get("referenced").asBoolean();
+            }
+            List<Record> records;
+            try (Session session = catalogSession()) {
+                records = session.run(deleteCypher, Values.parameters("scopeId", scopeId, "referenced", referenced)).list();
+            }
+            CodeScope scope = scopesById.get(scopeId);
+            boolean deleted = !records.isEmpty() && !referenced;
+            if (scope != null) {
+                if (deleted) {
+                    scopesById.remove(scopeId);
+                    scopesByKey.remove(key(scope.getGitRepoUrl(), scope.getGitBranch()));
+                } else {
+                    scope.setBaseScopeId(null);
+                }
+            }
+            log.info("删除代码范围: id={}, nodeDeleted={}", scopeId, deleted);
+            return deleted;
+        } catch (Exception e) {
+            log.error("删除代码范围失败: id={}, error={}", scopeId, e.getMessage(), e);
+            throw new RuntimeException("删除代码范围失败: " + scopeId, e);
+        }
+    }
+
+    @Override
+    public List<CodeScope> findOverlays(int baseScopeId) {
+        ensureLoaded();
+        return scopesById.values().stream()
+            .filter(scope -> Objects.equals(scope.getBaseScopeId(), baseScopeId))
+            .toList();
+    }
+
+    @Override
+    public List<Integer> findScopeIds(String gitRepoUrl, String gitBranch, boolean includeUnknown) {
+        if (gitRepoUrl == null && gitBranch == null) {
+            return null;
+        }
+        ensureLoaded();
+        List<Integer> ids = filter(gitRepoUrl, gitBranch, includeUnknown);
+        if (ids.isEmpty()) {
+            reload();
+            ids = filter(gitRepoUrl, gitBranch, includeUnknown);
+        }
+        return ids;
+    }
+
+    @Override
+    public List<CodeScope> findUnmigratedScopes(String label) {
+        String cypher = String.format("""
+            MATCH (n:%s)
+            WHERE n.scopeId IS NULL
+            RETURN DISTINCT coalesce(n.gitRepoUrl, '') AS gitRepoUrl, coalesce(n.gitBranch, '') AS gitBranch
+            """, label);
+
+        try (Session session = driver.session()) {
+            return session.run(cypher).stream()
+                .map(record -> {
+                    CodeScope scope = new CodeScope();
+                    scope.setGitRepoUrl(fromStored(record.get("gitRepoUrl").asString()));
+                    scope.setGitBranch(fromStored(record.get("gitBranch").asString()));
+                    scope.setId(resolveScopeId(scope.getGitRepoUrl(), scope.getGitBranch()));
+                    return scope;
+                })
+                .toList();
+        } catch (Exception e) {
+            log.error("查询未迁移范围失败: label={}, error={}", label, e.getMessage(), e);
+            throw new RuntimeException("查询未迁移范围失败: " + label, e);
+        }
+    }
+
+    @Override
+    public long migrateBatch(String label, CodeScope scope, int batchSize) {
+        // 端点同时补上所属服务（仓库地址在这一步之后就不在节点上了）
+        String cypher = String.format("""
+            MATCH (n:%s)
+            WHERE n.scopeId IS NULL
+              AND coalesce(n.gitRepoUrl, '') = $gitRepoUrl
+              AND coalesce(n.gitBranch, '') = $gitBranch
+            WITH n LIMIT $batchSize
+            SET n.scopeId = $scopeId%s
+            REMOVE n.gitRepoUrl, n.gitBranch
+            RETURN count(n) AS count
+            """, label, "CodeEndpoint".equals(label) ? ", n.service = coalesce(n.serviceName, $service)" : "");
+
+        try (Session session = driver.session()) {
+            return session.run(cypher, Values.parameters(
+                    "gitRepoUrl", toStored(scope.getGitRepoUrl()),
+                    "gitBranch", toStored(scope.getGitBranch()),
+                    "scopeId", scope.getId(),
+                    "service", ServicePair.serviceOf(null, scope.getGitRepoUrl()),
+                    "batchSize", batchSize))
+                .single().get("count").asLong();
+        } catch (Exception e) {
+            log.error("迁移范围失败: label={}, scopeId={}, error={}", label, scope.getId(), e.getMessage(), e);
+            throw new RuntimeException("迁移范围失败: " + label, e);
+        }
+    }
+
+    @Override
+    public long deleteRelationshipsBatch(String label, int scopeId, int batchSize) {
+        String cypher = String.format("""
+            MATCH (n:%s)-[r]-()
+            WHERE n.scopeId = $scopeId
+            WITH DISTINCT r LIMIT $batchSize
+            DELETE r
+            RETURN count(r) AS count
+            """, label);
+
+        try (Session session = driver.session()) {
+            return session.executeWrite(tx -> tx.run(cypher, Values.parameters(
+                    "scopeId", scopeId, "batchSize", batchSize)).single().get("count").asLong());
+        } catch (Exception e) {
+            log.error("按范围删除关系失败: label={}, scopeId={}, error={}", label, scopeId, e.getMessage(), e);
+            throw new RuntimeException("按范围删除关系失败: " + label, e);
+        }
+    }
+
+    @Override
+    public ScopeDeleteBatch deleteNodesBatch(String label, int scopeId, int batchSize) {
+        // 关系已分批删除；DETACH 只兜底删除期间新写入的少量关系
+        String cypher = String.format("""
+            MATCH (n:%s)
+            WHERE n.scopeId = $scopeId
+            WITH n LIMIT $batchSize
+            WITH collect(n) AS nodes
+            WITH nodes, [n IN nodes | n.id] AS ids, [n IN nodes | n.projectFilePath] AS paths
+            FOREACH (n IN nodes | DETACH DELETE n)
+            RETURN size(nodes) AS count, ids, paths
+            """, label);
+
+        try (Session session = driver.session()) {
+            Record record = session.executeWrite(tx -> tx.run(cypher, Values.parameters(
+                "scopeId", scopeId, "batchSize", batchSize)).single());
+            ScopeDeleteBatch batch = new ScopeDeleteBatch();
+            batch.setCount(record.get("count").asInt());
+            batch.setIds(record.get("ids").asList(value -> value.asString(null)).stream()
+                .filter(Objects::nonNull)
+                .toList());
+            batch.setProjectFilePaths(record.get("paths").asList(value -> value.asString(null)).stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList());
+            return batch;
+        } catch (Exception e) {
+            log.error("按范围删除节点失败: label={}, scopeId={}, error={}", label, scopeId, e.getMessage(), e);
+            throw new RuntimeException("按范围删除节点失败: " + label, e);
+        }
+    }
+
+    @Override
+    public ScopeDeleteBatch releasePackagesBatch(int scopeId, int batchSize) {
+        // 1. 解除该范围的类与包的关系，被解除的包没有其他关系时删除，否则交给仍在使用的范围
+        String detachCypher = """
+            MATCH (p:CodePackage)-[r:PACKAGE_TO_UNIT]->(u:CodeUnit)
+            WHERE u.scopeId = $scopeId
+            WITH p, r LIMIT $batchSize
+            DELETE r
+            WITH p, count(r) AS detached
+            CALL {
+                WITH p
+                OPTIONAL MATCH (p)-[:PACKAGE_TO_UNIT]->(other:CodeUnit)
+                RETURN count(other) AS users, min(other.scopeId) AS ownerScopeId
+            }
+            WITH p, detached, users, ownerScopeId, p.id AS packageId, NOT EXISTS { (p)--() } AS orphan
+            FOREACH (_ IN CASE WHEN NOT orphan AND users > 0 AND p.scopeId = $scopeId THEN [1] ELSE [] END |
+                SET p.scopeId = ownerScopeId)
+            FOREACH (_ IN CASE WHEN orphan THEN [1] ELSE [] END | DELETE p)
+            RETURN sum(detached) AS detached, collect(CASE WHEN orphan THEN packageId END) AS deletedIds
+            """;
+        // 2. 该范围最后写入、但已没有该范围类的包（上一步之前就已解除的）
+        String remainingCypher = """
+            MATCH (p:CodePackage)
+            WHERE p.scopeId = $scopeId
+            WITH p LIMIT $batchSize
+            CALL {
+                WITH p
+                OPTIONAL MATCH (p)-[:PACKAGE_TO_UNIT]->(other:CodeUnit)
+                RETURN count(other) AS users, min(other.scopeId) AS ownerScopeId
+            }
+            WITH p, users, ownerScopeId, p.id AS packageId, NOT EXISTS { (p)--() } AS orphan
+            FOREACH (_ IN CASE WHEN orphan THEN [1] ELSE [] END | DELETE p)
+            FOREACH (_ IN CASE WHEN orphan THEN [] ELSE [1] END | SET p.scopeId = ownerScopeId)
+            RETURN count(p) AS released, collect(CASE WHEN orphan THEN packageId END) AS deletedIds
+            """;
+
+        try (Session session = driver.session()) {
+            return session.executeWrite(tx -> {
+                Record detached = tx.run(detachCypher, Values.parameters(
+                    "scopeId", scopeId, "batchSize", batchSize)).single();
+                ScopeDeleteBatch batch = new ScopeDeleteBatch();
+                List<String> deletedIds = new ArrayList<>(detached.get("deletedIds").asList(Value::asString));
+                long count = detached.get("detached").asLong();
+                if (count == 0) {
+                    Record released = tx.run(remainingCypher, Values.parameters(
+                        "scopeId", scopeId, "batchSize", batchSize)).single();
+                    count = released.get("released").asLong();
+                    deletedIds.addAll(released.get("deletedIds").asList(Value::asString));
+                }
+                batch.setCount((int) count);
+                batch.setIds(deletedIds);
+                return batch;
+            });
+        } catch (Exception e) {
+            log.error("按范围释放包失败: scopeId={}, error={}", scopeId, e.getMessage(), e);
+            throw new RuntimeException("按范围释放包失败: " + scopeId, e);
+        }
+    }
+
+    /**
+     * 节点所属范围：已迁移的节点按 scopeId 查缓存，迁移前的节点直接读自身的字符串属性
+     */
+    public CodeScope scopeOf(MapAccessor node) {
+        Value scopeId = node.get("scopeId");
+        if (!scopeId.isNull()) {
+            return scopeOf(scopeId.asInt());
+        }
+        return legacyScope(node.get("gitRepoUrl").asString(null), node.get("gitBranch").asString(null));
+    }
+
+    /**
+     * 同 {@link #scopeOf(MapAccessor)}，用于已转换为 Map 的节点属性
+     */
+    public CodeScope scopeOf(Map<String, Object> properties) {
+        Object scopeId = properties.get("scopeId");
+        if (scopeId != null) {
+            return scopeOf(((Number) scopeId).intValue());
+        }
+        return legacyScope((String) properties.get("gitRepoUrl"), (String) properties.get("gitBranch"));
+    }
+
+    // ========== 内部方法 ==========
+
+    /**
+     * 分配新范围 ID
+     * 先写锁定序号节点再查最大 ID，并发分配在锁上串行；本进程内再加一把锁减少锁等待
+     */
+    private synchronized CodeScope allocate(String gitRepoUrl, String gitBranch) {
+        CodeScope cached = scopesByKey.get(key(gitRepoUrl, gitBranch));
+        if (cached != null) {
+            return cached;
+        }
+
+        try (Session session = catalogSession()) {
+            Record record = session.executeWrite(tx -> {
+                tx.run("MERGE (seq:CodeScopeSequence {name: 'scope'}) SET seq.lockedAt = timestamp()").consume();
+                Map<String, Object> params = Map.of("gitRepoUrl", toStored(gitRepoUrl), "gitBranch", toStored(gitBranch));
+                var existing = tx.run("""
+                    MATCH (s:CodeScope {gitRepoUrl: $gitRepoUrl, gitBranch: $gitBranch})
+                    RETURN s.id AS id, s.gitRepoUrl AS gitRepoUrl, s.gitBranch AS gitBranch, s.baseScopeId AS baseScopeId
+                    """, params).list();
+                if (!existing.isEmpty()) {
+                    return existing.get(0);
+                }
+                return tx.run("""
+                    OPTIONAL MATCH (s:CodeScope)
+                    WITH coalesce(max(s.id), 0) + 1 AS id
+                    CREATE (n:CodeScope {id: id, gitRepoUrl: $gitRepoUrl, gitBranch: $gitBranch})
+                    RETURN n.id AS id, n.gitRepoUrl AS gitRepoUrl, n.gitBranch AS gitBranch, n.baseScopeId AS baseScopeId
+                    """, params).single();
+            });
+            CodeScope scope = toScope(record);
+            cache(scope);
+            log.info("分配代码范围: id={}, repo={}, branch={}", scope.getId(), gitRepoUrl, gitBranch);
+            return scope;
+        } catch (Exception e) {
+            log.error("分配代码范围失败: repo={}, branch={}, error={}", gitRepoUrl, gitBranch, e.getMessage(), e);
+            throw new RuntimeException("分配代码范围失败", e);
+        }
+    }
+
+    private CodeScope scopeOf(int scopeId) {
+        CodeScope scope = findById(scopeId);
+        return scope != null ? scope : legacyScope(null, null);
+    }
+
+    private static CodeScope legacyScope(String gitRepoUrl, String gitBranch) {
+        CodeScope scope = new CodeScope();
+        scope.setGitRepoUrl(gitRepoUrl);
+        scope.setGitBranch(gitBranch);
+        return scope;
+    }
+
+    private List<Integer> filter(String gitRepoUrl, String gitBranch, boolean includeUnknown) {
+        List<Integer> ids = new ArrayList<>();
+        for (CodeScope scope : scopesById.values()) {
+            if (matches(scope.getGitRepoUrl(), gitRepoUrl, includeUnknown)
+                && matches(scope.getGitBranch(), gitBranch, includeUnknown)) {
+                ids.add(scope.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static boolean matches(String actual, String expected, boolean includeUnknown) {
+        return expected == null || expected.equals(actual) || (includeUnknown && actual == null);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        try (Session session = catalogSession()) {
+            session.run("""
+                    MATCH (s:CodeScope)
+                    RETURN s.id AS id, s.gitRepoUrl AS gitRepoUrl, s.gitBranch AS gitBranch, s.baseScopeId AS baseScopeId
+                    """)
+                .stream()
+                .map(this::toScope)
+                .forEach(this::cache);
+            loaded = true;
+            log.debug("加载代码范围完成: count={}", scopesById.size());
+        } catch (Exception e) {
+            log.error("加载代码范围失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("加载代码范围失败", e);
+        }
+    }
+
+    /**
+     * 范围登记只保存在默认库，不随路由切换
+     */
+    private Session catalogSession() {
+        return GraphRoute.call(GraphRoute.DEFAULT, () -> driver.session());
+    }
+
+    private void cache(CodeScope scope) {
+        scopesById.put(scope.getId(), scope);
+        scopesByKey.put(key(scope.getGitRepoUrl(), scope.getGitBranch()), scope);
+    }
+
+    private CodeScope toScope(Record record) {
+        CodeScope scope = new CodeScope();
+        scope.setId(record.get("id").asInt());
+        scope.setGitRepoUrl(fromStored(record.get("gitRepoUrl").asString(UNKNOWN)));
+        scope.setGitBranch(fromStored(record.get("gitBranch").asString(UNKNOWN)));
+        Value baseScopeId = record.get("baseScopeId");
+        scope.setBaseScopeId(baseScopeId.isNull() ? null : baseScopeId.asInt());
+        return scope;
+    }
+
+    private static String key(String gitRepoUrl, String gitBranch) {
+        return toStored(gitRepoUrl) + '\u0000' + toStored(gitBranch);
+    }
+
+    private static String toStored(String value) {
+        return Objects.requireNonNullElse(value, UNKNOWN);
+    }
+
+    private static String fromStored(String value) {
+        return UNKNOWN.equals(value) ? null : value;
+    }
+}
@@ -1,41 +1,77 @@
 package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
 
+import com.poseidon.codegraph.engine.application.model.CodeScope;
 import com.poseidon.codegraph.engine.application.model.CodeUnitDO;
 import com.poseidon.codegraph.engine.application.repository.CodeUnitRepository;
+import com.poseidon.codegraph.engine.domain.model.CodeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Values;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Neo4j 代码单元仓储实现
+ * 
+ * 单元的导入包除了 importedPackages 列表属性外，还写成 (:CodeUnit)-[:IMPORTS_PACKAGE]->(:CodeImportedPackage {name})：
+ * 列表属性无法走索引，按导入包反查文件时从包名唯一约束定位包节点，再沿关系找到单元
+ */
 @Slf4j
 @Repository
 public class Neo4jCodeUnitRepository implements CodeUnitRepository {
 
+    /**
+     * 补建导入包关系时每个事务处理的单元数
+     */
+    private static final int LINK_BATCH_SIZE = 1000;
+
+    /**
+     * 单元写入语句的后半段：同步 IMPORTS_PACKAGE 关系（删除不再导入的，补建新导入的），前半段须以 u、unit 结尾
+     */
+    private static final String LINK_IMPORTED_PACKAGES = """
+        WITH u, unit
+        CALL {
+            WITH u, unit
+            MATCH (u)-[old:IMPORTS_PACKAGE]->(p:CodeImportedPackage)
+            WHERE NOT p.name IN coalesce(unit.importedPackages, [])
+            DELETE old
+        }
+        WITH u, unit
+        UNWIND coalesce(unit.importedPackages, []) AS pkg
+        WITH u, pkg
+        WHERE pkg IS NOT NULL
+        MERGE (p:CodeImportedPackage {name: pkg})
+        MERGE (u)-[:IMPORTS_PACKAGE]->(p)
+        """;
+
     private final Driver neo4jDriver;
+    private final Neo4jCodeScopeRepository scopeRepository;
 
-    public Neo4jCodeUnitRepository(Driver neo4jDriver) {
+    public Neo4jCodeUnitRepository(Driver neo4jDriver, Neo4jCodeScopeRepository scopeRepository) {
         this.neo4jDriver = neo4jDriver;
+        this.scopeRepository = scopeRepository;
     }
 
     @Override
-    public List<CodeUnitDO> findUnitsByProjectFilePath(String projectFilePath) {
+    public List<CodeUnitDO> findUnitsByProjectFilePath(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        // 按 (scopeId, projectFilePath) 索引查找；尚未迁移 scopeId 的历史节点视为匹配
         String cypher = """
-            MATCH (unit:CodeUnit)
-            WHERE unit.projectFilePath = $projectFilePath
+            MATCH (unit:CodeUnit {projectFilePath: $projectFilePath})
+            WHERE $scopeIds IS NULL OR unit.scopeId IS NULL OR unit.scopeId IN $scopeIds
             RETURN unit
             """;
         
         try (Session session = neo4jDriver.session()) {
-            return session.run(cypher, Values.parameters("projectFilePath", projectFilePath))
+            return session.run(cypher, Values.parameters(
+                    "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true),
+                    "projectFilePath", projectFilePath))
                 .stream()
                 .map(record -> mapToCodeUnitDO(record.get("unit").asMap()))
                 .collect(Collectors.toList());
@@ -43,103 +79,228 @@ public class Neo4jCodeUnitRepository implements CodeUnitRepository {
     }
 
     @Override
-    public Set<String> findExistingUnitsByQualifiedNames(List<String> qualifiedNames) {
-        if (qualifiedNames == null || qualifiedNames.isEmpty()) {
-            return new HashSet<>();
+    public List<String> findProjectFilePathsByImportedPackages(String gitRepoUrl, String gitBranch, List<String> packageNames) {
+        if (packageNames == null || packageNames.isEmpty()) {
+            return new ArrayList<>();
         }
         
+        // 从包名唯一约束定位包节点，沿 IMPORTS_PACKAGE 找到单元，不扫描全部单元
+        // 历史数据可能没有 Git 信息或尚未迁移 scopeId，缺失时视为匹配（宁可多重解析，不可漏掉）
         String cypher = """
-            MATCH (u:CodeUnit)
-            WHERE u.id IN $qualifiedNames OR u.qualifiedName IN $qualifiedNames
-            RETURN DISTINCT COALESCE(u.id, u.qualifiedName) AS id
+            MATCH (p:CodeImportedPackage)
+            WHERE p.name IN $packageNames
+            MATCH (u:CodeUnit)-[:IMPORTS_PACKAGE]->(p)
+            WHERE $scopeIds IS NULL OR u.scopeId IS NULL OR u.scopeId IN $scopeIds
+            RETURN DISTINCT u.projectFilePath AS projectFilePath
             """;
         
         try (Session session = neo4jDriver.session()) {
-            return session.run(cypher, Values.parameters("qualifiedNames", qualifiedNames))
+            return session.run(cypher, Values.parameters(
+                    "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, true),
+                    "packageNames", packageNames))
                 .stream()
-                .map(record -> record.get("id").asString())
-                .collect(Collectors.toSet());
-        }
-    }
-
-    @Override
-    public void insertUnitsBatch(List<CodeUnitDO> units) {
-        if (units == null || units.isEmpty()) {
-            return;
-        }
-        
-        log.debug("批量插入单元开始: count={}", units.size());
-        
-        String insertCypher = """
-            UNWIND $units AS unit
-            CREATE (u:CodeUnit {
-                id: unit.id,
-                name: unit.name,
-                qualifiedName: unit.qualifiedName,
-                language: unit.language,
-                projectFilePath: unit.projectFilePath,
-                gitRepoUrl: unit.gitRepoUrl,
-                gitBranch: unit.gitBranch,
-                startLine: unit.startLine,
-                endLine: unit.endLine,
-                unitType: unit.unitType,
-                modifiers: unit.modifiers,
-                isAbstract: unit.isAbstract,
-                packageId: unit.packageId
-            })
-            """;
-        
-        List<Map<String, Object>> insertParams = units.stream()
-            .map(this::unitToMap)
-            .collect(Collectors.toList());
-        
-        try (Session session = neo4jDriver.session()) {
-            session.run(insertCypher, Values.parameters("units", insertParams));
-            log.info("批量插入单元成功: count={}", units.size());
+                .map(record -> record.get("projectFilePath").asString(null))
+                .filter(path -> path != null)
+                .collect(Collectors.toList());
         } catch (Exception e) {
-            log.error("批量插入单元失败: count={}, error={}", units.size(), e.getMessage(), e);
-            throw new RuntimeException("批量插入单元失败", e);
+            log.error("按导入包查询文件失败: packages={}, error={}", packageNames.size(), e.getMessage(), e);
+            throw new RuntimeException("按导入包查询文件失败", e);
         }
     }
 
     @Override
-    public void updateUnitsBatch(List<CodeUnitDO> units) {
+    public void upsertUnitsBatch(List<CodeUnit> units) {
         if (units == null || units.isEmpty()) {
             return;
         }
         
-        log.debug("批量更新单元开始: count={}", units.size());
+        log.debug("批量写入单元开始: count={}", units.size());
         
-        String updateCypher = """
+        String upsertCypher = """
             UNWIND $units AS unit
-            MATCH (u:CodeUnit {id: unit.id})
+            MERGE (u:CodeUnit {id: unit.id})
             SET u.name = unit.name,
                 u.qualifiedName = unit.qualifiedName,
                 u.language = unit.language,
                 u.projectFilePath = unit.projectFilePath,
-                u.gitRepoUrl = unit.gitRepoUrl,
-                u.gitBranch = unit.gitBranch,
+                u.scopeId = unit.scopeId,
                 u.startLine = unit.startLine,
                 u.endLine = unit.endLine,
                 u.unitType = unit.unitType,
                 u.modifiers = unit.modifiers,
                 u.isAbstract = unit.isAbstract,
-                u.packageId = unit.packageId
+                u.packageId = unit.packageId,
+                u.isDegraded = unit.isDegraded,
+                u.importedPackages = unit.importedPackages,
+                u.sourceHash = unit.sourceHash
+            """ + LINK_IMPORTED_PACKAGES;
+        
+        try (Session session = neo4jDriver.session()) {
+            session.run(upsertCypher, Values.parameters("units", BoltValueEncoder.encodeAll(units, node -> BoltValueEncoder.encode(node, scopeRepository::resolveScopeId))));
+            log.info("批量写入单元成功: count={}", units.size());
+        } catch (Exception e) {
+            log.error("批量写入单元失败: count={}, error={}", units.size(), e.getMessage(), e);
+            throw new RuntimeException("批量写入单元失败", e);
+        }
+    }
+    
+    @Override
+    public int renameFile(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath,
+                          String oldPackageName, String newPackageName, int expectedUnitCount) {
+        log.debug("原地改写文件路径: {} -> {}, package: {} -> {}", 
+            oldProjectFilePath, newProjectFilePath, oldPackageName, newPackageName);
+        
+        boolean packageChanged = oldPackageName != null && !oldPackageName.equals(newPackageName);
+        
+        // 所有语句都按 (scopeId, projectFilePath) 限定：同一路径在其他仓库/分支下的节点不受影响
+        // 先在同一事务内确认范围内的旧单元都能匹配到，匹配不全（节点属于其他范围或尚未迁移 scopeId）时不改写
+        String countUnitsCypher = """
+            MATCH (n:CodeUnit {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+            RETURN count(n) AS units
+            """;
+        
+        // 新 ID 上已有占位符（调用方先于本文件完成更新）时，把占位符的入边转移到本节点后删除占位符
+        // 同一调用方已有到本节点的边时合并调用次数和调用点，保持每对调用方/被调用方一条边
+        String mergePlaceholdersCypher = """
+            MATCH (n:CodeFunction {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+            WHERE n.id STARTS WITH $oldPrefix
+            WITH n, $newPrefix + substring(n.id, size($oldPrefix)) AS newId
+            MATCH (p:CodeFunction {id: newId})
+            WHERE p.isPlaceholder = true
+            OPTIONAL MATCH (caller:CodeFunction)-[r:CALLS]->(p)
+            FOREACH (_ IN CASE WHEN r IS NULL THEN [] ELSE [1] END |
+                MERGE (caller)-[copy:CALLS]->(n)
+                ON CREATE SET copy = properties(r)
+                ON MATCH SET copy.callCount = coalesce(copy.callCount, 1) + coalesce(r.callCount, 1),
+                             copy.lineNumbers = coalesce(copy.lineNumbers, []) + coalesce(r.lineNumbers, [])
+            )
+            WITH DISTINCT p
+            DETACH DELETE p
+            """;
+        
+        String rewriteIdsCypher = """
+            CALL {
+                MATCH (n:CodeUnit {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+                RETURN n
+                UNION
+                MATCH (n:CodeFunction {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+                RETURN n
+            }
+            WITH n
+            WHERE n.id STARTS WITH $oldPrefix
+            SET n.id = $newPrefix + substring(n.id, size($oldPrefix)),
+                n.qualifiedName = CASE
+                    WHEN n.qualifiedName STARTS WITH $oldPrefix
+                    THEN $newPrefix + substring(n.qualifiedName, size($oldPrefix))
+                    ELSE n.qualifiedName
+                END
+            """;
+        
+        String detachPackageCypher = """
+            MATCH (:CodePackage)-[r:PACKAGE_TO_UNIT]->(u:CodeUnit {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+            DELETE r
+            WITH DISTINCT u
+            SET u.packageId = $newPackageName
             """;
         
-        List<Map<String, Object>> updateParams = units.stream()
-            .map(this::unitToMap)
-            .collect(Collectors.toList());
+        String rewritePathCypher = """
+            CALL {
+                MATCH (n:CodeUnit {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+                RETURN n
+                UNION
+                MATCH (n:CodeFunction {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+                RETURN n
+                UNION
+                MATCH (n:CodeEndpoint {scopeId: $scopeId, projectFilePath: $oldProjectFilePath})
+                RETURN n
+            }
+            SET n.projectFilePath = $newProjectFilePath
+            """;
         
+        int scopeId = scopeRepository.resolveScopeId(gitRepoUrl, gitBranch);
+        try (Session session = neo4jDriver.session();
+             Transaction tx = session.beginTransaction()) {
+            int units = tx.run(countUnitsCypher, Values.parameters(
+                "scopeId", scopeId,
+                "oldProjectFilePath", oldProjectFilePath)).single().get("units").asInt();
+            if (units == 0 || units < expectedUnitCount) {
+                tx.rollback();
+                log.warn("原地改写文件路径未执行，范围内匹配到的单元不全: scopeId={}, file={}, matched={}, expected={}",
+                    scopeId, oldProjectFilePath, units, expectedUnitCount);
+                return units;
+            }
+            if (packageChanged) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("scopeId", scopeId);
+                params.put("oldProjectFilePath", oldProjectFilePath);
+                params.put("oldPrefix", oldPackageName + ".");
+                params.put("newPrefix", newPackageName + ".");
+                params.put("newPackageName", newPackageName);
+                tx.run(mergePlaceholdersCypher, params);
+                tx.run(rewriteIdsCypher, params);
+                tx.run(detachPackageCypher, params);
+            }
+            tx.run(rewritePathCypher, Values.parameters(
+                "scopeId", scopeId,
+                "oldProjectFilePath", oldProjectFilePath,
+                "newProjectFilePath", newProjectFilePath));
+            tx.commit();
+            log.debug("原地改写文件路径完成: scopeId={}, file={}, units={}", scopeId, newProjectFilePath, units);
+            return units;
+        } catch (Exception e) {
+            log.error("原地改写文件路径失败: {} -> {}, error={}", oldProjectFilePath, newProjectFilePath, e.getMessage(), e);
+            throw new RuntimeException("原地改写文件路径失败: " + oldProjectFilePath, e);
+        }
+    }
+
+    @Override
+    public boolean hasImportedPackageLinks() {
         try (Session session = neo4jDriver.session()) {
-            session.run(updateCypher, Values.parameters("units", updateParams));
-            log.info("批量更新单元成功: count={}", units.size());
+            return session.run("MATCH (p:CodeImportedPackage) RETURN count(p) > 0 AS linked")
+                .single().get("linked").asBoolean();
         } catch (Exception e) {
-            log.error("批量更新单元失败: count={}, error={}", units.size(), e.getMessage(), e);
-            throw new RuntimeException("批量更新单元失败", e);
+            log.error("查询导入包关系失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("查询导入包关系失败", e);
         }
     }
-    
+
+    @Override
+    public long linkImportedPackages(List<Integer> scopeIds) {
+        // 只处理有导入包、还没有 IMPORTS_PACKAGE 关系的单元，按单元分批提交，中途失败重新执行即可
+        String cypher = """
+            MATCH (u:CodeUnit)
+            WHERE ($scopeIds IS NULL OR u.scopeId IN $scopeIds)
+              AND size(coalesce(u.importedPackages, [])) > 0
+              AND NOT (u)-[:IMPORTS_PACKAGE]->()
+            CALL {
+                WITH u
+                UNWIND u.importedPackages AS pkg
+                WITH u, pkg
+                WHERE pkg IS NOT NULL
+                MERGE (p:CodeImportedPackage {name: pkg})
+                MERGE (u)-[:IMPORTS_PACKAGE]->(p)
+            } IN TRANSACTIONS OF $batchSize ROWS
+            """;
+        String countCypher = """
+            MATCH (u:CodeUnit)-[r:IMPORTS_PACKAGE]->()
+            WHERE $scopeIds IS NULL OR u.scopeId IN $scopeIds
+            RETURN count(r) AS count
+            """;
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("scopeIds", scopeIds);
+        params.put("batchSize", LINK_BATCH_SIZE);
+        try (Session session = neo4jDriver.session()) {
+            session.run(cypher, params).consume();
+            long count = session.run(countCypher, params).single().get("count").asLong();
+            log.info("补建导入包关系完成: scopes={}, relationships={}", scopeIds != null ? scopeIds.size() : "all", count);
+            return count;
+        } catch (Exception e) {
+            log.error("补建导入包关系失败: scopeIds={}, error={}", scopeIds, e.getMessage(), e);
+            throw new RuntimeException("补建导入包关系失败", e);
+        }
+    }
+
     @Override
     public void deleteById(String id) {
         String cypher = """
@@ -161,33 +322,34 @@ public class Neo4jCodeUnitRepository implements CodeUnitRepository {
         unit.setQualifiedName((String) map.get("qualifiedName"));
         unit.setLanguage((String) map.get("language"));
         unit.setProjectFilePath((String) map.get("projectFilePath"));
-        unit.setGitRepoUrl((String) map.get("gitRepoUrl"));
-        unit.setGitBranch((String) map.get("gitBranch"));
+        CodeScope scope = scopeRepository.scopeOf(map);
+        unit.setGitRepoUrl(scope.getGitRepoUrl());
+        unit.setGitBranch(scope.getGitBranch());
         unit.setStartLine(map.get("startLine") != null ? ((Number) map.get("startLine")).intValue() : null);
         unit.setEndLine(map.get("endLine") != null ? ((Number) map.get("endLine")).intValue() : null);
         unit.setUnitType((String) map.get("unitType"));
-        unit.setModifiers(map.get("modifiers") != null ? (List<String>) map.get("modifiers") : new ArrayList<>());
+        unit.setModifiers(toStringList(map.get("modifiers")));
         unit.setIsAbstract(map.get("isAbstract") != null ? (Boolean) map.get("isAbstract") : false);
         unit.setPackageId((String) map.get("packageId"));
+        unit.setIsDegraded(map.get("isDegraded") != null ? (Boolean) map.get("isDegraded") : false);
+        unit.setImportedPackages(toStringList(map.get("importedPackages")));
+        unit.setSourceHash((String) map.get("sourceHash"));
         return unit;
     }
 
-    private Map<String, Object> unitToMap(CodeUnitDO unit) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", unit.getId());
-        map.put("name", unit.getName());
-        map.put("qualifiedName", unit.getQualifiedName());
-        map.put("language", unit.getLanguage());
-        map.put("projectFilePath", unit.getProjectFilePath());
-        map.put("gitRepoUrl", unit.getGitRepoUrl());
-        map.put("gitBranch", unit.getGitBranch());
-        map.put("startLine", unit.getStartLine());
-        map.put("endLine", unit.getEndLine());
-        map.put("unitType", unit.getUnitType());
-        map.put("modifiers", unit.getModifiers() != null ? unit.getModifiers() : new ArrayList<>());
-        map.put("isAbstract", unit.getIsAbstract());
-        map.put("packageId", unit.getPackageId());
-        return map;
+    /**
+     * 列表属性逐个元素转换为字符串（缺省为空列表）
+     */
+    private static List<String> toStringList(Object value) {
+        List<String> list = new ArrayList<>();
+        if (value instanceof List<?> elements) {
+            for (Object element : elements) {
+                if (element != null) {
+                    list.add(element.toString());
+                }
+            }
+        }
+        return list;
     }
 }
 
@@ -0,0 +1,229 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.FileMetaInfo;
+import com.poseidon.codegraph.engine.application.repository.FileDependencyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Neo4j 文件级反向依赖索引仓储实现
+ * 
+ * 模型：(:CodeFile {scopeId, projectFilePath})-[:FILE_DEPENDS_ON]->(:CodeFile)
+ * 文件节点按（范围, 路径）区分，同一路径在不同仓库/分支下是不同的节点，依赖边只连接同一范围内的文件；
+ * 边由调用方文件的 CALLS 出边聚合而来，只在调用方文件重建调用关系时刷新；
+ * 被依赖文件的函数被删除重建时边仍保留，直到调用方文件级联更新后重新计算
+ */
+@Slf4j
+@Repository
+public class Neo4jFileDependencyRepository implements FileDependencyRepository {
+    
+    /**
+     * 全量重建时每个事务处理的调用方函数数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    
+    private final Driver driver;
+    private final Neo4jCodeScopeRepository scopeRepository;
+    
+    public Neo4jFileDependencyRepository(Driver driver, Neo4jCodeScopeRepository scopeRepository) {
+        this.driver = driver;
+        this.scopeRepository = scopeRepository;
+    }
+    
+    @Override
+    public List<FileMetaInfo> findDependentFiles(String gitRepoUrl, String gitBranch, String targetProjectFilePath) {
+        String cypher = """
+            MATCH (d:CodeFile)-[:FILE_DEPENDS_ON]->(:CodeFile {scopeId: $scopeId, projectFilePath: $path})
+            RETURN d.projectFilePath AS projectFilePath,
+                   d.scopeId AS scopeId
+            """;
+        
+        try (Session session = driver.session()) {
+            int scopeId = scopeRepository.resolveScopeId(gitRepoUrl, gitBranch);
+            List<FileMetaInfo> result = session.run(cypher, Map.of("scopeId", scopeId, "path", targetProjectFilePath))
+                .stream()
+                .map(record -> {
+                    FileMetaInfo meta = new FileMetaInfo();
+                    meta.setProjectFilePath(record.get("projectFilePath").asString(null));
+                    CodeScope scope = scopeRepository.scopeOf(record);
+                    meta.setGitRepoUrl(scope.getGitRepoUrl());
+                    meta.setGitBranch(scope.getGitBranch());
+                    return meta;
+                })
+                .collect(Collectors.toList());
+            log.debug("查询依赖文件完成: targetFile={}, scopeId={}, dependentCount={}",
+                targetProjectFilePath, scopeId, result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("查询依赖文件失败: targetFile={}, error={}", targetProjectFilePath, e.getMessage(), e);
+            throw new RuntimeException("查询依赖文件失败: " + targetProjectFilePath, e);
+        }
+    }
+    
+    @Override
+    public void refreshFileDependencies(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        // 1. 删除旧出边，记下原来的被依赖文件
+        String removeCypher = """
+            MATCH (f:CodeFile {scopeId: $scopeId, projectFilePath: $path})-[r:FILE_DEPENDS_ON]->(t:CodeFile)
+            DELETE r
+            RETURN t.projectFilePath AS target
+            """;
+        
+        // 2. 按当前 CALLS 出边聚合（跳过占位符等无文件路径的被调用方）；被依赖文件记在调用方的范围内
+        //    尚未迁移 scopeId 的调用方视为属于本范围
+        String upsertCypher = """
+            MATCH (caller:CodeFunction {projectFilePath: $path})-[:CALLS]->(callee:CodeFunction)
+            WHERE (caller.scopeId = $scopeId OR caller.scopeId IS NULL)
+              AND callee.projectFilePath IS NOT NULL AND callee.projectFilePath <> $path
+            WITH DISTINCT callee.projectFilePath AS target
+            MERGE (f:CodeFile {scopeId: $scopeId, projectFilePath: $path})
+            MERGE (tf:CodeFile {scopeId: $scopeId, projectFilePath: target})
+            MERGE (f)-[:FILE_DEPENDS_ON]->(tf)
+            RETURN count(*) AS count
+            """;
+        
+        // 3. 清理本范围内孤立的文件节点
+        String cleanupCypher = """
+            UNWIND $paths AS p
+            MATCH (f:CodeFile {scopeId: $scopeId, projectFilePath: p})
+            WHERE NOT (f)--()
+            DELETE f
+            """;
+        
+        int scopeId = scopeRepository.resolveScopeId(gitRepoUrl, gitBranch);
+        try (Session session = driver.session();
+             Transaction tx = session.beginTransaction()) {
+            List<String> candidates = new ArrayList<>();
+            candidates.add(projectFilePath);
+            tx.run(removeCypher, Map.of("scopeId", scopeId, "path", projectFilePath)).list()
+                .forEach(record -> candidates.add(record.get("target").asString()));
+            long count = tx.run(upsertCypher, Map.of("scopeId", scopeId, "path", projectFilePath))
+                .single().get("count").asLong();
+            tx.run(cleanupCypher, Map.of("scopeId", scopeId, "paths", candidates));
+            tx.commit();
+            log.debug("刷新文件依赖完成: file={}, scopeId={}, dependencies={}", projectFilePath, scopeId, count);
+        } catch (Exception e) {
+            log.error("刷新文件依赖失败: file={}, error={}", projectFilePath, e.getMessage(), e);
+            throw new RuntimeException("刷新文件依赖失败: " + projectFilePath, e);
+        }
+    }
+    
+    @Override
+    public void renameFile(String gitRepoUrl, String gitBranch, String oldProjectFilePath, String newProjectFilePath) {
+        String cypher = """
+            MATCH (f:CodeFile {scopeId: $scopeId, projectFilePath: $oldPath})
+            SET f.projectFilePath = $newPath
+            """;
+        
+        try (Session session = driver.session()) {
+            session.run(cypher, Map.of(
+                "scopeId", scopeRepository.resolveScopeId(gitRepoUrl, gitBranch),
+                "oldPath", oldProjectFilePath,
+                "newPath", newProjectFilePath));
+        } catch (Exception e) {
+            log.error("改写文件依赖路径失败: {} -> {}, error={}", oldProjectFilePath, newProjectFilePath, e.getMessage(), e);
+            throw new RuntimeException("改写文件依赖路径失败: " + oldProjectFilePath, e);
+        }
+    }
+    
+    @Override
+    public long countDependencies() {
+        try (Session session = driver.session()) {
+            return session.run("MATCH (:CodeFile)-[r:FILE_DEPENDS_ON]->() RETURN count(r) AS count")
+                .single().get("count").asLong();
+        } catch (Exception e) {
+            log.error("统计文件依赖失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("统计文件依赖失败", e);
+        }
+    }
+    
+    @Override
+    public long rebuildAll() {
+        // 先分批清空旧索引（早期版本按路径共享文件节点，不能原地修正），
+        // 再按调用方函数分批提交（每批一个事务），MERGE 幂等，中途失败重新执行即可；
+        // 不在整张图上聚合，避免一个事务持有全部 CALLS 关系。尚未迁移 scopeId 的调用方跳过，迁移后随文件变更补齐
+        String clearCypher = """
+            MATCH (f:CodeFile)
+            CALL {
+                WITH f
+                DETACH DELETE f
+            } IN TRANSACTIONS OF $batchSize ROWS
+            """;
+        String cypher = """
+            MATCH (caller:CodeFunction)
+            WHERE caller.projectFilePath IS NOT NULL AND caller.scopeId IS NOT NULL
+            CALL {
+                WITH caller
+                MATCH (caller)-[:CALLS]->(callee:CodeFunction)
+                WHERE callee.projectFilePath IS NOT NULL AND callee.projectFilePath <> caller.projectFilePath
+                WITH DISTINCT caller, callee.projectFilePath AS target
+                MERGE (f:CodeFile {scopeId: caller.scopeId, projectFilePath: caller.projectFilePath})
+                MERGE (tf:CodeFile {scopeId: caller.scopeId, projectFilePath: target})
+                MERGE (f)-[:FILE_DEPENDS_ON]->(tf)
+            } IN TRANSACTIONS OF $batchSize ROWS
+            """;
+        
+        try (Session session = driver.session()) {
+            session.run(clearCypher, Map.of("batchSize", REBUILD_BATCH_SIZE)).consume();
+            session.run(cypher, Map.of("batchSize", REBUILD_BATCH_SIZE)).consume();
+            long count = countDependencies();
+            log.info("全量重建文件依赖完成: dependencies={}", count);
+            return count;
+        } catch (Exception e) {
+            log.error("全量重建文件依赖失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("全量重建文件依赖失败", e);
+        }
+    }
+    
+    @Override
+    public long rebuildScopes(List<Integer> scopeIds) {
+        // 与全量重建相同，只是调用方按 (scopeId, projectFilePath) 索引限定在这些范围内
+        String cypher = """
+            MATCH (caller:CodeFunction)
+            WHERE caller.scopeId IN $scopeIds AND caller.projectFilePath IS NOT NULL
+            CALL {
+                WITH caller
+                MATCH (caller)-[:CALLS]->(callee:CodeFunction)
+                WHERE callee.projectFilePath IS NOT NULL AND callee.projectFilePath <> caller.projectFilePath
+                WITH DISTINCT caller, callee.projectFilePath AS target
+                MERGE (f:CodeFile {scopeId: caller.scopeId, projectFilePath: caller.projectFilePath})
+                MERGE (tf:CodeFile {scopeId: caller.scopeId, projectFilePath: target})
+                MERGE (f)-[:FILE_DEPENDS_ON]->(tf)
+            } IN TRANSACTIONS OF $batchSize ROWS
+            """;
+        String countCypher = """
+            MATCH (f:CodeFile)-[r:FILE_DEPENDS_ON]->()
+            WHERE f.scopeId IN $scopeIds
+            RETURN count(r) AS count
+            """;
+        
+        try (Session session = driver.session()) {
+            session.run(cypher, Map.of("scopeIds", scopeIds, "batchSize", REBUILD_BATCH_SIZE)).consume();
+            long count = session.run(countCypher, Map.of("scopeIds", scopeIds)).single().get("count").asLong();
+            log.info("按范围重建文件依赖完成: scopes={}, dependencies={}", scopeIds.size(), count);
+            return count;
+        } catch (Exception e) {
+            log.error("按范围重建文件依赖失败: scopeIds={}, error={}", scopeIds, e.getMessage(), e);
+            throw new RuntimeException("按范围重建文件依赖失败", e);
+        }
+    }
+    
+    @Override
+    public void ensureIndexes() {
+        try (Session session = driver.session()) {
+            session.run("CREATE INDEX code_file_scope_path IF NOT EXISTS FOR (f:CodeFile) ON (f.scopeId, f.projectFilePath)");
+        } catch (Exception e) {
+            log.error("创建文件依赖索引失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("创建文件依赖索引失败", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.repository.FileManifestRepository;
+import com.poseidon.codegraph.engine.domain.model.FileManifest;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Neo4j 文件清单仓储实现
+ */
+@Slf4j
+@Repository
+public class Neo4jFileManifestRepository implements FileManifestRepository {
+    
+    private final Driver driver;
+    private final Neo4jCodeScopeRepository scopeRepository;
+    
+    public Neo4jFileManifestRepository(Driver driver, Neo4jCodeScopeRepository scopeRepository) {
+        this.driver = driver;
+        this.scopeRepository = scopeRepository;
+    }
+    
+    @Override
+    public FileManifest loadManifest(String gitRepoUrl, String gitBranch, String projectFilePath) {
+        String cypher = """
+            MATCH (u:CodeUnit {projectFilePath: $path})
+            WHERE $scopeIds IS NULL OR u.scopeId IS NULL OR u.scopeId IN $scopeIds
+            RETURN 'U' AS kind, u.id AS id
+            UNION ALL
+            MATCH (f:CodeFunction {projectFilePath: $path})
+            WHERE $scopeIds IS NULL OR f.scopeId IS NULL OR f.scopeId IN $scopeIds
+            RETURN 'F' AS kind, f.id AS id
+            UNION ALL
+            MATCH (e:CodeEndpoint {projectFilePath: $path})
+            WHERE $scopeIds IS NULL OR e.scopeId IS NULL OR e.scopeId IN $scopeIds
+            RETURN 'E' AS kind, e.id AS id
+            """;
+        
+        try (Session session = driver.session()) {
+            FileManifest manifest = new FileManifest();
+            manifest.setProjectFilePath(projectFilePath);
+            session.run(cypher, Values.parameters(
+                    "scopeIds", scopeRepository.findScopeIds(gitRepoUrl, gitBranch, false),
+                    "path", projectFilePath)).forEachRemaining(record -> {
+                String id = record.get("id").asString(null);
+                if (id == null) {
+                    return;
+                }
+                switch (record.get("kind").asString()) {
+                    case "U" -> manifest.getUnitIds().add(id);
+                    case "F" -> manifest.getFunctionIds().add(id);
+                    default -> manifest.getEndpointIds().add(id);
+                }
+            });
+            return manifest;
+        } catch (Exception e) {
+            log.error("查询文件清单失败: file={}, error={}", projectFilePath, e.getMessage(), e);
+            throw new RuntimeException("查询文件清单失败: " + projectFilePath, e);
+        }
+    }
+    
+    @Override
+    public String loadEpoch() {
+        // 并发创建可能产生多个代次节点，取最小值保证各实例一致
+        String cypher = """
+            MERGE (e:CodeGraphEpoch {id: 'graph'})
+            ON CREATE SET e.value = randomUUID(), e.createdAt = timestamp()
+            RETURN min(e.value) AS value
+            """;
+        
+        try (Session session = driver.session()) {
+            return session.executeWrite(tx -> tx.run(cypher).single().get("value").asString());
+        } catch (Exception e) {
+            log.error("查询图数据库代次失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("查询图数据库代次失败", e);
+        }
+    }
+}
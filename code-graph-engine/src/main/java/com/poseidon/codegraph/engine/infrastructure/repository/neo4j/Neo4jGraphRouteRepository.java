@@ -0,0 +1,102 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.GraphRouteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Neo4j 路由表仓储实现
+ * 模型：(:CodeRoute {gitRepoUrl, target})，保存在默认库；全部路由常驻内存，启动后首次使用时加载
+ */
+@Slf4j
+@Repository
+public class Neo4jGraphRouteRepository implements GraphRouteRepository {
+
+    private final Driver driver;
+    private final List<String> targets;
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public Neo4jGraphRouteRepository(Driver driver) {
+        this.driver = driver;
+        this.targets = driver instanceof Neo4jRoutingDriver routing
+            ? routing.targetNames()
+            : List.of(GraphRoute.DEFAULT);
+    }
+
+    @Override
+    public List<String> findTargets() {
+        return targets;
+    }
+
+    @Override
+    public String findTarget(String gitRepoUrl) {
+        if (gitRepoUrl == null || targets.size() == 1) {
+            return GraphRoute.DEFAULT;
+        }
+        ensureLoaded();
+        return routes.getOrDefault(gitRepoUrl, GraphRoute.DEFAULT);
+    }
+
+    @Override
+    public Map<String, String> findRoutes() {
+        ensureLoaded();
+        return new LinkedHashMap<>(routes);
+    }
+
+    @Override
+    public synchronized void saveRoute(String gitRepoUrl, String target) {
+        if (!targets.contains(target)) {
+            throw new IllegalArgumentException("目标库未配置: " + target);
+        }
+        String cypher = GraphRoute.DEFAULT.equals(target)
+            ? "MATCH (r:CodeRoute {gitRepoUrl: $gitRepoUrl}) DELETE r"
+            : "MERGE (r:CodeRoute {gitRepoUrl: $gitRepoUrl}) SET r.target = $target";
+        try (Session session = catalogSession()) {
+            session.run(cypher, Values.parameters("gitRepoUrl", gitRepoUrl, "target", target)).consume();
+            if (GraphRoute.DEFAULT.equals(target)) {
+                routes.remove(gitRepoUrl);
+            } else {
+                routes.put(gitRepoUrl, target);
+            }
+            log.info("登记路由: repo={}, target={}", gitRepoUrl, target);
+        } catch (Exception e) {
+            log.error("登记路由失败: repo={}, target={}, error={}", gitRepoUrl, target, e.getMessage(), e);
+            throw new RuntimeException("登记路由失败: " + gitRepoUrl, e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        if (loaded) {
+            return;
+        }
+        try (Session session = catalogSession()) {
+            session.run("MATCH (r:CodeRoute) RETURN r.gitRepoUrl AS gitRepoUrl, r.target AS target")
+                .forEachRemaining(record -> routes.put(record.get("gitRepoUrl").asString(), record.get("target").asString()));
+            loaded = true;
+            log.info("加载路由表完成: routes={}", routes.size());
+        } catch (Exception e) {
+            log.error("加载路由表失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("加载路由表失败", e);
+        }
+    }
+
+    private Session catalogSession() {
+        return GraphRoute.call(GraphRoute.DEFAULT, () -> driver.session());
+    }
+}
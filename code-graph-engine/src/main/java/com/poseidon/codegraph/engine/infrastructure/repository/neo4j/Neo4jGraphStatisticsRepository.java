@@ -0,0 +1,42 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.repository.GraphStatisticsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Neo4j 图统计仓储实现
+ * 不带属性条件的按标签/类型计数直接读取计数存储，不扫描数据
+ */
+@Slf4j
+@Repository
+public class Neo4jGraphStatisticsRepository implements GraphStatisticsRepository {
+    
+    private final Driver driver;
+    
+    public Neo4jGraphStatisticsRepository(Driver driver) {
+        this.driver = driver;
+    }
+    
+    @Override
+    public long countNodes(String label) {
+        // 标签来自代码常量，不是用户输入
+        return count(String.format("MATCH (n:%s) RETURN count(n) AS total", label), label);
+    }
+    
+    @Override
+    public long countRelationships(String relationshipType) {
+        return count(String.format("MATCH ()-[r:%s]->() RETURN count(r) AS total", relationshipType), relationshipType);
+    }
+    
+    private long count(String cypher, String name) {
+        try (Session session = driver.session()) {
+            return session.run(cypher).single().get("total").asLong();
+        } catch (Exception e) {
+            log.error("统计图数据失败: name={}, error={}", name, e.getMessage(), e);
+            throw new RuntimeException("统计图数据失败: " + name, e);
+        }
+    }
+}
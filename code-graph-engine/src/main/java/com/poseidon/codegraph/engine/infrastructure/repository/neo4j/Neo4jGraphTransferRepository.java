@@ -0,0 +1,196 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.model.GraphTransferBatch;
+import com.poseidon.codegraph.engine.application.repository.GraphTransferRepository;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Neo4j 跨库迁移仓储实现
+ * 节点和关系按 properties() 整体读出、整体写回，不逐个列举属性，新增属性无需改动这里。
+ * 会话跟随当前路由，同一个实例既用于读源库也用于写目标库。
+ * 包按 ID 在仓库间共享、scopeId 只记录最后写入的范围，不按 scopeId 选取，而是按这些范围的类引用的包选取
+ */
+@Slf4j
+@Repository
+public class Neo4jGraphTransferRepository implements GraphTransferRepository {
+
+    private static final String PACKAGE_LABEL = "CodePackage";
+
+    private final Driver driver;
+
+    public Neo4jGraphTransferRepository(Driver driver) {
+        this.driver = driver;
+    }
+
+    @Override
+    public GraphTransferBatch readNodes(String label, List<Integer> scopeIds, String afterId, int batchSize) {
+        // 包的 scopeId 改为引用它的一个迁移范围，目标库中不留指向其他仓库范围的包
+        String cypher = PACKAGE_LABEL.equals(label) ? """
+            MATCH (n:CodePackage)
+            WHERE ($afterId IS NULL OR n.id > $afterId)
+              AND EXISTS { (n)-[:PACKAGE_TO_UNIT]->(u:CodeUnit) WHERE u.scopeId IN $scopeIds }
+            WITH n ORDER BY n.id ASC LIMIT $batchSize
+            CALL {
+                WITH n
+                MATCH (n)-[:PACKAGE_TO_UNIT]->(u:CodeUnit)
+                WHERE u.scopeId IN $scopeIds
+                RETURN min(u.scopeId) AS ownerScopeId
+            }
+            RETURN n.id AS id, n {.*, scopeId: ownerScopeId} AS props
+            """ : String.format("""
+            MATCH (n:%s)
+            WHERE n.scopeId IN $scopeIds AND ($afterId IS NULL OR n.id > $afterId)
+            WITH n ORDER BY n.id ASC LIMIT $batchSize
+            RETURN n.id AS id, properties(n) AS props
+            """, label);
+
+        try (Session session = driver.session()) {
+            List<Record> records = session.executeRead(tx -> tx.run(cypher, params(scopeIds, afterId, batchSize)).list());
+            GraphTransferBatch batch = new GraphTransferBatch();
+            for (Record record : records) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", record.get("id").asString());
+                row.put("props", record.get("props").asMap());
+                batch.getRows().add(row);
+                batch.setLastId(record.get("id").asString());
+            }
+            batch.setScanned(records.size());
+            return batch;
+        } catch (Exception e) {
+            log.error("读取迁移节点失败: label={}, afterId={}, error={}", label, afterId, e.getMessage(), e);
+            throw new RuntimeException("读取迁移节点失败: " + label, e);
+        }
+    }
+
+    @Override
+    public void writeNodes(String label, List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        String cypher = String.format("""
+            UNWIND $rows AS row
+            MERGE (n:%s {id: row.id})
+            SET n = row.props
+            """, label);
+
+        try (Session session = driver.session()) {
+            session.executeWrite(tx -> tx.run(cypher, Values.parameters("rows", rows)).consume());
+        } catch (Exception e) {
+            log.error("写入迁移节点失败: label={}, count={}, error={}", label, rows.size(), e.getMessage(), e);
+            throw new RuntimeException("写入迁移节点失败: " + label, e);
+        }
+    }
+
+    @Override
+    public GraphTransferBatch readRelationships(RelationshipType type, List<Integer> scopeIds, String afterId, int batchSize) {
+        // 起点是包（不属于范围）时按终点所在范围选取，终点以外的一端已随节点复制
+        String cypher = PACKAGE_LABEL.equals(type.getFromLabel()) ? String.format("""
+            MATCH (b:%s)
+            WHERE b.scopeId IN $scopeIds AND ($afterId IS NULL OR b.id > $afterId)
+            WITH b ORDER BY b.id ASC LIMIT $batchSize
+            OPTIONAL MATCH (a:%s)-[r:%s]->(b)
+            RETURN b.id AS anchorId, a.id AS fromId, b.id AS toId, properties(r) AS props, null AS toProps
+            """, type.getToLabel(), type.getFromLabel(), type.name()) : String.format("""
+            MATCH (a:%s)
+            WHERE a.scopeId IN $scopeIds AND ($afterId IS NULL OR a.id > $afterId)
+            WITH a ORDER BY a.id ASC LIMIT $batchSize
+            OPTIONAL MATCH (a)-[r:%s]->(b:%s)
+            RETURN a.id AS anchorId, a.id AS fromId, b.id AS toId, properties(r) AS props,
+                   CASE WHEN b.scopeId IS NULL THEN properties(b) END AS toProps
+            """, type.getFromLabel(), type.name(), type.getToLabel());
+
+        try (Session session = driver.session()) {
+            List<Record> records = session.executeRead(tx -> tx.run(cypher, params(scopeIds, afterId, batchSize)).list());
+            GraphTransferBatch batch = new GraphTransferBatch();
+            Set<String> anchorIds = new LinkedHashSet<>();
+            for (Record record : records) {
+                String anchorId = record.get("anchorId").asString();
+                anchorIds.add(anchorId);
+                if (batch.getLastId() == null || anchorId.compareTo(batch.getLastId()) > 0) {
+                    batch.setLastId(anchorId);
+                }
+                if (record.get("props").isNull()) {
+                    continue;
+                }
+                Map<String, Object> row = new HashMap<>();
+                row.put("fromId", record.get("fromId").asString());
+                row.put("toId", record.get("toId").asString());
+                row.put("props", record.get("props").asMap());
+                Value toProps = record.get("toProps");
+                row.put("toProps", toProps.isNull() ? null : toProps.asMap());
+                batch.getRows().add(row);
+            }
+            batch.setScanned(anchorIds.size());
+            return batch;
+        } catch (Exception e) {
+            log.error("读取迁移关系失败: type={}, afterId={}, error={}", type, afterId, e.getMessage(), e);
+            throw new RuntimeException("读取迁移关系失败: " + type, e);
+        }
+    }
+
+    @Override
+    public long writeRelationships(RelationshipType type, List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        // 占位符不属于任何范围，不随节点复制，在这里按需补建
+        String placeholderCypher = String.format("""
+            UNWIND $placeholders AS row
+            MERGE (b:%s {id: row.id})
+            ON CREATE SET b = row.props
+            """, type.getToLabel());
+        String relationshipCypher = String.format("""
+            UNWIND $rows AS row
+            MATCH (a:%s {id: row.fromId})
+            MATCH (b:%s {id: row.toId})
+            MERGE (a)-[r:%s]->(b)
+            SET r = row.props
+            RETURN count(r) AS count
+            """, type.getFromLabel(), type.getToLabel(), type.name());
+
+        Map<String, Map<String, Object>> placeholders = new LinkedHashMap<>();
+        List<Map<String, Object>> relationships = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object toProps = row.get("toProps");
+            if (toProps != null) {
+                placeholders.putIfAbsent((String) row.get("toId"), Map.of("id", row.get("toId"), "props", toProps));
+            }
+            relationships.add(Map.of("fromId", row.get("fromId"), "toId", row.get("toId"), "props", row.get("props")));
+        }
+
+        try (Session session = driver.session()) {
+            return session.executeWrite(tx -> {
+                if (!placeholders.isEmpty()) {
+                    tx.run(placeholderCypher, Values.parameters("placeholders", new ArrayList<>(placeholders.values()))).consume();
+                }
+                return tx.run(relationshipCypher, Values.parameters("rows", relationships)).single().get("count").asLong();
+            });
+        } catch (Exception e) {
+            log.error("写入迁移关系失败: type={}, count={}, error={}", type, rows.size(), e.getMessage(), e);
+            throw new RuntimeException("写入迁移关系失败: " + type, e);
+        }
+    }
+
+    private static Map<String, Object> params(List<Integer> scopeIds, String afterId, int batchSize) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("scopeIds", scopeIds);
+        params.put("afterId", afterId);
+        params.put("batchSize", batchSize);
+        return params;
+    }
+}
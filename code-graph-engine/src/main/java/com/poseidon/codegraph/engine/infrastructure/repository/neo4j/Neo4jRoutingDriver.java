@@ -0,0 +1,181 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.BaseSession;
+import org.neo4j.driver.BookmarkManager;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.ExecutableQuery;
+import org.neo4j.driver.Metrics;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.types.TypeSystem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 按路由上下文选择目标库的 Driver
+ *
+ * 打开会话时读取 {@link GraphRoute#current()}：目标库在其他服务器上时使用该服务器的 Driver，
+ * 会话未显式指定数据库时填入目标库名。仓储实现只依赖 Driver，不感知路由；
+ * executableQuery、指标等非会话操作使用默认库的 Driver
+ */
+@Slf4j
+public class Neo4jRoutingDriver implements Driver {
+
+    private final Driver defaultDriver;
+    private final Map<String, Target> targets;
+
+    /**
+     * @param targets 目标库名称 -> (Driver, 数据库名)，必须包含 {@link GraphRoute#DEFAULT}
+     */
+    public Neo4jRoutingDriver(Driver defaultDriver, Map<String, Target> targets) {
+        if (!targets.containsKey(GraphRoute.DEFAULT)) {
+            throw new IllegalArgumentException("路由目标缺少默认库");
+        }
+        this.defaultDriver = defaultDriver;
+        this.targets = new LinkedHashMap<>(targets);
+    }
+
+    /**
+     * 已配置的目标库名称（默认库在前）
+     */
+    public List<String> targetNames() {
+        List<String> names = new ArrayList<>();
+        names.add(GraphRoute.DEFAULT);
+        targets.keySet().stream().filter(name -> !GraphRoute.DEFAULT.equals(name)).forEach(names::add);
+        return names;
+    }
+
+    @Override
+    public <T extends BaseSession> T session(Class<T> sessionClass, SessionConfig sessionConfig, AuthToken sessionAuthToken) {
+        String name = GraphRoute.current();
+        Target target = targets.get(name);
+        if (target == null) {
+            throw new IllegalStateException("路由目标库未配置: " + name);
+        }
+        SessionConfig config = target.database == null || sessionConfig.database().isPresent()
+            ? sessionConfig
+            : withDatabase(sessionConfig, target.database);
+        return target.driver.session(sessionClass, config, sessionAuthToken);
+    }
+
+    @Override
+    public ExecutableQuery executableQuery(String query) {
+        return defaultDriver.executableQuery(query);
+    }
+
+    @Override
+    public BookmarkManager executableQueryBookmarkManager() {
+        return defaultDriver.executableQueryBookmarkManager();
+    }
+
+    @Override
+    public boolean isEncrypted() {
+        return defaultDriver.isEncrypted();
+    }
+
+    @Override
+    public void close() {
+        for (Driver driver : drivers()) {
+            try {
+                driver.close();
+            } catch (Exception e) {
+                log.warn("关闭 Neo4j Driver 失败: error={}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> closeAsync() {
+        return CompletableFuture.allOf(drivers().stream()
+            .map(driver -> driver.closeAsync().toCompletableFuture())
+            .toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public Metrics metrics() {
+        return defaultDriver.metrics();
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return defaultDriver.isMetricsEnabled();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public TypeSystem defaultTypeSystem() {
+        return defaultDriver.defaultTypeSystem();
+    }
+
+    @Override
+    public void verifyConnectivity() {
+        drivers().forEach(Driver::verifyConnectivity);
+    }
+
+    @Override
+    public CompletionStage<Void> verifyConnectivityAsync() {
+        return CompletableFuture.allOf(drivers().stream()
+            .map(driver -> driver.verifyConnectivityAsync().toCompletableFuture())
+            .toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public boolean verifyAuthentication(AuthToken authToken) {
+        return defaultDriver.verifyAuthentication(authToken);
+    }
+
+    @Override
+    public boolean supportsSessionAuth() {
+        return defaultDriver.supportsSessionAuth();
+    }
+
+    @Override
+    public boolean supportsMultiDb() {
+        return defaultDriver.supportsMultiDb();
+    }
+
+    @Override
+    public CompletionStage<Boolean> supportsMultiDbAsync() {
+        return defaultDriver.supportsMultiDbAsync();
+    }
+
+    private Set<Driver> drivers() {
+        Set<Driver> drivers = new LinkedHashSet<>();
+        drivers.add(defaultDriver);
+        targets.values().forEach(target -> drivers.add(target.driver));
+        return drivers;
+    }
+
+    private static SessionConfig withDatabase(SessionConfig config, String database) {
+        SessionConfig.Builder builder = SessionConfig.builder()
+            .withDatabase(database)
+            .withDefaultAccessMode(config.defaultAccessMode())
+            .withBookmarks(config.bookmarks());
+        config.fetchSize().ifPresent(builder::withFetchSize);
+        config.impersonatedUser().ifPresent(builder::withImpersonatedUser);
+        config.bookmarkManager().ifPresent(builder::withBookmarkManager);
+        return builder.build();
+    }
+
+    /**
+     * 目标库：所在服务器的 Driver 和数据库名（为 null 时使用服务器的默认数据库）
+     */
+    public static class Target {
+        private final Driver driver;
+        private final String database;
+
+        public Target(Driver driver, String database) {
+            this.driver = driver;
+            this.database = database;
+        }
+    }
+}
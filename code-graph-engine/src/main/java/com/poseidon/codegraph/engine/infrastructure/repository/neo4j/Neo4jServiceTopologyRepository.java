@@ -0,0 +1,309 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.model.CodeScope;
+import com.poseidon.codegraph.engine.application.model.ServiceDependencyDO;
+import com.poseidon.codegraph.engine.application.repository.GraphRoute;
+import com.poseidon.codegraph.engine.application.repository.ServiceTopologyRepository;
+import com.poseidon.codegraph.engine.domain.model.ServicePair;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Neo4j 服务拓扑仓储实现
+ * 
+ * 模型：(:Service {name})-[:DEPENDS_ON {target, outboundEndpoints, matchedEndpoints, updatedAt}]->(:Service)
+ * 服务名在端点写入时算好存入带索引的 service 属性（serviceName，未配置时取仓库地址），
+ * 统计一个服务对只需按 service 索引找到调用方端点再展开 MATCHES，不扫描全部 MATCHES 关系。
+ *
+ * 端点和 MATCHES 分布在各目标库，统计在当前路由的目标库中进行；Service 层只保存在默认库，
+ * 每个目标库的统计结果各占一条 DEPENDS_ON（按 target 区分），查询时按服务对汇总
+ */
+@Slf4j
+@Repository
+public class Neo4jServiceTopologyRepository implements ServiceTopologyRepository {
+    
+    private final Driver driver;
+    private final Neo4jCodeScopeRepository scopeRepository;
+    
+    public Neo4jServiceTopologyRepository(Driver driver, Neo4jCodeScopeRepository scopeRepository) {
+        this.driver = driver;
+        this.scopeRepository = scopeRepository;
+    }
+    
+    @Override
+    public List<ServicePair> findServicePairsByEndpointIds(List<String> endpointIds) {
+        if (endpointIds == null || endpointIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String cypher = """
+            UNWIND $ids AS id
+            MATCH (:CodeEndpoint {id: id})-[r:MATCHES]-(:CodeEndpoint)
+            WITH startNode(r).service AS fromService, endNode(r).service AS toService
+            WHERE fromService IS NOT NULL AND toService IS NOT NULL
+            RETURN DISTINCT fromService, toService
+            """;
+        
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher, Map.of("ids", endpointIds));
+            return parsePairs(result);
+        } catch (Exception e) {
+            log.error("查询端点涉及的服务对失败: count={}, error={}", endpointIds.size(), e.getMessage(), e);
+            throw new RuntimeException("查询端点涉及的服务对失败", e);
+        }
+    }
+    
+    @Override
+    public List<ServicePair> findServicePairsByScope(int scopeId) {
+        String cypher = """
+            MATCH (e:CodeEndpoint)-[r:MATCHES]-(:CodeEndpoint)
+            WHERE e.scopeId = $scopeId
+            WITH startNode(r).service AS fromService, endNode(r).service AS toService
+            WHERE fromService IS NOT NULL AND toService IS NOT NULL
+            RETURN DISTINCT fromService, toService
+            """;
+        
+        try (Session session = driver.session()) {
+            return parsePairs(session.run(cypher, Values.parameters("scopeId", scopeId)));
+        } catch (Exception e) {
+            log.error("查询范围涉及的服务对失败: scopeId={}, error={}", scopeId, e.getMessage(), e);
+            throw new RuntimeException("查询范围涉及的服务对失败: " + scopeId, e);
+        }
+    }
+    
+    @Override
+    public List<ServicePair> findAllServicePairs() {
+        String cypher = """
+            MATCH (o:CodeEndpoint)-[:MATCHES]->(i:CodeEndpoint)
+            WITH o.service AS fromService, i.service AS toService
+            WHERE fromService IS NOT NULL AND toService IS NOT NULL
+            RETURN DISTINCT fromService, toService
+            """;
+        // 已记录的本目标库依赖也一并返回，重新统计时清掉已不存在的服务对
+        String recordedCypher = """
+            MATCH (f:Service)-[d:DEPENDS_ON]->(t:Service)
+            WHERE coalesce(d.target, $defaultTarget) = $target
+            RETURN DISTINCT f.name AS fromService, t.name AS toService
+            """;
+        
+        String target = GraphRoute.current();
+        try (Session session = driver.session();
+             Session catalog = catalogSession()) {
+            Set<ServicePair> pairs = new LinkedHashSet<>(parsePairs(session.run(cypher)));
+            pairs.addAll(parsePairs(catalog.run(recordedCypher, Values.parameters(
+                "target", target, "defaultTarget", GraphRoute.DEFAULT))));
+            return new ArrayList<>(pairs);
+        } catch (Exception e) {
+            log.error("查询全部服务对失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("查询全部服务对失败", e);
+        }
+    }
+    
+    @Override
+    public void refreshDependencies(List<ServicePair> pairs) {
+        if (pairs == null || pairs.isEmpty()) {
+            return;
+        }
+        
+        // 1. 按当前 MATCHES 关系统计每个服务对（从调用方服务的端点出发，走 service 索引）
+        String countCypher = """
+            UNWIND $pairs AS pair
+            OPTIONAL MATCH (o:CodeEndpoint {service: pair.fromService})-[:MATCHES]->(i:CodeEndpoint {service: pair.toService})
+            RETURN pair.fromService AS fromService, pair.toService AS toService,
+                   count(DISTINCT o) AS outboundEndpoints, count(DISTINCT i) AS matchedEndpoints
+            """;
+        
+        // 2. 计数大于 0 的写入本目标库的 DEPENDS_ON（默认库；升级前没有 target 的依赖属于默认库，一并替换）
+        String upsertCypher = """
+            UNWIND $rows AS row
+            MERGE (f:Service {name: row.fromService})
+            MERGE (t:Service {name: row.toService})
+            MERGE (f)-[d:DEPENDS_ON {target: $target}]->(t)
+            SET d.outboundEndpoints = row.outboundEndpoints,
+                d.matchedEndpoints = row.matchedEndpoints,
+                d.updatedAt = timestamp()
+            WITH f, t
+            OPTIONAL MATCH (f)-[legacy:DEPENDS_ON]->(t)
+            WHERE legacy.target IS NULL AND $target = $defaultTarget
+            DELETE legacy
+            """;
+        
+        // 3. 计数为 0 的删除本目标库的 DEPENDS_ON，并清理孤立的 Service 节点
+        String removeCypher = """
+            UNWIND $rows AS row
+            MATCH (f:Service {name: row.fromService})-[d:DEPENDS_ON]->(t:Service {name: row.toService})
+            WHERE coalesce(d.target, $defaultTarget) = $target
+            DELETE d
+            WITH f, t
+            UNWIND [f, t] AS s
+            WITH DISTINCT s
+            WHERE NOT (s)--()
+            DELETE s
+            """;
+        
+        List<Map<String, Object>> pairMaps = pairs.stream()
+            .map(p -> {
+                Map<String, Object> map = new HashMap<>();
+                map.put("fromService", p.getFromService());
+                map.put("toService", p.getToService());
+                return map;
+            })
+            .collect(Collectors.toList());
+        
+        String target = GraphRoute.current();
+        try (Session session = driver.session();
+             Session catalog = catalogSession()) {
+            List<Map<String, Object>> upserts = new ArrayList<>();
+            List<Map<String, Object>> removals = new ArrayList<>();
+            session.executeRead(tx -> tx.run(countCypher, Map.of("pairs", pairMaps)).list()).forEach(record -> {
+                long outboundEndpoints = record.get("outboundEndpoints").asLong();
+                Map<String, Object> row = new HashMap<>();
+                row.put("fromService", record.get("fromService").asString());
+                row.put("toService", record.get("toService").asString());
+                row.put("outboundEndpoints", outboundEndpoints);
+                row.put("matchedEndpoints", record.get("matchedEndpoints").asLong());
+                (outboundEndpoints > 0 ? upserts : removals).add(row);
+            });
+            catalog.executeWriteWithoutResult(tx -> {
+                if (!upserts.isEmpty()) {
+                    tx.run(upsertCypher, Map.of("rows", upserts, "target", target, "defaultTarget", GraphRoute.DEFAULT));
+                }
+                if (!removals.isEmpty()) {
+                    tx.run(removeCypher, Map.of("rows", removals, "target", target, "defaultTarget", GraphRoute.DEFAULT));
+                }
+            });
+            log.info("刷新服务依赖: target={}, pairs={}, upserted={}, removed={}", 
+                target, pairMaps.size(), upserts.size(), removals.size());
+        } catch (Exception e) {
+            log.error("刷新服务依赖失败: pairs={}, error={}", pairs.size(), e.getMessage(), e);
+            throw new RuntimeException("刷新服务依赖失败", e);
+        }
+    }
+    
+    @Override
+    public long backfillEndpointServices(int batchSize) {
+        // 已迁移的端点上没有仓库地址，按范围从目录库取；未迁移的端点由范围迁移补齐
+        String scopesCypher = """
+            MATCH (e:CodeEndpoint)
+            WHERE e.service IS NULL AND e.scopeId IS NOT NULL
+            RETURN DISTINCT e.scopeId AS scopeId
+            """;
+        String batchCypher = """
+            MATCH (e:CodeEndpoint)
+            WHERE e.scopeId = $scopeId AND e.service IS NULL
+              AND (e.serviceName IS NOT NULL OR $service IS NOT NULL)
+            WITH e LIMIT $batchSize
+            SET e.service = coalesce(e.serviceName, $service)
+            RETURN count(e) AS count
+            """;
+        
+        try (Session session = driver.session()) {
+            List<Integer> scopeIds = session.run(scopesCypher).stream()
+                .map(record -> record.get("scopeId").asInt())
+                .collect(Collectors.toList());
+            long total = 0;
+            for (int scopeId : scopeIds) {
+                CodeScope scope = scopeRepository.findById(scopeId);
+                String service = ServicePair.serviceOf(null, scope != null ? scope.getGitRepoUrl() : null);
+                long batch;
+                do {
+                    batch = session.executeWrite(tx -> tx.run(batchCypher, Values.parameters(
+                            "scopeId", scopeId, "service", service, "batchSize", batchSize))
+                        .single().get("count").asLong());
+                    total += batch;
+                } while (batch > 0);
+            }
+            log.info("补齐端点所属服务: scopes={}, endpoints={}", scopeIds.size(), total);
+            return total;
+        } catch (Exception e) {
+            log.error("补齐端点所属服务失败: error={}", e.getMessage(), e);
+            throw new RuntimeException("补齐端点所属服务失败", e);
+        }
+    }
+    
+    @Override
+    public List<ServiceDependencyDO> findDependents(String serviceName) {
+        String cypher = """
+            MATCH (f:Service)-[d:DEPENDS_ON]->(t:Service {name: $name})
+            WITH f.name AS fromService, t.name AS toService,
+                 sum(d.outboundEndpoints) AS outboundEndpoints, sum(d.matchedEndpoints) AS matchedEndpoints,
+                 max(d.updatedAt) AS updatedAt
+            RETURN fromService, toService, outboundEndpoints, matchedEndpoints, updatedAt
+            ORDER BY outboundEndpoints DESC
+            """;
+        return queryDependencies(cypher, Map.of("name", serviceName), "查询服务调用方失败: " + serviceName);
+    }
+    
+    @Override
+    public List<ServiceDependencyDO> findDependencies(String serviceName) {
+        String cypher = """
+            MATCH (f:Service {name: $name})-[d:DEPENDS_ON]->(t:Service)
+            WITH f.name AS fromService, t.name AS toService,
+                 sum(d.outboundEndpoints) AS outboundEndpoints, sum(d.matchedEndpoints) AS matchedEndpoints,
+                 max(d.updatedAt) AS updatedAt
+            RETURN fromService, toService, outboundEndpoints, matchedEndpoints, updatedAt
+            ORDER BY outboundEndpoints DESC
+            """;
+        return queryDependencies(cypher, Map.of("name", serviceName), "查询服务依赖失败: " + serviceName);
+    }
+    
+    @Override
+    public List<ServiceDependencyDO> findAllDependencies() {
+        String cypher = """
+            MATCH (f:Service)-[d:DEPENDS_ON]->(t:Service)
+            WITH f.name AS fromService, t.name AS toService,
+                 sum(d.outboundEndpoints) AS outboundEndpoints, sum(d.matchedEndpoints) AS matchedEndpoints,
+                 max(d.updatedAt) AS updatedAt
+            RETURN fromService, toService, outboundEndpoints, matchedEndpoints, updatedAt
+            ORDER BY fromService, toService
+            """;
+        return queryDependencies(cypher, Map.of(), "查询全部服务依赖失败");
+    }
+    
+    // ========== 内部方法 ==========
+    
+    /**
+     * Service 层只保存在默认库，不随路由切换
+     */
+    private Session catalogSession() {
+        return GraphRoute.call(GraphRoute.DEFAULT, () -> driver.session());
+    }
+    
+    private List<ServiceDependencyDO> queryDependencies(String cypher, Map<String, Object> params, String errorMessage) {
+        try (Session session = catalogSession()) {
+            Result result = session.run(cypher, params);
+            return result.stream()
+                .map(this::toDependency)
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("{}: error={}", errorMessage, e.getMessage(), e);
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+    
+    private ServiceDependencyDO toDependency(Record record) {
+        ServiceDependencyDO dependency = new ServiceDependencyDO();
+        dependency.setFromService(record.get("fromService").asString());
+        dependency.setToService(record.get("toService").asString());
+        dependency.setOutboundEndpoints(record.get("outboundEndpoints").asLong(0L));
+        dependency.setMatchedEndpoints(record.get("matchedEndpoints").asLong(0L));
+        dependency.setUpdatedAt(record.get("updatedAt").isNull() ? null : record.get("updatedAt").asLong());
+        return dependency;
+    }
+    
+    private List<ServicePair> parsePairs(Result result) {
+        return result.stream()
+            .map(record -> new ServicePair(
+                record.get("fromService").asString(),
+                record.get("toService").asString()))
+            .collect(Collectors.toList());
+    }
+}
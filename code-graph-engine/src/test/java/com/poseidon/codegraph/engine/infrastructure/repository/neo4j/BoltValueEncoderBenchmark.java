@@ -0,0 +1,222 @@
+package com.poseidon.codegraph.engine.infrastructure.repository.neo4j;
+
+import com.poseidon.codegraph.engine.application.converter.CodeGraphConverter;
+import com.poseidon.codegraph.engine.application.model.CodeEndpointDO;
+import com.poseidon.codegraph.engine.application.model.CodeFunctionDO;
+import com.poseidon.codegraph.engine.application.model.CodeRelationshipDO;
+import com.poseidon.codegraph.engine.domain.model.CodeEndpoint;
+import com.poseidon.codegraph.engine.domain.model.CodeFunction;
+import com.poseidon.codegraph.engine.domain.model.CodeRelationship;
+import com.poseidon.codegraph.engine.domain.model.RelationshipType;
+import com.poseidon.codegraph.engine.domain.model.endpoint.HttpEndpoint;
+import com.sun.management.ThreadMXBean;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 写入参数转换的分配量基准（手动运行，位于测试源码中，不进入发布包，也不是测试用例）
+ *
+ * 对比同一批节点两条转换路径在当前线程上的分配字节数：
+ * - 原路径：领域对象 -> DO -> Map&lt;String, Object&gt; -> 驱动转换为 Value
+ * - 新路径：{@link BoltValueEncoder} 直接编码为 Value
+ *
+ * 运行：mvn test-compile 后 java -cp target/test-classes:target/classes:&lt;依赖&gt; com.poseidon.codegraph.engine.infrastructure.repository.neo4j.BoltValueEncoderBenchmark [节点数]
+ */
+public class BoltValueEncoderBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 20;
+    /**
+     * 范围 ID 在仓储中有内存缓存，基准里用常量代替
+     */
+    private static final ToIntBiFunction<String, String> SCOPE_IDS = (gitRepoUrl, gitBranch) -> 1;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        List<CodeFunction> functions = new ArrayList<>();
+        List<CodeEndpoint> endpoints = new ArrayList<>();
+        List<CodeRelationship> relationships = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            functions.add(function(i));
+            endpoints.add(endpoint(i));
+            relationships.add(relationship(i));
+        }
+
+        System.out.printf("节点数: %d（每类），单位: 字节/节点%n", count);
+        System.out.printf("%-14s %12s %12s %8s%n", "类型", "原路径", "编码器", "降幅");
+        report(threads, "CodeFunction", count,
+            () -> legacy(functions, f -> functionToMap(CodeGraphConverter.toDO(f))),
+            () -> BoltValueEncoder.encodeAll(functions, f -> BoltValueEncoder.encode(f, SCOPE_IDS)));
+        report(threads, "CodeEndpoint", count,
+            () -> legacy(endpoints, e -> endpointToMap(CodeGraphConverter.toDO(e))),
+            () -> BoltValueEncoder.encodeAll(endpoints, e -> BoltValueEncoder.encode(e, SCOPE_IDS)));
+        report(threads, "Relationship", count,
+            () -> legacy(relationships, r -> relationshipToMap(CodeGraphConverter.toDO(r))),
+            () -> BoltValueEncoder.encodeAll(relationships, BoltValueEncoder::encode));
+    }
+
+    private static void report(ThreadMXBean threads, String name, int count,
+                               Supplier<Value> legacy, Supplier<Value> encoder) {
+        double legacyBytes = measure(threads, legacy) / count;
+        double encoderBytes = measure(threads, encoder) / count;
+        System.out.printf("%-14s %12.0f %12.0f %7.0f%%%n", name, legacyBytes, encoderBytes,
+            100 * (1 - encoderBytes / legacyBytes));
+    }
+
+    private static double measure(ThreadMXBean threads, Supplier<Value> path) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += path.get().size();
+        }
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            sink += path.get().size();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return (double) allocated / MEASURE_ROUNDS;
+    }
+
+    /**
+     * 原路径：session.run 内部对 Map&lt;String, Object&gt; 参数调用 Values.value 做同样的转换
+     */
+    private static <T> Value legacy(List<T> items, Function<T, Map<String, Object>> toMap) {
+        List<Map<String, Object>> params = new ArrayList<>(items.size());
+        for (T item : items) {
+            params.add(toMap.apply(item));
+        }
+        return Values.value(params);
+    }
+
+    // ========== 样本数据 ==========
+
+    private static CodeFunction function(int i) {
+        CodeFunction function = new CodeFunction();
+        function.setId("com.example.service.OrderService.method" + i + "(java.lang.String,int)");
+        function.setName("method" + i);
+        function.setQualifiedName(function.getId());
+        function.setLanguage("java");
+        function.setProjectFilePath("src/main/java/com/example/service/OrderService.java");
+        function.setGitRepoUrl("https://git.example.com/shop/order.git");
+        function.setGitBranch("main");
+        function.setStartLine(i);
+        function.setEndLine(i + 10);
+        function.setSignature("method" + i + "(String, int)");
+        function.setReturnType("void");
+        function.setModifiers(List.of("public"));
+        function.setIsStatic(false);
+        function.setIsConstructor(false);
+        return function;
+    }
+
+    private static CodeEndpoint endpoint(int i) {
+        HttpEndpoint endpoint = new HttpEndpoint();
+        endpoint.setId("endpoint-" + i);
+        endpoint.setName("GET /api/orders/" + i);
+        endpoint.setLanguage("java");
+        endpoint.setProjectFilePath("src/main/java/com/example/web/OrderController.java");
+        endpoint.setGitRepoUrl("https://git.example.com/shop/order.git");
+        endpoint.setGitBranch("main");
+        endpoint.setDirection("inbound");
+        endpoint.setIsExternal(false);
+        endpoint.setHttpMethod("GET");
+        endpoint.setPath("/api/orders/" + i);
+        endpoint.setNormalizedPath("/api/orders/" + i);
+        endpoint.setParseLevel("FULL");
+        endpoint.setMatchIdentity(endpoint.computeMatchIdentity());
+        return endpoint;
+    }
+
+    private static CodeRelationship relationship(int i) {
+        CodeRelationship relationship = new CodeRelationship();
+        relationship.setId("call-" + i);
+        relationship.setFromNodeId("com.example.service.OrderService.method" + i + "()");
+        relationship.setToNodeId("com.example.repo.OrderRepository.find" + i + "()");
+        relationship.setRelationshipType(RelationshipType.CALLS);
+        relationship.setLineNumber(i);
+        relationship.setLanguage("java");
+        return relationship;
+    }
+
+    // ========== 原路径的 Map 转换（与改造前各仓储的 xxxToMap 一致） ==========
+
+    private static Map<String, Object> functionToMap(CodeFunctionDO function) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", function.getId());
+        map.put("name", function.getName());
+        map.put("qualifiedName", function.getQualifiedName());
+        map.put("language", function.getLanguage());
+        map.put("projectFilePath", function.getProjectFilePath());
+        map.put("gitRepoUrl", function.getGitRepoUrl());
+        map.put("gitBranch", function.getGitBranch());
+        map.put("startLine", function.getStartLine());
+        map.put("endLine", function.getEndLine());
+        map.put("signature", function.getSignature());
+        map.put("returnType", function.getReturnType());
+        map.put("modifiers", function.getModifiers() != null ? function.getModifiers() : new ArrayList<>());
+        map.put("isStatic", function.getIsStatic());
+        map.put("isAsync", function.getIsAsync());
+        map.put("isConstructor", function.getIsConstructor());
+        map.put("isPlaceholder", function.getIsPlaceholder() != null ? function.getIsPlaceholder() : false);
+        map.put("isDegraded", function.getIsDegraded() != null ? function.getIsDegraded() : false);
+        return map;
+    }
+
+    private static Map<String, Object> endpointToMap(CodeEndpointDO endpoint) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", endpoint.getId());
+        map.put("name", endpoint.getName());
+        map.put("qualifiedName", endpoint.getQualifiedName());
+        map.put("projectFilePath", endpoint.getProjectFilePath());
+        map.put("gitRepoUrl", endpoint.getGitRepoUrl());
+        map.put("gitBranch", endpoint.getGitBranch());
+        map.put("language", endpoint.getLanguage());
+        map.put("startLine", endpoint.getStartLine());
+        map.put("endLine", endpoint.getEndLine());
+        map.put("endpointType", endpoint.getEndpointType());
+        map.put("direction", endpoint.getDirection());
+        map.put("isExternal", endpoint.getIsExternal());
+        map.put("httpMethod", endpoint.getHttpMethod());
+        map.put("path", endpoint.getPath());
+        map.put("normalizedPath", endpoint.getNormalizedPath());
+        map.put("topic", endpoint.getTopic());
+        map.put("operation", endpoint.getOperation());
+        map.put("brokerType", endpoint.getBrokerType());
+        map.put("keyPattern", endpoint.getKeyPattern());
+        map.put("command", endpoint.getCommand());
+        map.put("dataStructure", endpoint.getDataStructure());
+        map.put("tableName", endpoint.getTableName());
+        map.put("dbOperation", endpoint.getDbOperation());
+        map.put("serviceName", endpoint.getServiceName());
+        map.put("parseLevel", endpoint.getParseLevel());
+        map.put("targetService", endpoint.getTargetService());
+        map.put("matchIdentity", endpoint.getMatchIdentity());
+        return map;
+    }
+
+    private static Map<String, Object> relationshipToMap(CodeRelationshipDO relationship) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", relationship.getId());
+        map.put("fromNodeId", relationship.getFromNodeId());
+        map.put("toNodeId", relationship.getToNodeId());
+        map.put("relationshipType", relationship.getRelationshipType());
+        map.put("lineNumber", relationship.getLineNumber());
+        map.put("callType", relationship.getCallType());
+        map.put("language", relationship.getLanguage());
+        return map;
+    }
+}